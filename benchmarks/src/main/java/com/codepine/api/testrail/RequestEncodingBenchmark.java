@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.model.CaseField;
+import com.codepine.api.testrail.model.Field;
+import com.codepine.api.testrail.model.Result;
+import com.codepine.api.testrail.model.ResultField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding of requests: building the URL with its query string and serializing the body of a POST request.
+ * <p>Unlike the other benchmarks, which live in {@code com.codepine.api.testrail.benchmark}, this one lives in the package
+ * of the client, since {@link Request#getUrl()} and {@link Request#getBody()} are package-private and it encodes requests
+ * without sending them.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestEncodingBenchmark {
+
+    @Param({"1", "250"})
+    public int resultCount;
+
+    private TestRail.Runs.List listRuns;
+    private TestRail.Cases.List listCases;
+    private TestRail.Results.AddListForCases addResults;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(64 * 1024);
+
+    @Setup
+    public void setUp() {
+        TestRail testRail = TestRail.builder("https://example.testrail.net", "user", "password").build();
+        listRuns = testRail.runs().list(1)
+                .createdAfter(new Date(1424641170000L))
+                .createdBy(Arrays.asList(1, 2, 3))
+                .isCompleted(false)
+                .limit(250)
+                .offset(500)
+                .suiteId(Arrays.asList(4, 5));
+        listCases = testRail.cases().list(1, 2, FieldSchema.of(Collections.<CaseField>emptyList()))
+                .sectionId(3)
+                .priorityId(Arrays.asList(1, 2))
+                .updatedAfter(new Date(1424641170000L));
+        List<Result> results = new ArrayList<>(resultCount);
+        for (int i = 0; i < resultCount; i++) {
+            Field.StepResult stepResult = new Field.StepResult().setContent("Open the login page").setExpected("The login page is shown").setActual("The login page is shown").setStatusId(1);
+            results.add(new Result().setCaseId(1000 + i).setStatusId(1 + i % 5).setComment("Executed by the nightly build " + i).setElapsed("1m 5s").setVersion("2.0." + i)
+                    .addCustomField("step_results", Collections.singletonList(stepResult)));
+        }
+        addResults = testRail.results().addForCases(1, results, FieldSchema.of(Collections.<ResultField>emptyList()));
+    }
+
+    @Benchmark
+    public String getUrlOfListRuns() {
+        return listRuns.getUrl();
+    }
+
+    @Benchmark
+    public String getUrlOfListCases() {
+        return listCases.getUrl();
+    }
+
+    @Benchmark
+    public int serializeAddResultsForCases() throws IOException {
+        body.reset();
+        addResults.getBody().writeTo(body);
+        return body.size();
+    }
+}
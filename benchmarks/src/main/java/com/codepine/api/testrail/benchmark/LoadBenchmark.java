@@ -0,0 +1,381 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.benchmark;
+
+import com.codepine.api.testrail.TestRail;
+import com.codepine.api.testrail.model.Result;
+import com.codepine.api.testrail.standin.FixtureGenerator;
+import com.codepine.api.testrail.standin.StandInServer;
+import com.codepine.api.testrail.transport.HttpTransport;
+import com.codepine.api.testrail.transport.PooledHttpTransport;
+import com.codepine.api.testrail.transport.UrlConnectionTransport;
+import com.google.common.base.Splitter;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Load benchmark driving a mix of client operations from many threads against a {@link StandInServer} over real
+ * sockets, for sizing connection pools and validating transports end to end.
+ * <p>Unlike the JMH benchmarks, it runs as long-lived workers sharing one {@link TestRail} client and reports, for the
+ * measurement period only, requests per second and latency percentiles per operation, the bytes allocated by the worker
+ * threads per request, and the number of connections the stand-in received requests on. Allocations of the stand-in
+ * threads are not included.</p>
+ * <pre>
+ * java -cp target/benchmarks.jar com.codepine.api.testrail.benchmark.LoadBenchmark --threads=32 --mix=70,20,10 --transport=pooled
+ * </pre>
+ * <p>Options, all optional:</p>
+ * <ul>
+ * <li>{@code --threads}: the number of worker threads; defaults to 16</li>
+ * <li>{@code --mix}: the percentages of {@code results().addForCase}, {@code tests().list} and {@code runs().get}; defaults to 70,20,10</li>
+ * <li>{@code --transport}: {@code pooled} or {@code url}; defaults to pooled</li>
+ * <li>{@code --connections}: the maximum connections of the pooled transport; defaults to 10</li>
+ * <li>{@code --latency}: the latency in milliseconds the stand-in adds, as a value or a min-max range; defaults to 0</li>
+ * <li>{@code --tests}: the number of tests in the run the operations use; defaults to 250</li>
+ * <li>{@code --warmup} and {@code --duration}: the warmup and measurement periods in seconds; default to 10 and 30</li>
+ * <li>{@code --seed}: the seed of the fixtures and of the operations each thread picks; defaults to 42</li>
+ * </ul>
+ */
+public final class LoadBenchmark {
+
+    private static final int RUN_ID = 1;
+
+    private LoadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        FixtureGenerator generator = FixtureGenerator.builder().seed(options.seed).build();
+        StandInServer.Builder serverBuilder = StandInServer.builder().threads(Math.max(32, options.threads)).seed(options.seed);
+        if (options.maxLatencyMillis > 0) {
+            serverBuilder.latency(options.minLatencyMillis, options.maxLatencyMillis, TimeUnit.MILLISECONDS);
+        }
+        try (StandInServer server = serverBuilder.build();
+             HttpTransport transport = options.createTransport()) {
+            generator.populate(server.getState(), options.tests, options.tests);
+            TestRail testRail = TestRail.builder(server.getEndPoint(), "user", "password").transport(transport).build();
+            System.out.printf("Running %d threads with mix %s over %s transport: %ds warmup, %ds measurement%n", options.threads,
+                    Arrays.toString(options.mix), options.transport, options.warmupSeconds, options.durationSeconds);
+
+            long measurementStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+            long measurementEnd = measurementStart + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+            CountDownLatch done = new CountDownLatch(options.threads);
+            List<Worker> workers = new ArrayList<>();
+            for (int i = 0; i < options.threads; i++) {
+                Worker worker = new Worker(testRail, options, new Random(options.seed + i), measurementStart, measurementEnd, done);
+                workers.add(worker);
+                Thread thread = new Thread(worker, "load-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            done.await();
+            report(workers, options, server.getStats(), transport);
+        }
+    }
+
+    private static void report(List<Worker> workers, Options options, StandInServer.Stats serverStats, HttpTransport transport) {
+        Map<Operation, LatencyRecorder> latencies = new EnumMap<>(Operation.class);
+        LatencyRecorder all = new LatencyRecorder();
+        long errors = 0;
+        long allocatedBytes = 0;
+        boolean allocationsKnown = true;
+        for (Worker worker : workers) {
+            for (Map.Entry<Operation, LatencyRecorder> latency : worker.latencies.entrySet()) {
+                if (!latencies.containsKey(latency.getKey())) {
+                    latencies.put(latency.getKey(), new LatencyRecorder());
+                }
+                latencies.get(latency.getKey()).addAll(latency.getValue());
+                all.addAll(latency.getValue());
+            }
+            errors += worker.errors;
+            allocationsKnown &= worker.allocatedBytes >= 0;
+            allocatedBytes += worker.allocatedBytes;
+        }
+        System.out.printf("%n%-22s %10s %10s %9s %9s %9s %9s %9s%n", "operation", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<Operation, LatencyRecorder> latency : latencies.entrySet()) {
+            if (latency.getValue().size > 0) {
+                printRow(latency.getKey().description, latency.getValue(), options.durationSeconds);
+            }
+        }
+        printRow("all", all, options.durationSeconds);
+        System.out.printf("%nerrors: %d%n", errors);
+        System.out.printf("allocated per request (client threads): %s%n",
+                !allocationsKnown || all.size == 0 ? "n/a" : String.format("%,d bytes", allocatedBytes / all.size));
+        System.out.printf("stand-in: %d requests on %d connections, %d injected errors, %d rate limited%n",
+                serverStats.getRequests(), serverStats.getConnections(), serverStats.getInjectedErrors(), serverStats.getRateLimited());
+        if (transport instanceof PooledHttpTransport) {
+            System.out.printf("pool: %d idle connections at the end%n", ((PooledHttpTransport) transport).getAvailableConnections());
+        }
+    }
+
+    private static void printRow(String name, LatencyRecorder latency, int durationSeconds) {
+        latency.sort();
+        System.out.printf("%-22s %10d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, latency.size, (double) latency.size / durationSeconds,
+                latency.percentileMillis(50), latency.percentileMillis(90), latency.percentileMillis(99), latency.percentileMillis(99.9),
+                latency.percentileMillis(100));
+    }
+
+    /**
+     * Operation of the mix, executed against the run of the fixtures.
+     */
+    private enum Operation {
+        ADD_RESULT_FOR_CASE("results().addForCase") {
+            @Override
+            void execute(TestRail testRail, Random random, int caseCount) {
+                Result result = new Result().setStatusId(1 + random.nextInt(5)).setComment("Recorded by the load benchmark");
+                testRail.results().addForCase(RUN_ID, 1 + random.nextInt(caseCount), result).execute();
+            }
+        },
+        LIST_TESTS("tests().list") {
+            @Override
+            void execute(TestRail testRail, Random random, int caseCount) {
+                testRail.tests().list(RUN_ID).execute();
+            }
+        },
+        GET_RUN("runs().get") {
+            @Override
+            void execute(TestRail testRail, Random random, int caseCount) {
+                testRail.runs().get(RUN_ID).execute();
+            }
+        };
+
+        private final String description;
+
+        Operation(String description) {
+            this.description = description;
+        }
+
+        abstract void execute(TestRail testRail, Random random, int caseCount);
+    }
+
+    /**
+     * Thread executing operations picked by the mix until the end of the measurement period, recording what it
+     * executed during that period.
+     */
+    private static final class Worker implements Runnable {
+
+        private final TestRail testRail;
+        private final Options options;
+        private final Random random;
+        private final long measurementStart;
+        private final long measurementEnd;
+        private final CountDownLatch done;
+        private final Map<Operation, LatencyRecorder> latencies = new EnumMap<>(Operation.class);
+        private long errors;
+        private long allocatedBytes = -1;
+
+        Worker(TestRail testRail, Options options, Random random, long measurementStart, long measurementEnd, CountDownLatch done) {
+            this.testRail = testRail;
+            this.options = options;
+            this.random = random;
+            this.measurementStart = measurementStart;
+            this.measurementEnd = measurementEnd;
+            this.done = done;
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new LatencyRecorder());
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                long allocatedAtStart = -1;
+                long now = System.nanoTime();
+                while (now < measurementEnd) {
+                    boolean measuring = now >= measurementStart;
+                    if (measuring && allocatedAtStart < 0) {
+                        allocatedAtStart = allocatedBytes();
+                    }
+                    Operation operation = options.pick(random);
+                    long start = System.nanoTime();
+                    try {
+                        operation.execute(testRail, random, options.tests);
+                    } catch (RuntimeException e) {
+                        if (measuring) {
+                            errors++;
+                        }
+                    }
+                    now = System.nanoTime();
+                    if (measuring) {
+                        latencies.get(operation).add(now - start);
+                    }
+                }
+                long allocatedAtEnd = allocatedBytes();
+                if (allocatedAtStart >= 0 && allocatedAtEnd >= 0) {
+                    allocatedBytes = allocatedAtEnd - allocatedAtStart;
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private static long allocatedBytes() {
+            java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean hotSpotThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+                if (hotSpotThreadMXBean.isThreadAllocatedMemorySupported() && hotSpotThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+                    return hotSpotThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Latencies in nanoseconds kept in full, so that percentiles are exact.
+     */
+    private static final class LatencyRecorder {
+
+        private long[] nanos = new long[1024];
+        private int size;
+
+        void add(long latencyNanos) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = latencyNanos;
+        }
+
+        void addAll(LatencyRecorder other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.nanos[i]);
+            }
+        }
+
+        void sort() {
+            Arrays.sort(nanos, 0, size);
+        }
+
+        double percentileMillis(double percentile) {
+            if (size == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * size) - 1;
+            return nanos[Math.max(0, Math.min(size - 1, index))] / 1e6;
+        }
+    }
+
+    /**
+     * Options of the benchmark, parsed from {@code --name=value} arguments.
+     */
+    private static final class Options {
+
+        private int threads = 16;
+        private int[] mix = {70, 20, 10};
+        private String transport = "pooled";
+        private int connections = 10;
+        private long minLatencyMillis;
+        private long maxLatencyMillis;
+        private int tests = 250;
+        private int warmupSeconds = 10;
+        private int durationSeconds = 30;
+        private long seed = 42;
+
+        Options(String[] args) {
+            for (String arg : args) {
+                checkArgument(arg.startsWith("--") && arg.contains("="), "Options should be given as --name=value: " + arg);
+                String name = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+                switch (name) {
+                    case "threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "mix":
+                        List<String> percentages = Splitter.on(',').trimResults().splitToList(value);
+                        checkArgument(percentages.size() == Operation.values().length, "mix should have a percentage for each of " + Arrays.toString(Operation.values()));
+                        mix = new int[percentages.size()];
+                        for (int i = 0; i < mix.length; i++) {
+                            mix[i] = Integer.parseInt(percentages.get(i));
+                        }
+                        break;
+                    case "transport":
+                        checkArgument(value.equals("pooled") || value.equals("url"), "transport should be pooled or url");
+                        transport = value;
+                        break;
+                    case "connections":
+                        connections = Integer.parseInt(value);
+                        break;
+                    case "latency":
+                        int separator = value.indexOf('-');
+                        minLatencyMillis = Long.parseLong(separator < 0 ? value : value.substring(0, separator));
+                        maxLatencyMillis = separator < 0 ? minLatencyMillis : Long.parseLong(value.substring(separator + 1));
+                        break;
+                    case "tests":
+                        tests = Integer.parseInt(value);
+                        break;
+                    case "warmup":
+                        warmupSeconds = Integer.parseInt(value);
+                        break;
+                    case "duration":
+                        durationSeconds = Integer.parseInt(value);
+                        break;
+                    case "seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option --" + name);
+                }
+            }
+            checkArgument(threads > 0, "threads should be positive");
+            checkArgument(connections > 0, "connections should be positive");
+            checkArgument(tests > 0, "tests should be positive");
+            checkArgument(warmupSeconds >= 0, "warmup should not be negative");
+            checkArgument(durationSeconds > 0, "duration should be positive");
+            int total = 0;
+            for (int percentage : mix) {
+                checkArgument(percentage >= 0, "mix percentages should not be negative");
+                total += percentage;
+            }
+            checkArgument(total == 100, "mix percentages should add up to 100");
+        }
+
+        Operation pick(Random random) {
+            int percentile = random.nextInt(100);
+            for (int i = 0; i < mix.length; i++) {
+                percentile -= mix[i];
+                if (percentile < 0) {
+                    return Operation.values()[i];
+                }
+            }
+            throw new IllegalStateException("mix should add up to 100");
+        }
+
+        HttpTransport createTransport() {
+            if (transport.equals("url")) {
+                return new UrlConnectionTransport();
+            }
+            return PooledHttpTransport.builder().maxConnections(connections).maxConnectionsPerRoute(connections).build();
+        }
+    }
+}
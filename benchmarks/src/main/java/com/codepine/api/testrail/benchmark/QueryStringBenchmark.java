@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.benchmark;
+
+import com.codepine.api.testrail.TestRail;
+import com.codepine.api.testrail.internal.QueryParameterEncoder;
+import com.codepine.api.testrail.internal.UnixTimestampModule;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares building the query string of a request through a JSON round trip, as done up to v2.0.1, with the compiled
+ * {@link QueryParameterEncoder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryStringBenchmark {
+
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategy.CAMEL_CASE_TO_LOWER_CASE_WITH_UNDERSCORES)
+            .configure(MapperFeature.DEFAULT_VIEW_INCLUSION, false)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .registerModule(new UnixTimestampModule());
+
+    private TestRail.Runs.List request;
+
+    @Setup
+    public void setUp() {
+        TestRail testRail = TestRail.builder("https://example.testrail.net", "user", "password").build();
+        request = testRail.runs().list(1)
+                .createdAfter(new Date(1424641170000L))
+                .createdBy(Arrays.asList(1, 2, 3))
+                .isCompleted(false)
+                .limit(250)
+                .offset(500)
+                .suiteId(Arrays.asList(4, 5));
+    }
+
+    @Benchmark
+    public String jsonRoundTrip() throws IOException {
+        String queryParamJson = JSON.writerWithView(request.getClass()).writeValueAsString(request);
+        return JSON.readValue(queryParamJson, QueryParameterString.class).toString();
+    }
+
+    @Benchmark
+    public String compiledEncoder() {
+        StringBuilder out = new StringBuilder(128);
+        QueryParameterEncoder.forClass(request.getClass()).encode(request, out);
+        return out.toString();
+    }
+
+    /**
+     * Sink used by the JSON round trip, equivalent to the removed {@code internal.QueryParameterString}.
+     */
+    public static final class QueryParameterString {
+
+        private final StringBuilder queryParamStringBuilder = new StringBuilder();
+
+        @JsonAnySetter
+        public void addQueryParameter(String key, String value) throws UnsupportedEncodingException {
+            queryParamStringBuilder.append('&').append(URLEncoder.encode(key, "UTF-8")).append('=').append(URLEncoder.encode(value, "UTF-8"));
+        }
+
+        @Override
+        public String toString() {
+            return queryParamStringBuilder.toString();
+        }
+    }
+}
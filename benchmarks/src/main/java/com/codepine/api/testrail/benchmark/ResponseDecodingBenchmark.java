@@ -0,0 +1,176 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.benchmark;
+
+import com.codepine.api.testrail.FieldSchema;
+import com.codepine.api.testrail.TestRail;
+import com.codepine.api.testrail.model.CaseField;
+import com.codepine.api.testrail.model.Field;
+import com.codepine.api.testrail.model.ResultField;
+import com.codepine.api.testrail.standin.FixtureGenerator;
+import com.codepine.api.testrail.transport.HttpRequest;
+import com.codepine.api.testrail.transport.HttpResponse;
+import com.codepine.api.testrail.transport.HttpTransport;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures deserialization of list responses of cases, results, plans and tests at several sizes, through the same
+ * request pipeline as a real call but with a transport answering from memory. Responses are generated by the
+ * {@link FixtureGenerator} with its default seed, so they are the same from run to run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseDecodingBenchmark {
+
+    @Param({"CASE", "RESULT", "PLAN", "TEST"})
+    public Entity entity;
+
+    @Param({"10", "1000", "10000"})
+    public int size;
+
+    private final FixedResponseTransport transport = new FixedResponseTransport();
+    private TestRail testRail;
+    private FieldSchema<CaseField> caseFieldSchema;
+    private FieldSchema<ResultField> resultFieldSchema;
+
+    @Setup
+    public void setUp() {
+        testRail = TestRail.builder("https://example.testrail.net", "user", "password").transport(transport).build();
+        caseFieldSchema = FieldSchema.of(Arrays.asList(
+                (CaseField) new CaseField().setName("preconds").setSystemName("custom_preconds").setTypeId(Field.Type.TEXT.ordinal()),
+                (CaseField) new CaseField().setName("separated_steps").setSystemName("custom_separated_steps").setTypeId(Field.Type.STEPS.ordinal()),
+                (CaseField) new CaseField().setName("automation").setSystemName("custom_automation").setTypeId(Field.Type.DROPDOWN.ordinal())));
+        resultFieldSchema = FieldSchema.of(Collections.singletonList(
+                (ResultField) new ResultField().setName("step_results").setSystemName("custom_step_results").setTypeId(Field.Type.STEP_RESULTS.ordinal())));
+        transport.body = FixtureGenerator.toByteArray(entity.generate(FixtureGenerator.builder().build(), size));
+    }
+
+    @Benchmark
+    public List<?> deserializeList() {
+        switch (entity) {
+            case CASE:
+                return testRail.cases().list(1, caseFieldSchema).execute();
+            case RESULT:
+                return testRail.results().listForRun(1, resultFieldSchema).execute();
+            case PLAN:
+                return testRail.plans().list(1).execute();
+            case TEST:
+                return testRail.tests().list(1, caseFieldSchema).execute();
+            default:
+                throw new IllegalStateException("Unsupported entity " + entity);
+        }
+    }
+
+    /**
+     * Entity listed by the benchmark, with the fixtures of a list of them.
+     */
+    public enum Entity {
+        CASE {
+            @Override
+            Iterable<ObjectNode> generate(FixtureGenerator generator, int size) {
+                return generator.cases(size);
+            }
+        },
+        RESULT {
+            @Override
+            Iterable<ObjectNode> generate(FixtureGenerator generator, int size) {
+                return generator.results(1, size, 1, size);
+            }
+        },
+        PLAN {
+            @Override
+            Iterable<ObjectNode> generate(FixtureGenerator generator, int size) {
+                return generator.plans(size, 2);
+            }
+        },
+        TEST {
+            @Override
+            Iterable<ObjectNode> generate(FixtureGenerator generator, int size) {
+                return generator.tests(1, 1, size, size);
+            }
+        };
+
+        abstract Iterable<ObjectNode> generate(FixtureGenerator generator, int size);
+    }
+
+    /**
+     * Transport answering every request with the same body, without any I/O.
+     */
+    private static final class FixedResponseTransport implements HttpTransport {
+
+        private byte[] body;
+
+        @Override
+        public HttpResponse execute(HttpRequest request) {
+            final InputStream responseBody = new ByteArrayInputStream(body);
+            return new HttpResponse() {
+                @Override
+                public int getStatusCode() {
+                    return 200;
+                }
+
+                @Override
+                public String getHeader(String name) {
+                    return null;
+                }
+
+                @Override
+                public InputStream getBody() {
+                    return responseBody;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
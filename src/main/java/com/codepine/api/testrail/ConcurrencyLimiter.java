@@ -0,0 +1,355 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.google.common.collect.ImmutableMap;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Limit of requests in flight to TestRail which adapts to the latency TestRail responds with.
+ * <p>The limit grows additively by one request per limit's worth of successful responses while the limit is in use
+ * and the latency stays close to its baseline, and shrinks multiplicatively when the latency rises above the baseline
+ * by more than the tolerance or TestRail responds with {@code 429}, a server error or not at all (AIMD). Each endpoint
+ * has its own baseline, the lowest latency observed for it, slowly drifting up to recent latencies, so it follows a
+ * server which got slower for good. Latency is judged once per window of responses, by the median of their latencies
+ * relative to the baselines of their endpoints, so neither a single slow response nor a mix of cheap and expensive
+ * endpoints shrinks the limit.</p>
+ * <p>Requests over the limit wait in arrival order for a request in flight to complete, and are rejected with a
+ * {@link RejectedExecutionException} if none did within the maximum wait.</p>
+ * <p>Instances are thread safe.</p>
+ *
+ * @see TestRail.Builder#concurrencyLimiter(ConcurrencyLimiter)
+ */
+public final class ConcurrencyLimiter {
+
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final long maxWaitNanos;
+    private final double[] windowRatios;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition permitAvailable = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private final Map<String, Double> baselineNanos = new HashMap<>();
+    private int windowCount;
+    private int windowUtilized;
+    private long rejected;
+
+    private ConcurrencyLimiter(final Builder builder) {
+        minLimit = builder.minLimit;
+        maxLimit = builder.maxLimit;
+        backoffRatio = builder.backoffRatio;
+        latencyTolerance = builder.latencyTolerance;
+        maxWaitNanos = builder.maxWaitNanos;
+        windowRatios = new double[builder.window];
+        limit = builder.initialLimit;
+    }
+
+    /**
+     * Get a builder for a concurrency limiter.
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get the current limit of requests in flight.
+     *
+     * @return the limit
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get a snapshot of the statistics of this limiter.
+     *
+     * @return the statistics
+     */
+    public Stats getStats() {
+        lock.lock();
+        try {
+            ImmutableMap.Builder<String, Long> baselineLatencyNanos = ImmutableMap.builder();
+            for (Map.Entry<String, Double> baseline : baselineNanos.entrySet()) {
+                baselineLatencyNanos.put(baseline.getKey(), baseline.getValue().longValue());
+            }
+            return new Stats((int) limit, inFlight, rejected, baselineLatencyNanos.build());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until a request can be sent.
+     *
+     * @return the time the request was let through, to measure the latency passed to {@link #release(String, long, boolean)} from
+     * @throws InterruptedException       if interrupted while waiting
+     * @throws RejectedExecutionException if no request completed within the maximum wait
+     */
+    long acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            long remainingNanos = maxWaitNanos;
+            while (inFlight >= (int) limit) {
+                if (remainingNanos <= 0) {
+                    rejected++;
+                    throw new RejectedExecutionException("Limit of " + (int) limit + " requests in flight reached");
+                }
+                remainingNanos = permitAvailable.awaitNanos(remainingNanos);
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Complete a request and adapt the limit to its outcome.
+     *
+     * @param endpoint     the endpoint the request was sent to, whose latency baseline it is compared to
+     * @param latencyNanos the time from {@link #acquire()} until TestRail responded or the request failed, in nanoseconds
+     * @param overloaded   whether TestRail signalled overload, e.g. with {@code 429} or a server error
+     */
+    void release(String endpoint, long latencyNanos, boolean overloaded) {
+        lock.lock();
+        try {
+            checkState(inFlight > 0, "no request in flight");
+            boolean utilized = inFlight * 2 >= (int) limit;
+            inFlight--;
+            int previousLimit = (int) limit;
+            if (overloaded) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else {
+                windowRatios[windowCount++] = latencyNanos / updateBaseline(endpoint, latencyNanos);
+                if (utilized) {
+                    windowUtilized++;
+                }
+                if (windowCount == windowRatios.length) {
+                    adaptToWindow();
+                }
+            }
+            if ((int) limit > previousLimit) {
+                permitAvailable.signalAll();
+            } else {
+                permitAvailable.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double updateBaseline(String endpoint, long latencyNanos) {
+        Double baseline = baselineNanos.get(endpoint);
+        if (baseline == null || latencyNanos < baseline) {
+            baseline = (double) Math.max(latencyNanos, 1);
+        } else {
+            baseline += (latencyNanos - baseline) * BASELINE_DRIFT;
+        }
+        baselineNanos.put(endpoint, baseline);
+        return baseline;
+    }
+
+    private void adaptToWindow() {
+        Arrays.sort(windowRatios);
+        double medianRatio = windowRatios[windowRatios.length / 2];
+        if (medianRatio > latencyTolerance) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else {
+            limit = Math.min(maxLimit, limit + windowUtilized / limit);
+        }
+        windowCount = 0;
+        windowUtilized = 0;
+    }
+
+    /**
+     * Snapshot of the statistics of a {@link ConcurrencyLimiter}.
+     */
+    @Value
+    public static class Stats {
+        /**
+         * Current limit of requests in flight.
+         */
+        private final int limit;
+        /**
+         * Number of requests in flight.
+         */
+        private final int inFlight;
+        /**
+         * Number of requests rejected so far because the limit was reached for longer than the maximum wait.
+         */
+        private final long rejected;
+        /**
+         * Baseline latency the latency of requests is compared to by endpoint, in nanoseconds.
+         */
+        private final Map<String, Long> baselineLatencyNanos;
+    }
+
+    /**
+     * Builder for {@code ConcurrencyLimiter}.
+     */
+    public static class Builder {
+
+        private int initialLimit = 10;
+        private int minLimit = 1;
+        private int maxLimit = 200;
+        private double backoffRatio = 0.9;
+        private double latencyTolerance = 2;
+        private int window = 20;
+        private long maxWaitNanos = TimeUnit.SECONDS.toNanos(60);
+
+        private Builder() {
+        }
+
+        /**
+         * Set the limit to start with. Defaults to 10.
+         *
+         * @param initialLimit the initial limit
+         * @return this for chaining
+         * @throws IllegalArgumentException if initialLimit is not positive
+         */
+        public Builder initialLimit(final int initialLimit) {
+            checkArgument(initialLimit > 0, "initialLimit should be positive");
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         * Set the lowest limit to shrink to. Defaults to 1.
+         *
+         * @param minLimit the minimum limit
+         * @return this for chaining
+         * @throws IllegalArgumentException if minLimit is not positive
+         */
+        public Builder minLimit(final int minLimit) {
+            checkArgument(minLimit > 0, "minLimit should be positive");
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        /**
+         * Set the highest limit to grow to. Defaults to 200.
+         *
+         * @param maxLimit the maximum limit
+         * @return this for chaining
+         * @throws IllegalArgumentException if maxLimit is not positive
+         */
+        public Builder maxLimit(final int maxLimit) {
+            checkArgument(maxLimit > 0, "maxLimit should be positive");
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * Set the ratio the limit is multiplied with when TestRail is overloaded. Defaults to 0.9.
+         *
+         * @param backoffRatio the backoff ratio
+         * @return this for chaining
+         * @throws IllegalArgumentException if backoffRatio is not between 0.5 and 1, exclusive
+         */
+        public Builder backoffRatio(final double backoffRatio) {
+            checkArgument(backoffRatio >= 0.5 && backoffRatio < 1, "backoffRatio should be between 0.5 and 1");
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * Set how many times the baseline latency the median request of a window may take before it is considered a sign
+         * of overload. Defaults to 2.
+         *
+         * @param latencyTolerance the latency tolerance
+         * @return this for chaining
+         * @throws IllegalArgumentException if latencyTolerance is not greater than 1
+         */
+        public Builder latencyTolerance(final double latencyTolerance) {
+            checkArgument(latencyTolerance > 1, "latencyTolerance should be greater than 1");
+            this.latencyTolerance = latencyTolerance;
+            return this;
+        }
+
+        /**
+         * Set the number of responses whose latency is judged together before the limit is adapted to it. Defaults to 20.
+         *
+         * @param window the number of responses per window
+         * @return this for chaining
+         * @throws IllegalArgumentException if window is not positive
+         */
+        public Builder window(final int window) {
+            checkArgument(window > 0, "window should be positive");
+            this.window = window;
+            return this;
+        }
+
+        /**
+         * Set the maximum time a request waits for the number of requests in flight to drop under the limit. Defaults to 60 seconds.
+         *
+         * @param maxWait the maximum wait
+         * @param unit    the unit of maxWait
+         * @return this for chaining
+         * @throws IllegalArgumentException if maxWait is negative
+         */
+        public Builder maxWait(final long maxWait, @NonNull final TimeUnit unit) {
+            checkArgument(maxWait >= 0, "maxWait should not be negative");
+            this.maxWaitNanos = unit.toNanos(maxWait);
+            return this;
+        }
+
+        /**
+         * Build a concurrency limiter.
+         *
+         * @return the concurrency limiter
+         * @throws IllegalStateException if the limits are inconsistent
+         */
+        public ConcurrencyLimiter build() {
+            checkState(minLimit <= initialLimit && initialLimit <= maxLimit, "limits should satisfy minLimit <= initialLimit <= maxLimit");
+            return new ConcurrencyLimiter(this);
+        }
+    }
+
+}
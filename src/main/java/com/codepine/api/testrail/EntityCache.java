@@ -0,0 +1,288 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.model.Case;
+import com.codepine.api.testrail.model.Plan;
+import com.codepine.api.testrail.model.Run;
+import com.codepine.api.testrail.model.Section;
+import com.google.common.base.Objects;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Least recently used cache of cases, runs, plans and sections fetched by ID.
+ * <p>Getting an entity by ID answers from the cache if it holds the entity, and caches the response otherwise.
+ * Updating or closing an entity through the same {@code TestRail} instance caches the entity returned by TestRail,
+ * deleting it, or adding, updating or deleting an entry of a plan, evicts it. Entities changed by other means, e.g. the
+ * counts of a run after adding results, stay as cached until evicted or invalidated.</p>
+ * <p>Cached entities are shared by all callers and should not be modified; modify a copy to update an entity.</p>
+ * <p>Instances are thread safe.</p>
+ *
+ * @see TestRail.Builder#entityCache(EntityCache)
+ */
+public final class EntityCache {
+
+    private final int maximumSize;
+    private final Map<Key, Entry> entries;
+    private long writeStamp;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private EntityCache(final Builder builder) {
+        maximumSize = builder.maximumSize;
+        entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > maximumSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get a builder for an entity cache.
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Invalidate a cached entity.
+     *
+     * @param entityType the type of the entity
+     * @param id         the ID of the entity
+     */
+    public void invalidate(@NonNull final EntityType entityType, final int id) {
+        invalidate(new Key(entityType, id));
+    }
+
+    /**
+     * Invalidate all cached entities of a type.
+     *
+     * @param entityType the type of the entities
+     */
+    public synchronized void invalidateAll(@NonNull final EntityType entityType) {
+        Iterator<Key> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getEntityType() == entityType) {
+                iterator.remove();
+            }
+        }
+        writeStamp++;
+    }
+
+    /**
+     * Invalidate all cached entities.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        writeStamp++;
+    }
+
+    /**
+     * Get a snapshot of the statistics of this cache.
+     *
+     * @return the statistics
+     */
+    public synchronized Stats getStats() {
+        return new Stats(entries.size(), hits, misses, evictions);
+    }
+
+    /**
+     * Get the cached entity.
+     *
+     * @param key                          the key of the entity
+     * @param supplementForDeserialization the supplement the entity has to have been deserialized with
+     * @return the entity or null if it is not cached with the same supplement
+     */
+    synchronized Object get(Key key, Object supplementForDeserialization) {
+        Entry entry = entries.get(key);
+        if (entry != null && Objects.equal(entry.supplementForDeserialization, supplementForDeserialization)) {
+            hits++;
+            return entry.entity;
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Invalidate a cached entity about to be written.
+     *
+     * @param key the key of the entity
+     */
+    synchronized void invalidate(Key key) {
+        entries.remove(key);
+        writeStamp++;
+    }
+
+    /**
+     * Get the stamp of the last write, to pass to {@link #put(Key, Object, Object, long)} for an entity being read.
+     *
+     * @return the write stamp
+     */
+    synchronized long getWriteStamp() {
+        return writeStamp;
+    }
+
+    /**
+     * Cache an entity read, unless any entity was written since the read started, as the entity read might be stale.
+     *
+     * @param key                          the key of the entity
+     * @param entity                       the entity
+     * @param supplementForDeserialization the supplement the entity was deserialized with
+     * @param readStamp                    the write stamp from before the read
+     */
+    synchronized void put(Key key, Object entity, Object supplementForDeserialization, long readStamp) {
+        if (readStamp == writeStamp && key.getEntityType().getEntityClass().isInstance(entity)) {
+            entries.put(key, new Entry(entity, supplementForDeserialization));
+        }
+    }
+
+    /**
+     * Cache an entity returned by a write, or evict the entity if the write did not return it.
+     *
+     * @param key                          the key of the entity
+     * @param entity                       the entity returned by the write
+     * @param supplementForDeserialization the supplement the entity was deserialized with
+     */
+    synchronized void write(Key key, Object entity, Object supplementForDeserialization) {
+        writeStamp++;
+        if (key.getEntityType().getEntityClass().isInstance(entity)) {
+            entries.put(key, new Entry(entity, supplementForDeserialization));
+        } else {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Types of entities which can be cached.
+     */
+    public enum EntityType {
+        CASE(Case.class),
+        RUN(Run.class),
+        PLAN(Plan.class),
+        SECTION(Section.class);
+
+        @Getter
+        private final Class<?> entityClass;
+
+        EntityType(Class<?> entityClass) {
+            this.entityClass = entityClass;
+        }
+    }
+
+    /**
+     * Key of a cached entity.
+     */
+    @Value
+    static class Key {
+        private final EntityType entityType;
+        private final int id;
+    }
+
+    private static class Entry {
+
+        private final Object entity;
+        private final Object supplementForDeserialization;
+
+        Entry(Object entity, Object supplementForDeserialization) {
+            this.entity = entity;
+            this.supplementForDeserialization = supplementForDeserialization;
+        }
+    }
+
+    /**
+     * Snapshot of the statistics of an {@link EntityCache}.
+     */
+    @Value
+    public static class Stats {
+        /**
+         * Number of cached entities.
+         */
+        private final int size;
+        /**
+         * Number of reads answered from the cache.
+         */
+        private final long hits;
+        /**
+         * Number of reads sent to TestRail because the entity was not cached.
+         */
+        private final long misses;
+        /**
+         * Number of entities evicted because the cache was full.
+         */
+        private final long evictions;
+    }
+
+    /**
+     * Builder for {@code EntityCache}.
+     */
+    public static class Builder {
+
+        private int maximumSize = 10000;
+
+        private Builder() {
+        }
+
+        /**
+         * Set the maximum number of cached entities. Defaults to 10000.
+         *
+         * @param maximumSize the maximum number of cached entities
+         * @return this for chaining
+         * @throws IllegalArgumentException if maximumSize is not positive
+         */
+        public Builder maximumSize(final int maximumSize) {
+            checkArgument(maximumSize > 0, "maximumSize should be positive");
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Build an entity cache.
+         *
+         * @return the entity cache
+         */
+        public EntityCache build() {
+            return new EntityCache(this);
+        }
+    }
+
+}
@@ -0,0 +1,298 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.internal.FieldSchemaSource;
+import com.codepine.api.testrail.model.CaseField;
+import com.codepine.api.testrail.model.Field;
+import com.codepine.api.testrail.model.ResultField;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import lombok.NonNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Registry of the custom case and result fields configured in TestRail, loaded on first use and kept for the lifetime of
+ * the {@link TestRail} instance owning it.
+ * <p>Requests created without a list of custom fields, e.g. {@link TestRail.Cases#get(int)}, get type information for
+ * custom fields from this registry, loaded before the request is sent. When such a request returns a custom field the
+ * registry does not know about, the fields are reloaded once its response was closed and the response is read again,
+ * instead of failing the request; only requests streaming their elements still fail, leaving the reloaded fields to the
+ * next request. Reloads are limited to one per minute for each kind of field, so a field which TestRail returns but does
+ * not list still fails the request as outdated.</p>
+ * <p>Instances are thread safe.</p>
+ *
+ * @see TestRail#fieldRegistry()
+ */
+public final class FieldRegistry {
+
+    private static final long MIN_REFRESH_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final TestRail testRail;
+    private final Source<CaseField> caseFields = new Source<CaseField>(MetadataCache.Endpoint.CASE_FIELDS) {
+        @Override
+        List<CaseField> load() {
+            return testRail.caseFields().list().execute();
+        }
+    };
+    private final Source<ResultField> resultFields = new Source<ResultField>(MetadataCache.Endpoint.RESULT_FIELDS) {
+        @Override
+        List<ResultField> load() {
+            return testRail.resultFields().list().execute();
+        }
+    };
+
+    FieldRegistry(final TestRail testRail) {
+        this.testRail = testRail;
+    }
+
+    /**
+     * Get the schema of the custom case fields, loading them if they have not been loaded yet.
+     *
+     * @return the schema
+     * @throws TestRailException if the case fields could not be loaded
+     */
+    public FieldSchema<CaseField> getCaseFieldSchema() {
+        return caseFields.getSchema();
+    }
+
+    /**
+     * Get a custom case field by its system name.
+     *
+     * @param systemName the system name of the field, e.g. {@code custom_steps}
+     * @return the field or null if there is no such field
+     * @throws TestRailException if the case fields could not be loaded
+     */
+    public CaseField getCaseField(@NonNull final String systemName) {
+        return caseFields.getIndex().bySystemName.get(systemName);
+    }
+
+    /**
+     * Get the custom case fields applicable to a project, i.e. the fields configured globally or for the project.
+     *
+     * @param projectId the ID of the project
+     * @return the immutable list of fields
+     * @throws IllegalArgumentException if projectId is not positive
+     * @throws TestRailException        if the case fields could not be loaded
+     */
+    public List<CaseField> getCaseFields(final int projectId) {
+        checkArgument(projectId > 0, "projectId should be positive");
+        return caseFields.getIndex().forProject(projectId);
+    }
+
+    /**
+     * Get the schema of the custom result fields, loading them if they have not been loaded yet.
+     *
+     * @return the schema
+     * @throws TestRailException if the result fields could not be loaded
+     */
+    public FieldSchema<ResultField> getResultFieldSchema() {
+        return resultFields.getSchema();
+    }
+
+    /**
+     * Get a custom result field by its system name.
+     *
+     * @param systemName the system name of the field, e.g. {@code custom_step_results}
+     * @return the field or null if there is no such field
+     * @throws TestRailException if the result fields could not be loaded
+     */
+    public ResultField getResultField(@NonNull final String systemName) {
+        return resultFields.getIndex().bySystemName.get(systemName);
+    }
+
+    /**
+     * Get the custom result fields applicable to a project, i.e. the fields configured globally or for the project.
+     *
+     * @param projectId the ID of the project
+     * @return the immutable list of fields
+     * @throws IllegalArgumentException if projectId is not positive
+     * @throws TestRailException        if the result fields could not be loaded
+     */
+    public List<ResultField> getResultFields(final int projectId) {
+        checkArgument(projectId > 0, "projectId should be positive");
+        return resultFields.getIndex().forProject(projectId);
+    }
+
+    /**
+     * Discard the loaded fields so that they are loaded again on next use, bypassing the {@link MetadataCache} if one is
+     * configured.
+     */
+    public void refresh() {
+        caseFields.clear();
+        resultFields.clear();
+    }
+
+    FieldSchemaSource<CaseField> getCaseFieldSource() {
+        return caseFields;
+    }
+
+    FieldSchemaSource<ResultField> getResultFieldSource() {
+        return resultFields;
+    }
+
+    /**
+     * Fields of one kind, indexed by system name and project.
+     */
+    private static final class Index<F extends Field> {
+
+        private final FieldSchema<F> schema;
+        private final Map<String, F> bySystemName;
+
+        Index(final List<F> fields) {
+            schema = FieldSchema.of(fields);
+            ImmutableMap.Builder<String, F> bySystemName = ImmutableMap.builder();
+            for (F field : schema.getFields()) {
+                if (field.getSystemName() != null) {
+                    bySystemName.put(field.getSystemName(), field);
+                }
+            }
+            this.bySystemName = bySystemName.build();
+        }
+
+        List<F> forProject(final int projectId) {
+            ImmutableList.Builder<F> fields = ImmutableList.builder();
+            for (F field : schema.getFields()) {
+                if (isGlobal(field) || isConfiguredFor(field, projectId)) {
+                    fields.add(field);
+                }
+            }
+            return fields.build();
+        }
+
+        private static boolean isGlobal(final Field field) {
+            if (field.getConfigs() == null) {
+                return false;
+            }
+            for (Field.Config config : field.getConfigs()) {
+                if (config.getContext() != null && config.getContext().isGlobal()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isConfiguredFor(final Field field, final int projectId) {
+            if (field.getConfigs() == null) {
+                return false;
+            }
+            for (Field.Config config : field.getConfigs()) {
+                if (config.getContext() != null && config.getContext().getProjectIds() != null && config.getContext().getProjectIds().contains(projectId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Lazily loaded fields of one kind.
+     */
+    private abstract class Source<F extends Field> implements FieldSchemaSource<F> {
+
+        private final MetadataCache.Endpoint endpoint;
+        /**
+         * Guards loading the fields, which waits for TestRail. A lock rather than a monitor, so that a virtual thread waiting
+         * for the response does not pin its carrier thread.
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Index<F> index;
+        private long lastRefreshNanos;
+        private boolean refreshed;
+
+        Source(final MetadataCache.Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        abstract List<F> load();
+
+        Index<F> getIndex() {
+            Index<F> current = index;
+            if (current != null) {
+                return current;
+            }
+            lock.lock();
+            try {
+                if (index == null) {
+                    index = new Index<>(load());
+                }
+                return index;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public FieldSchema<F> getSchema() {
+            return getIndex().schema;
+        }
+
+        @Override
+        public FieldSchema<F> refresh(final FieldSchema<F> outdated) {
+            lock.lock();
+            try {
+                Index<F> current = getIndex();
+                if (current.schema != outdated) {
+                    return current.schema;
+                }
+                long now = System.nanoTime();
+                if (refreshed && now - lastRefreshNanos < MIN_REFRESH_INTERVAL_NANOS) {
+                    return current.schema;
+                }
+                refreshed = true;
+                lastRefreshNanos = now;
+                clear();
+                return getIndex().schema;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean isRefreshable() {
+            return true;
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                MetadataCache metadataCache = testRail.getConfig().getMetadataCache();
+                if (metadataCache != null) {
+                    metadataCache.invalidate(endpoint);
+                }
+                index = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.model.Field;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Custom fields configured in TestRail, compiled for looking up the type of a custom field by its name.
+ * <p>Compile the schema once from the list of custom case or result fields and reuse it across requests to avoid indexing
+ * the list again for every request and every case or result returned.</p>
+ * <p>A {@link #lazy() lazy} schema keeps structured custom field values, such as steps, as raw JSON until they are first read
+ * through {@code getCustomField} or {@code getCustomFields}, which saves memory when most custom fields are never read.</p>
+ * <p>Schemas are equal if they map the same field names to the same types and are both lazy or both not, so entities
+ * cached or requests coalesced for one schema are shared with an equal schema compiled again from the same fields.</p>
+ *
+ * @param <F> the type of field, i.e. {@link com.codepine.api.testrail.model.CaseField} or {@link com.codepine.api.testrail.model.ResultField}
+ */
+@ToString(of = {"fields", "lazy"})
+@EqualsAndHashCode(of = {"types", "lazy"})
+public final class FieldSchema<F extends Field> {
+
+    private final List<F> fields;
+    private final Map<String, Field.Type> types;
+    private final boolean lazy;
+
+    private FieldSchema(final List<F> fields) {
+        this.fields = ImmutableList.copyOf(fields);
+        ImmutableMap.Builder<String, Field.Type> types = ImmutableMap.builder();
+        for (F field : this.fields) {
+            types.put(field.getName(), Field.Type.getType(field.getTypeId()));
+        }
+        this.types = types.build();
+        this.lazy = false;
+    }
+
+    private FieldSchema(final FieldSchema<F> schema, final boolean lazy) {
+        this.fields = schema.fields;
+        this.types = schema.types;
+        this.lazy = lazy;
+    }
+
+    /**
+     * Compile a schema from a list of custom fields.
+     *
+     * @param fields the custom fields configured in TestRail
+     * @param <F>    the type of field
+     * @return the schema
+     * @throws NullPointerException     if fields is null
+     * @throws IllegalArgumentException if two fields have the same name
+     */
+    public static <F extends Field> FieldSchema<F> of(@NonNull final List<F> fields) {
+        return new FieldSchema<>(fields);
+    }
+
+    /**
+     * Get the custom fields this schema was compiled from.
+     *
+     * @return the immutable list of custom fields
+     */
+    public List<F> getFields() {
+        return fields;
+    }
+
+    /**
+     * Get the type of a custom field.
+     *
+     * @param name the name of the custom field without "custom_" prefix
+     * @return the type of the field or null if the schema does not contain the field
+     */
+    public Field.Type getType(final String name) {
+        return types.get(name);
+    }
+
+    /**
+     * Get a schema with the same fields which defers decoding of structured custom field values until they are first read.
+     * <p>Values are decoded at most once, also when custom fields of the same entity are read from multiple threads.</p>
+     *
+     * @return the lazy schema
+     */
+    public FieldSchema<F> lazy() {
+        return lazy ? this : new FieldSchema<>(this, true);
+    }
+
+    /**
+     * Check whether decoding of structured custom field values is deferred until they are first read.
+     *
+     * @return true if this schema is lazy
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Value;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Histogram of latencies in nanoseconds with a bounded relative error, in the manner of HdrHistogram.
+ * <p>Values below 256 ns are counted exactly. Larger values are counted in buckets covering powers of two, each split
+ * into 128 linear sub-buckets, so every percentile is reported within 0.8% of the recorded value over the whole range
+ * of {@code long}, with about 57 KB of counts.</p>
+ * <p>Recording is lock-free and does not allocate. Instances are thread safe; snapshots taken while values are being
+ * recorded may miss some of them.</p>
+ */
+public final class LatencyHistogram {
+
+    private static final int EXACT_BITS = 8;
+    private static final int EXACT_COUNT = 1 << EXACT_BITS;
+    private static final int SUB_BUCKET_COUNT = EXACT_COUNT >> 1;
+    private static final int BUCKET_COUNT = EXACT_COUNT + (Long.SIZE - 1 - EXACT_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a latency.
+     *
+     * @param nanos the latency in nanoseconds; negative values are recorded as 0
+     */
+    public void record(final long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        total.addAndGet(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Get a snapshot of the latencies recorded so far.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        long[] snapshotCounts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshotCounts[i] = counts.get(i);
+            count += snapshotCounts[i];
+        }
+        return new Snapshot(count, count == 0 ? 0 : (double) total.get() / count, max.get(), snapshotCounts);
+    }
+
+    static int indexOf(final long value) {
+        if (value < EXACT_COUNT) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - EXACT_BITS;
+        return EXACT_COUNT + (shift - 1) * SUB_BUCKET_COUNT + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+    }
+
+    static long highestValueAt(final int index) {
+        if (index < EXACT_COUNT) {
+            return index;
+        }
+        int shift = (index - EXACT_COUNT) / SUB_BUCKET_COUNT + 1;
+        long subBucket = (index - EXACT_COUNT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Snapshot of the latencies recorded in a {@link LatencyHistogram}.
+     */
+    @Value
+    public static class Snapshot {
+        /**
+         * Number of recorded latencies.
+         */
+        private final long count;
+        /**
+         * Mean of the recorded latencies in nanoseconds, or 0 if none was recorded.
+         */
+        private final double meanNanos;
+        /**
+         * Highest recorded latency in nanoseconds, or 0 if none was recorded.
+         */
+        private final long maxNanos;
+        @Getter(AccessLevel.NONE)
+        private final long[] counts;
+
+        /**
+         * Get the latency which the given percentage of the recorded latencies are lower than or equal to.
+         *
+         * @param percentile the percentage, e.g. 99.9
+         * @return the latency in nanoseconds, or 0 if none was recorded
+         * @throws IllegalArgumentException if percentile is not between 0 and 100
+         */
+        public long getValueAtPercentile(final double percentile) {
+            checkArgument(percentile >= 0 && percentile <= 100, "percentile should be between 0 and 100");
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueAt(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * TestRail request returning a list of entities, which can also be read one entity at a time instead of being collected into a list.
+ *
+ * @param <E> the type of the entities
+ */
+public abstract class ListRequest<E> extends Request<List<E>> {
+
+    /**
+     * @param config TestRail configuration
+     * @param method the HTTP method for request
+     * @param restPath the path of the request URL
+     * @param responseType the type of the response entity
+     */
+    ListRequest(TestRailConfig config, Method method, String restPath, TypeReference<? extends List<E>> responseType) {
+        super(config, method, restPath, responseType);
+    }
+
+    /**
+     * Execute this request, reading the entities from the response as they are iterated.
+     * <p>Only the entity being read is held in memory, which allows processing responses too large to be collected into a list.
+     * The connection is released when the iterator is exhausted or closed.</p>
+     *
+     * @return iterator over the entities in the response from TestRail
+     */
+    public ResponseIterator<E> executeAsIterator() {
+        return executeForElements();
+    }
+
+    /**
+     * Execute this request, reading the entities from the response as the stream is consumed.
+     * <p>The connection is released when all entities were read or when the stream is closed. Close the stream when it is not
+     * consumed entirely, e.g. by using it in a try-with-resources statement.</p>
+     *
+     * @return sequential stream of the entities in the response from TestRail
+     */
+    public Stream<E> executeAsStream() {
+        final ResponseIterator<E> iterator = executeAsIterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(new Runnable() {
+                    @Override
+                    public void run() {
+                        iterator.close();
+                    }
+                });
+    }
+
+}
@@ -0,0 +1,303 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import lombok.NonNull;
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Cache for the responses of metadata requests, whose data rarely changes, e.g. the list of case fields.
+ * <p>Responses are kept for the time to live of their {@link Endpoint} and up to a maximum number of entries, beyond
+ * which the oldest entry is evicted. A cache hit does not send a request and does not allocate. Cached lists are
+ * unmodifiable and shared by all callers, so the entities in them should not be modified either.</p>
+ * <p>Instances are thread safe.</p>
+ *
+ * @see TestRail.Builder#metadataCache(MetadataCache)
+ */
+public final class MetadataCache {
+
+    private final Map<Endpoint, Long> ttlNanos;
+    private final int maximumSize;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private MetadataCache(final Builder builder) {
+        ttlNanos = new EnumMap<>(builder.ttlNanos);
+        maximumSize = builder.maximumSize;
+    }
+
+    /**
+     * Get a builder for a metadata cache.
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Invalidate all cached responses of an endpoint.
+     *
+     * @param endpoint the endpoint
+     */
+    public void invalidate(@NonNull final Endpoint endpoint) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().endpoint == endpoint) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Invalidate all cached responses.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Get a snapshot of the statistics of this cache.
+     *
+     * @return the statistics
+     */
+    public Stats getStats() {
+        return new Stats(entries.size(), hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    /**
+     * Get the cached response of a request.
+     *
+     * @param endpoint the endpoint of the request
+     * @param restPath the path of the request, which identifies it within the endpoint
+     * @return the cached response or null if there is none which is still fresh
+     */
+    Object get(Endpoint endpoint, String restPath) {
+        Entry entry = entries.get(restPath);
+        if (entry != null && entry.endpoint == endpoint && System.nanoTime() - entry.expiresAtNanos < 0) {
+            hits.increment();
+            return entry.response;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Cache the response of a request.
+     *
+     * @param endpoint the endpoint of the request
+     * @param restPath the path of the request, which identifies it within the endpoint
+     * @param response the response
+     * @param <T>      the type of the response
+     * @return the response as cached, which should be returned to the caller instead of response
+     */
+    @SuppressWarnings("unchecked")
+    <T> T put(Endpoint endpoint, String restPath, T response) {
+        long ttl = ttlNanos.get(endpoint);
+        if (ttl <= 0 || response == null) {
+            return response;
+        }
+        if (response instanceof List) {
+            response = (T) Collections.unmodifiableList((List<?>) response);
+        }
+        long nowNanos = System.nanoTime();
+        entries.put(restPath, new Entry(endpoint, response, nowNanos, nowNanos + ttl));
+        if (entries.size() > maximumSize) {
+            evict(nowNanos);
+        }
+        return response;
+    }
+
+    /**
+     * Remove the expired entries, or the oldest entry if none expired.
+     */
+    private void evict(long nowNanos) {
+        Map.Entry<String, Entry> oldest = null;
+        boolean expired = false;
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (nowNanos - entry.getValue().expiresAtNanos >= 0) {
+                expired |= entries.remove(entry.getKey(), entry.getValue());
+            } else if (oldest == null || entry.getValue().cachedAtNanos - oldest.getValue().cachedAtNanos < 0) {
+                oldest = entry;
+            }
+        }
+        if (!expired && oldest != null && entries.remove(oldest.getKey(), oldest.getValue())) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Metadata endpoints whose responses can be cached.
+     */
+    public enum Endpoint {
+        /**
+         * {@link TestRail.CaseFields.List}
+         */
+        CASE_FIELDS,
+        /**
+         * {@link TestRail.ResultFields.List}
+         */
+        RESULT_FIELDS,
+        /**
+         * {@link TestRail.Statuses.List}
+         */
+        STATUSES,
+        /**
+         * {@link TestRail.Priorities.List}
+         */
+        PRIORITIES,
+        /**
+         * {@link TestRail.CaseTypes.List}
+         */
+        CASE_TYPES,
+        /**
+         * {@link TestRail.Users.List}
+         */
+        USERS,
+        /**
+         * {@link TestRail.Configurations.List}
+         */
+        CONFIGURATIONS
+    }
+
+    private static class Entry {
+
+        private final Endpoint endpoint;
+        private final Object response;
+        private final long cachedAtNanos;
+        private final long expiresAtNanos;
+
+        Entry(Endpoint endpoint, Object response, long cachedAtNanos, long expiresAtNanos) {
+            this.endpoint = endpoint;
+            this.response = response;
+            this.cachedAtNanos = cachedAtNanos;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    /**
+     * Snapshot of the statistics of a {@link MetadataCache}.
+     */
+    @Value
+    public static class Stats {
+        /**
+         * Number of cached responses, including expired ones not removed yet.
+         */
+        private final int size;
+        /**
+         * Number of requests answered from the cache.
+         */
+        private final long hits;
+        /**
+         * Number of requests sent to TestRail because no fresh response was cached.
+         */
+        private final long misses;
+        /**
+         * Number of fresh responses evicted because the cache was full.
+         */
+        private final long evictions;
+    }
+
+    /**
+     * Builder for {@code MetadataCache}.
+     */
+    public static class Builder {
+
+        private final Map<Endpoint, Long> ttlNanos = new EnumMap<>(Endpoint.class);
+        private int maximumSize = 1000;
+
+        private Builder() {
+            ttl(10, TimeUnit.MINUTES);
+        }
+
+        /**
+         * Set the time to live of the responses of all endpoints. Defaults to 10 minutes.
+         *
+         * @param ttl  the time to live, 0 to not cache at all
+         * @param unit the unit of ttl
+         * @return this for chaining
+         * @throws IllegalArgumentException if ttl is negative
+         */
+        public Builder ttl(final long ttl, @NonNull final TimeUnit unit) {
+            for (Endpoint endpoint : Endpoint.values()) {
+                ttl(endpoint, ttl, unit);
+            }
+            return this;
+        }
+
+        /**
+         * Set the time to live of the responses of an endpoint.
+         *
+         * @param endpoint the endpoint
+         * @param ttl      the time to live, 0 to not cache the endpoint
+         * @param unit     the unit of ttl
+         * @return this for chaining
+         * @throws IllegalArgumentException if ttl is negative
+         */
+        public Builder ttl(@NonNull final Endpoint endpoint, final long ttl, @NonNull final TimeUnit unit) {
+            checkArgument(ttl >= 0, "ttl should not be negative");
+            ttlNanos.put(endpoint, unit.toNanos(ttl));
+            return this;
+        }
+
+        /**
+         * Set the maximum number of cached responses. Defaults to 1000.
+         *
+         * @param maximumSize the maximum number of cached responses
+         * @return this for chaining
+         * @throws IllegalArgumentException if maximumSize is not positive
+         */
+        public Builder maximumSize(final int maximumSize) {
+            checkArgument(maximumSize > 0, "maximumSize should be positive");
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Build a metadata cache.
+         *
+         * @return the metadata cache
+         */
+        public MetadataCache build() {
+            return new MetadataCache(this);
+        }
+    }
+
+}
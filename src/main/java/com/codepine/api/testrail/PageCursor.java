@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Iterator over the entities of all pages of a {@link PageableListRequest}.
+ * <p>Each page starts after the entities actually returned so far, since TestRail returns at most
+ * {@value #MAX_PAGE_SIZE} entities per request whatever the limit.</p>
+ */
+class PageCursor<E> implements ResponseIterator<E> {
+
+    /**
+     * The most entities TestRail returns for one request.
+     */
+    static final int MAX_PAGE_SIZE = 250;
+
+    private final PageableListRequest<E> request;
+    private final int pageSize;
+    private final boolean prefetch;
+    private int nextOffset;
+    private Iterator<E> page = Collections.emptyIterator();
+    private CompletableFuture<List<E>> nextPage;
+    private boolean lastPage;
+    private boolean closed;
+
+    PageCursor(PageableListRequest<E> request, int pageSize, boolean prefetch) {
+        this.request = request;
+        this.pageSize = pageSize;
+        this.prefetch = prefetch;
+        this.nextOffset = MoreObjects.firstNonNull(request.offset(), 0);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext()) {
+            if (lastPage || closed) {
+                return false;
+            }
+            List<E> entities = fetchNextPage();
+            nextOffset += entities.size();
+            lastPage = entities.size() < Math.min(pageSize, MAX_PAGE_SIZE);
+            page = entities.iterator();
+            if (prefetch && !lastPage) {
+                nextPage = pageRequest().executeAsync();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        page = Collections.emptyIterator();
+        if (nextPage != null) {
+            nextPage.cancel(false);
+            nextPage = null;
+        }
+    }
+
+    private List<E> fetchNextPage() {
+        if (nextPage == null) {
+            return pageRequest().execute();
+        }
+        CompletableFuture<List<E>> future = nextPage;
+        nextPage = null;
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private PageableListRequest<E> pageRequest() {
+        request.limit(pageSize).offset(nextOffset);
+        return request;
+    }
+
+}
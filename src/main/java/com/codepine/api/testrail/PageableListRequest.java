@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * TestRail request returning a list of entities which can be paged through with {@code limit} and {@code offset}.
+ *
+ * @param <E> the type of the entities
+ */
+public abstract class PageableListRequest<E> extends ListRequest<E> {
+
+    /**
+     * @param config TestRail configuration
+     * @param method the HTTP method for request
+     * @param restPath the path of the request URL
+     * @param responseType the type of the response entity
+     */
+    PageableListRequest(TestRailConfig config, Method method, String restPath, TypeReference<? extends List<E>> responseType) {
+        super(config, method, restPath, responseType);
+    }
+
+    /**
+     * Get the maximum number of entities to return.
+     *
+     * @return the limit or null if not set
+     */
+    public abstract Integer limit();
+
+    /**
+     * Set the maximum number of entities to return.
+     *
+     * @param limit the limit or null to let TestRail decide
+     * @return this request
+     */
+    public abstract PageableListRequest<E> limit(Integer limit);
+
+    /**
+     * Get the number of entities to skip.
+     *
+     * @return the offset or null if not set
+     */
+    public abstract Integer offset();
+
+    /**
+     * Set the number of entities to skip.
+     *
+     * @param offset the offset or null to start with the first entity
+     * @return this request
+     */
+    public abstract PageableListRequest<E> offset(Integer offset);
+
+    /**
+     * Execute this request page by page, fetching the next page only when the entities of the current page were iterated.
+     *
+     * @param pageSize the number of entities to request per page
+     * @return iterator over the entities of all pages
+     * @throws IllegalArgumentException if pageSize is not positive
+     * @see #paginate(int, boolean)
+     */
+    public ResponseIterator<E> paginate(int pageSize) {
+        return paginate(pageSize, false);
+    }
+
+    /**
+     * Execute this request page by page, starting at the offset of this request, until TestRail returns a page with less
+     * than {@code pageSize} entities, or less than 250 if {@code pageSize} is larger, since TestRail never returns more.
+     * Each page starts right after the entities returned so far.
+     * <p>At most the current page and, with prefetching, the next page are held in memory. Prefetching executes the request
+     * for the next page asynchronously as soon as a page is returned, see {@link #executeAsync()}. Closing the iterator cancels
+     * the prefetching of the next page.</p>
+     * <p>The limit of this request is replaced by {@code pageSize} and its offset is advanced page by page, so the
+     * request should not be executed otherwise until the iteration is complete.</p>
+     *
+     * @param pageSize the number of entities to request per page
+     * @param prefetch whether to fetch the next page in the background while the current page is iterated
+     * @return iterator over the entities of all pages
+     * @throws IllegalArgumentException if pageSize is not positive
+     */
+    public ResponseIterator<E> paginate(int pageSize, boolean prefetch) {
+        checkArgument(pageSize > 0, "pageSize should be positive");
+        return new PageCursor<>(this, pageSize, prefetch);
+    }
+
+}
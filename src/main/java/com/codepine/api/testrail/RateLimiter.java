@@ -0,0 +1,175 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import lombok.Value;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Token bucket limiting the rate of requests sent to TestRail, to stay under its per-user request limit instead of
+ * running into {@code 429 Too Many Requests}.
+ * <p>The bucket holds up to {@code burst} permits and is refilled at the sustained rate. A request takes a permit
+ * before it is sent; if none is left, it reserves the next permit to be refilled and sleeps until then. Reservations
+ * are handed out in the order requests arrive, so waiting is first come, first served and never spins.</p>
+ * <p>Instances are thread safe and can be shared by several {@code TestRail} instances to share a budget.</p>
+ *
+ * @see TestRail.Builder#rateLimiter(RateLimiter)
+ */
+public final class RateLimiter {
+
+    private final double permitsPerNano;
+    private final int burst;
+
+    private double permits;
+    private long lastRefillNanos;
+    private long acquired;
+    private long delayed;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    private RateLimiter(final Builder builder) {
+        permitsPerNano = builder.permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        burst = builder.burst;
+        permits = burst;
+        lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Get a builder for a rate limiter.
+     *
+     * @param permitsPerSecond the sustained number of requests per second
+     * @return the builder
+     * @throws IllegalArgumentException if permitsPerSecond is not positive
+     */
+    public static Builder builder(final double permitsPerSecond) {
+        checkArgument(permitsPerSecond > 0, "permitsPerSecond should be positive");
+        return new Builder(permitsPerSecond);
+    }
+
+    /**
+     * Take a permit, waiting until one is available.
+     *
+     * @throws InterruptedException if interrupted while waiting, in which case the permit is still used up
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve(System.nanoTime());
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Get a snapshot of the statistics of this rate limiter.
+     *
+     * @return the statistics
+     */
+    public synchronized Stats getStats() {
+        return new Stats(acquired, delayed, totalWaitNanos, maxWaitNanos);
+    }
+
+    /**
+     * Reserve a permit.
+     *
+     * @param nowNanos the current time
+     * @return the time to wait until the permit is available, in nanoseconds
+     */
+    synchronized long reserve(long nowNanos) {
+        permits = Math.min(burst, permits + (nowNanos - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = nowNanos;
+        // a negative number of permits is the debt of the callers already waiting
+        permits -= 1;
+        acquired++;
+        if (permits >= 0) {
+            return 0;
+        }
+        long waitNanos = (long) Math.ceil(-permits / permitsPerNano);
+        delayed++;
+        totalWaitNanos += waitNanos;
+        maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+        return waitNanos;
+    }
+
+    /**
+     * Snapshot of the statistics of a {@link RateLimiter}.
+     */
+    @Value
+    public static class Stats {
+        /**
+         * Number of permits taken so far.
+         */
+        private final long acquired;
+        /**
+         * Number of permits which had to be waited for.
+         */
+        private final long delayed;
+        /**
+         * Total time callers waited for permits, in nanoseconds.
+         */
+        private final long totalWaitNanos;
+        /**
+         * Longest time a caller waited for a permit, in nanoseconds.
+         */
+        private final long maxWaitNanos;
+    }
+
+    /**
+     * Builder for {@code RateLimiter}.
+     */
+    public static class Builder {
+
+        private final double permitsPerSecond;
+        private int burst = 1;
+
+        private Builder(final double permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+        }
+
+        /**
+         * Set the number of requests which can be sent at once after a quiet period. Defaults to 1.
+         *
+         * @param burst the size of the bucket
+         * @return this for chaining
+         * @throws IllegalArgumentException if burst is not positive
+         */
+        public Builder burst(final int burst) {
+            checkArgument(burst > 0, "burst should be positive");
+            this.burst = burst;
+            return this;
+        }
+
+        /**
+         * Build a rate limiter, starting with a full bucket.
+         *
+         * @return the rate limiter
+         */
+        public RateLimiter build() {
+            return new RateLimiter(this);
+        }
+    }
+
+}
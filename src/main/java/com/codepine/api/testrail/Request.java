@@ -26,35 +26,66 @@ package com.codepine.api.testrail;
 
 import com.codepine.api.testrail.internal.CaseModule;
 import com.codepine.api.testrail.internal.FieldModule;
+import com.codepine.api.testrail.internal.FieldSchemaSource;
 import com.codepine.api.testrail.internal.PlanModule;
-import com.codepine.api.testrail.internal.QueryParameterString;
+import com.codepine.api.testrail.internal.QueryParameterEncoder;
 import com.codepine.api.testrail.internal.ResultModule;
+import com.codepine.api.testrail.internal.TestModule;
+import com.codepine.api.testrail.internal.UnknownCustomFieldException;
 import com.codepine.api.testrail.internal.UnixTimestampModule;
 import com.codepine.api.testrail.internal.UrlConnectionFactory;
+import com.codepine.api.testrail.transport.HttpRequest;
+import com.codepine.api.testrail.transport.HttpResponse;
+import com.codepine.api.testrail.transport.HttpTransport;
+import com.codepine.api.testrail.transport.UrlConnectionTransport;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.InjectableValues;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import com.google.common.io.CountingOutputStream;
 import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.log4j.Log4j;
 
 import javax.xml.bind.DatatypeConverter;
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /**
  * TestRail request.
@@ -63,15 +94,22 @@ import java.nio.charset.Charset;
 @Log4j
 public abstract class Request<T> {
 
-    private static final UrlConnectionFactory DEFAULT_URL_CONNECTION_FACTORY = new UrlConnectionFactory();
-
     private static final ObjectMapper JSON = new ObjectMapper()
             .setPropertyNamingStrategy(PropertyNamingStrategy.CAMEL_CASE_TO_LOWER_CASE_WITH_UNDERSCORES)
             .configure(MapperFeature.DEFAULT_VIEW_INCLUSION, false)
             .setSerializationInclusion(JsonInclude.Include.NON_NULL)
             .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
             .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
-            .registerModules(new CaseModule(), new FieldModule(), new PlanModule(), new ResultModule(), new UnixTimestampModule());
+            .registerModules(new CaseModule(), new FieldModule(), new PlanModule(), new ResultModule(), new TestModule(), new UnixTimestampModule());
+
+    private static final ConcurrentMap<CodecKey, Codec> CODECS = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<StringBuilder> URL_BUFFER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
 
     @NonNull
     private final TestRailConfig config;
@@ -81,7 +119,8 @@ public abstract class Request<T> {
     private final String restPath;
     private final Class<? extends T> responseClass;
     private final TypeReference<? extends T> responseType;
-    private UrlConnectionFactory urlConnectionFactory = DEFAULT_URL_CONNECTION_FACTORY;
+    private HttpTransport transport;
+    private Codec codec;
 
     /**
      * @param config TestRail configuration
@@ -105,101 +144,557 @@ public abstract class Request<T> {
 
     /**
      * Execute this request.
+     * <p>If {@link TestRail.Builder#coalesceGetRequests(boolean)} is enabled, identical {@code GET} requests executed
+     * while this one is in flight share its call and get the same response instance. Metadata requests are answered
+     * from the {@link TestRail.Builder#metadataCache(MetadataCache)} and entities read or written by ID go through the
+     * {@link TestRail.Builder#entityCache(EntityCache)}, if set.</p>
      *
      * @return response from TestRail
      */
     public T execute() {
+        EntityCache entityCache = config.getEntityCache();
+        EntityCache.Key entityKey = entityCache != null ? getEntityCacheKey() : null;
+        if (entityKey != null) {
+            return executeThroughEntityCache(entityCache, entityKey);
+        }
+        MetadataCache metadataCache = config.getMetadataCache();
+        MetadataCache.Endpoint cacheEndpoint = metadataCache != null ? getCacheEndpoint() : null;
+        if (cacheEndpoint == null) {
+            return executeCoalesced();
+        }
+        @SuppressWarnings("unchecked")
+        T cachedResponse = (T) metadataCache.get(cacheEndpoint, restPath);
+        if (cachedResponse != null) {
+            return cachedResponse;
+        }
+        return metadataCache.put(cacheEndpoint, restPath, executeCoalesced());
+    }
+
+    /**
+     * Execute this request reading or writing the entity with the given key, keeping the entity cache up to date.
+     *
+     * @param entityCache the entity cache
+     * @param entityKey   the key of the entity read or written by this request
+     * @return response from TestRail
+     */
+    private T executeThroughEntityCache(EntityCache entityCache, EntityCache.Key entityKey) {
+        Object supplement = getSupplementForDeserialization();
+        if (method == Method.GET) {
+            @SuppressWarnings("unchecked")
+            T cachedEntity = (T) entityCache.get(entityKey, supplement);
+            if (cachedEntity != null) {
+                return cachedEntity;
+            }
+            long readStamp = entityCache.getWriteStamp();
+            T entity = executeCoalesced();
+            entityCache.put(entityKey, entity, supplement, readStamp);
+            return entity;
+        }
+        entityCache.invalidate(entityKey);
+        T response = executeCoalesced();
+        entityCache.write(entityKey, response, supplement);
+        return response;
+    }
+
+    /**
+     * Execute this request, sharing the call of an identical {@code GET} request in flight if coalescing is enabled.
+     *
+     * @return response from TestRail
+     */
+    private T executeCoalesced() {
+        final String url = getUrl();
+        SingleFlight singleFlight = config.getSingleFlight();
+        if (singleFlight == null || method != Method.GET) {
+            return execute(url);
+        }
+        SingleFlight.Key key = new SingleFlight.Key(url, responseClass != null ? responseClass : responseType.getType(), getSupplementForDeserialization());
+        return singleFlight.execute(key, new Supplier<T>() {
+            @Override
+            public T get() {
+                return execute(url);
+            }
+        });
+    }
+
+    /**
+     * Send this request to the given URL and read the response.
+     * <p>A custom field schema coming from a {@link FieldSchemaSource} is resolved before the request is sent, and
+     * reloaded only after the response was closed, since loading it while the response holds the last connection of a
+     * pooled transport would wait for a connection forever.</p>
+     *
+     * @param url the URL of this request
+     * @return response from TestRail
+     */
+    private T execute(String url) {
+        Object supplement = getSupplementForDeserialization();
+        if (!(supplement instanceof FieldSchemaSource)) {
+            return execute(url, supplement);
+        }
+        FieldSchemaSource<?> schemaSource = (FieldSchemaSource<?>) supplement;
+        FieldSchema<?> schema = schemaSource.getSchema();
+        if (!schemaSource.isRefreshable()) {
+            return execute(url, schema);
+        }
+        if (method == Method.GET) {
+            try {
+                return execute(url, schema);
+            } catch (RuntimeException e) {
+                return execute(url, refreshSchema(schemaSource, schema, e));
+            }
+        }
+        // a write cannot be sent again, so its response is kept to be read again with the reloaded schema
+        Exchange exchange = newExchange();
+        try {
+            byte[] responseBody = executeForBody(url, exchange);
+            if (responseBody == null) {
+                return null;
+            }
+            try {
+                return read(responseBody, schema, exchange);
+            } catch (RuntimeException e) {
+                return read(responseBody, refreshSchema(schemaSource, schema, e), exchange);
+            }
+        } catch (RuntimeException e) {
+            if (exchange != null) {
+                exchange.failedToDeserialize();
+            }
+            throw e;
+        } finally {
+            if (exchange != null) {
+                exchange.complete();
+            }
+        }
+    }
+
+    /**
+     * Get a schema newer than the one a response could not be read with because of a custom field unknown to it.
+     *
+     * @param schemaSource the source of the schema
+     * @param schema       the schema the response was read with
+     * @param failure      the failure to read the response
+     * @return the newer schema
+     * @throws RuntimeException the failure, if it was not caused by an unknown custom field or there is no newer schema
+     */
+    @SuppressWarnings("unchecked")
+    private static <F extends com.codepine.api.testrail.model.Field> FieldSchema<F> refreshSchema(FieldSchemaSource<F> schemaSource, FieldSchema<?> schema, RuntimeException failure) {
+        if (UnknownCustomFieldException.find(failure) == null) {
+            throw failure;
+        }
+        FieldSchema<F> refreshed = schemaSource.refresh((FieldSchema<F>) schema);
+        if (refreshed == schema) {
+            throw failure;
+        }
+        return refreshed;
+    }
+
+    /**
+     * Read a response kept in memory.
+     *
+     * @param responseBody the response
+     * @param supplement   the supplement for deserialization
+     * @param exchange     the measurements of the request or null if there is no listener
+     * @return response from TestRail
+     */
+    private T read(byte[] responseBody, Object supplement, Exchange exchange) {
+        long startNanos = System.nanoTime();
         try {
+            return getCodec().read(new ByteArrayInputStream(responseBody), supplement);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (exchange != null) {
+                exchange.addDeserializationNanos(System.nanoTime() - startNanos);
+            }
+        }
+    }
 
-            String url = getUrl();
-            HttpURLConnection con = (HttpURLConnection) urlConnectionFactory.getUrlConnection(url);
-            con.setRequestMethod(method.name());
-            if (config.getApplicationName().isPresent()) {
-                con.setRequestProperty("User-Agent", config.getApplicationName().get());
-            }
-            con.setRequestProperty("Content-Type", "application/json");
-            String basicAuth = "Basic "
-                    + DatatypeConverter.printBase64Binary((config.getUsername()
-                    + ":" + config.getPassword()).getBytes(Charset.forName("UTF-8")));
-            con.setRequestProperty("Authorization", basicAuth);
-            if (method == Method.POST) {
-                con.setDoOutput(true);
-                Object content = getContent();
-                if (content != null) {
-                    try (OutputStream outputStream = new BufferedOutputStream(con.getOutputStream())) {
-                        JSON.writerWithView(this.getClass()).writeValue(outputStream, content);
-                    }
-                } else {
-                    con.setFixedLengthStreamingMode(0);
+    /**
+     * Send this request to the given URL and read the response into memory, leaving the request to be completed by the
+     * caller once the response was deserialized.
+     *
+     * @param url      the URL of this request
+     * @param exchange the measurements of the request or null if there is no listener
+     * @return the response or null if this request does not return anything
+     */
+    private byte[] executeForBody(String url, Exchange exchange) {
+        try (HttpResponse response = open(url, exchange)) {
+            if (responseClass == Void.class) {
+                return null;
+            }
+            try (InputStream responseStream = exchange != null ? exchange.count(response.getBody()) : response.getBody()) {
+                return ByteStreams.toByteArray(responseStream);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Send this request to the given URL and read the response.
+     *
+     * @param url        the URL of this request
+     * @param supplement the supplement for deserialization
+     * @return response from TestRail
+     */
+    private T execute(String url, Object supplement) {
+        Exchange exchange = newExchange();
+        try (HttpResponse response = open(url, exchange)) {
+            if (responseClass == Void.class) {
+                return null;
+            }
+            if (exchange == null) {
+                try (InputStream responseStream = new BufferedInputStream(response.getBody())) {
+                    return getCodec().read(responseStream, supplement);
                 }
             }
+            long startNanos = System.nanoTime();
+            try (InputStream responseStream = new BufferedInputStream(exchange.count(response.getBody()))) {
+                T entity = getCodec().read(responseStream, supplement);
+                exchange.addDeserializationNanos(System.nanoTime() - startNanos);
+                return entity;
+            } catch (IOException | RuntimeException e) {
+                exchange.failedToDeserialize();
+                throw e;
+            }
+        } catch (MalformedURLException e) {
+            throw new RuntimeException(e);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (exchange != null) {
+                exchange.complete();
+            }
+        }
+    }
+
+    /**
+     * Execute this request, reading the elements of the JSON array returned one at a time as they are iterated.
+     *
+     * @param <E> the type of the elements
+     * @return iterator over the elements, which releases the connection when exhausted or closed
+     */
+    <E> ResponseIterator<E> executeForElements() {
+        Object supplement = getSupplementForDeserialization();
+        FieldSchemaSource<?> schemaSource = supplement instanceof FieldSchemaSource ? (FieldSchemaSource<?>) supplement : null;
+        if (schemaSource != null) {
+            supplement = schemaSource.getSchema();
+        }
+        Exchange exchange = newExchange();
+        boolean streaming = false;
+        try {
+            HttpResponse response = open(getUrl(), exchange);
+            try {
+                ResponseIterator<E> elements = getCodec().readElements(response, exchange, supplement, schemaSource);
+                streaming = true;
+                return elements;
+            } catch (IOException | RuntimeException e) {
+                response.close();
+                throw e;
+            }
+        } catch (MalformedURLException e) {
+            throw new RuntimeException(e);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (exchange != null && !streaming) {
+                exchange.complete();
+            }
+        }
+    }
+
+    /**
+     * Start measuring a request to report to the configured {@link RequestListener}, if any.
+     *
+     * @return the measurements or null if there is no listener
+     */
+    private Exchange newExchange() {
+        RequestListener listener = config.getRequestListener();
+        if (listener == null) {
+            return null;
+        }
+        String endpoint = getCodec().getEndpoint();
+        return new Exchange(listener, endpoint != null ? endpoint : restPath, method.name());
+    }
+
+    /**
+     * Send this request and check the response code, retrying transient failures as allowed by the configured {@link RetryPolicy}.
+     *
+     * @param url      the URL of this request
+     * @param exchange the measurements of this request or null if it is not measured
+     * @return the successful response, which the caller has to close
+     * @throws TestRailException if TestRail did not respond with {@code 200 OK}
+     * @throws IOException       if the request could not be sent or the error could not be read
+     */
+    private HttpResponse open(String url, Exchange exchange) throws IOException {
+        HttpRequest request = new HttpRequest(method.name(), url, getHeaders(), exchange != null ? exchange.count(getBody()) : getBody());
+        long startNanos = System.nanoTime();
+        RateLimiter rateLimiter = method == Method.GET ? config.getReadRateLimiter() : config.getWriteRateLimiter();
+        for (int attempt = 1; ; attempt++) {
+            if (rateLimiter != null) {
+                sleep(rateLimiter.reserve(System.nanoTime()));
+            }
             log.debug("Sending " + method + " request to URL : " + url);
-            int responseCode = 0;
+            if (exchange != null) {
+                exchange.startAttempt(attempt);
+            }
+            HttpResponse response;
             try {
-                responseCode = con.getResponseCode();
+                response = send(request);
             } catch (IOException e) {
-                // swallow it since for 401 getResponseCode throws an IOException
-                responseCode = con.getResponseCode();
+                long delayNanos = config.getRetryPolicy().getDelayNanos(method, -1, null, attempt, System.nanoTime() - startNanos);
+                if (delayNanos < 0) {
+                    throw e;
+                }
+                log.debug("Retrying " + method + " request to URL : " + url + " in " + TimeUnit.NANOSECONDS.toMillis(delayNanos) + " ms after IO error : " + e);
+                sleep(delayNanos);
+                continue;
             }
-            log.debug("Response Code : " + responseCode);
+            long retryDelayNanos;
+            boolean success = false;
+            try {
+                int responseCode = response.getStatusCode();
+                log.debug("Response Code : " + responseCode);
+                if (exchange != null) {
+                    exchange.receivedStatus(responseCode);
+                }
 
-            if (responseCode != HttpURLConnection.HTTP_OK) {
-                try (InputStream errorStream = con.getErrorStream()) {
-                    TestRailException.Builder exceptionBuilder = new TestRailException.Builder().setResponseCode(responseCode);
-                    if (errorStream == null) {
-                        throw exceptionBuilder.setError("<server did not send any error message>").build();
+                if (responseCode == HttpURLConnection.HTTP_OK) {
+                    success = true;
+                    return response;
+                }
+                retryDelayNanos = config.getRetryPolicy().getDelayNanos(method, responseCode, response.getHeader("Retry-After"), attempt, System.nanoTime() - startNanos);
+                if (retryDelayNanos < 0) {
+                    try (InputStream errorStream = exchange != null ? exchange.count(response.getBody()) : response.getBody()) {
+                        TestRailException.Builder exceptionBuilder = new TestRailException.Builder().setResponseCode(responseCode);
+                        if (errorStream == null) {
+                            throw exceptionBuilder.setError("<server did not send any error message>").build();
+                        }
+                        throw JSON.readerForUpdating(exceptionBuilder).<TestRailException.Builder>readValue(new BufferedInputStream(errorStream)).build();
                     }
-                    throw JSON.readerForUpdating(exceptionBuilder).<TestRailException.Builder>readValue(new BufferedInputStream(errorStream)).build();
+                }
+            } finally {
+                if (!success) {
+                    response.close();
                 }
             }
+            log.debug("Retrying " + method + " request to URL : " + url + " in " + TimeUnit.NANOSECONDS.toMillis(retryDelayNanos) + " ms");
+            sleep(retryDelayNanos);
+        }
+    }
 
-            try (InputStream responseStream = new BufferedInputStream(con.getInputStream())) {
-                Object supplementForDeserialization = getSupplementForDeserialization();
-                if (responseClass != null) {
-                    if (responseClass == Void.class) {
-                        return null;
-                    }
-                    if (supplementForDeserialization != null) {
-                        return JSON.reader(responseClass).with(new InjectableValues.Std().addValue(responseClass.toString(), supplementForDeserialization)).readValue(responseStream);
-                    }
-                    return JSON.readValue(responseStream, responseClass);
-                } else {
-                    if (supplementForDeserialization != null) {
-                        String supplementKey = responseType.getType().toString();
-                        if (responseType.getType() instanceof ParameterizedType) {
-                            Type[] actualTypes = ((ParameterizedType) responseType.getType()).getActualTypeArguments();
-                            if (actualTypes.length == 1 && actualTypes[0] instanceof Class<?>) {
-                                supplementKey = actualTypes[0].toString();
-                            }
-                        }
-                        return JSON.reader(responseType).with(new InjectableValues.Std().addValue(supplementKey, supplementForDeserialization)).readValue(responseStream);
-                    }
-                    return JSON.readValue(responseStream, responseType);
+    /**
+     * Send a request through the configured {@link ConcurrencyLimiter}, if any.
+     * <p>The request stays in flight until its response is closed, since the connection is held until then.</p>
+     *
+     * @param request the request
+     * @return the response
+     * @throws IOException if the request could not be sent
+     */
+    private HttpResponse send(HttpRequest request) throws IOException {
+        final ConcurrencyLimiter concurrencyLimiter = config.getConcurrencyLimiter();
+        if (concurrencyLimiter == null) {
+            return getTransport().execute(request);
+        }
+        long startNanos;
+        try {
+            startNanos = concurrencyLimiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to send request");
+        }
+        String codecEndpoint = getCodec().getEndpoint();
+        final String endpoint = codecEndpoint != null ? codecEndpoint : method.name();
+        final HttpResponse response;
+        final boolean overloaded;
+        try {
+            response = getTransport().execute(request);
+            overloaded = response.getStatusCode() == 429 || response.getStatusCode() >= HttpURLConnection.HTTP_INTERNAL_ERROR;
+        } catch (IOException | RuntimeException e) {
+            concurrencyLimiter.release(endpoint, System.nanoTime() - startNanos, true);
+            throw e;
+        }
+        final long latencyNanos = System.nanoTime() - startNanos;
+        return new HttpResponse() {
+            private final AtomicBoolean released = new AtomicBoolean();
+
+            @Override
+            public int getStatusCode() {
+                return response.getStatusCode();
+            }
+
+            @Override
+            public String getHeader(String name) {
+                return response.getHeader(name);
+            }
+
+            @Override
+            public InputStream getBody() throws IOException {
+                return response.getBody();
+            }
+
+            @Override
+            public void abort() throws IOException {
+                try {
+                    response.abort();
+                } finally {
+                    release();
                 }
             }
 
-        } catch (MalformedURLException e) {
-            throw new RuntimeException(e);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            @Override
+            public void close() throws IOException {
+                try {
+                    response.close();
+                } finally {
+                    release();
+                }
+            }
+
+            private void release() {
+                if (released.compareAndSet(false, true)) {
+                    concurrencyLimiter.release(endpoint, latencyNanos, overloaded);
+                }
+            }
+        };
+    }
+
+    /**
+     * Wait before sending a request.
+     *
+     * @param nanos the time to wait in nanoseconds
+     * @throws InterruptedIOException if interrupted while waiting
+     */
+    private static void sleep(long nanos) throws InterruptedIOException {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to send request");
         }
     }
 
     /**
-     * Get URL string for this request.
+     * Execute this request asynchronously on the executor configured through {@link TestRail.Builder#asyncExecutor(Executor)}.
+     * <p>If the request fails, the returned future is completed exceptionally with the same exception {@link #execute()} would throw,
+     * e.g. a {@link TestRailException} for errors returned by TestRail.</p>
      *
-     * @return the string URL
-     * @throws IOException if there is an error creating query parameter string
+     * @return future response from TestRail
      */
-    private String getUrl() throws IOException {
-        StringBuilder urlBuilder = new StringBuilder(config.getBaseApiUrl()).append(restPath);
+    public CompletableFuture<T> executeAsync() {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            config.getAsyncExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        future.complete(execute());
+                    } catch (Throwable t) {
+                        future.completeExceptionally(t);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
 
-        String queryParamJson = JSON.writerWithView(getClass()).writeValueAsString(this);
-        String queryParamString = JSON.readValue(queryParamJson, QueryParameterString.class).toString();
-        if (!queryParamString.isEmpty()) {
-            urlBuilder.append("&").append(queryParamString);
+    /**
+     * Get HTTP headers for this request.
+     *
+     * @return the headers
+     */
+    private Map<String, String> getHeaders() {
+        Map<String, String> headers = new LinkedHashMap<>(4);
+        if (config.getApplicationName().isPresent()) {
+            headers.put("User-Agent", config.getApplicationName().get());
+        }
+        headers.put("Content-Type", "application/json");
+        String basicAuth = "Basic "
+                + DatatypeConverter.printBase64Binary((config.getUsername()
+                + ":" + config.getPassword()).getBytes(Charset.forName("UTF-8")));
+        headers.put("Authorization", basicAuth);
+        return headers;
+    }
+
+    /**
+     * Get HTTP body for this request.
+     *
+     * @return the body or null if there is no content to be sent
+     */
+    HttpRequest.Body getBody() {
+        if (method != Method.POST) {
+            return null;
+        }
+        final Object content = getContent();
+        if (content == null) {
+            return null;
+        }
+        return new HttpRequest.Body() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                getCodec().getWriter().writeValue(outputStream, content);
+            }
+        };
+    }
+
+    /**
+     * Get the number of bytes content takes in the body of requests of the given class.
+     *
+     * @param requestClass the class of the request, which is the JSON view of the content
+     * @param content      the content
+     * @return the length of the content in bytes
+     * @throws IOException if the content could not be serialized
+     */
+    static long getContentLength(Class<?> requestClass, Object content) throws IOException {
+        CountingOutputStream outputStream = new CountingOutputStream(ByteStreams.nullOutputStream());
+        JSON.writerWithView(requestClass).writeValue(outputStream, content);
+        return outputStream.getCount();
+    }
+
+    /**
+     * Get the prepared codec for this request, shared by all requests of the same class and response type.
+     *
+     * @return the codec
+     */
+    private Codec getCodec() {
+        if (codec == null) {
+            CodecKey key = new CodecKey(getClass(), responseClass != null ? responseClass : responseType.getType());
+            Codec cachedCodec = CODECS.get(key);
+            if (cachedCodec == null) {
+                cachedCodec = new Codec(getClass(), responseClass, responseType);
+                Codec existingCodec = CODECS.putIfAbsent(key, cachedCodec);
+                if (existingCodec != null) {
+                    cachedCodec = existingCodec;
+                }
+            }
+            codec = cachedCodec;
         }
+        return codec;
+    }
+
+    /**
+     * Get the transport to send this request with.
+     *
+     * @return the transport
+     */
+    private HttpTransport getTransport() {
+        return transport != null ? transport : config.getTransport();
+    }
 
+    /**
+     * Get URL string for this request.
+     *
+     * @return the string URL
+     */
+    String getUrl() {
+        StringBuilder urlBuilder = URL_BUFFER.get();
+        urlBuilder.setLength(0);
+        urlBuilder.append(config.getBaseApiUrl()).append(restPath);
+        QueryParameterEncoder.forClass(getClass()).encode(this, urlBuilder);
         return urlBuilder.toString();
     }
 
@@ -221,13 +716,325 @@ public abstract class Request<T> {
         return null;
     }
 
+    /**
+     * Override this method for requests whose responses can be kept in the {@link MetadataCache}.
+     *
+     * @return the endpoint of this request in the metadata cache or null if its response should not be cached
+     */
+    MetadataCache.Endpoint getCacheEndpoint() {
+        return null;
+    }
+
+    /**
+     * Override this method for requests reading or writing a single entity which can be kept in the {@link EntityCache}.
+     *
+     * @return the key of the entity read or written by this request or null if it does not go through the entity cache
+     */
+    EntityCache.Key getEntityCacheKey() {
+        return null;
+    }
+
     /**
      * Set URL connection factory. Only used for testing.
      *
      * @param urlConnectionFactory the URL connection factory
      */
     void setUrlConnectionFactory(UrlConnectionFactory urlConnectionFactory) {
-        this.urlConnectionFactory = urlConnectionFactory;
+        this.transport = new UrlConnectionTransport(urlConnectionFactory);
+    }
+
+    /**
+     * Key of a cached {@link Codec}.
+     */
+    @Value
+    private static class CodecKey {
+        private final Class<?> requestClass;
+        private final Type responseType;
+    }
+
+    /**
+     * Immutable reader and writer prepared for a request class and response type.
+     */
+    private static class Codec {
+
+        @Getter
+        private final ObjectWriter writer;
+        private final ObjectReader reader;
+        private final ObjectReader elementReader;
+        private final String supplementKey;
+        @Getter
+        private final String endpoint;
+
+        Codec(Class<?> requestClass, Class<?> responseClass, TypeReference<?> responseType) {
+            writer = JSON.writerWithView(requestClass);
+            endpoint = getRestPathTemplate(requestClass);
+            if (responseClass != null) {
+                reader = JSON.reader(responseClass);
+                elementReader = null;
+                supplementKey = responseClass.toString();
+            } else {
+                reader = JSON.reader(responseType);
+                String key = responseType.getType().toString();
+                Class<?> elementClass = null;
+                if (responseType.getType() instanceof ParameterizedType) {
+                    Type[] actualTypes = ((ParameterizedType) responseType.getType()).getActualTypeArguments();
+                    if (actualTypes.length == 1 && actualTypes[0] instanceof Class<?>) {
+                        elementClass = (Class<?>) actualTypes[0];
+                        key = elementClass.toString();
+                    }
+                }
+                elementReader = elementClass != null ? JSON.reader(elementClass) : null;
+                supplementKey = key;
+            }
+        }
+
+        /**
+         * Read the response, binding the supplement for deserialization for this call only.
+         *
+         * @param responseStream the response
+         * @param supplementForDeserialization the supplement or null if there is none
+         * @param <T> the type of the response entity
+         * @return the response entity
+         * @throws IOException if the response could not be read
+         */
+        <T> T read(InputStream responseStream, Object supplementForDeserialization) throws IOException {
+            if (supplementForDeserialization != null) {
+                return reader.with(new InjectableValues.Std().addValue(supplementKey, supplementForDeserialization)).readValue(responseStream);
+            }
+            return reader.readValue(responseStream);
+        }
+
+        /**
+         * Read the elements of a JSON array response one at a time, binding the supplement for deserialization for this call only.
+         *
+         * @param response the response, which is closed along with the returned iterator
+         * @param exchange the measurements of the request, completed along with the returned iterator, or null if it is not measured
+         * @param supplementForDeserialization the supplement or null if there is none
+         * @param schemaSource the source the supplement was resolved from, to reload once the response is closed if an element has
+         *                     an unknown custom field, or null if there is none
+         * @param <E> the type of the elements
+         * @return iterator over the elements
+         * @throws IOException if the response is not a JSON array
+         */
+        <E> ResponseIterator<E> readElements(HttpResponse response, Exchange exchange, Object supplementForDeserialization, FieldSchemaSource<?> schemaSource) throws IOException {
+            if (elementReader == null) {
+                throw new IllegalStateException("Response type is not a list of entities");
+            }
+            ObjectReader boundReader = elementReader;
+            if (supplementForDeserialization != null) {
+                boundReader = elementReader.with(new InjectableValues.Std().addValue(supplementKey, supplementForDeserialization));
+            }
+            JsonParser parser = JSON.getFactory().createParser(exchange != null ? exchange.count(response.getBody()) : response.getBody());
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                parser.close();
+                throw new JsonMappingException("Expected a JSON array but found " + parser.getCurrentToken(), parser.getCurrentLocation());
+            }
+            return new JsonArrayIterator<>(response, parser, boundReader, exchange, schemaSource, supplementForDeserialization);
+        }
+
+        /**
+         * Get the template of the path of the requests of a class, i.e. the {@code REST_PATH} constant every request declares.
+         *
+         * @param requestClass the class of the request
+         * @return the template or null if the class does not declare it
+         */
+        private static String getRestPathTemplate(Class<?> requestClass) {
+            for (Class<?> type = requestClass; type != null && type != Request.class; type = type.getSuperclass()) {
+                try {
+                    Field field = type.getDeclaredField("REST_PATH");
+                    if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+                        field.setAccessible(true);
+                        return (String) field.get(null);
+                    }
+                } catch (NoSuchFieldException e) {
+                    // declared by a superclass, if any
+                } catch (IllegalAccessException | SecurityException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Iterator reading the elements of a JSON array from a response as they are iterated.
+     */
+    @RequiredArgsConstructor
+    private static class JsonArrayIterator<E> implements ResponseIterator<E> {
+
+        private final HttpResponse response;
+        private final JsonParser parser;
+        private final ObjectReader reader;
+        private final Exchange exchange;
+        private final FieldSchemaSource<?> schemaSource;
+        private final Object schema;
+        private JsonToken nextToken;
+        private boolean exhausted;
+        private boolean closed;
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            if (nextToken == null) {
+                long startNanos = exchange != null ? System.nanoTime() : 0;
+                try {
+                    nextToken = parser.nextToken();
+                } catch (IOException e) {
+                    if (exchange != null) {
+                        exchange.failedToDeserialize();
+                    }
+                    close();
+                    throw new RuntimeException(e);
+                }
+                if (exchange != null) {
+                    exchange.addDeserializationNanos(System.nanoTime() - startNanos);
+                }
+            }
+            if (nextToken == null || nextToken == JsonToken.END_ARRAY) {
+                exhausted = true;
+                close();
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            long startNanos = exchange != null ? System.nanoTime() : 0;
+            try {
+                E element = reader.readValue(parser);
+                nextToken = null;
+                if (exchange != null) {
+                    exchange.addDeserializationNanos(System.nanoTime() - startNanos);
+                }
+                return element;
+            } catch (IOException | RuntimeException e) {
+                if (exchange != null) {
+                    exchange.failedToDeserialize();
+                }
+                close();
+                if (schemaSource != null && UnknownCustomFieldException.find(e) != null) {
+                    // the elements read so far cannot be read again, but the next request gets the reloaded schema
+                    try {
+                        refresh(schemaSource, schema);
+                    } catch (RuntimeException refreshFailure) {
+                        e.addSuppressed(refreshFailure);
+                    }
+                }
+                throw e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <F extends com.codepine.api.testrail.model.Field> void refresh(FieldSchemaSource<F> schemaSource, Object outdated) {
+            schemaSource.refresh((FieldSchema<F>) outdated);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (exhausted) {
+                    parser.close();
+                    response.close();
+                } else {
+                    // aborted before closing the parser, which would otherwise read the rest of the body to keep the connection
+                    response.abort();
+                    parser.close();
+                }
+            } catch (IOException e) {
+                log.debug("Could not close response", e);
+            }
+            if (exchange != null) {
+                exchange.complete();
+            }
+        }
+    }
+
+    /**
+     * Measurements of a request sent to TestRail, reported to the {@link RequestListener} once it completed.
+     * <p>Only used by the thread executing the request, or iterating its elements.</p>
+     */
+    @RequiredArgsConstructor
+    private static class Exchange {
+
+        private final RequestListener listener;
+        private final String endpoint;
+        private final String method;
+        private long attemptStartNanos = System.nanoTime();
+        private int retries;
+        private int status = -1;
+        private long timeToFirstByteNanos;
+        private long deserializationNanos;
+        private boolean deserializationFailed;
+        private CountingOutputStream requestBody;
+        private CountingInputStream responseBody;
+
+        void startAttempt(int attempt) {
+            attemptStartNanos = System.nanoTime();
+            retries = attempt - 1;
+            status = -1;
+            requestBody = null;
+            responseBody = null;
+        }
+
+        void receivedStatus(int status) {
+            this.status = status;
+            timeToFirstByteNanos = System.nanoTime() - attemptStartNanos;
+        }
+
+        void addDeserializationNanos(long nanos) {
+            deserializationNanos += nanos;
+        }
+
+        void failedToDeserialize() {
+            deserializationFailed = status == 200;
+        }
+
+        HttpRequest.Body count(final HttpRequest.Body body) {
+            if (body == null) {
+                return null;
+            }
+            return new HttpRequest.Body() {
+                @Override
+                public void writeTo(OutputStream outputStream) throws IOException {
+                    requestBody = new CountingOutputStream(outputStream);
+                    body.writeTo(requestBody);
+                }
+            };
+        }
+
+        InputStream count(InputStream body) {
+            if (body == null) {
+                return null;
+            }
+            responseBody = new CountingInputStream(body);
+            return responseBody;
+        }
+
+        void complete() {
+            RequestEvent event = new RequestEvent(endpoint, method, status, requestBody != null ? requestBody.getCount() : 0,
+                    responseBody != null ? responseBody.getCount() : 0, timeToFirstByteNanos, deserializationNanos,
+                    deserializationFailed, System.nanoTime() - attemptStartNanos, retries);
+            try {
+                listener.onRequest(event);
+            } catch (RuntimeException e) {
+                log.warn("Request listener failed for " + method + " " + endpoint, e);
+            }
+        }
     }
 
     /**
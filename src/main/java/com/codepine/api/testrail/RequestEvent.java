@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import lombok.Value;
+
+/**
+ * Request sent to TestRail and how it went, as reported to a {@link RequestListener}.
+ * <p>Times are measured from the start of the last attempt, so they do not include the retries before it nor the
+ * delays waited before them.</p>
+ */
+@Value
+public class RequestEvent {
+    /**
+     * The path of the endpoint relative to the API URL, as a template without IDs, e.g. {@code get_case/} or
+     * {@code get_cases/%s&suite_id=%s}.
+     */
+    private final String endpoint;
+    /**
+     * The HTTP method, {@code GET} or {@code POST}.
+     */
+    private final String method;
+    /**
+     * The HTTP status code of the last response, or -1 if TestRail could not be reached.
+     */
+    private final int status;
+    /**
+     * The number of bytes of the request body sent in the last attempt.
+     */
+    private final long bytesSent;
+    /**
+     * The number of bytes of the response body read.
+     */
+    private final long bytesReceived;
+    /**
+     * The time from sending the last attempt until the status of its response was received, in nanoseconds.
+     */
+    private final long timeToFirstByteNanos;
+    /**
+     * The time spent reading and deserializing the response body, in nanoseconds.
+     */
+    private final long deserializationNanos;
+    /**
+     * Whether the response body could not be read or deserialized although TestRail responded with {@code 200 OK}.
+     */
+    private final boolean deserializationFailed;
+    /**
+     * The time from sending the last attempt until the response was read or the request failed, in nanoseconds.
+     */
+    private final long durationNanos;
+    /**
+     * The number of attempts before the last one which were retried.
+     */
+    private final int retries;
+
+    /**
+     * Check whether TestRail responded with {@code 200 OK} and its response could be read.
+     *
+     * @return true if the request succeeded
+     */
+    public boolean isSuccessful() {
+        return status == 200 && !deserializationFailed;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+/**
+ * Listener notified of every request sent to TestRail, e.g. to collect metrics.
+ * <p>It is called once per call of {@link Request#execute()} or iteration of a streamed list which went to TestRail,
+ * after the response was read or the request failed, on the thread which executed the request. Responses answered
+ * from a cache or shared with a coalesced request do not go to TestRail and are not reported.</p>
+ * <p>Implementations must be thread safe and should return quickly, since they delay the caller of the request.
+ * Exceptions they throw are logged and otherwise ignored.</p>
+ *
+ * @see TestRail.Builder#requestListener(RequestListener)
+ * @see RequestMetrics
+ */
+public interface RequestListener {
+
+    /**
+     * Called when a request to TestRail completed.
+     *
+     * @param event the request and how it went
+     */
+    void onRequest(RequestEvent event);
+}
@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import lombok.Value;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link RequestListener} keeping counters and {@link LatencyHistogram latency histograms} per endpoint, to see e.g.
+ * the 99th percentile latency of each endpoint without an external metrics library.
+ * <pre>
+ * RequestMetrics metrics = new RequestMetrics();
+ * TestRail testRail = TestRail.builder(endPoint, username, password).requestListener(metrics).build();
+ * ......
+ * for (Map.Entry&lt;String, RequestMetrics.Stats&gt; endpoint : metrics.getStats().entrySet()) {
+ *     System.out.println(endpoint.getKey() + " p99: " + endpoint.getValue().getLatency().getValueAtPercentile(99) + " ns");
+ * }
+ * </pre>
+ * <p>Instances are thread safe and can be shared by several {@code TestRail} instances.</p>
+ *
+ * @see TestRail.Builder#requestListener(RequestListener)
+ */
+public final class RequestMetrics implements RequestListener {
+
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public void onRequest(final RequestEvent event) {
+        Endpoint endpoint = endpoints.get(event.getEndpoint());
+        if (endpoint == null) {
+            endpoint = new Endpoint();
+            Endpoint existingEndpoint = endpoints.putIfAbsent(event.getEndpoint(), endpoint);
+            if (existingEndpoint != null) {
+                endpoint = existingEndpoint;
+            }
+        }
+        endpoint.record(event);
+    }
+
+    /**
+     * Get a snapshot of the statistics of every endpoint a request was sent to.
+     *
+     * @return the statistics by endpoint template, sorted by endpoint
+     */
+    public SortedMap<String, Stats> getStats() {
+        SortedMap<String, Stats> stats = new TreeMap<>();
+        for (Map.Entry<String, Endpoint> endpoint : endpoints.entrySet()) {
+            stats.put(endpoint.getKey(), endpoint.getValue().getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * Counters and histograms of one endpoint.
+     */
+    private static class Endpoint {
+
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+        private final LatencyHistogram deserialization = new LatencyHistogram();
+
+        void record(RequestEvent event) {
+            requests.increment();
+            if (!event.isSuccessful()) {
+                failures.increment();
+            }
+            retries.add(event.getRetries());
+            bytesSent.add(event.getBytesSent());
+            bytesReceived.add(event.getBytesReceived());
+            latency.record(event.getDurationNanos());
+            if (event.getStatus() != -1) {
+                timeToFirstByte.record(event.getTimeToFirstByteNanos());
+            }
+            if (event.isSuccessful()) {
+                deserialization.record(event.getDeserializationNanos());
+            }
+        }
+
+        Stats getStats() {
+            return new Stats(requests.sum(), failures.sum(), retries.sum(), bytesSent.sum(), bytesReceived.sum(),
+                    latency.snapshot(), timeToFirstByte.snapshot(), deserialization.snapshot());
+        }
+    }
+
+    /**
+     * Snapshot of the statistics of the requests sent to an endpoint.
+     */
+    @Value
+    public static class Stats {
+        /**
+         * Number of requests.
+         */
+        private final long requests;
+        /**
+         * Number of requests which did not end with {@code 200 OK}.
+         */
+        private final long failures;
+        /**
+         * Number of attempts which were retried.
+         */
+        private final long retries;
+        /**
+         * Number of bytes of request bodies sent.
+         */
+        private final long bytesSent;
+        /**
+         * Number of bytes of response bodies read.
+         */
+        private final long bytesReceived;
+        /**
+         * Latencies from sending the last attempt of requests until their response was read.
+         */
+        private final LatencyHistogram.Snapshot latency;
+        /**
+         * Times from sending the last attempt of requests until the status of their response was received.
+         */
+        private final LatencyHistogram.Snapshot timeToFirstByte;
+        /**
+         * Times spent reading and deserializing the bodies of successful responses.
+         */
+        private final LatencyHistogram.Snapshot deserialization;
+    }
+}
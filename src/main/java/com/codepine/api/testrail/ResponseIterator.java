@@ -22,30 +22,26 @@
  * SOFTWARE.
  */
 
-package com.codepine.api.testrail.internal;
+package com.codepine.api.testrail;
 
-import com.fasterxml.jackson.annotation.JsonAnySetter;
-
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
+import java.io.Closeable;
+import java.util.Iterator;
 
 /**
- * String representing query parameters of a URL.
+ * Iterator over the entities of a TestRail response, which are read from the connection as they are iterated.
+ * <p>The connection is released when the iterator is exhausted or closed. Close it when abandoning the iteration early,
+ * e.g. by using it in a try-with-resources statement.</p>
+ *
+ * @param <E> the type of the entities
  */
-public final class QueryParameterString {
-
-    private final StringBuilder queryParamStringBuilder = new StringBuilder();
-
-    @JsonAnySetter
-    public void addQueryParameter(String key, String value) throws UnsupportedEncodingException {
-        if (queryParamStringBuilder.length() > 0) {
-            queryParamStringBuilder.append('&');
-        }
-        queryParamStringBuilder.append(URLEncoder.encode(key, "UTF-8")).append('=').append(URLEncoder.encode(value, "UTF-8"));
-    }
+public interface ResponseIterator<E> extends Iterator<E>, Closeable {
 
+    /**
+     * Release the connection of the response without reading the remaining entities.
+     * <p>If entities remain, the connection is discarded rather than read to its end, see {@link
+     * com.codepine.api.testrail.transport.HttpResponse#abort()}.</p>
+     */
     @Override
-    public String toString() {
-        return queryParamStringBuilder.toString();
-    }
+    void close();
+
 }
@@ -0,0 +1,352 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.model.Result;
+import com.codepine.api.testrail.model.ResultField;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Buffers results per test run and adds them in batches using {@link TestRail.Results#addForCases(int, List, FieldSchema)}.
+ * <p>The buffered results of a run are sent when their number or their size in bytes reaches the configured maximum, or when
+ * the oldest of them has been buffered for the configured maximum delay, whichever happens first. Batches are sent
+ * asynchronously, see {@link Request#executeAsync()}, so adding a result never waits for TestRail.</p>
+ * <pre>{@code
+ * try (ResultBatcher batcher = ResultBatcher.builder(testRail, resultFieldSchema).maxBatchSize(100).build()) {
+ *     batcher.add(runId, new Result().setCaseId(caseId).setStatusId(1));
+ *     ......
+ * }
+ * }</pre>
+ * <p>Instances are thread safe.</p>
+ */
+@Log4j
+public class ResultBatcher implements Closeable {
+
+    private final TestRail testRail;
+    private final FieldSchema<ResultField> resultFieldSchema;
+    private final int maxBatchSize;
+    private final long maxBatchBytes;
+    private final long maxDelayMillis;
+    private final ScheduledExecutorService scheduler;
+    private final Map<Integer, Batch> batches = new HashMap<>();
+    private final Set<CompletableFuture<Void>> pendingAcknowledgements = new HashSet<>();
+    private boolean closed;
+
+    private ResultBatcher(final Builder builder) {
+        testRail = builder.testRail;
+        resultFieldSchema = builder.resultFieldSchema;
+        maxBatchSize = builder.maxBatchSize;
+        maxBatchBytes = builder.maxBatchBytes;
+        maxDelayMillis = builder.maxDelayMillis;
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("testrail-result-batcher-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    /**
+     * Get a builder for a result batcher.
+     *
+     * @param testRail          the TestRail instance to add the results with
+     * @param resultFieldSchema the schema of the custom result fields configured in TestRail
+     * @return the builder
+     * @throws NullPointerException if any argument is null
+     */
+    public static Builder builder(@NonNull final TestRail testRail, @NonNull final FieldSchema<ResultField> resultFieldSchema) {
+        return new Builder(testRail, resultFieldSchema);
+    }
+
+    /**
+     * Buffer a result to be added to a test run.
+     *
+     * @param runId  the ID of the test run to add the result to
+     * @param result the result, with the ID of its test case set
+     * @return future result as added by TestRail, completed when the batch of the result was acknowledged, or completed
+     * exceptionally with the error of adding the batch
+     * @throws IllegalArgumentException if runId is not positive or the case ID of the result is not set
+     * @throws NullPointerException     if result is null
+     * @throws IllegalStateException    if this batcher is closed
+     */
+    public CompletableFuture<Result> add(final int runId, @NonNull final Result result) {
+        checkArgument(runId > 0, "runId should be positive");
+        checkArgument(result.getCaseId() != null, "caseId of result should be set");
+        long size = getContentLength(result);
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        Batch fullBatch = null;
+        synchronized (this) {
+            checkState(!closed, "result batcher is closed");
+            Batch batch = batches.get(runId);
+            if (batch == null) {
+                batch = new Batch(runId);
+                batches.put(runId, batch);
+                batch.timer = scheduler.schedule(new DelayedFlush(batch), maxDelayMillis, TimeUnit.MILLISECONDS);
+            }
+            batch.results.add(result);
+            batch.futures.add(future);
+            batch.bytes += size;
+            if (batch.results.size() >= maxBatchSize || batch.bytes >= maxBatchBytes) {
+                fullBatch = remove(batch);
+            }
+        }
+        if (fullBatch != null) {
+            send(fullBatch);
+        }
+        return future;
+    }
+
+    /**
+     * Send the buffered results of all test runs without waiting for any threshold.
+     *
+     * @return future completed when all sent batches were acknowledged or failed
+     */
+    public CompletableFuture<Void> flush() {
+        List<Batch> flushedBatches;
+        synchronized (this) {
+            flushedBatches = new ArrayList<>(batches.values());
+            for (Batch batch : flushedBatches) {
+                remove(batch);
+            }
+        }
+        List<CompletableFuture<Void>> acknowledgements = new ArrayList<>(flushedBatches.size());
+        for (Batch batch : flushedBatches) {
+            acknowledgements.add(send(batch));
+        }
+        return CompletableFuture.allOf(acknowledgements.toArray(new CompletableFuture<?>[acknowledgements.size()]));
+    }
+
+    /**
+     * Send the buffered results of all test runs and wait until they and all batches sent before were acknowledged or failed.
+     * <p>Results cannot be added once the batcher is closed. Failures are reported through the futures returned by
+     * {@link #add(int, Result)} only.</p>
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            CompletableFuture<Void> flushed = flush();
+            List<CompletableFuture<Void>> acknowledgements;
+            synchronized (this) {
+                acknowledgements = new ArrayList<>(pendingAcknowledgements);
+            }
+            acknowledgements.add(flushed);
+            CompletableFuture.allOf(acknowledgements.toArray(new CompletableFuture<?>[acknowledgements.size()])).handle(new BiFunction<Void, Throwable, Void>() {
+                @Override
+                public Void apply(Void ignored, Throwable throwable) {
+                    return null;
+                }
+            }).join();
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private Batch remove(Batch batch) {
+        batches.remove(batch.runId);
+        if (batch.timer != null) {
+            batch.timer.cancel(false);
+        }
+        track(batch);
+        return batch;
+    }
+
+    /**
+     * Track a batch taken out of the buffer until it is acknowledged, so that {@link #close()} waits for it even when it
+     * was sent before. Called while holding the lock of this batcher.
+     *
+     * @param batch the batch about to be sent
+     */
+    private void track(Batch batch) {
+        pendingAcknowledgements.add(batch.acknowledgement);
+    }
+
+    private CompletableFuture<Void> send(final Batch batch) {
+        log.debug("Adding batch of " + batch.results.size() + " results (" + batch.bytes + " bytes) to run " + batch.runId);
+        final CompletableFuture<Void> acknowledgement = batch.acknowledgement;
+        CompletableFuture<List<Result>> response;
+        try {
+            response = testRail.results().addForCases(batch.runId, batch.results, resultFieldSchema).executeAsync();
+        } catch (RuntimeException e) {
+            response = new CompletableFuture<>();
+            response.completeExceptionally(e);
+        }
+        response.whenComplete(new BiConsumer<List<Result>, Throwable>() {
+            @Override
+            public void accept(List<Result> addedResults, Throwable throwable) {
+                for (int i = 0; i < batch.futures.size(); i++) {
+                    if (throwable != null) {
+                        batch.futures.get(i).completeExceptionally(throwable);
+                    } else {
+                        batch.futures.get(i).complete(addedResults != null && i < addedResults.size() ? addedResults.get(i) : null);
+                    }
+                }
+                synchronized (ResultBatcher.this) {
+                    pendingAcknowledgements.remove(acknowledgement);
+                }
+                acknowledgement.complete(null);
+            }
+        });
+        return acknowledgement;
+    }
+
+    private static long getContentLength(Result result) {
+        try {
+            return Request.getContentLength(TestRail.Results.AddListForCases.class, result);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Result could not be serialized: " + result, e);
+        }
+    }
+
+    /**
+     * Results buffered for a test run.
+     */
+    private static class Batch {
+        private final int runId;
+        private final List<Result> results = new ArrayList<>();
+        private final List<CompletableFuture<Result>> futures = new ArrayList<>();
+        private final CompletableFuture<Void> acknowledgement = new CompletableFuture<>();
+        private long bytes;
+        private ScheduledFuture<?> timer;
+
+        Batch(int runId) {
+            this.runId = runId;
+        }
+    }
+
+    /**
+     * Sends a batch once it has been buffered for the maximum delay, unless it was sent already.
+     */
+    private class DelayedFlush implements Runnable {
+        private final Batch batch;
+
+        DelayedFlush(Batch batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void run() {
+            synchronized (ResultBatcher.this) {
+                if (batches.get(batch.runId) != batch) {
+                    return;
+                }
+                batches.remove(batch.runId);
+                track(batch);
+            }
+            send(batch);
+        }
+    }
+
+    /**
+     * Builder for {@code ResultBatcher}.
+     */
+    public static class Builder {
+
+        private final TestRail testRail;
+        private final FieldSchema<ResultField> resultFieldSchema;
+        private int maxBatchSize = 250;
+        private long maxBatchBytes = 1024 * 1024;
+        private long maxDelayMillis = TimeUnit.SECONDS.toMillis(5);
+
+        private Builder(final TestRail testRail, final FieldSchema<ResultField> resultFieldSchema) {
+            this.testRail = testRail;
+            this.resultFieldSchema = resultFieldSchema;
+        }
+
+        /**
+         * Set the number of buffered results of a test run at which they are sent. Defaults to 250.
+         *
+         * @param maxBatchSize the maximum number of results per batch
+         * @return this for chaining
+         * @throws IllegalArgumentException if maxBatchSize is not positive
+         */
+        public Builder maxBatchSize(final int maxBatchSize) {
+            checkArgument(maxBatchSize > 0, "maxBatchSize should be positive");
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Set the size in bytes of the serialized buffered results of a test run at which they are sent. Defaults to 1 MiB.
+         *
+         * @param maxBatchBytes the maximum size of a batch in bytes
+         * @return this for chaining
+         * @throws IllegalArgumentException if maxBatchBytes is not positive
+         */
+        public Builder maxBatchBytes(final long maxBatchBytes) {
+            checkArgument(maxBatchBytes > 0, "maxBatchBytes should be positive");
+            this.maxBatchBytes = maxBatchBytes;
+            return this;
+        }
+
+        /**
+         * Set the time after which buffered results of a test run are sent, counted from the first result buffered. Defaults to 5 seconds.
+         *
+         * @param maxDelay the maximum delay
+         * @param unit     the unit of maxDelay
+         * @return this for chaining
+         * @throws IllegalArgumentException if maxDelay is not positive
+         */
+        public Builder maxDelay(final long maxDelay, final TimeUnit unit) {
+            checkArgument(maxDelay > 0, "maxDelay should be positive");
+            this.maxDelayMillis = unit.toMillis(maxDelay);
+            return this;
+        }
+
+        /**
+         * Build a result batcher, which owns a daemon thread for sending delayed batches until it is closed.
+         *
+         * @return the result batcher
+         */
+        public ResultBatcher build() {
+            return new ResultBatcher(this);
+        }
+    }
+
+}
@@ -0,0 +1,408 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.internal.PendingResultCodec;
+import com.codepine.api.testrail.internal.PendingResultCodec.PendingResult;
+import com.codepine.api.testrail.model.Result;
+import lombok.NonNull;
+import lombok.extern.log4j.Log4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Write-ahead journal of results waiting to be added to a test run, so they survive the JVM dying before they were sent.
+ * <p>Results are appended to memory-mapped segment files in a directory and get increasing sequence numbers. Once a
+ * result was handled by TestRail, its sequence is acknowledged, and the highest sequence up to which all results were
+ * acknowledged is kept in a memory-mapped checkpoint file. Segments holding only acknowledged results are deleted.
+ * When a journal is opened, the results appended but not acknowledged before are available with {@link #replay()}.</p>
+ * <p>Each record in a segment is made of its length, a CRC32 checksum, its sequence and the encoded result. Records
+ * which were only partially written when the JVM or the machine died fail the checksum and are discarded, together
+ * with everything appended after them.</p>
+ * <p>Results acknowledged after the last checkpoint update which made it to disk are replayed again, so results are
+ * delivered at least once.</p>
+ * <p>Instances are thread safe, but a directory must only be used by one journal at a time.</p>
+ *
+ * @see ResultReporter.Builder#journal(ResultJournal)
+ */
+@Log4j
+public class ResultJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE_NAME = "checkpoint";
+    private static final int RECORD_HEADER_SIZE = 4 + 4 + 8;
+
+    private final File directory;
+    private final int segmentSize;
+    private final SyncPolicy syncPolicy;
+
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final TreeSet<Long> acknowledgedAfterCheckpoint = new TreeSet<>();
+    private final RandomAccessFile checkpointFile;
+    private final MappedByteBuffer checkpointBuffer;
+    private final List<PendingResult> unacknowledged = new ArrayList<>();
+    private MappedByteBuffer activeBuffer;
+    private long checkpoint;
+    private long nextSequence;
+    private boolean closed;
+
+    private ResultJournal(final Builder builder) throws IOException {
+        directory = builder.directory;
+        segmentSize = builder.segmentSize;
+        syncPolicy = builder.syncPolicy;
+        checkpointFile = new RandomAccessFile(new File(directory, CHECKPOINT_FILE_NAME), "rw");
+        try {
+            checkpointFile.setLength(8);
+            checkpointBuffer = checkpointFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, 8);
+            checkpoint = checkpointBuffer.getLong(0);
+            recover();
+        } catch (IOException | RuntimeException e) {
+            checkpointFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get a builder for a journal.
+     *
+     * @param directory an existing directory to keep the journal in
+     * @return the builder
+     * @throws IllegalArgumentException if directory is not a directory
+     * @throws NullPointerException     if directory is null
+     */
+    public static Builder builder(@NonNull final File directory) {
+        checkArgument(directory.isDirectory(), "directory should be an existing directory");
+        return new Builder(directory);
+    }
+
+    /**
+     * Get the results which were appended but not acknowledged before this journal was opened, in the order they were appended.
+     *
+     * @return the unacknowledged results, with their sequences set
+     */
+    public synchronized List<PendingResult> replay() {
+        return Collections.unmodifiableList(new ArrayList<>(unacknowledged));
+    }
+
+    /**
+     * Append a result to the journal.
+     *
+     * @param runId  the ID of the test run to add the result to
+     * @param result the result
+     * @return the sequence of the appended result, to acknowledge it with
+     * @throws IOException              if the result could not be written
+     * @throws IllegalArgumentException if the encoded result does not fit in a segment
+     * @throws IllegalStateException    if this journal is closed
+     */
+    public synchronized long append(final int runId, @NonNull final Result result) throws IOException {
+        checkState(!closed, "journal is closed");
+        byte[] payload = PendingResultCodec.encode(new PendingResult(0, runId, result));
+        int recordSize = RECORD_HEADER_SIZE + payload.length;
+        checkArgument(recordSize <= segmentSize, "result of %s bytes does not fit in a segment of %s bytes", recordSize, segmentSize);
+        if (activeBuffer.remaining() < recordSize) {
+            roll();
+        }
+        long sequence = nextSequence++;
+        int position = activeBuffer.position();
+        activeBuffer.putInt(position + 4, checksum(sequence, payload));
+        activeBuffer.putLong(position + 8, sequence);
+        activeBuffer.position(position + RECORD_HEADER_SIZE);
+        activeBuffer.put(payload);
+        // the length goes last, so a record is never found without its content
+        activeBuffer.putInt(position, payload.length);
+        segments.getLast().lastSequence = sequence;
+        if (syncPolicy == SyncPolicy.ALWAYS) {
+            activeBuffer.force();
+        }
+        return sequence;
+    }
+
+    /**
+     * Acknowledge a result, so it is not replayed when the journal is opened again.
+     *
+     * @param sequence the sequence returned when the result was appended
+     */
+    public synchronized void acknowledge(final long sequence) {
+        if (closed || sequence <= checkpoint || sequence >= nextSequence) {
+            return;
+        }
+        acknowledgedAfterCheckpoint.add(sequence);
+        long newCheckpoint = checkpoint;
+        while (!acknowledgedAfterCheckpoint.isEmpty() && acknowledgedAfterCheckpoint.first() == newCheckpoint + 1) {
+            newCheckpoint = acknowledgedAfterCheckpoint.pollFirst();
+        }
+        if (newCheckpoint == checkpoint) {
+            return;
+        }
+        checkpoint = newCheckpoint;
+        checkpointBuffer.putLong(0, checkpoint);
+        if (syncPolicy == SyncPolicy.ALWAYS) {
+            checkpointBuffer.force();
+        }
+        while (segments.size() > 1 && segments.getFirst().lastSequence <= checkpoint) {
+            File file = segments.removeFirst().file;
+            if (!file.delete()) {
+                log.warn("Could not delete acknowledged journal segment " + file);
+            }
+        }
+    }
+
+    /**
+     * Force appended results and the checkpoint to disk, unless the sync policy is {@link SyncPolicy#NEVER}.
+     */
+    public synchronized void sync() {
+        if (closed || syncPolicy == SyncPolicy.NEVER) {
+            return;
+        }
+        activeBuffer.force();
+        checkpointBuffer.force();
+    }
+
+    /**
+     * Sync and close this journal.
+     *
+     * @throws IOException if the checkpoint file could not be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        sync();
+        closed = true;
+        checkpointFile.close();
+    }
+
+    private void recover() throws IOException {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        if (files == null) {
+            throw new IOException("Could not list journal directory " + directory);
+        }
+        // segment names hold the zero padded first sequence, so they sort by it
+        Arrays.sort(files);
+        boolean torn = false;
+        for (File file : files) {
+            if (torn) {
+                log.warn("Discarding journal segment " + file + " following a partially written record");
+                if (!file.delete()) {
+                    throw new IOException("Could not delete journal segment " + file);
+                }
+                continue;
+            }
+            String name = file.getName();
+            nextSequence = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            Segment segment = new Segment(file, nextSequence - 1);
+            MappedByteBuffer buffer = map(file);
+            torn = !readRecords(buffer, segment);
+            if (segment.lastSequence <= checkpoint && file != files[files.length - 1] && !torn) {
+                if (!file.delete()) {
+                    log.warn("Could not delete acknowledged journal segment " + file);
+                }
+                continue;
+            }
+            segments.addLast(segment);
+            activeBuffer = buffer;
+        }
+        nextSequence = Math.max(nextSequence, checkpoint + 1);
+        if (segments.isEmpty() || segments.getLast().lastSequence + 1 != nextSequence) {
+            roll();
+        }
+    }
+
+    /**
+     * Read the records of a segment, leaving the buffer positioned after the last complete one.
+     *
+     * @return false if the segment ended with a partially written record, which is cleared
+     */
+    private boolean readRecords(MappedByteBuffer buffer, Segment segment) throws IOException {
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int position = buffer.position();
+            int length = buffer.getInt(position);
+            if (length == 0) {
+                return true;
+            }
+            int checksum = buffer.getInt(position + 4);
+            long sequence = buffer.getLong(position + 8);
+            if (length < 0 || length > buffer.remaining() - RECORD_HEADER_SIZE || sequence != nextSequence) {
+                return clear(buffer, segment);
+            }
+            byte[] payload = new byte[length];
+            buffer.position(position + RECORD_HEADER_SIZE);
+            buffer.get(payload);
+            if (checksum != checksum(sequence, payload)) {
+                buffer.position(position);
+                return clear(buffer, segment);
+            }
+            if (sequence > checkpoint) {
+                PendingResult pendingResult = PendingResultCodec.decode(payload, 0, length);
+                unacknowledged.add(new PendingResult(sequence, pendingResult.getRunId(), pendingResult.getResult()));
+            }
+            segment.lastSequence = sequence;
+            nextSequence = sequence + 1;
+        }
+        return true;
+    }
+
+    private boolean clear(MappedByteBuffer buffer, Segment segment) {
+        log.warn("Discarding partially written record at offset " + buffer.position() + " of journal segment " + segment.file);
+        int position = buffer.position();
+        while (buffer.hasRemaining()) {
+            buffer.put((byte) 0);
+        }
+        buffer.force();
+        buffer.position(position);
+        return false;
+    }
+
+    private void roll() throws IOException {
+        if (activeBuffer != null && syncPolicy != SyncPolicy.NEVER) {
+            activeBuffer.force();
+        }
+        File file = new File(directory, String.format("%s%020d%s", SEGMENT_PREFIX, nextSequence, SEGMENT_SUFFIX));
+        activeBuffer = map(file);
+        segments.addLast(new Segment(file, nextSequence - 1));
+    }
+
+    private MappedByteBuffer map(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            if (randomAccessFile.length() < segmentSize) {
+                randomAccessFile.setLength(segmentSize);
+            }
+            // the mapping stays valid after the file is closed
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, randomAccessFile.length());
+        }
+    }
+
+    private static int checksum(long sequence, byte[] payload) {
+        CRC32 crc = new CRC32();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (sequence >>> shift));
+        }
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static class Segment {
+
+        private final File file;
+        private long lastSequence;
+
+        Segment(File file, long lastSequence) {
+            this.file = file;
+            this.lastSequence = lastSequence;
+        }
+    }
+
+    /**
+     * When appended results and the checkpoint are forced to disk.
+     */
+    public enum SyncPolicy {
+        /**
+         * Force every append and acknowledgement to disk. Results survive the machine dying, at the cost of throughput.
+         */
+        ALWAYS,
+        /**
+         * Force to disk on {@link #sync()}, which {@link ResultReporter} calls after each batch it uploads. Results
+         * appended since the last sync may be lost if the machine dies, but not if only the JVM dies.
+         */
+        BATCH,
+        /**
+         * Never force to disk, leaving it to the operating system. Results survive the JVM dying, but not the machine.
+         */
+        NEVER
+    }
+
+    /**
+     * Builder for {@code ResultJournal}.
+     */
+    public static class Builder {
+
+        private final File directory;
+        private int segmentSize = 16 * 1024 * 1024;
+        private SyncPolicy syncPolicy = SyncPolicy.BATCH;
+
+        private Builder(final File directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Set the size of each segment file, which bounds the size of a single encoded result. Defaults to 16 MiB.
+         *
+         * @param segmentSize the size of a segment in bytes
+         * @return this for chaining
+         * @throws IllegalArgumentException if segmentSize is less than 4 KiB
+         */
+        public Builder segmentSize(final int segmentSize) {
+            checkArgument(segmentSize >= 4096, "segmentSize should be at least 4096");
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * Set when appended results and the checkpoint are forced to disk. Defaults to {@link SyncPolicy#BATCH}.
+         *
+         * @param syncPolicy the sync policy
+         * @return this for chaining
+         */
+        public Builder syncPolicy(@NonNull final SyncPolicy syncPolicy) {
+            this.syncPolicy = syncPolicy;
+            return this;
+        }
+
+        /**
+         * Open the journal, recovering the results which were not acknowledged when it was last used.
+         *
+         * @return the journal
+         * @throws IOException if the journal could not be read or created
+         */
+        public ResultJournal build() throws IOException {
+            return new ResultJournal(this);
+        }
+    }
+
+}
@@ -0,0 +1,640 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.internal.PendingResultCodec;
+import com.codepine.api.testrail.internal.PendingResultCodec.PendingResult;
+import com.codepine.api.testrail.model.Result;
+import com.codepine.api.testrail.model.ResultField;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.log4j.Log4j;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Reports results to TestRail in the background, so threads reporting results never wait for TestRail.
+ * <p>Reported results are put in a lock-free bounded queue, which a background uploader thread drains in batches using
+ * {@link TestRail.Results#addForCases(int, List, FieldSchema)}. What happens when the queue is full is decided by the
+ * {@link OverflowPolicy}. Results which could not be added are counted as failed and logged.</p>
+ * <p>With a {@link ResultJournal}, reported results are appended to it before being queued and acknowledged once
+ * TestRail responded to the request adding them. Results left unacknowledged when the JVM died are uploaded again by
+ * the next reporter using the journal, so a result may be added more than once but is not lost. Results TestRail could
+ * not be reached for stay unacknowledged too.</p>
+ * <p>Spilled results left in the spill directory by a reporter which did not close are uploaded by the next reporter
+ * spilling to it.</p>
+ * <pre>{@code
+ * try (ResultReporter reporter = ResultReporter.builder(testRail, resultFieldSchema).capacity(10000).build()) {
+ *     reporter.report(runId, new Result().setCaseId(caseId).setStatusId(1));
+ *     ......
+ * }
+ * }</pre>
+ * <p>Instances are thread safe.</p>
+ */
+@Log4j
+public class ResultReporter implements Closeable {
+
+    private static final String SPILL_FILE_NAME = "testrail-results.spill";
+    private static final long MAX_IDLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final TestRail testRail;
+    private final FieldSchema<ResultField> resultFieldSchema;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final int maxBatchSize;
+    private final File spillFile;
+    private final File drainingSpillFile;
+    private final ResultJournal journal;
+    private final List<PendingResult> replayed;
+
+    private final ConcurrentLinkedQueue<PendingResult> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicBoolean uploaderParked = new AtomicBoolean();
+    private final AtomicInteger blockedReporters = new AtomicInteger();
+    private final Object spaceAvailable = new Object();
+    private final Object spillLock = new Object();
+    private OutputStream spillOutput;
+    private final AtomicLong spillPending = new AtomicLong();
+    private final AtomicLong drainingPending = new AtomicLong();
+    private final AtomicInteger activeReporters = new AtomicInteger();
+
+    private final AtomicLong reported = new AtomicLong();
+    private final AtomicLong uploaded = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile double drainRate;
+    private long drainWindowStartNanos = System.nanoTime();
+    private long drainWindowCount;
+
+    private final Thread uploader;
+    private volatile boolean closed;
+
+    private ResultReporter(final Builder builder) {
+        testRail = builder.testRail;
+        resultFieldSchema = builder.resultFieldSchema;
+        capacity = builder.capacity;
+        overflowPolicy = builder.overflowPolicy;
+        maxBatchSize = builder.maxBatchSize;
+        spillFile = builder.spillDirectory != null ? new File(builder.spillDirectory, SPILL_FILE_NAME) : null;
+        drainingSpillFile = builder.spillDirectory != null ? new File(builder.spillDirectory, SPILL_FILE_NAME + ".draining") : null;
+        journal = builder.journal;
+        replayed = journal != null ? journal.replay() : Collections.<PendingResult>emptyList();
+        reported.addAndGet(replayed.size());
+        if (spillFile != null) {
+            // a reporter which did not close may have left spilled results behind, in either file
+            drainingPending.set(countSpilled(drainingSpillFile));
+            spillPending.set(countSpilled(spillFile));
+            reported.addAndGet(drainingPending.get() + spillPending.get());
+        }
+        uploader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                upload();
+            }
+        }, "testrail-result-reporter");
+        uploader.setDaemon(true);
+        uploader.start();
+    }
+
+    /**
+     * Get a builder for a result reporter.
+     *
+     * @param testRail          the TestRail instance to add the results with
+     * @param resultFieldSchema the schema of the custom result fields configured in TestRail
+     * @return the builder
+     * @throws NullPointerException if any argument is null
+     */
+    public static Builder builder(@NonNull final TestRail testRail, @NonNull final FieldSchema<ResultField> resultFieldSchema) {
+        return new Builder(testRail, resultFieldSchema);
+    }
+
+    /**
+     * Report a result to be added to a test run in the background.
+     * <p>If the queue is full, this blocks until there is space, drops the oldest queued result or spills the result to
+     * disk, depending on the {@link OverflowPolicy}.</p>
+     *
+     * @param runId  the ID of the test run to add the result to
+     * @param result the result, with the ID of its test case set
+     * @throws IllegalArgumentException if runId is not positive or the case ID of the result is not set
+     * @throws NullPointerException     if result is null
+     * @throws IllegalStateException    if this reporter is closed
+     */
+    public void report(final int runId, @NonNull final Result result) {
+        checkArgument(runId > 0, "runId should be positive");
+        checkArgument(result.getCaseId() != null, "caseId of result should be set");
+        // the uploader does not stop while a reporter is active, so a result reported while closing is not lost
+        activeReporters.incrementAndGet();
+        try {
+            checkState(!closed, "result reporter is closed");
+            enqueue(runId, result);
+        } finally {
+            if (activeReporters.decrementAndGet() == 0 && closed) {
+                LockSupport.unpark(uploader);
+            }
+        }
+    }
+
+    private void enqueue(int runId, Result result) {
+        PendingResult pendingResult = new PendingResult(append(runId, result), runId, result);
+        reported.incrementAndGet();
+        while (!offer(pendingResult)) {
+            switch (overflowPolicy) {
+                case BLOCK:
+                    awaitSpace();
+                    break;
+                case DROP_OLDEST:
+                    PendingResult oldest = queue.poll();
+                    if (oldest != null) {
+                        queueDepth.decrementAndGet();
+                        dropped.incrementAndGet();
+                        acknowledge(oldest);
+                    }
+                    break;
+                case SPILL:
+                    spill(pendingResult);
+                    return;
+                default:
+                    throw new IllegalStateException("Unsupported overflow policy: " + overflowPolicy);
+            }
+        }
+        if (uploaderParked.get() && uploaderParked.compareAndSet(true, false)) {
+            LockSupport.unpark(uploader);
+        }
+    }
+
+    /**
+     * Get a snapshot of the statistics of this reporter.
+     *
+     * @return the statistics
+     */
+    public Stats getStats() {
+        return new Stats(queueDepth.get(), spillPending.get() + drainingPending.get(), reported.get(), uploaded.get(), dropped.get(), spilled.get(), failed.get(), drainRate);
+    }
+
+    /**
+     * Stop accepting results, wait until all queued and spilled results were uploaded and close the journal, if any.
+     * <p>Results reported concurrently are either uploaded before this returns or rejected with an
+     * {@link IllegalStateException}.</p>
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(uploader);
+        synchronized (spaceAvailable) {
+            spaceAvailable.notifyAll();
+        }
+        boolean interrupted = false;
+        while (uploader.isAlive()) {
+            try {
+                uploader.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.warn("Could not close result journal", e);
+            }
+        }
+    }
+
+    private long append(int runId, Result result) {
+        if (journal == null) {
+            return 0;
+        }
+        try {
+            return journal.append(runId, result);
+        } catch (IOException e) {
+            log.warn("Could not append result to journal, reporting it without", e);
+            return 0;
+        }
+    }
+
+    private void acknowledge(PendingResult pendingResult) {
+        if (journal != null && pendingResult.getSequence() != 0) {
+            journal.acknowledge(pendingResult.getSequence());
+        }
+    }
+
+    private boolean offer(PendingResult pendingResult) {
+        while (true) {
+            int depth = queueDepth.get();
+            if (depth >= capacity) {
+                return false;
+            }
+            if (queueDepth.compareAndSet(depth, depth + 1)) {
+                queue.offer(pendingResult);
+                return true;
+            }
+        }
+    }
+
+    private void awaitSpace() {
+        blockedReporters.incrementAndGet();
+        try {
+            synchronized (spaceAvailable) {
+                while (queueDepth.get() >= capacity) {
+                    checkState(!closed, "result reporter is closed");
+                    spaceAvailable.wait(TimeUnit.NANOSECONDS.toMillis(MAX_IDLE_NANOS));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for space in the result queue", e);
+        } finally {
+            blockedReporters.decrementAndGet();
+        }
+    }
+
+    private void spill(PendingResult pendingResult) {
+        try {
+            byte[] encoded = PendingResultCodec.encode(pendingResult);
+            synchronized (spillLock) {
+                if (spillOutput == null) {
+                    spillOutput = new BufferedOutputStream(new FileOutputStream(spillFile, true));
+                }
+                spillOutput.write(encoded);
+                spillOutput.write('\n');
+                spillPending.incrementAndGet();
+            }
+            spilled.incrementAndGet();
+        } catch (IOException e) {
+            dropped.incrementAndGet();
+            acknowledge(pendingResult);
+            log.warn("Could not spill result to " + spillFile + ", dropping it", e);
+        }
+    }
+
+    private void upload() {
+        for (int i = 0; i < replayed.size(); i += maxBatchSize) {
+            try {
+                send(replayed.subList(i, Math.min(i + maxBatchSize, replayed.size())));
+            } catch (RuntimeException e) {
+                log.error("Unexpected error while uploading replayed results", e);
+            }
+        }
+        while (true) {
+            try {
+                List<PendingResult> batch = drain();
+                if (!batch.isEmpty()) {
+                    send(batch);
+                    continue;
+                }
+                if (spillFile != null && (spillPending.get() > 0 || drainingPending.get() > 0)) {
+                    uploadSpilled();
+                    continue;
+                }
+                if (closed && activeReporters.get() == 0) {
+                    // reporters which got past the closed check finished enqueueing, drain what they left once more
+                    if (queue.isEmpty() && spillPending.get() == 0) {
+                        return;
+                    }
+                    continue;
+                }
+                uploaderParked.set(true);
+                if (queue.isEmpty() && (!closed || activeReporters.get() > 0)) {
+                    LockSupport.parkNanos(this, MAX_IDLE_NANOS);
+                }
+                uploaderParked.set(false);
+                recordDrained(0);
+            } catch (RuntimeException e) {
+                log.error("Unexpected error while uploading results", e);
+            }
+        }
+    }
+
+    private List<PendingResult> drain() {
+        List<PendingResult> batch = new ArrayList<>();
+        PendingResult pendingResult;
+        while (batch.size() < maxBatchSize && (pendingResult = queue.poll()) != null) {
+            batch.add(pendingResult);
+        }
+        if (!batch.isEmpty()) {
+            queueDepth.addAndGet(-batch.size());
+            if (blockedReporters.get() > 0) {
+                synchronized (spaceAvailable) {
+                    spaceAvailable.notifyAll();
+                }
+            }
+        }
+        return batch;
+    }
+
+    private long countSpilled(File file) {
+        if (!file.exists()) {
+            return 0;
+        }
+        long count = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    count++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not count spilled results left in " + file, e);
+        }
+        return count;
+    }
+
+    private void uploadSpilled() {
+        synchronized (spillLock) {
+            try {
+                if (spillOutput != null) {
+                    spillOutput.close();
+                    spillOutput = null;
+                }
+            } catch (IOException e) {
+                log.warn("Could not close spill file " + spillFile, e);
+            }
+            // a draining file left behind is uploaded first, the spill file is moved on the next call
+            if (!drainingSpillFile.exists()) {
+                if (!spillFile.renameTo(drainingSpillFile)) {
+                    log.error("Could not move spill file " + spillFile + " for uploading, dropping " + spillPending.get() + " spilled results");
+                    dropped.addAndGet(spillPending.getAndSet(0));
+                    return;
+                }
+                drainingPending.set(spillPending.getAndSet(0));
+            }
+        }
+        long count = drainingPending.get();
+        long read = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(drainingSpillFile), StandardCharsets.UTF_8))) {
+            List<PendingResult> batch = new ArrayList<>(maxBatchSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                byte[] encoded = line.getBytes(StandardCharsets.UTF_8);
+                batch.add(PendingResultCodec.decode(encoded, 0, encoded.length));
+                read++;
+                if (batch.size() == maxBatchSize) {
+                    send(batch);
+                    batch = new ArrayList<>(maxBatchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                send(batch);
+            }
+        } catch (IOException e) {
+            failed.addAndGet(Math.max(count - read, 0));
+            log.error("Could not read spilled results from " + drainingSpillFile, e);
+        }
+        if (!drainingSpillFile.delete()) {
+            log.warn("Could not delete spill file " + drainingSpillFile);
+        }
+        drainingPending.set(0);
+    }
+
+    private void send(List<PendingResult> batch) {
+        Map<Integer, List<PendingResult>> pendingResultsByRun = new LinkedHashMap<>();
+        for (PendingResult pendingResult : batch) {
+            List<PendingResult> pendingResults = pendingResultsByRun.get(pendingResult.getRunId());
+            if (pendingResults == null) {
+                pendingResults = new ArrayList<>();
+                pendingResultsByRun.put(pendingResult.getRunId(), pendingResults);
+            }
+            pendingResults.add(pendingResult);
+        }
+        for (Map.Entry<Integer, List<PendingResult>> pendingResults : pendingResultsByRun.entrySet()) {
+            List<Result> results = new ArrayList<>(pendingResults.getValue().size());
+            for (PendingResult pendingResult : pendingResults.getValue()) {
+                results.add(pendingResult.getResult());
+            }
+            boolean handled = true;
+            try {
+                testRail.results().addForCases(pendingResults.getKey(), results, resultFieldSchema).execute();
+                uploaded.addAndGet(results.size());
+            } catch (RuntimeException e) {
+                // results TestRail rejected would be rejected again, unlike ones which did not reach it
+                handled = e instanceof TestRailException;
+                failed.addAndGet(results.size());
+                log.error("Could not add " + results.size() + " results to run " + pendingResults.getKey(), e);
+            }
+            if (handled) {
+                for (PendingResult pendingResult : pendingResults.getValue()) {
+                    acknowledge(pendingResult);
+                }
+            }
+        }
+        if (journal != null) {
+            journal.sync();
+        }
+        recordDrained(batch.size());
+    }
+
+    private void recordDrained(int count) {
+        drainWindowCount += count;
+        long now = System.nanoTime();
+        long elapsed = now - drainWindowStartNanos;
+        if (elapsed >= MAX_IDLE_NANOS) {
+            drainRate = drainWindowCount * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+            drainWindowStartNanos = now;
+            drainWindowCount = 0;
+        }
+    }
+
+    /**
+     * What to do with a reported result when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Block the reporting thread until there is space in the queue.
+         */
+        BLOCK,
+        /**
+         * Drop the oldest queued result to make space for the reported result.
+         */
+        DROP_OLDEST,
+        /**
+         * Append the reported result to a file in the spill directory, from where it is uploaded once the queue is empty.
+         */
+        SPILL
+    }
+
+    /**
+     * Snapshot of the statistics of a {@link ResultReporter}.
+     */
+    @Value
+    public static class Stats {
+        /**
+         * Number of results currently in the queue.
+         */
+        private final int queueDepth;
+        /**
+         * Number of spilled results waiting to be uploaded.
+         */
+        private final long spillDepth;
+        /**
+         * Number of results reported so far, including the ones replayed from the journal or left spilled by a previous
+         * reporter.
+         */
+        private final long reported;
+        /**
+         * Number of results added to TestRail so far.
+         */
+        private final long uploaded;
+        /**
+         * Number of results dropped because the queue was full or they could not be spilled.
+         */
+        private final long dropped;
+        /**
+         * Number of results spilled to disk because the queue was full.
+         */
+        private final long spilled;
+        /**
+         * Number of results TestRail failed to add.
+         */
+        private final long failed;
+        /**
+         * Number of results uploaded per second, measured over the last interval of about one second.
+         */
+        private final double drainRate;
+    }
+
+    /**
+     * Builder for {@code ResultReporter}.
+     */
+    public static class Builder {
+
+        private final TestRail testRail;
+        private final FieldSchema<ResultField> resultFieldSchema;
+        private int capacity = 10000;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+        private File spillDirectory;
+        private int maxBatchSize = 250;
+        private ResultJournal journal;
+
+        private Builder(final TestRail testRail, final FieldSchema<ResultField> resultFieldSchema) {
+            this.testRail = testRail;
+            this.resultFieldSchema = resultFieldSchema;
+        }
+
+        /**
+         * Set the maximum number of results in the queue. Defaults to 10000.
+         *
+         * @param capacity the capacity of the queue
+         * @return this for chaining
+         * @throws IllegalArgumentException if capacity is not positive
+         */
+        public Builder capacity(final int capacity) {
+            checkArgument(capacity > 0, "capacity should be positive");
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * Set what to do with a reported result when the queue is full. Defaults to {@link OverflowPolicy#BLOCK}.
+         *
+         * @param overflowPolicy the overflow policy
+         * @return this for chaining
+         */
+        public Builder overflowPolicy(@NonNull final OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * Set the directory to spill results to with {@link OverflowPolicy#SPILL}.
+         *
+         * @param spillDirectory an existing directory, which must not be shared with other reporters
+         * @return this for chaining
+         * @throws IllegalArgumentException if spillDirectory is not a directory
+         */
+        public Builder spillDirectory(@NonNull final File spillDirectory) {
+            checkArgument(spillDirectory.isDirectory(), "spillDirectory should be an existing directory");
+            this.spillDirectory = spillDirectory;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of results added with a single request. Defaults to 250.
+         *
+         * @param maxBatchSize the maximum number of results per request
+         * @return this for chaining
+         * @throws IllegalArgumentException if maxBatchSize is not positive
+         */
+        public Builder maxBatchSize(final int maxBatchSize) {
+            checkArgument(maxBatchSize > 0, "maxBatchSize should be positive");
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Set the journal to keep reported results in until TestRail handled them. The results left unacknowledged in
+         * the journal are uploaded first, and the journal is closed with the reporter.
+         *
+         * @param journal an open journal, which must not be used by anything else
+         * @return this for chaining
+         */
+        public Builder journal(@NonNull final ResultJournal journal) {
+            this.journal = journal;
+            return this;
+        }
+
+        /**
+         * Build a result reporter and start its uploader thread.
+         *
+         * @return the result reporter
+         * @throws IllegalStateException if the overflow policy is {@link OverflowPolicy#SPILL} and no spill directory is set
+         */
+        public ResultReporter build() {
+            checkState(overflowPolicy != OverflowPolicy.SPILL || spillDirectory != null, "spillDirectory is required with SPILL overflow policy");
+            return new ResultReporter(this);
+        }
+    }
+
+}
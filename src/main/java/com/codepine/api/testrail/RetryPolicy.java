@@ -0,0 +1,246 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Policy for retrying requests which failed with a transient error.
+ * <p>Only failures which are safe to retry are retried:</p>
+ * <ul>
+ * <li>{@code 429 Too Many Requests} for any request, since TestRail rejected it without processing it.</li>
+ * <li>{@code 500}, {@code 502}, {@code 503} and {@code 504} responses and IO errors for {@code GET} requests only, since
+ * a {@code POST} request might have been processed before failing and retrying it could e.g. add a result twice.
+ * {@link Builder#retryPostOnServerErrors(boolean)} allows retrying them for {@code POST} requests too.</li>
+ * </ul>
+ * <p>The delay before a retry is drawn uniformly between zero and an exponentially growing ceiling ("full jitter"),
+ * so clients failing at the same time do not retry at the same time. If TestRail sends a {@code Retry-After} header,
+ * its delay is used instead. No retry is made which would end after the total time budget of the request.</p>
+ *
+ * @see TestRail.Builder#retryPolicy(RetryPolicy)
+ */
+@ToString
+public final class RetryPolicy {
+
+    private static final RetryPolicy NONE = new RetryPolicy(new Builder().maxAttempts(1));
+
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+    private final long totalBudgetNanos;
+    private final boolean retryPostOnServerErrors;
+
+    private RetryPolicy(final Builder builder) {
+        maxAttempts = builder.maxAttempts;
+        baseDelayNanos = builder.baseDelayNanos;
+        maxDelayNanos = builder.maxDelayNanos;
+        totalBudgetNanos = builder.totalBudgetNanos;
+        retryPostOnServerErrors = builder.retryPostOnServerErrors;
+    }
+
+    /**
+     * Get the policy never retrying requests.
+     *
+     * @return the policy
+     */
+    public static RetryPolicy none() {
+        return NONE;
+    }
+
+    /**
+     * Get a builder for a retry policy.
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get the delay before retrying a failed request.
+     *
+     * @param method       the method of the request
+     * @param statusCode   the status code TestRail responded with or -1 if the request failed with an IO error
+     * @param retryAfter   the value of the {@code Retry-After} header of the response or null if there is none
+     * @param attempt      the number of attempts made so far, starting at 1
+     * @param elapsedNanos the time since the first attempt was started
+     * @return the delay in nanoseconds or -1 if the request should not be retried
+     */
+    long getDelayNanos(Request.Method method, int statusCode, String retryAfter, int attempt, long elapsedNanos) {
+        if (attempt >= maxAttempts || !isRetryable(method, statusCode)) {
+            return -1;
+        }
+        long delayNanos = parseRetryAfter(retryAfter);
+        if (delayNanos < 0) {
+            long ceilingNanos = attempt > 62 ? maxDelayNanos : Math.min(maxDelayNanos, baseDelayNanos << (attempt - 1));
+            if (ceilingNanos < 0) {
+                ceilingNanos = maxDelayNanos;
+            }
+            delayNanos = ThreadLocalRandom.current().nextLong(ceilingNanos + 1);
+        }
+        return elapsedNanos + delayNanos <= totalBudgetNanos ? delayNanos : -1;
+    }
+
+    private boolean isRetryable(Request.Method method, int statusCode) {
+        switch (statusCode) {
+            case 429:
+                return true;
+            case -1:
+            case 500:
+            case 502:
+            case 503:
+            case 504:
+                return method == Request.Method.GET || retryPostOnServerErrors;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Parse a {@code Retry-After} header, which is either a number of seconds or an HTTP date.
+     *
+     * @return the delay in nanoseconds or -1 if there is no valid header
+     */
+    private static long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null || retryAfter.trim().isEmpty()) {
+            return -1;
+        }
+        String value = retryAfter.trim();
+        try {
+            long seconds = Long.parseLong(value);
+            return seconds >= 0 ? TimeUnit.SECONDS.toNanos(seconds) : -1;
+        } catch (NumberFormatException e) {
+            // not a number of seconds, so it should be a date
+        }
+        try {
+            long delayNanos = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME)).toNanos();
+            return Math.max(delayNanos, 0);
+        } catch (DateTimeParseException | ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Builder for {@code RetryPolicy}.
+     */
+    public static class Builder {
+
+        private int maxAttempts = 5;
+        private long baseDelayNanos = TimeUnit.MILLISECONDS.toNanos(200);
+        private long maxDelayNanos = TimeUnit.SECONDS.toNanos(10);
+        private long totalBudgetNanos = TimeUnit.SECONDS.toNanos(60);
+        private boolean retryPostOnServerErrors;
+
+        private Builder() {
+        }
+
+        /**
+         * Set the maximum number of attempts per request, including the first one. Defaults to 5.
+         *
+         * @param maxAttempts the maximum number of attempts
+         * @return this for chaining
+         * @throws IllegalArgumentException if maxAttempts is not positive
+         */
+        public Builder maxAttempts(final int maxAttempts) {
+            checkArgument(maxAttempts > 0, "maxAttempts should be positive");
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Set the ceiling of the delay before the first retry, which doubles with every further retry. Defaults to 200 milliseconds.
+         *
+         * @param baseDelay the base delay
+         * @param unit      the unit of baseDelay
+         * @return this for chaining
+         * @throws IllegalArgumentException if baseDelay is not positive
+         */
+        public Builder baseDelay(final long baseDelay, @NonNull final TimeUnit unit) {
+            checkArgument(baseDelay > 0, "baseDelay should be positive");
+            this.baseDelayNanos = unit.toNanos(baseDelay);
+            return this;
+        }
+
+        /**
+         * Set the maximum ceiling of the delay before a retry, unless TestRail asks for a longer one with {@code Retry-After}. Defaults to 10 seconds.
+         *
+         * @param maxDelay the maximum delay
+         * @param unit     the unit of maxDelay
+         * @return this for chaining
+         * @throws IllegalArgumentException if maxDelay is not positive
+         */
+        public Builder maxDelay(final long maxDelay, @NonNull final TimeUnit unit) {
+            checkArgument(maxDelay > 0, "maxDelay should be positive");
+            this.maxDelayNanos = unit.toNanos(maxDelay);
+            return this;
+        }
+
+        /**
+         * Set the maximum time from the first attempt of a request to the end of the delay before its last retry. Defaults to 60 seconds.
+         *
+         * @param totalBudget the total time budget
+         * @param unit        the unit of totalBudget
+         * @return this for chaining
+         * @throws IllegalArgumentException if totalBudget is not positive
+         */
+        public Builder totalBudget(final long totalBudget, @NonNull final TimeUnit unit) {
+            checkArgument(totalBudget > 0, "totalBudget should be positive");
+            this.totalBudgetNanos = unit.toNanos(totalBudget);
+            return this;
+        }
+
+        /**
+         * Set whether {@code POST} requests are retried on server and IO errors as well, at the risk of e.g. adding
+         * a result twice. Defaults to false.
+         *
+         * @param retryPostOnServerErrors whether to retry {@code POST} requests on server and IO errors
+         * @return this for chaining
+         */
+        public Builder retryPostOnServerErrors(final boolean retryPostOnServerErrors) {
+            this.retryPostOnServerErrors = retryPostOnServerErrors;
+            return this;
+        }
+
+        /**
+         * Build a retry policy.
+         *
+         * @return the retry policy
+         */
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+
+}
@@ -24,7 +24,9 @@
 
 package com.codepine.api.testrail;
 
+import com.codepine.api.testrail.internal.AsyncExecutors;
 import com.codepine.api.testrail.internal.BooleanToIntSerializer;
+import com.codepine.api.testrail.internal.FieldSchemaSource;
 import com.codepine.api.testrail.internal.ListToCsvSerializer;
 import com.codepine.api.testrail.model.Case;
 import com.codepine.api.testrail.model.CaseField;
@@ -42,6 +44,8 @@ import com.codepine.api.testrail.model.Status;
 import com.codepine.api.testrail.model.Suite;
 import com.codepine.api.testrail.model.Test;
 import com.codepine.api.testrail.model.User;
+import com.codepine.api.testrail.transport.HttpTransport;
+import com.codepine.api.testrail.transport.PooledHttpTransport;
 import com.fasterxml.jackson.annotation.JsonView;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
@@ -53,22 +57,29 @@ import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Date;
+import java.util.concurrent.Executor;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * Client for Test Rail API. Configure and use it to create requests for the API.
+ * <p>Close it once it is no longer in use to release the connections of the transport it created by default.</p>
  *
  * @see <a href="http://docs.gurock.com/testrail-api2/start">TestRail API v2 Documentation</a>
  */
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 @Accessors(fluent = true)
-public class TestRail {
+public class TestRail implements Closeable {
 
     @Getter(value = AccessLevel.MODULE)
     @Accessors(fluent = false)
     private final TestRailConfig config;
+    private final boolean ownsTransport;
+
+    private final FieldRegistry fieldRegistry = new FieldRegistry(this);
 
     /**
      * Get a builder to build an instance of {@code TestRail}.
@@ -82,6 +93,28 @@ public class TestRail {
         return new Builder(endPoint, username, password);
     }
 
+    /**
+     * Get the registry of the custom case and result fields used by the requests which are created without a list of custom fields.
+     *
+     * @return the field registry of this client
+     */
+    public FieldRegistry fieldRegistry() {
+        return fieldRegistry;
+    }
+
+    /**
+     * Close the transport this client created by default, releasing its pooled connections. A transport set with
+     * {@link Builder#transport(HttpTransport)} is left open, since it might be shared by other clients.
+     *
+     * @throws IOException if the transport could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (ownsTransport) {
+            config.getTransport().close();
+        }
+    }
+
     /**
      * An accessor for creating requests for "Projects".
      *
@@ -238,6 +271,16 @@ public class TestRail {
         private final String password;
         private String apiPath;
         private String applicationName;
+        private HttpTransport transport;
+        private Executor asyncExecutor;
+        private RetryPolicy retryPolicy = RetryPolicy.none();
+        private RateLimiter readRateLimiter;
+        private RateLimiter writeRateLimiter;
+        private ConcurrencyLimiter concurrencyLimiter;
+        private boolean coalesceGetRequests;
+        private MetadataCache metadataCache;
+        private EntityCache entityCache;
+        private RequestListener requestListener;
 
         /**
          * @param endPoint the URL end point where your TestRail is hosted, for e.g. https://example.com/testrail
@@ -286,13 +329,144 @@ public class TestRail {
             return this;
         }
 
+        /**
+         * Set the transport used to communicate with TestRail. Defaults to a {@link PooledHttpTransport} with default settings.
+         * <p>A transport set here is not closed by {@link TestRail#close()}; close it once it is no longer in use.
+         * The default transport is created for and closed with the {@code TestRail} instance.</p>
+         *
+         * @param transport the transport
+         * @return this for chaining
+         * @throws NullPointerException if transport is null
+         */
+        public Builder transport(@NonNull final HttpTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        /**
+         * Set the executor on which requests executed with {@link Request#executeAsync()} run.
+         * Defaults to a shared pool of daemon threads which grows on demand.
+         *
+         * @param asyncExecutor the executor for asynchronous requests
+         * @return this for chaining
+         * @throws NullPointerException if asyncExecutor is null
+         */
+        public Builder asyncExecutor(@NonNull final Executor asyncExecutor) {
+            this.asyncExecutor = asyncExecutor;
+            return this;
+        }
+
+        /**
+         * Set the policy for retrying requests which failed with a transient error, e.g. {@code 429 Too Many Requests}.
+         * Defaults to {@link RetryPolicy#none()}.
+         *
+         * @param retryPolicy the retry policy
+         * @return this for chaining
+         * @throws NullPointerException if retryPolicy is null
+         */
+        public Builder retryPolicy(@NonNull final RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Set the rate limiter all requests pass through before being sent, including retries. Not set by default.
+         *
+         * @param rateLimiter the rate limiter for all requests
+         * @return this for chaining
+         * @throws NullPointerException if rateLimiter is null
+         */
+        public Builder rateLimiter(@NonNull final RateLimiter rateLimiter) {
+            return rateLimiter(rateLimiter, rateLimiter);
+        }
+
+        /**
+         * Set separate rate limiters for requests reading ({@code GET}) and writing ({@code POST}) data. Not set by default.
+         *
+         * @param readRateLimiter  the rate limiter for {@code GET} requests
+         * @param writeRateLimiter the rate limiter for {@code POST} requests
+         * @return this for chaining
+         * @throws NullPointerException if any argument is null
+         */
+        public Builder rateLimiter(@NonNull final RateLimiter readRateLimiter, @NonNull final RateLimiter writeRateLimiter) {
+            this.readRateLimiter = readRateLimiter;
+            this.writeRateLimiter = writeRateLimiter;
+            return this;
+        }
+
+        /**
+         * Set the limiter adapting the number of requests in flight to the latency of TestRail. Not set by default.
+         *
+         * @param concurrencyLimiter the concurrency limiter
+         * @return this for chaining
+         * @throws NullPointerException if concurrencyLimiter is null
+         */
+        public Builder concurrencyLimiter(@NonNull final ConcurrencyLimiter concurrencyLimiter) {
+            this.concurrencyLimiter = concurrencyLimiter;
+            return this;
+        }
+
+        /**
+         * Set whether identical {@code GET} requests in flight at the same time share a single call to TestRail and its
+         * response, e.g. when many threads list the case fields at once. Identical means the same URL, response type and
+         * custom field definitions. As the response instance is shared, callers should not modify it. Defaults to false.
+         *
+         * @param coalesceGetRequests whether to coalesce identical {@code GET} requests
+         * @return this for chaining
+         */
+        public Builder coalesceGetRequests(final boolean coalesceGetRequests) {
+            this.coalesceGetRequests = coalesceGetRequests;
+            return this;
+        }
+
+        /**
+         * Set the cache for the responses of metadata requests, e.g. listing case fields or statuses. Not set by default.
+         * <p>A cache can be shared by several {@code TestRail} instances using the same TestRail server.</p>
+         *
+         * @param metadataCache the metadata cache
+         * @return this for chaining
+         * @throws NullPointerException if metadataCache is null
+         */
+        public Builder metadataCache(@NonNull final MetadataCache metadataCache) {
+            this.metadataCache = metadataCache;
+            return this;
+        }
+
+        /**
+         * Set the cache for cases, runs, plans and sections read by ID, which is kept up to date with the updates,
+         * closes and deletes sent through the {@code TestRail} instance. Not set by default.
+         *
+         * @param entityCache the entity cache
+         * @return this for chaining
+         * @throws NullPointerException if entityCache is null
+         */
+        public Builder entityCache(@NonNull final EntityCache entityCache) {
+            this.entityCache = entityCache;
+            return this;
+        }
+
+        /**
+         * Set the listener notified of every request sent to TestRail, e.g. a {@link RequestMetrics} to see the latency
+         * of each endpoint. Not set by default.
+         *
+         * @param requestListener the request listener
+         * @return this for chaining
+         * @throws NullPointerException if requestListener is null
+         */
+        public Builder requestListener(@NonNull final RequestListener requestListener) {
+            this.requestListener = requestListener;
+            return this;
+        }
+
         /**
          * Build an instance of {@code TestRail}.
          *
          * @return a new instance
          */
         public TestRail build() {
-            return new TestRail(new TestRailConfig(endPoint + apiPath, username, password, applicationName));
+            HttpTransport transport = this.transport != null ? this.transport : PooledHttpTransport.builder().build();
+            Executor asyncExecutor = this.asyncExecutor != null ? this.asyncExecutor : AsyncExecutors.defaultExecutor();
+            return new TestRail(new TestRailConfig(endPoint + apiPath, username, password, applicationName, transport, asyncExecutor, retryPolicy, readRateLimiter, writeRateLimiter, concurrencyLimiter, coalesceGetRequests ? new SingleFlight() : null, metadataCache, entityCache, requestListener), this.transport == null);
         }
     }
 
@@ -430,6 +604,20 @@ public class TestRail {
     @NoArgsConstructor(access = AccessLevel.PRIVATE)
     public class Cases {
 
+        /**
+         * Returns an existing test case.
+         * <p>Type information for custom fields is taken from the {@link FieldRegistry} of this client, which loads the custom case fields on first use
+         * and reloads them when a custom field it does not know about is returned.</p>
+         *
+         * @param testCaseId the ID of the test case
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if testCaseId is not positive
+         */
+        public Get get(final int testCaseId) {
+            checkArgument(testCaseId > 0, "testCaseId should be positive");
+            return new Get(testCaseId, fieldRegistry.getCaseFieldSource());
+        }
+
         /**
          * Returns an existing test case.
          * <p>The custom case fields configured in TestRail can be fetched using {@link CaseFields#list()} request.
@@ -442,8 +630,37 @@ public class TestRail {
          * @throws java.lang.NullPointerException     if caseFields is null
          */
         public Get get(final int testCaseId, @NonNull java.util.List<CaseField> caseFields) {
+            return get(testCaseId, FieldSchema.of(caseFields));
+        }
+
+        /**
+         * Returns an existing test case.
+         * <p>The schema can be compiled once with {@link FieldSchema#of(java.util.List)} from the custom case fields fetched using {@link CaseFields#list()} request
+         * and reused across requests.</p>
+         *
+         * @param testCaseId the ID of the test case
+         * @param caseFieldSchema the schema of the custom case fields configured in TestRail to get type information for custom fields in the test case returned
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if testCaseId is not positive
+         * @throws java.lang.NullPointerException     if caseFieldSchema is null
+         */
+        public Get get(final int testCaseId, @NonNull FieldSchema<CaseField> caseFieldSchema) {
             checkArgument(testCaseId > 0, "testCaseId should be positive");
-            return new Get(testCaseId, caseFields);
+            return new Get(testCaseId, new FieldSchemaSource.Fixed<>(caseFieldSchema));
+        }
+
+        /**
+         * Returns the list of available test cases.
+         * <p>Type information for custom fields is taken from the {@link FieldRegistry} of this client, which loads the custom case fields on first use
+         * and reloads them when a custom field it does not know about is returned.</p>
+         *
+         * @param projectId the ID of the project which is operating in a single suite mode
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if projectId is not positive
+         */
+        public List list(final int projectId) {
+            checkArgument(projectId > 0, "projectId should be positive");
+            return new List(projectId, fieldRegistry.getCaseFieldSource());
         }
 
         /**
@@ -458,8 +675,39 @@ public class TestRail {
          * @throws java.lang.NullPointerException     if caseFields is null
          */
         public List list(final int projectId, @NonNull java.util.List<CaseField> caseFields) {
+            return list(projectId, FieldSchema.of(caseFields));
+        }
+
+        /**
+         * Returns the list of available test cases.
+         * <p>The schema can be compiled once with {@link FieldSchema#of(java.util.List)} from the custom case fields fetched using {@link CaseFields#list()} request
+         * and reused across requests.</p>
+         *
+         * @param projectId  the ID of the project which is operating in a single suite mode
+         * @param caseFieldSchema the schema of the custom case fields configured in TestRail to get type information for custom fields in the test cases returned
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if projectId is not positive
+         * @throws java.lang.NullPointerException     if caseFieldSchema is null
+         */
+        public List list(final int projectId, @NonNull FieldSchema<CaseField> caseFieldSchema) {
+            checkArgument(projectId > 0, "projectId should be positive");
+            return new List(projectId, new FieldSchemaSource.Fixed<>(caseFieldSchema));
+        }
+
+        /**
+         * Returns the list of available test cases.
+         * <p>Type information for custom fields is taken from the {@link FieldRegistry} of this client, which loads the custom case fields on first use
+         * and reloads them when a custom field it does not know about is returned.</p>
+         *
+         * @param projectId the ID of the project
+         * @param suiteId   the ID of the suite
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if any argument is not positive
+         */
+        public List list(final int projectId, final int suiteId) {
             checkArgument(projectId > 0, "projectId should be positive");
-            return new List(projectId, caseFields);
+            checkArgument(suiteId > 0, "suiteId should be positive");
+            return new List(projectId, suiteId, fieldRegistry.getCaseFieldSource());
         }
 
         /**
@@ -475,9 +723,41 @@ public class TestRail {
          * @throws java.lang.NullPointerException     if caseFields is null
          */
         public List list(final int projectId, final int suiteId, @NonNull java.util.List<CaseField> caseFields) {
+            return list(projectId, suiteId, FieldSchema.of(caseFields));
+        }
+
+        /**
+         * Returns the list of available test cases.
+         * <p>The schema can be compiled once with {@link FieldSchema#of(java.util.List)} from the custom case fields fetched using {@link CaseFields#list()} request
+         * and reused across requests.</p>
+         *
+         * @param projectId  the ID of the project
+         * @param suiteId    the ID of the suite
+         * @param caseFieldSchema the schema of the custom case fields configured in TestRail to get type information for custom fields in the test cases returned
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if any argument is not positive
+         * @throws java.lang.NullPointerException     if caseFieldSchema is null
+         */
+        public List list(final int projectId, final int suiteId, @NonNull FieldSchema<CaseField> caseFieldSchema) {
             checkArgument(projectId > 0, "projectId should be positive");
             checkArgument(suiteId > 0, "suiteId should be positive");
-            return new List(projectId, suiteId, caseFields);
+            return new List(projectId, suiteId, new FieldSchemaSource.Fixed<>(caseFieldSchema));
+        }
+
+        /**
+         * Creates a new test case.
+         * <p>Type information for custom fields is taken from the {@link FieldRegistry} of this client, which loads the custom case fields on first use
+         * and reloads them when a custom field it does not know about is returned.</p>
+         *
+         * @param sectionId the ID of the section to add the test case to
+         * @param testCase  the test case to be added
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if sectionId is not positive
+         * @throws java.lang.NullPointerException     if testCase is null
+         */
+        public Add add(final int sectionId, @NonNull Case testCase) {
+            checkArgument(sectionId > 0, "sectionId should be positive");
+            return new Add(sectionId, testCase, fieldRegistry.getCaseFieldSource());
         }
 
         /**
@@ -493,8 +773,37 @@ public class TestRail {
          * @throws java.lang.NullPointerException     if any other argument is null
          */
         public Add add(final int sectionId, @NonNull Case testCase, @NonNull java.util.List<CaseField> caseFields) {
+            return add(sectionId, testCase, FieldSchema.of(caseFields));
+        }
+
+        /**
+         * Creates a new test case.
+         * <p>The schema can be compiled once with {@link FieldSchema#of(java.util.List)} from the custom case fields fetched using {@link CaseFields#list()} request
+         * and reused across requests.</p>
+         *
+         * @param sectionId  the ID of the section to add the test case to
+         * @param testCase   the test case to be added
+         * @param caseFieldSchema the schema of the custom case fields configured in TestRail to get type information for custom fields in the test case returned
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if sectionId is not positive
+         * @throws java.lang.NullPointerException     if any other argument is null
+         */
+        public Add add(final int sectionId, @NonNull Case testCase, @NonNull FieldSchema<CaseField> caseFieldSchema) {
             checkArgument(sectionId > 0, "projectId should be positive");
-            return new Add(sectionId, testCase, caseFields);
+            return new Add(sectionId, testCase, new FieldSchemaSource.Fixed<>(caseFieldSchema));
+        }
+
+        /**
+         * Updates an existing test case. Partial updates are supported, i.e. you can set and update specific fields only.
+         * <p>Type information for custom fields is taken from the {@link FieldRegistry} of this client, which loads the custom case fields on first use
+         * and reloads them when a custom field it does not know about is returned.</p>
+         *
+         * @param testCase the test case to be updated
+         * @return the request
+         * @throws java.lang.NullPointerException if testCase is null
+         */
+        public Update update(@NonNull Case testCase) {
+            return new Update(testCase, fieldRegistry.getCaseFieldSource());
         }
 
         /**
@@ -508,7 +817,21 @@ public class TestRail {
          * @throws java.lang.NullPointerException if any argument is null
          */
         public Update update(@NonNull Case testCase, @NonNull java.util.List<CaseField> caseFields) {
-            return new Update(testCase, caseFields);
+            return update(testCase, FieldSchema.of(caseFields));
+        }
+
+        /**
+         * Updates an existing test case. Partial updates are supported, i.e. you can set and update specific fields only.
+         * <p>The schema can be compiled once with {@link FieldSchema#of(java.util.List)} from the custom case fields fetched using {@link CaseFields#list()} request
+         * and reused across requests.</p>
+         *
+         * @param testCase   the test case to be updated
+         * @param caseFieldSchema the schema of the custom case fields configured in TestRail to get type information for custom fields in the test case returned
+         * @return the request
+         * @throws java.lang.NullPointerException if any argument is null
+         */
+        public Update update(@NonNull Case testCase, @NonNull FieldSchema<CaseField> caseFieldSchema) {
+            return new Update(testCase, new FieldSchemaSource.Fixed<>(caseFieldSchema));
         }
 
         /**
@@ -526,25 +849,33 @@ public class TestRail {
         public class Get extends Request<Case> {
             private static final String REST_PATH = "get_case/";
 
-            private final java.util.List<CaseField> caseFields;
+            private final int testCaseId;
+            private final FieldSchemaSource<CaseField> caseFieldSource;
 
-            private Get(int testCaseId, java.util.List<CaseField> caseFields) {
+            private Get(int testCaseId, FieldSchemaSource<CaseField> caseFieldSource) {
                 super(config, Method.GET, REST_PATH + testCaseId, Case.class);
-                this.caseFields = caseFields;
+                this.testCaseId = testCaseId;
+                this.caseFieldSource = caseFieldSource;
             }
 
             @Override
             protected Object getSupplementForDeserialization() {
-                return caseFields;
+                return caseFieldSource;
+            }
+
+            @Override
+            EntityCache.Key getEntityCacheKey() {
+                return new EntityCache.Key(EntityCache.EntityType.CASE, testCaseId);
             }
         }
 
         @Getter
         @Setter
         @Accessors(fluent = true)
-        public class List extends Request<java.util.List<Case>> {
+        public class List extends ListRequest<Case> {
             private static final String REST_PATH = "get_cases/%s&suite_id=%s";
-            private final java.util.List<CaseField> caseFields;
+            @Getter(AccessLevel.NONE)
+            private final FieldSchemaSource<CaseField> caseFieldSource;
             @JsonView(List.class)
             private Integer sectionId;
             @JsonView(List.class)
@@ -571,21 +902,30 @@ public class TestRail {
             @JsonSerialize(using = ListToCsvSerializer.class)
             private java.util.List<Integer> updatedBy;
 
-            private List(int projectId, java.util.List<CaseField> caseFields) {
+            private List(int projectId, FieldSchemaSource<CaseField> caseFieldSource) {
                 super(config, Method.GET, String.format(REST_PATH, projectId, ""), new TypeReference<java.util.List<Case>>() {
                 });
-                this.caseFields = caseFields;
+                this.caseFieldSource = caseFieldSource;
             }
 
-            private List(int projectId, int suiteId, java.util.List<CaseField> caseFields) {
+            private List(int projectId, int suiteId, FieldSchemaSource<CaseField> caseFieldSource) {
                 super(config, Method.GET, String.format(REST_PATH, projectId, suiteId), new TypeReference<java.util.List<Case>>() {
                 });
-                this.caseFields = caseFields;
+                this.caseFieldSource = caseFieldSource;
             }
 
             @Override
             protected Object getSupplementForDeserialization() {
-                return caseFields;
+                return caseFieldSource;
+            }
+
+            /**
+             * Get the custom case fields this request was created with.
+             *
+             * @return the custom case fields
+             */
+            public java.util.List<CaseField> caseFields() {
+                return caseFieldSource.getSchema().getFields();
             }
 
         }
@@ -594,12 +934,12 @@ public class TestRail {
             private static final String REST_PATH = "add_case/";
 
             private final Case testCase;
-            private final java.util.List<CaseField> caseFields;
+            private final FieldSchemaSource<CaseField> caseFieldSource;
 
-            private Add(int sectionId, Case testCase, java.util.List<CaseField> caseFields) {
+            private Add(int sectionId, Case testCase, FieldSchemaSource<CaseField> caseFieldSource) {
                 super(config, Method.POST, REST_PATH + sectionId, Case.class);
                 this.testCase = testCase;
-                this.caseFields = caseFields;
+                this.caseFieldSource = caseFieldSource;
             }
 
             @Override
@@ -609,7 +949,7 @@ public class TestRail {
 
             @Override
             protected Object getSupplementForDeserialization() {
-                return caseFields;
+                return caseFieldSource;
             }
 
         }
@@ -618,12 +958,12 @@ public class TestRail {
             private static final String REST_PATH = "update_case/";
 
             private final Case testCase;
-            private final java.util.List<CaseField> caseFields;
+            private final FieldSchemaSource<CaseField> caseFieldSource;
 
-            private Update(Case testCase, java.util.List<CaseField> caseFields) {
+            private Update(Case testCase, FieldSchemaSource<CaseField> caseFieldSource) {
                 super(config, Method.POST, REST_PATH + testCase.getId(), Case.class);
                 this.testCase = testCase;
-                this.caseFields = caseFields;
+                this.caseFieldSource = caseFieldSource;
             }
 
             @Override
@@ -633,16 +973,28 @@ public class TestRail {
 
             @Override
             protected Object getSupplementForDeserialization() {
-                return caseFields;
+                return caseFieldSource;
             }
 
+            @Override
+            EntityCache.Key getEntityCacheKey() {
+                return new EntityCache.Key(EntityCache.EntityType.CASE, testCase.getId());
+            }
         }
 
         public class Delete extends Request<Void> {
             private static final String REST_PATH = "delete_case/";
 
+            private final int testCaseId;
+
             private Delete(int testCaseId) {
                 super(config, Method.POST, REST_PATH + testCaseId, Void.class);
+                this.testCaseId = testCaseId;
+            }
+
+            @Override
+            EntityCache.Key getEntityCacheKey() {
+                return new EntityCache.Key(EntityCache.EntityType.CASE, testCaseId);
             }
         }
     }
@@ -669,6 +1021,11 @@ public class TestRail {
                 super(config, Method.GET, REST_PATH, new TypeReference<java.util.List<CaseField>>() {
                 });
             }
+
+            @Override
+            MetadataCache.Endpoint getCacheEndpoint() {
+                return MetadataCache.Endpoint.CASE_FIELDS;
+            }
         }
     }
 
@@ -694,6 +1051,11 @@ public class TestRail {
                 super(config, Method.GET, REST_PATH, new TypeReference<java.util.List<CaseType>>() {
                 });
             }
+
+            @Override
+            MetadataCache.Endpoint getCacheEndpoint() {
+                return MetadataCache.Endpoint.CASE_TYPES;
+            }
         }
 
     }
@@ -724,6 +1086,11 @@ public class TestRail {
                 });
             }
 
+            @Override
+            MetadataCache.Endpoint getCacheEndpoint() {
+                return MetadataCache.Endpoint.CONFIGURATIONS;
+            }
+
         }
 
     }
@@ -883,6 +1250,11 @@ public class TestRail {
                 super(config, Method.GET, REST_PATH, new TypeReference<java.util.List<Priority>>() {
                 });
             }
+
+            @Override
+            MetadataCache.Endpoint getCacheEndpoint() {
+                return MetadataCache.Endpoint.PRIORITIES;
+            }
         }
 
     }
@@ -1010,15 +1382,23 @@ public class TestRail {
         public class Get extends Request<Plan> {
             private static final String REST_PATH = "get_plan/";
 
+            private final int planId;
+
             private Get(int planId) {
                 super(config, Method.GET, REST_PATH + planId, Plan.class);
+                this.planId = planId;
+            }
+
+            @Override
+            EntityCache.Key getEntityCacheKey() {
+                return new EntityCache.Key(EntityCache.EntityType.PLAN, planId);
             }
         }
 
         @Getter
         @Setter
         @Accessors(fluent = true)
-        public class List extends Request<java.util.List<Plan>> {
+        public class List extends PageableListRequest<Plan> {
             private static final String REST_PATH = "get_plans/";
 
             @JsonView(List.class)
@@ -1070,10 +1450,12 @@ public class TestRail {
         public class AddEntry extends Request<Plan.Entry> {
             private static final String REST_PATH = "add_plan_entry/";
 
+            private final int planId;
             private final Plan.Entry entry;
 
             private AddEntry(int planId, Plan.Entry entry) {
                 super(config, Method.POST, REST_PATH + planId, Plan.Entry.class);
+                this.planId = planId;
                 this.entry = entry;
             }
 
@@ -1081,6 +1463,11 @@ public class TestRail {
             protected Object getContent() {
                 return entry;
             }
+
+            @Override
+            EntityCache.Key getEntityCacheKey() {
+                return new EntityCache.Key(EntityCache.EntityType.PLAN, planId);
+            }
         }
 
         public class Update extends Request<Plan> {
@@ -1097,15 +1484,22 @@ public class TestRail {
             protected Object getContent() {
                 return plan;
             }
+
+            @Override
+            EntityCache.Key getEntityCacheKey() {
+                return new EntityCache.Key(EntityCache.EntityType.PLAN, plan.getId());
+            }
         }
 
         public class UpdateEntry extends Request<Plan.Entry> {
             private static final String REST_PATH = "update_plan_entry/%s/%s";
 
+            private final int planId;
             private final Plan.Entry entry;
 
             private UpdateEntry(int planId, Plan.Entry entry) {
                 super(config, Method.POST, String.format(REST_PATH, planId, entry.getId()), Plan.Entry.class);
+                this.planId = planId;
                 this.entry = entry;
             }
 
@@ -1113,29 +1507,58 @@ public class TestRail {
             protected Object getContent() {
                 return entry;
             }
+
+            @Override
+            EntityCache.Key getEntityCacheKey() {
+                return new EntityCache.Key(EntityCache.EntityType.PLAN, planId);
+            }
         }
 
         public class Close extends Request<Plan> {
             private static final String REST_PATH = "close_plan/";
 
+            private final int planId;
+
             private Close(int planId) {
                 super(config, Method.POST, REST_PATH + planId, Plan.class);
+                this.planId = planId;
+            }
+
+            @Override
+            EntityCache.Key getEntityCacheKey() {
+                return new EntityCache.Key(EntityCache.EntityType.PLAN, planId);
             }
         }
 
         public class Delete extends Request<Void> {
             private static final String REST_PATH = "delete_plan/";
 
+            private final int planId;
+
             private Delete(int planId) {
                 super(config, Method.POST, REST_PATH + planId, Void.class);
+                this.planId = planId;
+            }
+
+            @Override
+            EntityCache.Key getEntityCacheKey() {
+                return new EntityCache.Key(EntityCache.EntityType.PLAN, planId);
             }
         }
 
         public class DeleteEntry extends Request<Void> {
             private static final String REST_PATH = "delete_plan_entry/%s/%s";
 
+            private final int planId;
+
             private DeleteEntry(int planId, String entryId) {
                 super(config, Method.POST, String.format(REST_PATH, planId, entryId), Void.class);
+                this.planId = planId;
+            }
+
+            @Override
+            EntityCache.Key getEntityCacheKey() {
+                return new EntityCache.Key(EntityCache.EntityType.PLAN, planId);
             }
         }
     }
@@ -1146,6 +1569,20 @@ public class TestRail {
     @NoArgsConstructor
     public class Results {
 
+        /**
+         * Returns a list of test results for a test.
+         * <p>Type information for custom fields is taken from the {@link FieldRegistry} of this client, which loads the custom result fields on first use
+         * and reloads them when a custom field it does not know about is returned.</p>
+         *
+         * @param testId the ID of the test to get the results for
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if testId is not positive
+         */
+        public List list(final int testId) {
+            checkArgument(testId > 0, "testId should be positive");
+            return new List(testId, fieldRegistry.getResultFieldSource());
+        }
+
         /**
          * Returns a list of test results for a test.
          * <p>The custom result fields configured in TestRail can be fetched using {@link ResultFields#list()} request.
@@ -1158,8 +1595,39 @@ public class TestRail {
          * @throws java.lang.NullPointerException     if resultFields is null
          */
         public List list(final int testId, @NonNull java.util.List<ResultField> resultFields) {
+            return list(testId, FieldSchema.of(resultFields));
+        }
+
+        /**
+         * Returns a list of test results for a test.
+         * <p>The schema can be compiled once with {@link FieldSchema#of(java.util.List)} from the custom result fields fetched using {@link ResultFields#list()} request
+         * and reused across requests.</p>
+         *
+         * @param testId       the ID of the test to get the results for
+         * @param resultFieldSchema the schema of the custom result fields configured in TestRail to get type information for custom fields in the results returned
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if testId is not positive
+         * @throws java.lang.NullPointerException     if resultFieldSchema is null
+         */
+        public List list(final int testId, @NonNull FieldSchema<ResultField> resultFieldSchema) {
             checkArgument(testId > 0, "testId should be positive");
-            return new List(testId, resultFields);
+            return new List(testId, new FieldSchemaSource.Fixed<>(resultFieldSchema));
+        }
+
+        /**
+         * Returns a list of test results for a test run and case combination.
+         * <p>Type information for custom fields is taken from the {@link FieldRegistry} of this client, which loads the custom result fields on first use
+         * and reloads them when a custom field it does not know about is returned.</p>
+         *
+         * @param runId      the ID of the test run
+         * @param testCaseId the ID of the test case
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if any argument is not positive
+         */
+        public ListForCase listForCase(final int runId, final int testCaseId) {
+            checkArgument(runId > 0, "runId should be positive");
+            checkArgument(testCaseId > 0, "testCaseId should be positive");
+            return new ListForCase(runId, testCaseId, fieldRegistry.getResultFieldSource());
         }
 
         /**
@@ -1175,9 +1643,39 @@ public class TestRail {
          * @throws java.lang.NullPointerException     if resultFields is null
          */
         public ListForCase listForCase(final int runId, final int testCaseId, @NonNull java.util.List<ResultField> resultFields) {
+            return listForCase(runId, testCaseId, FieldSchema.of(resultFields));
+        }
+
+        /**
+         * Returns a list of test results for a test run and case combination.
+         * <p>The schema can be compiled once with {@link FieldSchema#of(java.util.List)} from the custom result fields fetched using {@link ResultFields#list()} request
+         * and reused across requests.</p>
+         *
+         * @param runId        the ID of the test run
+         * @param testCaseId   the ID of the test case
+         * @param resultFieldSchema the schema of the custom result fields configured in TestRail to get type information for custom fields in the results returned
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if any argument is not positive
+         * @throws java.lang.NullPointerException     if resultFieldSchema is null
+         */
+        public ListForCase listForCase(final int runId, final int testCaseId, @NonNull FieldSchema<ResultField> resultFieldSchema) {
             checkArgument(runId > 0, "runId should be positive");
             checkArgument(testCaseId > 0, "testCaseId should be positive");
-            return new ListForCase(runId, testCaseId, resultFields);
+            return new ListForCase(runId, testCaseId, new FieldSchemaSource.Fixed<>(resultFieldSchema));
+        }
+
+        /**
+         * Returns a list of test results for a test run.
+         * <p>Type information for custom fields is taken from the {@link FieldRegistry} of this client, which loads the custom result fields on first use
+         * and reloads them when a custom field it does not know about is returned.</p>
+         *
+         * @param runId the ID of the test run
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if runId is not positive
+         */
+        public ListForRun listForRun(final int runId) {
+            checkArgument(runId > 0, "runId should be positive");
+            return new ListForRun(runId, fieldRegistry.getResultFieldSource());
         }
 
         /**
@@ -1192,8 +1690,39 @@ public class TestRail {
          * @throws java.lang.NullPointerException     if resultFields is null
          */
         public ListForRun listForRun(final int runId, @NonNull java.util.List<ResultField> resultFields) {
+            return listForRun(runId, FieldSchema.of(resultFields));
+        }
+
+        /**
+         * Returns a list of test results for a test run.
+         * <p>The schema can be compiled once with {@link FieldSchema#of(java.util.List)} from the custom result fields fetched using {@link ResultFields#list()} request
+         * and reused across requests.</p>
+         *
+         * @param runId        the ID of the test run to get the results for
+         * @param resultFieldSchema the schema of the custom result fields configured in TestRail to get type information for custom fields in the results returned
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if runId is not positive
+         * @throws java.lang.NullPointerException     if resultFieldSchema is null
+         */
+        public ListForRun listForRun(final int runId, @NonNull FieldSchema<ResultField> resultFieldSchema) {
             checkArgument(runId > 0, "runId should be positive");
-            return new ListForRun(runId, resultFields);
+            return new ListForRun(runId, new FieldSchemaSource.Fixed<>(resultFieldSchema));
+        }
+
+        /**
+         * Adds a new test result, comment or assigns a test.
+         * <p>Type information for custom fields is taken from the {@link FieldRegistry} of this client, which loads the custom result fields on first use
+         * and reloads them when a custom field it does not know about is returned.</p>
+         *
+         * @param testId the ID of the test the result should be added to
+         * @param result the test result to be added
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if testId is not positive
+         * @throws java.lang.NullPointerException     if result is null
+         */
+        public Add add(final int testId, @NonNull Result result) {
+            checkArgument(testId > 0, "testId should be positive");
+            return new Add(testId, result, fieldRegistry.getResultFieldSource());
         }
 
         /**
@@ -1209,8 +1738,42 @@ public class TestRail {
          * @throws java.lang.NullPointerException     if any other argument is null
          */
         public Add add(final int testId, @NonNull Result result, @NonNull java.util.List<ResultField> resultFields) {
+            return add(testId, result, FieldSchema.of(resultFields));
+        }
+
+        /**
+         * Adds a new test result, comment or assigns a test.
+         * <p>The schema can be compiled once with {@link FieldSchema#of(java.util.List)} from the custom result fields fetched using {@link ResultFields#list()} request
+         * and reused across requests.</p>
+         *
+         * @param testId       the ID of the test whose result is to be added
+         * @param result       the test result to be added
+         * @param resultFieldSchema the schema of the custom result fields configured in TestRail to get type information for custom fields in the result returned
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if testId is not positive
+         * @throws java.lang.NullPointerException     if any other argument is null
+         */
+        public Add add(final int testId, @NonNull Result result, @NonNull FieldSchema<ResultField> resultFieldSchema) {
             checkArgument(testId > 0, "testId should be positive");
-            return new Add(testId, result, resultFields);
+            return new Add(testId, result, new FieldSchemaSource.Fixed<>(resultFieldSchema));
+        }
+
+        /**
+         * Adds a new test result, comment or assigns a test (for a test run and case combination).
+         * <p>Type information for custom fields is taken from the {@link FieldRegistry} of this client, which loads the custom result fields on first use
+         * and reloads them when a custom field it does not know about is returned.</p>
+         *
+         * @param runId      the ID of the test run
+         * @param testCaseId the ID of the test case
+         * @param result     the test result to be added
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if runId or testCaseId is not positive
+         * @throws java.lang.NullPointerException     if result is null
+         */
+        public AddForCase addForCase(final int runId, final int testCaseId, @NonNull Result result) {
+            checkArgument(runId > 0, "runId should be positive");
+            checkArgument(testCaseId > 0, "testCaseId should be positive");
+            return new AddForCase(runId, testCaseId, result, fieldRegistry.getResultFieldSource());
         }
 
         /**
@@ -1227,9 +1790,43 @@ public class TestRail {
          * @throws java.lang.NullPointerException     if any other argument is null
          */
         public AddForCase addForCase(final int runId, final int testCaseId, @NonNull Result result, @NonNull java.util.List<ResultField> resultFields) {
+            return addForCase(runId, testCaseId, result, FieldSchema.of(resultFields));
+        }
+
+        /**
+         * Adds a new test result, comment or assigns a test (for a test run and case combination).
+         * <p>The schema can be compiled once with {@link FieldSchema#of(java.util.List)} from the custom result fields fetched using {@link ResultFields#list()} request
+         * and reused across requests.</p>
+         *
+         * @param runId        the ID of the test run
+         * @param testCaseId   the ID of the test case
+         * @param result       the test result to be added
+         * @param resultFieldSchema the schema of the custom result fields configured in TestRail to get type information for custom fields in the result returned
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if runId or testCaseId is not positive
+         * @throws java.lang.NullPointerException     if any other argument is null
+         */
+        public AddForCase addForCase(final int runId, final int testCaseId, @NonNull Result result, @NonNull FieldSchema<ResultField> resultFieldSchema) {
             checkArgument(runId > 0, "runId should be positive");
             checkArgument(testCaseId > 0, "testCaseId should be positive");
-            return new AddForCase(runId, testCaseId, result, resultFields);
+            return new AddForCase(runId, testCaseId, result, new FieldSchemaSource.Fixed<>(resultFieldSchema));
+        }
+
+        /**
+         * Adds one or more new test results, comments or assigns one or more tests.
+         * <p>Type information for custom fields is taken from the {@link FieldRegistry} of this client, which loads the custom result fields on first use
+         * and reloads them when a custom field it does not know about is returned.</p>
+         *
+         * @param runId   the ID of the test run to add the results to
+         * @param results the test results to be added
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if runId is not positive or results is empty
+         * @throws java.lang.NullPointerException     if results is null
+         */
+        public AddList add(final int runId, @NonNull java.util.List<Result> results) {
+            checkArgument(runId > 0, "runId should be positive");
+            checkArgument(!results.isEmpty(), "results cannot be empty");
+            return new AddList(runId, results, fieldRegistry.getResultFieldSource());
         }
 
         /**
@@ -1245,9 +1842,42 @@ public class TestRail {
          * @throws java.lang.NullPointerException     if results or resultFields are null
          */
         public AddList add(final int runId, @NonNull java.util.List<Result> results, @NonNull java.util.List<ResultField> resultFields) {
+            return add(runId, results, FieldSchema.of(resultFields));
+        }
+
+        /**
+         * Adds one or more new test results, comments or assigns one or more tests.
+         * <p>The schema can be compiled once with {@link FieldSchema#of(java.util.List)} from the custom result fields fetched using {@link ResultFields#list()} request
+         * and reused across requests.</p>
+         *
+         * @param runId        the ID of the test run to add the results to
+         * @param results      the test results to be added
+         * @param resultFieldSchema the schema of the custom result fields configured in TestRail to get type information for custom fields in the results returned
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if runId is not positive or results is empty
+         * @throws java.lang.NullPointerException     if results or resultFieldSchema are null
+         */
+        public AddList add(final int runId, @NonNull java.util.List<Result> results, @NonNull FieldSchema<ResultField> resultFieldSchema) {
             checkArgument(runId > 0, "runId should be positive");
             checkArgument(!results.isEmpty(), "results cannot be empty");
-            return new AddList(runId, results, resultFields);
+            return new AddList(runId, results, new FieldSchemaSource.Fixed<>(resultFieldSchema));
+        }
+
+        /**
+         * Adds one or more new test results, comments or assigns one or more tests (using the case IDs).
+         * <p>Type information for custom fields is taken from the {@link FieldRegistry} of this client, which loads the custom result fields on first use
+         * and reloads them when a custom field it does not know about is returned.</p>
+         *
+         * @param runId   the ID of the test run to add the results to
+         * @param results the test results to be added
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if runId is not positive or results is empty
+         * @throws java.lang.NullPointerException     if results is null
+         */
+        public AddListForCases addForCases(final int runId, @NonNull java.util.List<Result> results) {
+            checkArgument(runId > 0, "runId should be positive");
+            checkArgument(!results.isEmpty(), "results cannot be empty");
+            return new AddListForCases(runId, results, fieldRegistry.getResultFieldSource());
         }
 
         /**
@@ -1263,17 +1893,34 @@ public class TestRail {
          * @throws java.lang.NullPointerException     if results or resultFields are null
          */
         public AddListForCases addForCases(final int runId, @NonNull java.util.List<Result> results, @NonNull java.util.List<ResultField> resultFields) {
+            return addForCases(runId, results, FieldSchema.of(resultFields));
+        }
+
+        /**
+         * Adds one or more new test results, comments or assigns one or more tests (using the case IDs).
+         * <p>The schema can be compiled once with {@link FieldSchema#of(java.util.List)} from the custom result fields fetched using {@link ResultFields#list()} request
+         * and reused across requests.</p>
+         *
+         * @param runId        the ID of the test run to add the results to
+         * @param results      the test results to be added
+         * @param resultFieldSchema the schema of the custom result fields configured in TestRail to get type information for custom fields in the results returned
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if runId is not positive or results is empty
+         * @throws java.lang.NullPointerException     if results or resultFieldSchema are null
+         */
+        public AddListForCases addForCases(final int runId, @NonNull java.util.List<Result> results, @NonNull FieldSchema<ResultField> resultFieldSchema) {
             checkArgument(runId > 0, "runId should be positive");
             checkArgument(!results.isEmpty(), "results cannot be empty");
-            return new AddListForCases(runId, results, resultFields);
+            return new AddListForCases(runId, results, new FieldSchemaSource.Fixed<>(resultFieldSchema));
         }
 
         @Getter
         @Setter
         @Accessors(fluent = true)
-        public class List extends Request<java.util.List<Result>> {
+        public class List extends PageableListRequest<Result> {
             private static final String REST_PATH = "get_results/";
-            private final java.util.List<ResultField> resultFields;
+            @Getter(AccessLevel.NONE)
+            private final FieldSchemaSource<ResultField> resultFieldSource;
             @JsonView(List.class)
             private Integer limit;
             @JsonView(List.class)
@@ -1282,24 +1929,34 @@ public class TestRail {
             @JsonSerialize(using = ListToCsvSerializer.class)
             private java.util.List<Integer> statusId;
 
-            private List(int testId, java.util.List<ResultField> resultFields) {
+            private List(int testId, FieldSchemaSource<ResultField> resultFieldSource) {
                 super(config, Method.GET, REST_PATH + testId, new TypeReference<java.util.List<Result>>() {
                 });
-                this.resultFields = resultFields;
+                this.resultFieldSource = resultFieldSource;
             }
 
             @Override
             protected Object getSupplementForDeserialization() {
-                return resultFields;
+                return resultFieldSource;
+            }
+
+            /**
+             * Get the custom result fields this request was created with.
+             *
+             * @return the custom result fields
+             */
+            public java.util.List<ResultField> resultFields() {
+                return resultFieldSource.getSchema().getFields();
             }
         }
 
         @Getter
         @Setter
         @Accessors(fluent = true)
-        public class ListForRun extends Request<java.util.List<Result>> {
+        public class ListForRun extends PageableListRequest<Result> {
             private static final String REST_PATH = "get_results_for_run/";
-            private final java.util.List<ResultField> resultFields;
+            @Getter(AccessLevel.NONE)
+            private final FieldSchemaSource<ResultField> resultFieldSource;
             @JsonView(ListForRun.class)
             private Date createdAfter;
             @JsonView(ListForRun.class)
@@ -1315,24 +1972,34 @@ public class TestRail {
             @JsonSerialize(using = ListToCsvSerializer.class)
             private java.util.List<Integer> statusId;
 
-            private ListForRun(int runId, java.util.List<ResultField> resultFields) {
+            private ListForRun(int runId, FieldSchemaSource<ResultField> resultFieldSource) {
                 super(config, Method.GET, REST_PATH + runId, new TypeReference<java.util.List<Result>>() {
                 });
-                this.resultFields = resultFields;
+                this.resultFieldSource = resultFieldSource;
             }
 
             @Override
             protected Object getSupplementForDeserialization() {
-                return resultFields;
+                return resultFieldSource;
+            }
+
+            /**
+             * Get the custom result fields this request was created with.
+             *
+             * @return the custom result fields
+             */
+            public java.util.List<ResultField> resultFields() {
+                return resultFieldSource.getSchema().getFields();
             }
         }
 
         @Getter
         @Setter
         @Accessors(fluent = true)
-        public class ListForCase extends Request<java.util.List<Result>> {
+        public class ListForCase extends PageableListRequest<Result> {
             private static final String REST_PATH = "get_results_for_case/";
-            private final java.util.List<ResultField> resultFields;
+            @Getter(AccessLevel.NONE)
+            private final FieldSchemaSource<ResultField> resultFieldSource;
             @JsonView(ListForCase.class)
             private Integer limit;
             @JsonView(ListForCase.class)
@@ -1341,15 +2008,24 @@ public class TestRail {
             @JsonSerialize(using = ListToCsvSerializer.class)
             private java.util.List<Integer> statusId;
 
-            private ListForCase(int runId, int testCaseId, java.util.List<ResultField> resultFields) {
+            private ListForCase(int runId, int testCaseId, FieldSchemaSource<ResultField> resultFieldSource) {
                 super(config, Method.GET, REST_PATH + runId + "/" + testCaseId, new TypeReference<java.util.List<Result>>() {
                 });
-                this.resultFields = resultFields;
+                this.resultFieldSource = resultFieldSource;
             }
 
             @Override
             protected Object getSupplementForDeserialization() {
-                return resultFields;
+                return resultFieldSource;
+            }
+
+            /**
+             * Get the custom result fields this request was created with.
+             *
+             * @return the custom result fields
+             */
+            public java.util.List<ResultField> resultFields() {
+                return resultFieldSource.getSchema().getFields();
             }
         }
 
@@ -1357,12 +2033,12 @@ public class TestRail {
             private static final String REST_PATH = "add_result/";
 
             private final Result result;
-            private final java.util.List<ResultField> resultFields;
+            private final FieldSchemaSource<ResultField> resultFieldSource;
 
-            private Add(int testId, Result result, java.util.List<ResultField> resultFields) {
+            private Add(int testId, Result result, FieldSchemaSource<ResultField> resultFieldSource) {
                 super(config, Method.POST, REST_PATH + testId, Result.class);
                 this.result = result;
-                this.resultFields = resultFields;
+                this.resultFieldSource = resultFieldSource;
             }
 
             @Override
@@ -1372,7 +2048,7 @@ public class TestRail {
 
             @Override
             protected Object getSupplementForDeserialization() {
-                return resultFields;
+                return resultFieldSource;
             }
         }
 
@@ -1380,12 +2056,12 @@ public class TestRail {
             private static final String REST_PATH = "add_result_for_case/";
 
             private final Result result;
-            private final java.util.List<ResultField> resultFields;
+            private final FieldSchemaSource<ResultField> resultFieldSource;
 
-            private AddForCase(int runId, int testCaseId, Result result, java.util.List<ResultField> resultFields) {
+            private AddForCase(int runId, int testCaseId, Result result, FieldSchemaSource<ResultField> resultFieldSource) {
                 super(config, Method.POST, REST_PATH + runId + "/" + testCaseId, Result.class);
                 this.result = result;
-                this.resultFields = resultFields;
+                this.resultFieldSource = resultFieldSource;
             }
 
             @Override
@@ -1395,7 +2071,7 @@ public class TestRail {
 
             @Override
             protected Object getSupplementForDeserialization() {
-                return resultFields;
+                return resultFieldSource;
             }
         }
 
@@ -1403,13 +2079,13 @@ public class TestRail {
             private static final String REST_PATH = "add_results/";
 
             private final Result.List results;
-            private final java.util.List<ResultField> resultFields;
+            private final FieldSchemaSource<ResultField> resultFieldSource;
 
-            private AddList(final int runId, java.util.List<Result> results, java.util.List<ResultField> resultFields) {
+            private AddList(final int runId, java.util.List<Result> results, FieldSchemaSource<ResultField> resultFieldSource) {
                 super(config, Method.POST, REST_PATH + runId, new TypeReference<java.util.List<Result>>() {
                 });
                 this.results = new Result.List(results);
-                this.resultFields = resultFields;
+                this.resultFieldSource = resultFieldSource;
             }
 
             @Override
@@ -1419,7 +2095,7 @@ public class TestRail {
 
             @Override
             protected Object getSupplementForDeserialization() {
-                return resultFields;
+                return resultFieldSource;
             }
         }
 
@@ -1427,13 +2103,13 @@ public class TestRail {
             private static final String REST_PATH = "add_results_for_cases/";
 
             private final Result.List results;
-            private final java.util.List<ResultField> resultFields;
+            private final FieldSchemaSource<ResultField> resultFieldSource;
 
-            private AddListForCases(int runId, java.util.List<Result> results, java.util.List<ResultField> resultFields) {
+            private AddListForCases(int runId, java.util.List<Result> results, FieldSchemaSource<ResultField> resultFieldSource) {
                 super(config, Method.POST, REST_PATH + runId, new TypeReference<java.util.List<Result>>() {
                 });
                 this.results = new Result.List(results);
-                this.resultFields = resultFields;
+                this.resultFieldSource = resultFieldSource;
             }
 
             @Override
@@ -1443,7 +2119,7 @@ public class TestRail {
 
             @Override
             protected Object getSupplementForDeserialization() {
-                return resultFields;
+                return resultFieldSource;
             }
         }
 
@@ -1472,6 +2148,11 @@ public class TestRail {
                 super(config, Method.GET, REST_PATH, new TypeReference<java.util.List<ResultField>>() {
                 });
             }
+
+            @Override
+            MetadataCache.Endpoint getCacheEndpoint() {
+                return MetadataCache.Endpoint.RESULT_FIELDS;
+            }
         }
     }
 
@@ -1557,15 +2238,23 @@ public class TestRail {
         public class Get extends Request<Run> {
             private static final String REST_PATH = "get_run/";
 
+            private final int runId;
+
             private Get(int runId) {
                 super(config, Method.GET, REST_PATH + runId, Run.class);
+                this.runId = runId;
+            }
+
+            @Override
+            EntityCache.Key getEntityCacheKey() {
+                return new EntityCache.Key(EntityCache.EntityType.RUN, runId);
             }
         }
 
         @Getter
         @Setter
         @Accessors(fluent = true)
-        public class List extends Request<java.util.List<Run>> {
+        public class List extends PageableListRequest<Run> {
             private static final String REST_PATH = "get_runs/";
 
             @JsonView(List.class)
@@ -1632,21 +2321,42 @@ public class TestRail {
             protected Object getContent() {
                 return run;
             }
+
+            @Override
+            EntityCache.Key getEntityCacheKey() {
+                return new EntityCache.Key(EntityCache.EntityType.RUN, run.getId());
+            }
         }
 
         public class Close extends Request<Run> {
             private static final String REST_PATH = "close_run/";
 
+            private final int runId;
+
             private Close(int runId) {
                 super(config, Method.POST, REST_PATH + runId, Run.class);
+                this.runId = runId;
+            }
+
+            @Override
+            EntityCache.Key getEntityCacheKey() {
+                return new EntityCache.Key(EntityCache.EntityType.RUN, runId);
             }
         }
 
         public class Delete extends Request<Void> {
             private static final String REST_PATH = "delete_run/";
 
+            private final int runId;
+
             private Delete(int runId) {
                 super(config, Method.POST, REST_PATH + runId, Void.class);
+                this.runId = runId;
+            }
+
+            @Override
+            EntityCache.Key getEntityCacheKey() {
+                return new EntityCache.Key(EntityCache.EntityType.RUN, runId);
             }
         }
 
@@ -1735,10 +2445,17 @@ public class TestRail {
         public class Get extends Request<Section> {
             private static final String REST_PATH = "get_section/";
 
+            private final int sectionId;
+
             private Get(int sectionId) {
                 super(config, Method.GET, REST_PATH + sectionId, Section.class);
+                this.sectionId = sectionId;
             }
 
+            @Override
+            EntityCache.Key getEntityCacheKey() {
+                return new EntityCache.Key(EntityCache.EntityType.SECTION, sectionId);
+            }
         }
 
         public class List extends Request<java.util.List<Section>> {
@@ -1785,13 +2502,26 @@ public class TestRail {
             protected Object getContent() {
                 return section;
             }
+
+            @Override
+            EntityCache.Key getEntityCacheKey() {
+                return new EntityCache.Key(EntityCache.EntityType.SECTION, section.getId());
+            }
         }
 
         public class Delete extends Request<Void> {
             private static final String REST_PATH = "delete_section/";
 
+            private final int sectionId;
+
             private Delete(int sectionId) {
                 super(config, Method.POST, REST_PATH + sectionId, Void.class);
+                this.sectionId = sectionId;
+            }
+
+            @Override
+            EntityCache.Key getEntityCacheKey() {
+                return new EntityCache.Key(EntityCache.EntityType.SECTION, sectionId);
             }
         }
     }
@@ -1818,6 +2548,11 @@ public class TestRail {
                 super(config, Method.GET, REST_PATH, new TypeReference<java.util.List<Status>>() {
                 });
             }
+
+            @Override
+            MetadataCache.Endpoint getCacheEndpoint() {
+                return MetadataCache.Endpoint.STATUSES;
+            }
         }
 
     }
@@ -1963,7 +2698,23 @@ public class TestRail {
          */
         public Get get(final int testId) {
             checkArgument(testId > 0, "testId should be positive");
-            return new Get(testId);
+            return new Get(testId, null);
+        }
+
+        /**
+         * Returns an existing test.
+         * <p>Tests carry the custom fields of their test case. The schema can be compiled with {@link FieldSchema#of(java.util.List)}
+         * from the custom case fields fetched using {@link CaseFields#list()} request.</p>
+         *
+         * @param testId          the ID of the test
+         * @param caseFieldSchema the schema of the custom case fields configured in TestRail to get type information for custom fields in the test returned
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if testId is not positive
+         * @throws java.lang.NullPointerException     if caseFieldSchema is null
+         */
+        public Get get(final int testId, @NonNull FieldSchema<CaseField> caseFieldSchema) {
+            checkArgument(testId > 0, "testId should be positive");
+            return new Get(testId, caseFieldSchema);
         }
 
         /**
@@ -1975,30 +2726,63 @@ public class TestRail {
          */
         public List list(final int runId) {
             checkArgument(runId > 0, "runId should be positive");
-            return new List(runId);
+            return new List(runId, null);
+        }
+
+        /**
+         * Returns a list of tests for a test run.
+         * <p>Tests carry the custom fields of their test case. The schema can be compiled with {@link FieldSchema#of(java.util.List)}
+         * from the custom case fields fetched using {@link CaseFields#list()} request.</p>
+         *
+         * @param runId           the ID of the test run to get the tests for
+         * @param caseFieldSchema the schema of the custom case fields configured in TestRail to get type information for custom fields in the tests returned
+         * @return the request
+         * @throws java.lang.IllegalArgumentException if runId is not positive
+         * @throws java.lang.NullPointerException     if caseFieldSchema is null
+         */
+        public List list(final int runId, @NonNull FieldSchema<CaseField> caseFieldSchema) {
+            checkArgument(runId > 0, "runId should be positive");
+            return new List(runId, caseFieldSchema);
         }
 
         public class Get extends Request<Test> {
             private static final String REST_PATH = "get_test/";
 
-            private Get(int testId) {
+            private final FieldSchema<CaseField> caseFieldSchema;
+
+            private Get(int testId, FieldSchema<CaseField> caseFieldSchema) {
                 super(config, Method.GET, REST_PATH + testId, Test.class);
+                this.caseFieldSchema = caseFieldSchema;
+            }
+
+            @Override
+            protected Object getSupplementForDeserialization() {
+                return caseFieldSchema;
             }
         }
 
         @Getter
         @Setter
         @Accessors(fluent = true)
-        public class List extends Request<java.util.List<Test>> {
+        public class List extends ListRequest<Test> {
             private static final String REST_PATH = "get_tests/";
 
+            @Getter(AccessLevel.NONE)
+            private final FieldSchema<CaseField> caseFieldSchema;
+
             @JsonView(List.class)
             @JsonSerialize(using = ListToCsvSerializer.class)
             private java.util.List<Integer> statusId;
 
-            private List(int runId) {
+            private List(int runId, FieldSchema<CaseField> caseFieldSchema) {
                 super(config, Method.GET, REST_PATH + runId, new TypeReference<java.util.List<Test>>() {
                 });
+                this.caseFieldSchema = caseFieldSchema;
+            }
+
+            @Override
+            protected Object getSupplementForDeserialization() {
+                return caseFieldSchema;
             }
         }
 
@@ -2068,6 +2852,11 @@ public class TestRail {
                 super(config, Method.GET, REST_PATH, new TypeReference<java.util.List<User>>() {
                 });
             }
+
+            @Override
+            MetadataCache.Endpoint getCacheEndpoint() {
+                return MetadataCache.Endpoint.USERS;
+            }
         }
 
     }
@@ -24,9 +24,12 @@
 
 package com.codepine.api.testrail;
 
+import com.codepine.api.testrail.transport.HttpTransport;
 import com.google.common.base.Optional;
 import lombok.*;
 
+import java.util.concurrent.Executor;
+
 /**
  * Configuration for using this client library.
  */
@@ -38,12 +41,32 @@ class TestRailConfig {
     private final String username;
     private final String password;
     private final Optional<String> applicationName;
+    private final HttpTransport transport;
+    private final Executor asyncExecutor;
+    private final RetryPolicy retryPolicy;
+    private final RateLimiter readRateLimiter;
+    private final RateLimiter writeRateLimiter;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final SingleFlight singleFlight;
+    private final MetadataCache metadataCache;
+    private final EntityCache entityCache;
+    private final RequestListener requestListener;
 
-    TestRailConfig(final String baseApiUrl, final String username, final String password, final String applicationName) {
+    TestRailConfig(final String baseApiUrl, final String username, final String password, final String applicationName, final HttpTransport transport, final Executor asyncExecutor, final RetryPolicy retryPolicy, final RateLimiter readRateLimiter, final RateLimiter writeRateLimiter, final ConcurrencyLimiter concurrencyLimiter, final SingleFlight singleFlight, final MetadataCache metadataCache, final EntityCache entityCache, final RequestListener requestListener) {
         this.baseApiUrl = baseApiUrl;
         this.username = username;
         this.password = password;
         this.applicationName = Optional.fromNullable(applicationName);
+        this.transport = transport;
+        this.asyncExecutor = asyncExecutor;
+        this.retryPolicy = retryPolicy;
+        this.readRateLimiter = readRateLimiter;
+        this.writeRateLimiter = writeRateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.singleFlight = singleFlight;
+        this.metadataCache = metadataCache;
+        this.entityCache = entityCache;
+        this.requestListener = requestListener;
     }
 
 }
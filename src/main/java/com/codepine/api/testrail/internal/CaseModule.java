@@ -24,6 +24,7 @@
 
 package com.codepine.api.testrail.internal;
 
+import com.codepine.api.testrail.FieldSchema;
 import com.codepine.api.testrail.model.Case;
 import com.codepine.api.testrail.model.CaseField;
 import com.codepine.api.testrail.model.Field;
@@ -35,12 +36,11 @@ import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBuilder;
 import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
 import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import com.fasterxml.jackson.databind.module.SimpleModule;
-import com.google.common.base.Function;
-import com.google.common.collect.Maps;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -75,22 +75,33 @@ public class CaseModule extends SimpleModule {
             Case testCase = (Case) defaultDeserializer.deserialize(jsonParser, deserializationContext);
 
             ObjectMapper mapper = (ObjectMapper) jsonParser.getCodec();
-            List<CaseField> caseFieldList = (List<CaseField>) deserializationContext.findInjectableValue(Case.class.toString(), null, null);
-            Map<String, CaseField> caseFields = Maps.uniqueIndex(caseFieldList, new Function<CaseField, String>() {
-                @Override
-                public String apply(final CaseField caseField) {
-                    return caseField.getName();
+            Object supplement = deserializationContext.findInjectableValue(Case.class.toString(), null, null);
+            if (CustomFieldAnySetter.decodesTyped(supplement)) {
+                String unknownCustomField = CustomFieldAnySetter.findUnknownCustomField(deserializationContext);
+                if (unknownCustomField != null) {
+                    throw new UnknownCustomFieldException("Case field list configuration is possibly outdated since it does not contain custom field: " + unknownCustomField, unknownCustomField);
                 }
-            });
+                return testCase;
+            }
+            FieldSchema<CaseField> caseFieldSchema = toSchema(supplement);
             Map<String, Object> customFields = new HashMap<>(testCase.getCustomFields().size());
             for (Map.Entry<String, Object> customField : testCase.getCustomFields().entrySet()) {
-                checkArgument(caseFields.containsKey(customField.getKey()), "Case field list configuration is possibly outdated since it does not contain custom field: " + customField.getKey());
-                customFields.put(customField.getKey(), mapper.convertValue(customField.getValue(), Field.Type.getType(caseFields.get(customField.getKey()).getTypeId()).getTypeReference()));
+                Field.Type type = caseFieldSchema.getType(customField.getKey());
+                checkArgument(type != null, "Case field list configuration is possibly outdated since it does not contain custom field: " + customField.getKey());
+                customFields.put(customField.getKey(), mapper.convertValue(customField.getValue(), type.getTypeReference()));
             }
             testCase.setCustomFields(customFields);
             return testCase;
         }
 
+        @SuppressWarnings("unchecked")
+        private static FieldSchema<CaseField> toSchema(Object supplement) {
+            if (supplement instanceof FieldSchema) {
+                return (FieldSchema<CaseField>) supplement;
+            }
+            return FieldSchema.of((List<CaseField>) supplement);
+        }
+
         @Override
         public void resolve(DeserializationContext deserializationContext) throws JsonMappingException {
             ((ResolvableDeserializer) defaultDeserializer).resolve(deserializationContext);
@@ -99,6 +110,14 @@ public class CaseModule extends SimpleModule {
 
     private static class CaseDeserializerModifier extends BeanDeserializerModifier {
 
+        @Override
+        public BeanDeserializerBuilder updateBuilder(DeserializationConfig deserializationConfig, BeanDescription beanDescription, BeanDeserializerBuilder builder) {
+            if (Case.class.isAssignableFrom(beanDescription.getBeanClass())) {
+                return CustomFieldAnySetter.install(beanDescription, builder, Case.class.toString(), false);
+            }
+            return builder;
+        }
+
         @Override
         public JsonDeserializer<?> modifyDeserializer(DeserializationConfig deserializationConfig, BeanDescription beanDescription, JsonDeserializer<?> jsonDeserializer) {
             if (Case.class.isAssignableFrom(beanDescription.getBeanClass())) {
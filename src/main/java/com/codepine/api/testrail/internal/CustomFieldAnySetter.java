@@ -0,0 +1,199 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.internal;
+
+import com.codepine.api.testrail.FieldSchema;
+import com.codepine.api.testrail.model.Field;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBuilder;
+import com.fasterxml.jackson.databind.deser.SettableAnyProperty;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMethod;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Any setter which decodes custom fields straight into the Java type of their {@link Field.Type} while the entity is parsed.
+ * <p>The type of each custom field is looked up in the {@link FieldSchema} injected under the given key. The schema is resolved
+ * before the request is sent, since loading it here could wait for a connection held by the response being read. When the injected value
+ * is not a compiled schema, custom fields are decoded as untyped values and the owning module is expected to convert them.
+ * Unknown fields which are not custom fields are skipped without being decoded. With a {@link FieldSchema#isLazy() lazy} schema,
+ * structured values are copied as raw JSON into a {@link LazyCustomField} instead of being decoded.</p>
+ * <p/>
+ * INTERNAL ONLY
+ */
+class CustomFieldAnySetter extends SettableAnyProperty {
+
+    private static final String CUSTOM_FIELD_KEY_PREFIX = "custom_";
+    private static final Object UNKNOWN_CUSTOM_FIELD = new Object();
+    private static final Map<Field.Type, JavaType> JAVA_TYPES = new EnumMap<>(Field.Type.class);
+
+    static {
+        for (Field.Type type : Field.Type.values()) {
+            JAVA_TYPES.put(type, TypeFactory.defaultInstance().constructType(type.getTypeReference()));
+        }
+    }
+
+    private final AnnotatedMethod setter;
+    private final String supplementKey;
+    private final boolean supplementOptional;
+    /**
+     * Root deserializers of the custom field types, indexed by ordinal. Jackson does not cache deserializers of collection
+     * types, so looking them up for every custom field value would introspect the element class every time.
+     */
+    private final AtomicReferenceArray<JsonDeserializer<Object>> typeDeserializers = new AtomicReferenceArray<>(Field.Type.values().length);
+
+    private CustomFieldAnySetter(SettableAnyProperty anySetter, AnnotatedMethod setter, JsonDeserializer<Object> valueDeserializer, String supplementKey, boolean supplementOptional) {
+        super(anySetter.getProperty(), setter, anySetter.getType(), valueDeserializer, null);
+        this.setter = setter;
+        this.supplementKey = supplementKey;
+        this.supplementOptional = supplementOptional;
+    }
+
+    /**
+     * Replace the any setter of the bean being built, if it has one.
+     *
+     * @param beanDescription the description of the bean
+     * @param builder         the builder of the bean deserializer
+     * @param supplementKey   the key the field schema is injected with
+     * @param supplementOptional whether custom fields are decoded as untyped values when no field schema is injected, instead of failing
+     * @return the builder with the any setter replaced
+     */
+    static BeanDeserializerBuilder install(BeanDescription beanDescription, BeanDeserializerBuilder builder, String supplementKey, boolean supplementOptional) {
+        SettableAnyProperty anySetter = builder.getAnySetter();
+        AnnotatedMethod setter = beanDescription.findAnySetter();
+        if (anySetter == null || setter == null) {
+            return builder;
+        }
+        return new Builder(builder, new CustomFieldAnySetter(anySetter, setter, null, supplementKey, supplementOptional));
+    }
+
+    /**
+     * Check whether custom fields were decoded to their Java types by this any setter during deserialization.
+     *
+     * @param supplement the value injected for deserialization
+     * @return true if the supplement is a compiled field schema
+     */
+    static boolean decodesTyped(Object supplement) {
+        return supplement instanceof FieldSchema;
+    }
+
+    /**
+     * Get the first custom field decoded in this deserialization which the field schema does not contain.
+     * <p>Unknown custom fields are reported this way rather than by throwing from the any setter, which would get the exception
+     * wrapped by Jackson.</p>
+     *
+     * @param deserializationContext the context of the deserialization
+     * @return the name of the unknown custom field or null if there is none
+     */
+    static String findUnknownCustomField(DeserializationContext deserializationContext) {
+        return (String) deserializationContext.getAttribute(UNKNOWN_CUSTOM_FIELD);
+    }
+
+    @Override
+    public SettableAnyProperty withValueDeserializer(JsonDeserializer<Object> valueDeserializer) {
+        return new CustomFieldAnySetter(this, setter, valueDeserializer, supplementKey, supplementOptional);
+    }
+
+    @Override
+    public Object deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException, JsonProcessingException {
+        String name = jsonParser.getCurrentName();
+        if (name == null || !name.startsWith(CUSTOM_FIELD_KEY_PREFIX)) {
+            jsonParser.skipChildren();
+            return null;
+        }
+        if (jsonParser.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        Object supplement = findSupplement(deserializationContext);
+        if (!decodesTyped(supplement)) {
+            return super.deserialize(jsonParser, deserializationContext);
+        }
+        FieldSchema<?> schema = (FieldSchema<?>) supplement;
+        String customFieldName = name.substring(CUSTOM_FIELD_KEY_PREFIX.length());
+        Field.Type type = schema.getType(customFieldName);
+        if (type == null) {
+            if (!supplementOptional && findUnknownCustomField(deserializationContext) == null) {
+                deserializationContext.setAttribute(UNKNOWN_CUSTOM_FIELD, customFieldName);
+            }
+            type = Field.Type.UNKNOWN;
+        }
+        if (schema.isLazy() && jsonParser.getCurrentToken().isStructStart()) {
+            ByteArrayBuilder json = new ByteArrayBuilder();
+            try (JsonGenerator jsonGenerator = jsonParser.getCodec().getFactory().createGenerator(json, JsonEncoding.UTF8)) {
+                jsonGenerator.copyCurrentStructure(jsonParser);
+            }
+            return new LazyCustomField(json.toByteArray(), JAVA_TYPES.get(type), (ObjectMapper) jsonParser.getCodec());
+        }
+        return findTypeDeserializer(type, deserializationContext).deserialize(jsonParser, deserializationContext);
+    }
+
+    private JsonDeserializer<Object> findTypeDeserializer(Field.Type type, DeserializationContext deserializationContext) throws JsonMappingException {
+        JsonDeserializer<Object> deserializer = typeDeserializers.get(type.ordinal());
+        if (deserializer == null) {
+            deserializer = deserializationContext.findRootValueDeserializer(JAVA_TYPES.get(type));
+            typeDeserializers.set(type.ordinal(), deserializer);
+        }
+        return deserializer;
+    }
+
+    private Object findSupplement(DeserializationContext deserializationContext) {
+        try {
+            return deserializationContext.findInjectableValue(supplementKey, null, null);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            if (supplementOptional) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Copy of a bean deserializer builder with its any setter replaced, since the builder itself does not allow replacing it.
+     * <p>Beans using {@link com.fasterxml.jackson.annotation.JacksonInject} are not supported as injectables are not copied.</p>
+     */
+    private static class Builder extends BeanDeserializerBuilder {
+
+        Builder(BeanDeserializerBuilder builder, SettableAnyProperty anySetter) {
+            super(builder);
+            _anySetter = anySetter;
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.internal;
+
+import com.codepine.api.testrail.FieldSchema;
+import com.codepine.api.testrail.model.Field;
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+
+/**
+ * Source of the custom field schema injected for deserialization, which can be asked for a newer schema when a custom
+ * field unknown to the current one is met.
+ * <p/>
+ * INTERNAL ONLY
+ *
+ * @param <F> the type of field
+ */
+public interface FieldSchemaSource<F extends Field> {
+
+    /**
+     * Get the current schema.
+     *
+     * @return the schema
+     */
+    FieldSchema<F> getSchema();
+
+    /**
+     * Get a schema newer than the outdated one, reloading it if the source supports that.
+     *
+     * @param outdated the schema which does not contain a custom field met during deserialization
+     * @return the newer schema or the outdated one if no newer schema is available
+     */
+    FieldSchema<F> refresh(FieldSchema<F> outdated);
+
+    /**
+     * Check whether this source can ever return a schema newer than the one it returned before.
+     *
+     * @return true if {@link #refresh(FieldSchema)} may return a newer schema
+     */
+    boolean isRefreshable();
+
+    /**
+     * Source which always returns the same schema.
+     *
+     * @param <F> the type of field
+     */
+    @EqualsAndHashCode
+    final class Fixed<F extends Field> implements FieldSchemaSource<F> {
+
+        private final FieldSchema<F> schema;
+
+        public Fixed(@NonNull final FieldSchema<F> schema) {
+            this.schema = schema;
+        }
+
+        @Override
+        public FieldSchema<F> getSchema() {
+            return schema;
+        }
+
+        @Override
+        public FieldSchema<F> refresh(FieldSchema<F> outdated) {
+            return schema;
+        }
+
+        @Override
+        public boolean isRefreshable() {
+            return false;
+        }
+    }
+}
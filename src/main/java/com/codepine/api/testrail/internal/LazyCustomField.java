@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.internal;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Function;
+import com.google.common.collect.Maps;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Custom field value kept as raw JSON until it is first read.
+ * <p>The decoded value is kept by this instance, so the map of custom fields of an entity is never modified by reads
+ * and entities shared between threads, e.g. through the caches, can be read concurrently. Every reader gets the same
+ * decoded instance.</p>
+ * <p/>
+ * INTERNAL ONLY
+ */
+public final class LazyCustomField {
+
+    private static final Object UNDECODED = new Object();
+    private static final Function<Object, Object> DECODER = new Function<Object, Object>() {
+        @Override
+        public Object apply(Object value) {
+            return valueOf(value);
+        }
+    };
+
+    private final byte[] json;
+    private final JavaType type;
+    private final ObjectMapper mapper;
+    private volatile Object value = UNDECODED;
+
+    LazyCustomField(byte[] json, JavaType type, ObjectMapper mapper) {
+        this.json = json;
+        this.type = type;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Get a custom field, decoding it if it has not been read yet.
+     *
+     * @param customFields the custom fields of an entity or null if it has none
+     * @param key          the system name of the custom field
+     * @return the decoded value or null if there is no such field
+     */
+    public static Object materialize(Map<String, Object> customFields, String key) {
+        if (customFields == null) {
+            return null;
+        }
+        return valueOf(customFields.get(key));
+    }
+
+    /**
+     * Get the custom fields with the values which have not been read yet decoded as they are read.
+     * <p>Custom fields which were not decoded lazily are returned as they are, so they can still be changed through
+     * the returned map. Otherwise a view is returned, which reflects later changes of the map and supports removal,
+     * but not adding fields.</p>
+     *
+     * @param customFields the custom fields of an entity
+     * @return the custom fields or their decoded view
+     */
+    public static Map<String, Object> materializeAll(Map<String, Object> customFields) {
+        for (Object value : customFields.values()) {
+            if (value instanceof LazyCustomField) {
+                return Maps.transformValues(customFields, DECODER);
+            }
+        }
+        return customFields;
+    }
+
+    private static Object valueOf(Object value) {
+        return value instanceof LazyCustomField ? ((LazyCustomField) value).get() : value;
+    }
+
+    private Object get() {
+        Object decoded = value;
+        if (decoded == UNDECODED) {
+            synchronized (this) {
+                decoded = value;
+                if (decoded == UNDECODED) {
+                    decoded = decode();
+                    value = decoded;
+                }
+            }
+        }
+        return decoded;
+    }
+
+    private Object decode() {
+        try {
+            return mapper.readValue(json, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not decode custom field value of type " + type, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LazyCustomField(" + type + ")";
+    }
+
+}
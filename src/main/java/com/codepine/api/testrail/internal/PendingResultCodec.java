@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.internal;
+
+import com.codepine.api.testrail.TestRail;
+import com.codepine.api.testrail.model.Result;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.Value;
+
+import java.io.IOException;
+
+/**
+ * Encoding of results waiting to be added to a test run, for keeping them outside of the heap.
+ * <p>A pending result is encoded as a single line of JSON holding the ID of the run and the fields of the result which
+ * are sent with {@link TestRail.Results.AddListForCases}. Custom fields are decoded as untyped values, which is enough for
+ * sending them again.</p>
+ * <p/>
+ * INTERNAL ONLY
+ */
+public final class PendingResultCodec {
+
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategy.CAMEL_CASE_TO_LOWER_CASE_WITH_UNDERSCORES)
+            .configure(MapperFeature.DEFAULT_VIEW_INCLUSION, false)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private static final ObjectWriter RESULT_WRITER = JSON.writerWithView(TestRail.Results.AddListForCases.class);
+
+    private PendingResultCodec() {
+    }
+
+    /**
+     * Encode a pending result.
+     *
+     * @param pendingResult the pending result
+     * @return the UTF-8 encoded JSON, without line terminator
+     * @throws IOException if the result could not be serialized
+     */
+    public static byte[] encode(PendingResult pendingResult) throws IOException {
+        ByteArrayBuilder json = new ByteArrayBuilder();
+        try (JsonGenerator jsonGenerator = JSON.getFactory().createGenerator(json, JsonEncoding.UTF8)) {
+            jsonGenerator.writeStartObject();
+            jsonGenerator.writeNumberField("run_id", pendingResult.getRunId());
+            if (pendingResult.getSequence() != 0) {
+                jsonGenerator.writeNumberField("sequence", pendingResult.getSequence());
+            }
+            jsonGenerator.writeFieldName("result");
+            RESULT_WRITER.writeValue(jsonGenerator, pendingResult.getResult());
+            jsonGenerator.writeEndObject();
+        }
+        return json.toByteArray();
+    }
+
+    /**
+     * Decode a pending result.
+     *
+     * @param data   the buffer holding the encoded result
+     * @param offset the offset of the encoded result in data
+     * @param length the length of the encoded result
+     * @return the pending result
+     * @throws IOException if data does not hold an encoded result
+     */
+    public static PendingResult decode(byte[] data, int offset, int length) throws IOException {
+        JsonNode node = JSON.readTree(JSON.getFactory().createParser(data, offset, length));
+        if (node == null || !node.has("run_id") || !node.has("result")) {
+            throw new IOException("Not an encoded pending result");
+        }
+        long sequence = node.has("sequence") ? node.get("sequence").asLong() : 0;
+        return new PendingResult(sequence, node.get("run_id").asInt(), JSON.treeToValue(node.get("result"), Result.class));
+    }
+
+    /**
+     * Result waiting to be added to a test run.
+     */
+    @Value
+    public static class PendingResult {
+        /**
+         * Sequence of the result in the journal or 0 if it is not journaled.
+         */
+        private final long sequence;
+        private final int runId;
+        private final Result result;
+    }
+}
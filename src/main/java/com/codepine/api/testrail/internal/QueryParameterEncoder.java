@@ -0,0 +1,231 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.internal;
+
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Encoder of query parameters of a request, compiled once per request class.
+ * <p>Query parameters are the fields annotated with {@link JsonView} including the request class. They are encoded the same
+ * way the request's {@code ObjectMapper} would serialize them: names are converted to lower case with underscores, null
+ * values are skipped, {@code java.util.Date}s are written as unix timestamps in seconds and fields serialized with
+ * {@link ListToCsvSerializer} or {@link BooleanToIntSerializer} are written as csv strings and 0/1 respectively.</p>
+ * <p/>
+ * INTERNAL ONLY
+ */
+public final class QueryParameterEncoder {
+
+    private static final ConcurrentMap<Class<?>, QueryParameterEncoder> ENCODERS = new ConcurrentHashMap<>();
+    private static final String ENCODED_CSV_SEPARATOR = "%2C";
+
+    private final Parameter[] parameters;
+
+    private QueryParameterEncoder(final Class<?> requestClass) {
+        List<Parameter> parameters = new ArrayList<>();
+        addParameters(requestClass, requestClass, parameters);
+        this.parameters = parameters.toArray(new Parameter[parameters.size()]);
+    }
+
+    /**
+     * Get the encoder for a request class, compiling it on first use.
+     *
+     * @param requestClass the class of the request
+     * @return the encoder
+     * @throws IllegalStateException if a query parameter uses an unsupported serializer
+     */
+    public static QueryParameterEncoder forClass(final Class<?> requestClass) {
+        QueryParameterEncoder encoder = ENCODERS.get(requestClass);
+        if (encoder == null) {
+            encoder = new QueryParameterEncoder(requestClass);
+            QueryParameterEncoder existing = ENCODERS.putIfAbsent(requestClass, encoder);
+            if (existing != null) {
+                encoder = existing;
+            }
+        }
+        return encoder;
+    }
+
+    /**
+     * Append the query parameters of the request to the URL being built. Each parameter is prefixed with '&amp;'.
+     *
+     * @param request the request to read the parameters from
+     * @param out     the URL being built
+     */
+    public void encode(final Object request, final StringBuilder out) {
+        for (Parameter parameter : parameters) {
+            Object value;
+            try {
+                value = parameter.field.get(request);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            if (value != null) {
+                out.append('&').append(parameter.encodedName).append('=');
+                parameter.kind.append(value, out);
+            }
+        }
+    }
+
+    private static void addParameters(final Class<?> requestClass, final Class<?> declaringClass, final List<Parameter> parameters) {
+        if (declaringClass == null || declaringClass == Object.class) {
+            return;
+        }
+        // like Jackson, super class properties come first
+        addParameters(requestClass, declaringClass.getSuperclass(), parameters);
+        for (Field field : declaringClass.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()) || !isInView(field, requestClass)) {
+                continue;
+            }
+            field.setAccessible(true);
+            String name = PropertyNamingStrategy.CAMEL_CASE_TO_LOWER_CASE_WITH_UNDERSCORES.nameForField(null, null, field.getName());
+            parameters.add(new Parameter(field, encode(name), getKind(field)));
+        }
+    }
+
+    private static boolean isInView(final Field field, final Class<?> requestClass) {
+        JsonView jsonView = field.getAnnotation(JsonView.class);
+        if (jsonView == null) {
+            return false;
+        }
+        for (Class<?> view : jsonView.value()) {
+            if (view.isAssignableFrom(requestClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Kind getKind(final Field field) {
+        JsonSerialize jsonSerialize = field.getAnnotation(JsonSerialize.class);
+        if (jsonSerialize != null && jsonSerialize.using() != com.fasterxml.jackson.databind.JsonSerializer.None.class) {
+            if (jsonSerialize.using() == ListToCsvSerializer.class) {
+                return Kind.CSV;
+            }
+            if (jsonSerialize.using() == BooleanToIntSerializer.class) {
+                return Kind.BOOLEAN_TO_INT;
+            }
+            throw new IllegalStateException("Unsupported serializer " + jsonSerialize.using().getName() + " for query parameter " + field);
+        }
+        if (Date.class.isAssignableFrom(field.getType())) {
+            return Kind.UNIX_TIMESTAMP;
+        }
+        return Kind.PLAIN;
+    }
+
+    private static void appendEncoded(final String value, final StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!isUnreserved(value.charAt(i))) {
+                out.append(encode(value));
+                return;
+            }
+        }
+        out.append(value);
+    }
+
+    private static boolean isUnreserved(final char c) {
+        // characters left as is by URLEncoder
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_' || c == '.' || c == '*';
+    }
+
+    private static String encode(final String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void appendPlain(final Object value, final StringBuilder out) {
+        if (value instanceof Integer) {
+            out.append(((Integer) value).intValue());
+        } else if (value instanceof Long) {
+            out.append(((Long) value).longValue());
+        } else if (value instanceof Enum) {
+            appendEncoded(((Enum<?>) value).name(), out);
+        } else {
+            appendEncoded(String.valueOf(value), out);
+        }
+    }
+
+    private static final class Parameter {
+        private final Field field;
+        private final String encodedName;
+        private final Kind kind;
+
+        Parameter(final Field field, final String encodedName, final Kind kind) {
+            this.field = field;
+            this.encodedName = encodedName;
+            this.kind = kind;
+        }
+    }
+
+    private enum Kind {
+        PLAIN {
+            @Override
+            void append(final Object value, final StringBuilder out) {
+                appendPlain(value, out);
+            }
+        },
+        UNIX_TIMESTAMP {
+            @Override
+            void append(final Object value, final StringBuilder out) {
+                out.append(((Date) value).getTime() / 1000);
+            }
+        },
+        BOOLEAN_TO_INT {
+            @Override
+            void append(final Object value, final StringBuilder out) {
+                out.append((Boolean) value ? '1' : '0');
+            }
+        },
+        CSV {
+            @Override
+            void append(final Object value, final StringBuilder out) {
+                boolean first = true;
+                for (Object item : (List<?>) value) {
+                    if (!first) {
+                        out.append(ENCODED_CSV_SEPARATOR);
+                    }
+                    first = false;
+                    appendPlain(item, out);
+                }
+            }
+        };
+
+        abstract void append(Object value, StringBuilder out);
+    }
+}
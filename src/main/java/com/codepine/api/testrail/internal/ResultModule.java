@@ -24,6 +24,7 @@
 
 package com.codepine.api.testrail.internal;
 
+import com.codepine.api.testrail.FieldSchema;
 import com.codepine.api.testrail.model.Field;
 import com.codepine.api.testrail.model.Result;
 import com.codepine.api.testrail.model.ResultField;
@@ -35,12 +36,11 @@ import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBuilder;
 import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
 import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import com.fasterxml.jackson.databind.module.SimpleModule;
-import com.google.common.base.Function;
-import com.google.common.collect.Maps;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -75,22 +75,33 @@ public class ResultModule extends SimpleModule {
             Result result = (Result) defaultDeserializer.deserialize(jsonParser, deserializationContext);
 
             ObjectMapper mapper = (ObjectMapper) jsonParser.getCodec();
-            List<ResultField> resultFieldList = (List<ResultField>) deserializationContext.findInjectableValue(Result.class.toString(), null, null);
-            Map<String, ResultField> resultFields = Maps.uniqueIndex(resultFieldList, new Function<ResultField, String>() {
-                @Override
-                public String apply(final ResultField resultField) {
-                    return resultField.getName();
+            Object supplement = deserializationContext.findInjectableValue(Result.class.toString(), null, null);
+            if (CustomFieldAnySetter.decodesTyped(supplement)) {
+                String unknownCustomField = CustomFieldAnySetter.findUnknownCustomField(deserializationContext);
+                if (unknownCustomField != null) {
+                    throw new UnknownCustomFieldException("Result field list configuration is possibly outdated since it does not contain custom field: " + unknownCustomField, unknownCustomField);
                 }
-            });
+                return result;
+            }
+            FieldSchema<ResultField> resultFieldSchema = toSchema(supplement);
             Map<String, Object> customFields = new HashMap<>(result.getCustomFields().size());
             for (Map.Entry<String, Object> customField : result.getCustomFields().entrySet()) {
-                checkArgument(resultFields.containsKey(customField.getKey()), "Result field list configuration is possibly outdated since it does not contain custom field: " + customField.getKey());
-                customFields.put(customField.getKey(), mapper.convertValue(customField.getValue(), Field.Type.getType(resultFields.get(customField.getKey()).getTypeId()).getTypeReference()));
+                Field.Type type = resultFieldSchema.getType(customField.getKey());
+                checkArgument(type != null, "Result field list configuration is possibly outdated since it does not contain custom field: " + customField.getKey());
+                customFields.put(customField.getKey(), mapper.convertValue(customField.getValue(), type.getTypeReference()));
             }
             result.setCustomFields(customFields);
             return result;
         }
 
+        @SuppressWarnings("unchecked")
+        private static FieldSchema<ResultField> toSchema(Object supplement) {
+            if (supplement instanceof FieldSchema) {
+                return (FieldSchema<ResultField>) supplement;
+            }
+            return FieldSchema.of((List<ResultField>) supplement);
+        }
+
         @Override
         public void resolve(DeserializationContext deserializationContext) throws JsonMappingException {
             ((ResolvableDeserializer) defaultDeserializer).resolve(deserializationContext);
@@ -99,6 +110,14 @@ public class ResultModule extends SimpleModule {
 
     private static class ResultDeserializerModifier extends BeanDeserializerModifier {
 
+        @Override
+        public BeanDeserializerBuilder updateBuilder(DeserializationConfig deserializationConfig, BeanDescription beanDescription, BeanDeserializerBuilder builder) {
+            if (Result.class.isAssignableFrom(beanDescription.getBeanClass())) {
+                return CustomFieldAnySetter.install(beanDescription, builder, Result.class.toString(), false);
+            }
+            return builder;
+        }
+
         @Override
         public JsonDeserializer<?> modifyDeserializer(DeserializationConfig deserializationConfig, BeanDescription beanDescription, JsonDeserializer<?> jsonDeserializer) {
             if (Result.class.isAssignableFrom(beanDescription.getBeanClass())) {
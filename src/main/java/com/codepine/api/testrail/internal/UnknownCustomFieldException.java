@@ -0,0 +1,63 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.internal;
+
+import com.google.common.base.Throwables;
+import lombok.Getter;
+
+/**
+ * Thrown when an entity returned by TestRail has a custom field which the field schema it was deserialized with does not
+ * contain, i.e. the schema is possibly outdated.
+ * <p/>
+ * INTERNAL ONLY
+ */
+public class UnknownCustomFieldException extends IllegalArgumentException {
+
+    /**
+     * Name of the unknown custom field without "custom_" prefix.
+     */
+    @Getter
+    private final String customFieldName;
+
+    UnknownCustomFieldException(String message, String customFieldName) {
+        super(message);
+        this.customFieldName = customFieldName;
+    }
+
+    /**
+     * Find the exception among the causes of a failure, since Jackson may wrap exceptions thrown while deserializing.
+     *
+     * @param failure the failure
+     * @return the exception or null if the failure was not caused by an unknown custom field
+     */
+    public static UnknownCustomFieldException find(Throwable failure) {
+        for (Throwable cause : Throwables.getCausalChain(failure)) {
+            if (cause instanceof UnknownCustomFieldException) {
+                return (UnknownCustomFieldException) cause;
+            }
+        }
+        return null;
+    }
+}
@@ -25,6 +25,7 @@
 package com.codepine.api.testrail.model;
 
 import com.codepine.api.testrail.TestRail;
+import com.codepine.api.testrail.internal.LazyCustomField;
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -34,7 +35,6 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.ser.std.StdKeySerializer;
-import com.google.common.base.MoreObjects;
 import lombok.Data;
 
 import java.io.IOException;
@@ -95,7 +95,7 @@ public class Case {
     @JsonAnyGetter
     @JsonSerialize(keyUsing = CustomFieldSerializer.class)
     public Map<String, Object> getCustomFields() {
-        return MoreObjects.firstNonNull(customFields, Collections.<String, Object>emptyMap());
+        return customFields == null ? Collections.<String, Object>emptyMap() : LazyCustomField.materializeAll(customFields);
     }
 
     /**
@@ -135,7 +135,7 @@ public class Case {
      * @return the value of the custom field
      */
     public <T> T getCustomField(String key) {
-        return (T) getCustomFields().get(key);
+        return (T) LazyCustomField.materialize(customFields, key);
     }
 
     /**
@@ -26,6 +26,7 @@ package com.codepine.api.testrail.model;
 
 import com.codepine.api.testrail.TestRail;
 import com.codepine.api.testrail.internal.CsvToListDeserializer;
+import com.codepine.api.testrail.internal.LazyCustomField;
 import com.codepine.api.testrail.internal.ListToCsvSerializer;
 import com.fasterxml.jackson.annotation.JsonAnyGetter;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
@@ -37,7 +38,6 @@ import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.ser.std.StdKeySerializer;
-import com.google.common.base.MoreObjects;
 import com.google.common.base.Preconditions;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -119,7 +119,7 @@ public class Result {
     @JsonAnyGetter
     @JsonSerialize(keyUsing = CustomFieldSerializer.class)
     public Map<String, Object> getCustomFields() {
-        return MoreObjects.firstNonNull(customFields, Collections.<String, Object>emptyMap());
+        return customFields == null ? Collections.<String, Object>emptyMap() : LazyCustomField.materializeAll(customFields);
     }
 
     /**
@@ -159,7 +159,7 @@ public class Result {
      * @return the value of the custom field
      */
     public <T> T getCustomField(String key) {
-        return (T) getCustomFields().get(key);
+        return (T) LazyCustomField.materialize(customFields, key);
     }
 
     /**
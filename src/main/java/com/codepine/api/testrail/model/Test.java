@@ -24,8 +24,8 @@
 
 package com.codepine.api.testrail.model;
 
+import com.codepine.api.testrail.internal.LazyCustomField;
 import com.fasterxml.jackson.annotation.JsonAnySetter;
-import com.google.common.base.MoreObjects;
 import lombok.Data;
 
 import java.util.Collections;
@@ -67,7 +67,7 @@ public class Test {
     private Map<String, Object> customFields;
 
     public Map<String, Object> getCustomFields() {
-        return MoreObjects.firstNonNull(customFields, Collections.<String, Object>emptyMap());
+        return customFields == null ? Collections.<String, Object>emptyMap() : LazyCustomField.materializeAll(customFields);
     }
 
     /**
@@ -98,4 +98,16 @@ public class Test {
         }
     }
 
+    /**
+     * Get custom field.
+     * <p>Use Java Type Inference, to get the value with correct type. Refer to {@link Field.Type} for a map of TestRail field types to Java types.</p>
+     *
+     * @param key the system name of custom field
+     * @param <T> the type of returned value
+     * @return the value of the custom field
+     */
+    public <T> T getCustomField(String key) {
+        return (T) LazyCustomField.materialize(customFields, key);
+    }
+
 }
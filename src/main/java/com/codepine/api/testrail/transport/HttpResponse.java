@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * HTTP response received by a {@link HttpTransport}.
+ * <p>Closing the response releases the underlying connection, possibly back to a pool.</p>
+ */
+public interface HttpResponse extends Closeable {
+
+    /**
+     * Get the HTTP status code.
+     *
+     * @return the status code
+     */
+    int getStatusCode();
+
+    /**
+     * Get the value of a response header.
+     *
+     * @param name the name of the header
+     * @return the value of the header or null if it is absent
+     */
+    String getHeader(String name);
+
+    /**
+     * Get the body of the response.
+     *
+     * @return the body stream or null if the server did not send any
+     * @throws IOException if there is an error opening the stream
+     */
+    InputStream getBody() throws IOException;
+
+    /**
+     * Release the underlying connection without reading the rest of the body, e.g. by discarding the connection instead
+     * of returning it to a pool. Used when the body is abandoned before its end, where reading the rest to keep the
+     * connection could take longer than opening a new one.
+     * <p>Defaults to {@link #close()}.</p>
+     *
+     * @throws IOException if the connection could not be released
+     */
+    default void abort() throws IOException {
+        close();
+    }
+
+}
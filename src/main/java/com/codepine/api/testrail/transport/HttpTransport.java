@@ -0,0 +1,50 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Transport used by {@link com.codepine.api.testrail.TestRail} to exchange HTTP messages with TestRail.
+ * <p>Implementations must be safe for use by multiple threads since a single instance is shared by all the requests created
+ * through the same {@code TestRail} instance.</p>
+ *
+ * @see PooledHttpTransport
+ * @see UrlConnectionTransport
+ */
+public interface HttpTransport extends Closeable {
+
+    /**
+     * Send the request and return the response once the status line has been received.
+     * <p>The caller owns the returned response and must close it to release the underlying connection.</p>
+     *
+     * @param request the request to be sent
+     * @return the response
+     * @throws IOException if there is an IO error while communicating with TestRail
+     */
+    HttpResponse execute(HttpRequest request) throws IOException;
+
+}
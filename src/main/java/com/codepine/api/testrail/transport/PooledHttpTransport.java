@@ -0,0 +1,331 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.transport;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Transport which keeps persistent connections to TestRail in a bounded pool.
+ * <p>Idle connections are evicted opportunistically while requests are being executed, so the transport does not own any
+ * background thread.</p>
+ */
+public class PooledHttpTransport implements HttpTransport {
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final long idleTimeoutMillis;
+    private final AtomicLong nextEvictionMillis;
+
+    private PooledHttpTransport(final Builder builder) {
+        connectionManager = new PoolingHttpClientConnectionManager(builder.timeToLiveMillis, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(builder.maxConnections);
+        connectionManager.setDefaultMaxPerRoute(builder.maxConnectionsPerRoute);
+        connectionManager.setValidateAfterInactivity(builder.validateAfterInactivityMillis);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(builder.connectTimeoutMillis)
+                .setSocketTimeout(builder.socketTimeoutMillis)
+                .setConnectionRequestTimeout(builder.connectionRequestTimeoutMillis)
+                .build();
+        httpClient = HttpClients.custom()
+                .useSystemProperties()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+        idleTimeoutMillis = builder.idleTimeoutMillis;
+        nextEvictionMillis = new AtomicLong(System.currentTimeMillis() + idleTimeoutMillis);
+    }
+
+    /**
+     * Get a builder to build an instance of {@code PooledHttpTransport}.
+     *
+     * @return a builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public HttpResponse execute(final HttpRequest request) throws IOException {
+        evictIdleConnectionsIfDue();
+        final HttpRequestBase httpRequest;
+        if ("POST".equals(request.getMethod())) {
+            HttpPost post = new HttpPost(request.getUrl());
+            if (request.getBody() != null) {
+                // buffered to always send Content-Length; TestRail rejects chunked request bodies
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                request.getBody().writeTo(body);
+                post.setEntity(new ByteArrayEntity(body.toByteArray()));
+            }
+            httpRequest = post;
+        } else {
+            checkArgument("GET".equals(request.getMethod()), "Unsupported HTTP method: " + request.getMethod());
+            httpRequest = new HttpGet(request.getUrl());
+        }
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            httpRequest.setHeader(header.getKey(), header.getValue());
+        }
+        return new PooledResponse(httpClient.execute(httpRequest));
+    }
+
+    /**
+     * Get the number of connections currently leased to in-flight requests.
+     *
+     * @return the number of leased connections
+     */
+    public int getLeasedConnections() {
+        return connectionManager.getTotalStats().getLeased();
+    }
+
+    /**
+     * Get the number of idle connections kept alive in the pool.
+     *
+     * @return the number of available connections
+     */
+    public int getAvailableConnections() {
+        return connectionManager.getTotalStats().getAvailable();
+    }
+
+    /**
+     * Get the number of requests waiting for a connection to become available.
+     *
+     * @return the number of pending requests
+     */
+    public int getPendingRequests() {
+        return connectionManager.getTotalStats().getPending();
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    private void evictIdleConnectionsIfDue() {
+        long now = System.currentTimeMillis();
+        long due = nextEvictionMillis.get();
+        if (now >= due && nextEvictionMillis.compareAndSet(due, now + idleTimeoutMillis)) {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static class PooledResponse implements HttpResponse {
+
+        private final CloseableHttpResponse response;
+
+        PooledResponse(final CloseableHttpResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.getStatusLine().getStatusCode();
+        }
+
+        @Override
+        public String getHeader(final String name) {
+            Header header = response.getFirstHeader(name);
+            return header == null ? null : header.getValue();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            HttpEntity entity = response.getEntity();
+            return entity == null ? null : entity.getContent();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                // consuming the rest of the entity returns the connection to the pool instead of discarding it
+                EntityUtils.consumeQuietly(response.getEntity());
+            } finally {
+                response.close();
+            }
+        }
+
+        @Override
+        public void abort() throws IOException {
+            // closing without consuming the entity shuts the connection down instead of reading the rest of the body
+            response.close();
+        }
+    }
+
+    /**
+     * Builder for {@code PooledHttpTransport}.
+     */
+    public static class Builder {
+
+        private int maxConnections = 20;
+        private int maxConnectionsPerRoute = 10;
+        private long idleTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+        private long timeToLiveMillis = -1;
+        private int validateAfterInactivityMillis = (int) TimeUnit.SECONDS.toMillis(2);
+        private int connectTimeoutMillis = (int) TimeUnit.SECONDS.toMillis(30);
+        private int socketTimeoutMillis = (int) TimeUnit.SECONDS.toMillis(60);
+        private int connectionRequestTimeoutMillis = -1;
+
+        private Builder() {
+        }
+
+        /**
+         * Set the maximum number of pooled connections across all routes. Defaults to 20.
+         *
+         * @param maxConnections the maximum number of connections
+         * @return this for chaining
+         * @throws IllegalArgumentException if maxConnections is not positive
+         */
+        public Builder maxConnections(final int maxConnections) {
+            checkArgument(maxConnections > 0, "maxConnections should be positive");
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of pooled connections per route, i.e. per TestRail host. Defaults to 10.
+         *
+         * @param maxConnectionsPerRoute the maximum number of connections per route
+         * @return this for chaining
+         * @throws IllegalArgumentException if maxConnectionsPerRoute is not positive
+         */
+        public Builder maxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+            checkArgument(maxConnectionsPerRoute > 0, "maxConnectionsPerRoute should be positive");
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * Set the time after which idle connections are evicted from the pool. Defaults to 30 seconds.
+         *
+         * @param idleTimeout the idle timeout
+         * @param unit        the unit of idleTimeout
+         * @return this for chaining
+         * @throws IllegalArgumentException if idleTimeout is not positive
+         */
+        public Builder idleTimeout(final long idleTimeout, final TimeUnit unit) {
+            checkArgument(idleTimeout > 0, "idleTimeout should be positive");
+            this.idleTimeoutMillis = unit.toMillis(idleTimeout);
+            return this;
+        }
+
+        /**
+         * Set the maximum life time of a pooled connection. Unlimited by default.
+         *
+         * @param timeToLive the time to live
+         * @param unit       the unit of timeToLive
+         * @return this for chaining
+         * @throws IllegalArgumentException if timeToLive is not positive
+         */
+        public Builder timeToLive(final long timeToLive, final TimeUnit unit) {
+            checkArgument(timeToLive > 0, "timeToLive should be positive");
+            this.timeToLiveMillis = unit.toMillis(timeToLive);
+            return this;
+        }
+
+        /**
+         * Set the period of inactivity after which a pooled connection is checked for staleness before being reused. Defaults to 2 seconds.
+         *
+         * @param validateAfterInactivity the period of inactivity
+         * @param unit                    the unit of validateAfterInactivity
+         * @return this for chaining
+         */
+        public Builder validateAfterInactivity(final long validateAfterInactivity, final TimeUnit unit) {
+            this.validateAfterInactivityMillis = (int) unit.toMillis(validateAfterInactivity);
+            return this;
+        }
+
+        /**
+         * Set the timeout for establishing a connection. Defaults to 30 seconds.
+         *
+         * @param connectTimeout the connect timeout
+         * @param unit           the unit of connectTimeout
+         * @return this for chaining
+         * @throws IllegalArgumentException if connectTimeout is negative
+         */
+        public Builder connectTimeout(final long connectTimeout, final TimeUnit unit) {
+            checkArgument(connectTimeout >= 0, "connectTimeout cannot be negative");
+            this.connectTimeoutMillis = (int) unit.toMillis(connectTimeout);
+            return this;
+        }
+
+        /**
+         * Set the timeout for waiting for data on an established connection. Defaults to 60 seconds.
+         *
+         * @param socketTimeout the socket timeout
+         * @param unit          the unit of socketTimeout
+         * @return this for chaining
+         * @throws IllegalArgumentException if socketTimeout is negative
+         */
+        public Builder socketTimeout(final long socketTimeout, final TimeUnit unit) {
+            checkArgument(socketTimeout >= 0, "socketTimeout cannot be negative");
+            this.socketTimeoutMillis = (int) unit.toMillis(socketTimeout);
+            return this;
+        }
+
+        /**
+         * Set the timeout for waiting for a connection from the pool. Unlimited by default.
+         *
+         * @param connectionRequestTimeout the timeout for leasing a connection
+         * @param unit                     the unit of connectionRequestTimeout
+         * @return this for chaining
+         * @throws IllegalArgumentException if connectionRequestTimeout is negative
+         */
+        public Builder connectionRequestTimeout(final long connectionRequestTimeout, final TimeUnit unit) {
+            checkArgument(connectionRequestTimeout >= 0, "connectionRequestTimeout cannot be negative");
+            this.connectionRequestTimeoutMillis = (int) unit.toMillis(connectionRequestTimeout);
+            return this;
+        }
+
+        /**
+         * Build an instance of {@code PooledHttpTransport}.
+         *
+         * @return a new instance
+         * @throws IllegalArgumentException if maxConnectionsPerRoute is greater than maxConnections
+         */
+        public PooledHttpTransport build() {
+            checkArgument(maxConnectionsPerRoute <= maxConnections, "maxConnectionsPerRoute cannot be greater than maxConnections");
+            return new PooledHttpTransport(this);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.transport;
+
+import com.codepine.api.testrail.internal.UrlConnectionFactory;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.Map;
+
+/**
+ * Transport based on {@link java.net.HttpURLConnection}. Connection reuse is left to the JDK's keep-alive cache.
+ */
+@RequiredArgsConstructor
+public class UrlConnectionTransport implements HttpTransport {
+
+    @NonNull
+    private final UrlConnectionFactory urlConnectionFactory;
+
+    public UrlConnectionTransport() {
+        this(new UrlConnectionFactory());
+    }
+
+    @Override
+    public HttpResponse execute(final HttpRequest request) throws IOException {
+        HttpURLConnection con = (HttpURLConnection) urlConnectionFactory.getUrlConnection(request.getUrl());
+        con.setRequestMethod(request.getMethod());
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            con.setRequestProperty(header.getKey(), header.getValue());
+        }
+        if ("POST".equals(request.getMethod())) {
+            con.setDoOutput(true);
+            if (request.getBody() != null) {
+                try (OutputStream outputStream = new BufferedOutputStream(con.getOutputStream())) {
+                    request.getBody().writeTo(outputStream);
+                }
+            } else {
+                con.setFixedLengthStreamingMode(0);
+            }
+        }
+        int responseCode;
+        try {
+            responseCode = con.getResponseCode();
+        } catch (IOException e) {
+            // swallow it since for 401 getResponseCode throws an IOException
+            responseCode = con.getResponseCode();
+        }
+        return new UrlConnectionResponse(con, responseCode);
+    }
+
+    @Override
+    public void close() {
+        // nothing to release; the JDK manages the keep-alive cache
+    }
+
+    @RequiredArgsConstructor
+    private static class UrlConnectionResponse implements HttpResponse {
+
+        private final HttpURLConnection con;
+        private final int statusCode;
+        private InputStream body;
+
+        @Override
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public String getHeader(final String name) {
+            return con.getHeaderField(name);
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = statusCode >= HttpURLConnection.HTTP_BAD_REQUEST ? con.getErrorStream() : con.getInputStream();
+            }
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (body != null) {
+                // closing (instead of disconnecting) lets the JDK keep the connection alive
+                body.close();
+            }
+        }
+
+        @Override
+        public void abort() throws IOException {
+            // disconnecting first keeps closing the body from reading the rest of it to keep the connection alive
+            con.disconnect();
+            close();
+        }
+    }
+}
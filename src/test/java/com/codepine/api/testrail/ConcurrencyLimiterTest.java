@@ -0,0 +1,185 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.model.Case;
+import com.codepine.api.testrail.model.CaseField;
+import com.codepine.api.testrail.model.Project;
+import com.codepine.api.testrail.model.Section;
+import com.codepine.api.testrail.model.Suite;
+import com.codepine.api.testrail.standin.StandInServer;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link ConcurrencyLimiter}.
+ */
+public class ConcurrencyLimiterTest {
+
+    private static final long LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    public void G_flatLatencyAndLimitInUse_W_release_T_limitGrows() throws InterruptedException {
+        // GIVEN
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(2).build();
+
+        // WHEN
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire();
+            limiter.acquire();
+            limiter.release("get_case/{case_id}", LATENCY_NANOS, false);
+            limiter.release("get_case/{case_id}", LATENCY_NANOS, false);
+        }
+
+        // THEN
+        assertTrue(limiter.getLimit() > 2);
+        assertEquals(0, limiter.getStats().getInFlight());
+    }
+
+    @Test
+    public void G_overloadedResponse_W_release_T_limitShrinks() throws InterruptedException {
+        // GIVEN
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(10).build();
+        limiter.acquire();
+
+        // WHEN
+        limiter.release("get_case/{case_id}", LATENCY_NANOS, true);
+
+        // THEN
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    public void G_latencyAboveBaselineForWindow_W_release_T_limitShrinks() throws InterruptedException {
+        // GIVEN
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(10).window(4).build();
+        limiter.acquire();
+        limiter.release("get_case/{case_id}", LATENCY_NANOS, false);
+
+        // WHEN
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire();
+            limiter.release("get_case/{case_id}", 10 * LATENCY_NANOS, false);
+        }
+
+        // THEN
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    public void G_singleSlowResponseInWindow_W_release_T_limitKept() throws InterruptedException {
+        // GIVEN
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(10).build();
+
+        // WHEN
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire();
+            limiter.release("get_case/{case_id}", (i == 10 ? 10 : 1) * LATENCY_NANOS, false);
+        }
+
+        // THEN
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    public void G_endpointsWithDifferentLatencies_W_release_T_limitKeptAndBaselinePerEndpoint() throws InterruptedException {
+        // GIVEN
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(10).build();
+
+        // WHEN
+        for (int i = 0; i < 40; i++) {
+            limiter.acquire();
+            if (i % 2 == 0) {
+                limiter.release("get_case/{case_id}", LATENCY_NANOS, false);
+            } else {
+                limiter.release("get_cases/{project_id}", 20 * LATENCY_NANOS, false);
+            }
+        }
+
+        // THEN
+        assertEquals(10, limiter.getLimit());
+        Map<String, Long> baselineLatencyNanos = limiter.getStats().getBaselineLatencyNanos();
+        assertTrue(baselineLatencyNanos.get("get_case/{case_id}") < 2 * LATENCY_NANOS);
+        assertTrue(baselineLatencyNanos.get("get_cases/{project_id}") >= 20 * LATENCY_NANOS);
+    }
+
+    @Test
+    public void G_limitReached_W_acquireWithoutWait_T_rejected() throws InterruptedException {
+        // GIVEN
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(1).maxWait(0, TimeUnit.SECONDS).build();
+        limiter.acquire();
+
+        // WHEN
+        try {
+            limiter.acquire();
+            fail("RejectedExecutionException expected");
+        } catch (RejectedExecutionException e) {
+            // THEN
+            ConcurrencyLimiter.Stats stats = limiter.getStats();
+            assertEquals(1, stats.getRejected());
+            assertEquals(1, stats.getInFlight());
+            assertEquals(1, stats.getLimit());
+        }
+    }
+
+    @Test
+    public void G_streamedList_W_iterate_T_requestInFlightUntilIteratorClosed() throws IOException {
+        // GIVEN
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(2).build();
+        try (StandInServer server = StandInServer.builder().build()) {
+            TestRail testRail = TestRail.builder(server.getEndPoint(), "user", "password").concurrencyLimiter(limiter).build();
+            Project project = testRail.projects().add(new Project().setName("Limited")).execute();
+            Suite suite = testRail.suites().add(project.getId(), new Suite().setName("Suite")).execute();
+            Section section = testRail.sections().add(project.getId(), new Section().setSuiteId(suite.getId()).setName("Section")).execute();
+            testRail.cases().add(section.getId(), new Case().setTitle("First"), Collections.<CaseField>emptyList()).execute();
+            testRail.cases().add(section.getId(), new Case().setTitle("Second"), Collections.<CaseField>emptyList()).execute();
+            assertEquals(0, limiter.getStats().getInFlight());
+
+            // WHEN
+            try (ResponseIterator<Case> cases = testRail.cases().list(project.getId(), suite.getId(), Collections.<CaseField>emptyList()).executeAsIterator()) {
+                cases.next();
+
+                // THEN
+                assertEquals(1, limiter.getStats().getInFlight());
+            }
+            assertEquals(0, limiter.getStats().getInFlight());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void G_initialLimitAboveMaxLimit_W_build_T_exception() {
+        // WHEN
+        ConcurrencyLimiter.builder().initialLimit(20).maxLimit(10).build();
+    }
+}
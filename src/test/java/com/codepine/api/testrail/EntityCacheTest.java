@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.model.Case;
+import com.codepine.api.testrail.model.CaseField;
+import com.codepine.api.testrail.model.Run;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for {@link EntityCache}.
+ */
+public class EntityCacheTest {
+
+    private ScriptedTransport transport;
+    private EntityCache entityCache;
+    private TestRail testRail;
+
+    @Before
+    public void setUp() {
+        // entities are answered with the ID requested, deletions with an empty body
+        transport = new ScriptedTransport().answer("delete_", "").answer("/1", "{\"id\": 1}").answer("/2", "{\"id\": 2}").answer("/3", "{\"id\": 3}");
+        entityCache = EntityCache.builder().maximumSize(2).build();
+        testRail = TestRail.builder("https://test.end.point.com", "testUser", "testPassword").transport(transport).entityCache(entityCache).build();
+    }
+
+    @Test
+    public void G_cachedRun_W_getRunAgain_T_cachedRunReturnedWithoutRequest() {
+        // GIVEN
+        Run run = testRail.runs().get(1).execute();
+
+        // WHEN
+        Run cachedRun = testRail.runs().get(1).execute();
+
+        // THEN
+        assertSame(run, cachedRun);
+        assertEquals(1, transport.getRequestCount());
+        assertEquals(1, entityCache.getStats().getHits());
+        assertEquals(1, entityCache.getStats().getMisses());
+    }
+
+    @Test
+    public void G_cachedCase_W_getCaseAgainWithSameFieldList_T_cachedCaseReturnedWithoutRequest() {
+        // GIVEN
+        CaseField caseField = new CaseField();
+        caseField.setName("preconds");
+        caseField.setTypeId(1);
+        List<CaseField> caseFields = Collections.singletonList(caseField);
+        Case testCase = testRail.cases().get(1, caseFields).execute();
+
+        // WHEN
+        Case cachedCase = testRail.cases().get(1, caseFields).execute();
+
+        // THEN
+        assertSame(testCase, cachedCase);
+        assertEquals(1, transport.getRequestCount());
+        assertEquals(1, entityCache.getStats().getHits());
+        assertEquals(1, entityCache.getStats().getMisses());
+    }
+
+    @Test
+    public void G_cachedRun_W_closeRun_T_closedRunCached() {
+        // GIVEN
+        testRail.runs().get(1).execute();
+        Run closedRun = testRail.runs().close(1).execute();
+
+        // WHEN
+        Run cachedRun = testRail.runs().get(1).execute();
+
+        // THEN
+        assertSame(closedRun, cachedRun);
+        assertEquals(2, transport.getRequestCount());
+    }
+
+    @Test
+    public void G_cachedRun_W_deleteRun_T_runEvicted() {
+        // GIVEN
+        testRail.runs().get(1).execute();
+        testRail.runs().delete(1).execute();
+
+        // WHEN
+        testRail.runs().get(1).execute();
+
+        // THEN
+        assertEquals(3, transport.getRequestCount());
+    }
+
+    @Test
+    public void G_fullCache_W_getAnotherRun_T_leastRecentlyUsedRunEvicted() {
+        // GIVEN
+        testRail.runs().get(1).execute();
+        testRail.runs().get(2).execute();
+        testRail.runs().get(1).execute();
+
+        // WHEN
+        testRail.runs().get(3).execute();
+
+        // THEN
+        assertEquals(1, entityCache.getStats().getEvictions());
+        testRail.runs().get(1).execute();
+        testRail.runs().get(2).execute();
+        assertEquals(4, transport.getRequestCount());
+    }
+
+    @Test
+    public void G_cachedRun_W_invalidateAndGetAgain_T_requestSent() {
+        // GIVEN
+        testRail.runs().get(1).execute();
+
+        // WHEN
+        entityCache.invalidate(EntityCache.EntityType.RUN, 1);
+        testRail.runs().get(1).execute();
+
+        // THEN
+        assertEquals(2, transport.getRequestCount());
+    }
+}
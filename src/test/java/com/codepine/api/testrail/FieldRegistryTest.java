@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.model.Case;
+import com.codepine.api.testrail.model.CaseField;
+import com.codepine.api.testrail.model.Field;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for {@link FieldRegistry}.
+ */
+public class FieldRegistryTest {
+
+    private static final String STEPS_FIELD = "{\"id\": 1, \"type_id\": 10, \"name\": \"separated_steps\", \"system_name\": \"custom_separated_steps\", "
+            + "\"configs\": [{\"context\": {\"is_global\": true, \"project_ids\": []}, \"options\": {}}]}";
+    private static final String PROJECT_FIELD = "{\"id\": 2, \"type_id\": 1, \"name\": \"component\", \"system_name\": \"custom_component\", "
+            + "\"configs\": [{\"context\": {\"is_global\": false, \"project_ids\": [2]}, \"options\": {}}]}";
+    private static final String CASE = "{\"id\": 1, \"title\": \"case\", \"custom_separated_steps\": [{\"content\": \"step\", \"expected\": \"result\"}], "
+            + "\"custom_component\": \"engine\"}";
+
+    private final ScriptedTransport transport = new ScriptedTransport().answer("get_case_fields", "[]").answer("get_case/", CASE);
+    private final TestRail testRail = TestRail.builder("https://test.end.point.com", "testUser", "testPassword").transport(transport).build();
+
+    @Test
+    public void G_registry_W_getCaseTwiceWithoutFieldList_T_fieldsLoadedOnceAndCustomFieldsTyped() {
+        // GIVEN
+        transport.answer("get_case_fields", "[" + STEPS_FIELD + ", " + PROJECT_FIELD + "]");
+
+        // WHEN
+        testRail.cases().get(1).execute();
+        Case testCase = testRail.cases().get(1).execute();
+
+        // THEN
+        assertEquals(1, transport.getRequestCount("get_case_fields"));
+        List<Field.Step> steps = testCase.getCustomField("separated_steps");
+        assertEquals("step", steps.get(0).getContent());
+        assertEquals("engine", testCase.getCustomField("component"));
+    }
+
+    @Test
+    public void G_fieldAddedInTestRail_W_getCaseWithNewField_T_fieldsReloadedAndCaseReturned() {
+        // GIVEN
+        transport.answer("get_case_fields", "[" + STEPS_FIELD + "]");
+        testRail.fieldRegistry().getCaseFieldSchema();
+        transport.answer("get_case_fields", "[" + STEPS_FIELD + ", " + PROJECT_FIELD + "]");
+
+        // WHEN
+        Case testCase = testRail.cases().get(1).execute();
+
+        // THEN
+        assertEquals(2, transport.getRequestCount("get_case_fields"));
+        assertEquals("engine", testCase.getCustomField("component"));
+        assertEquals(2, testRail.fieldRegistry().getCaseFieldSchema().getFields().size());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void G_fieldNotListedAfterReload_W_getCase_T_exception() {
+        // GIVEN
+        transport.answer("get_case_fields", "[" + STEPS_FIELD + "]");
+
+        // WHEN
+        testRail.cases().get(1).execute();
+    }
+
+    @Test
+    public void G_fieldsWithProjectContexts_W_lookUpFields_T_fieldsIndexedBySystemNameAndProject() {
+        // GIVEN
+        transport.answer("get_case_fields", "[" + STEPS_FIELD + ", " + PROJECT_FIELD + "]");
+        FieldRegistry fieldRegistry = testRail.fieldRegistry();
+
+        // WHEN
+        List<CaseField> project1Fields = fieldRegistry.getCaseFields(1);
+        List<CaseField> project2Fields = fieldRegistry.getCaseFields(2);
+
+        // THEN
+        assertEquals(1, project1Fields.size());
+        assertEquals(2, project2Fields.size());
+        assertEquals("component", fieldRegistry.getCaseField("custom_component").getName());
+        assertNull(fieldRegistry.getCaseField("custom_unknown"));
+        assertEquals(1, transport.getRequestCount("get_case_fields"));
+    }
+
+    @Test
+    public void G_loadedFields_W_refresh_T_fieldsLoadedAgainOnNextUse() {
+        // GIVEN
+        transport.answer("get_case_fields", "[" + STEPS_FIELD + "]");
+        testRail.fieldRegistry().getCaseFieldSchema();
+        transport.answer("get_case_fields", "[" + STEPS_FIELD + ", " + PROJECT_FIELD + "]");
+
+        // WHEN
+        testRail.fieldRegistry().refresh();
+
+        // THEN
+        assertEquals(2, testRail.fieldRegistry().getCaseFieldSchema().getFields().size());
+        assertEquals(2, transport.getRequestCount("get_case_fields"));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void G_noLatencies_W_snapshot_T_zeros() {
+        // GIVEN
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // WHEN
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        // THEN
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMaxNanos());
+        assertEquals(0, snapshot.getValueAtPercentile(99), 0);
+    }
+
+    @Test
+    public void G_uniformLatencies_W_getValueAtPercentile_T_withinRelativeError() {
+        // GIVEN
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 100000; micros++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+
+        // WHEN
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        // THEN
+        assertEquals(100000, snapshot.getCount());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(50000) + 500, snapshot.getMeanNanos(), 1);
+        assertWithin(TimeUnit.MICROSECONDS.toNanos(50000), snapshot.getValueAtPercentile(50));
+        assertWithin(TimeUnit.MICROSECONDS.toNanos(99000), snapshot.getValueAtPercentile(99));
+        assertWithin(TimeUnit.MICROSECONDS.toNanos(99900), snapshot.getValueAtPercentile(99.9));
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(100000), snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void G_smallLatencies_W_getValueAtPercentile_T_exactValues() {
+        // GIVEN
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 0; nanos < 200; nanos++) {
+            histogram.record(nanos);
+        }
+
+        // WHEN
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        // THEN
+        assertEquals(99, snapshot.getValueAtPercentile(50));
+        assertEquals(0, snapshot.getValueAtPercentile(0));
+        assertEquals(199, snapshot.getMaxNanos());
+    }
+
+    @Test
+    public void G_extremeLatencies_W_record_T_recordedAtBounds() {
+        // GIVEN
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // WHEN
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        // THEN
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getValueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void G_latenciesFromManyThreads_W_record_T_allCounted() throws InterruptedException {
+        // GIVEN
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final CountDownLatch done = new CountDownLatch(8);
+
+        // WHEN
+        for (int i = 0; i < 8; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        histogram.record(1000 + j);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        // THEN
+        assertEquals(80000, histogram.snapshot().getCount());
+        assertEquals(10999, histogram.snapshot().getMaxNanos());
+    }
+
+    private static void assertWithin(long expectedNanos, long actualNanos) {
+        assertTrue("expected " + expectedNanos + " but was " + actualNanos, Math.abs(actualNanos - expectedNanos) <= expectedNanos / 128);
+    }
+}
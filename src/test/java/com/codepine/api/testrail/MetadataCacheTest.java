@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.model.Status;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for {@link MetadataCache}.
+ */
+public class MetadataCacheTest {
+
+    private final ScriptedTransport transport = new ScriptedTransport().answer("", "[{\"id\": 1, \"name\": \"passed\"}]");
+
+    @Test
+    public void G_cachedStatuses_W_listStatusesAgain_T_cachedListReturnedWithoutRequest() {
+        // GIVEN
+        MetadataCache metadataCache = MetadataCache.builder().build();
+        TestRail testRail = testRail(metadataCache);
+        List<Status> statuses = testRail.statuses().list().execute();
+
+        // WHEN
+        List<Status> cachedStatuses = testRail.statuses().list().execute();
+
+        // THEN
+        assertSame(statuses, cachedStatuses);
+        assertEquals(1, transport.getRequestCount());
+        assertEquals(1, metadataCache.getStats().getHits());
+        assertEquals(1, metadataCache.getStats().getMisses());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void G_cachedStatuses_W_modifyList_T_exception() {
+        // GIVEN
+        List<Status> statuses = testRail(MetadataCache.builder().build()).statuses().list().execute();
+
+        // WHEN
+        statuses.clear();
+    }
+
+    @Test
+    public void G_cachedStatuses_W_invalidateAndListAgain_T_requestSent() {
+        // GIVEN
+        MetadataCache metadataCache = MetadataCache.builder().build();
+        TestRail testRail = testRail(metadataCache);
+        testRail.statuses().list().execute();
+        testRail.priorities().list().execute();
+
+        // WHEN
+        metadataCache.invalidate(MetadataCache.Endpoint.STATUSES);
+        testRail.statuses().list().execute();
+        testRail.priorities().list().execute();
+
+        // THEN
+        assertEquals(3, transport.getRequestCount());
+    }
+
+    @Test
+    public void G_endpointWithZeroTtl_W_listTwice_T_notCached() {
+        // GIVEN
+        MetadataCache metadataCache = MetadataCache.builder().ttl(MetadataCache.Endpoint.STATUSES, 0, TimeUnit.SECONDS).build();
+        TestRail testRail = testRail(metadataCache);
+
+        // WHEN
+        testRail.statuses().list().execute();
+        testRail.statuses().list().execute();
+
+        // THEN
+        assertEquals(2, transport.getRequestCount());
+    }
+
+    @Test
+    public void G_fullCache_W_listConfigurationsOfAnotherProject_T_oldestEntryEvicted() {
+        // GIVEN
+        MetadataCache metadataCache = MetadataCache.builder().maximumSize(2).build();
+        TestRail testRail = testRail(metadataCache);
+        testRail.configurations().list(1).execute();
+        testRail.configurations().list(2).execute();
+
+        // WHEN
+        testRail.configurations().list(3).execute();
+
+        // THEN
+        assertEquals(1, metadataCache.getStats().getEvictions());
+        assertEquals(2, metadataCache.getStats().getSize());
+        testRail.configurations().list(3).execute();
+        testRail.configurations().list(1).execute();
+        assertEquals(4, transport.getRequestCount());
+    }
+
+    @Test
+    public void G_cache_W_executeNonMetadataRequestTwice_T_notCached() {
+        // GIVEN
+        TestRail testRail = testRail(MetadataCache.builder().build());
+
+        // WHEN
+        testRail.projects().list().execute();
+        testRail.projects().list().execute();
+
+        // THEN
+        assertEquals(2, transport.getRequestCount());
+    }
+
+    private TestRail testRail(MetadataCache metadataCache) {
+        return TestRail.builder("https://test.end.point.com", "testUser", "testPassword").transport(transport).metadataCache(metadataCache).build();
+    }
+}
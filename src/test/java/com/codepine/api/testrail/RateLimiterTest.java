@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.model.Result;
+import com.codepine.api.testrail.model.ResultField;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link RateLimiter}.
+ */
+public class RateLimiterTest {
+
+    private static final long TOLERANCE_NANOS = TimeUnit.MICROSECONDS.toNanos(1);
+
+    @Test
+    public void G_fullBucket_W_reserveMoreThanBurst_T_laterCallersWaitInOrder() {
+        // GIVEN
+        RateLimiter rateLimiter = RateLimiter.builder(10).burst(2).build();
+        long now = System.nanoTime();
+
+        // WHEN, THEN
+        assertEquals(0, rateLimiter.reserve(now));
+        assertEquals(0, rateLimiter.reserve(now));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), rateLimiter.reserve(now), TOLERANCE_NANOS);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), rateLimiter.reserve(now), TOLERANCE_NANOS);
+        RateLimiter.Stats stats = rateLimiter.getStats();
+        assertEquals(4, stats.getAcquired());
+        assertEquals(2, stats.getDelayed());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(300), stats.getTotalWaitNanos(), 2 * TOLERANCE_NANOS);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), stats.getMaxWaitNanos(), TOLERANCE_NANOS);
+    }
+
+    @Test
+    public void G_emptyBucket_W_reserveAfterQuietPeriod_T_refilledUpToBurst() {
+        // GIVEN
+        RateLimiter rateLimiter = RateLimiter.builder(10).burst(2).build();
+        long now = System.nanoTime();
+        rateLimiter.reserve(now);
+        rateLimiter.reserve(now);
+
+        // WHEN
+        long later = now + TimeUnit.SECONDS.toNanos(10);
+
+        // THEN
+        assertEquals(0, rateLimiter.reserve(later));
+        assertEquals(0, rateLimiter.reserve(later));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), rateLimiter.reserve(later), TOLERANCE_NANOS);
+    }
+
+    @Test
+    public void G_separateReadAndWriteLimiters_W_executePost_T_onlyWritePermitTaken() {
+        // GIVEN
+        RateLimiter readRateLimiter = RateLimiter.builder(1000).build();
+        RateLimiter writeRateLimiter = RateLimiter.builder(1000).build();
+        TestRail testRail = TestRail.builder("https://test.end.point.com", "testUser", "testPassword").transport(new RecordingTransport())
+                .rateLimiter(readRateLimiter, writeRateLimiter).build();
+
+        // WHEN
+        for (int i = 1; i <= 3; i++) {
+            testRail.results().addForCases(1, Collections.singletonList(new Result().setCaseId(i).setStatusId(1)), Collections.<ResultField>emptyList()).execute();
+        }
+
+        // THEN
+        assertEquals(0, readRateLimiter.getStats().getAcquired());
+        assertEquals(3, writeRateLimiter.getStats().getAcquired());
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.transport.HttpRequest;
+import com.codepine.api.testrail.transport.HttpResponse;
+import com.codepine.api.testrail.transport.HttpTransport;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Transport for tests recording the requests sent and answering {@code add_results_for_cases} with the results sent.
+ * <p>Requests can be held back until {@link #release()} is called, to simulate a slow TestRail.</p>
+ */
+class RecordingTransport implements HttpTransport {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Getter
+    private final List<HttpRequest> requests = new CopyOnWriteArrayList<>();
+    @Getter
+    private final List<JsonNode> bodies = new CopyOnWriteArrayList<>();
+    @Setter
+    private volatile int statusCode = 200;
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+    private final CountDownLatch firstRequest = new CountDownLatch(1);
+
+    /**
+     * Hold back all requests until {@link #release()} is called.
+     */
+    void hold() {
+        gate = new CountDownLatch(1);
+    }
+
+    /**
+     * Let held back and future requests through.
+     */
+    void release() {
+        gate.countDown();
+    }
+
+    /**
+     * Wait until the first request arrived.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void awaitFirstRequest() throws InterruptedException {
+        firstRequest.await();
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        firstRequest.countDown();
+        try {
+            gate.await();
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        request.getBody().writeTo(body);
+        JsonNode content = objectMapper.readTree(body.toByteArray());
+        requests.add(request);
+        bodies.add(content);
+        if (statusCode != 200) {
+            return new Response(statusCode, "{\"error\": \"Field :run_id is not a valid test run.\"}");
+        }
+        ArrayNode addedResults = objectMapper.createArrayNode();
+        for (JsonNode result : content.get("results")) {
+            ObjectNode addedResult = addedResults.addObject();
+            addedResult.put("id", addedResults.size());
+            addedResult.put("case_id", result.get("case_id").asInt());
+            addedResult.put("status_id", result.get("status_id").asInt());
+        }
+        return new Response(statusCode, objectMapper.writeValueAsString(addedResults));
+    }
+
+    /**
+     * Get the total number of results sent.
+     *
+     * @return the number of results
+     */
+    int getResultCount() {
+        int count = 0;
+        for (JsonNode body : bodies) {
+            count += body.get("results").size();
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static class Response implements HttpResponse {
+
+        private final int statusCode;
+        private final String body;
+
+        Response(int statusCode, String body) {
+            this.statusCode = statusCode;
+            this.body = body;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return null;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
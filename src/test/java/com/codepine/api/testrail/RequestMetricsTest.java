@@ -0,0 +1,252 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.internal.UnknownCustomFieldException;
+import com.codepine.api.testrail.model.Case;
+import com.codepine.api.testrail.model.Plan;
+import com.codepine.api.testrail.model.Project;
+import com.codepine.api.testrail.standin.StandInServer;
+import com.codepine.api.testrail.standin.StandInState;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link RequestMetrics} and the events reported to a {@link RequestListener}.
+ */
+public class RequestMetricsTest {
+
+    private static final String COMPONENT_FIELD = "[{\"id\": 1, \"type_id\": 1, \"name\": \"component\", \"system_name\": \"custom_component\", "
+            + "\"configs\": [{\"context\": {\"is_global\": true, \"project_ids\": []}, \"options\": {}}]}]";
+    private static final String COMPONENT_CASE = "[{\"id\": 1, \"title\": \"case\", \"custom_component\": \"engine\"}]";
+
+    private StandInServer server;
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void G_requestsToSeveralEndpoints_W_getStats_T_statsByEndpointTemplate() throws IOException {
+        // GIVEN
+        server = StandInServer.builder().build();
+        RequestMetrics metrics = new RequestMetrics();
+        TestRail testRail = TestRail.builder(server.getEndPoint(), "user", "password").requestListener(metrics).build();
+        Project project = testRail.projects().add(new Project().setName("Metrics")).execute();
+
+        // WHEN
+        testRail.projects().get(project.getId()).execute();
+        testRail.projects().get(project.getId()).execute();
+        testRail.projects().list().execute();
+
+        // THEN
+        SortedMap<String, RequestMetrics.Stats> stats = metrics.getStats();
+        assertEquals("[add_project, get_project/, get_projects]", stats.keySet().toString());
+        RequestMetrics.Stats getProject = stats.get("get_project/");
+        assertEquals(2, getProject.getRequests());
+        assertEquals(0, getProject.getFailures());
+        assertEquals(0, getProject.getBytesSent());
+        assertTrue(getProject.getBytesReceived() > 0);
+        assertEquals(2, getProject.getLatency().getCount());
+        assertEquals(2, getProject.getTimeToFirstByte().getCount());
+        assertTrue(getProject.getLatency().getMaxNanos() >= getProject.getTimeToFirstByte().getMaxNanos());
+        assertTrue(stats.get("add_project").getBytesSent() > 0);
+    }
+
+    @Test
+    public void G_failingRequest_W_execute_T_statusReported() throws IOException {
+        // GIVEN
+        server = StandInServer.builder().build();
+        RecordingListener listener = new RecordingListener();
+        TestRail testRail = TestRail.builder(server.getEndPoint(), "user", "password").requestListener(listener).build();
+
+        // WHEN
+        try {
+            testRail.projects().get(42).execute();
+            fail("expected a TestRailException");
+        } catch (TestRailException e) {
+            // expected
+        }
+
+        // THEN
+        assertEquals(1, listener.events.size());
+        RequestEvent event = listener.events.get(0);
+        assertEquals("get_project/", event.getEndpoint());
+        assertEquals("GET", event.getMethod());
+        assertEquals(400, event.getStatus());
+        assertTrue(event.getBytesReceived() > 0);
+        assertTrue(event.getDurationNanos() >= event.getTimeToFirstByteNanos());
+    }
+
+    @Test
+    public void G_serverErrors_W_executeWithRetries_T_retriesReported() throws IOException {
+        // GIVEN
+        server = StandInServer.builder().errorRate(1).build();
+        RecordingListener listener = new RecordingListener();
+        TestRail testRail = TestRail.builder(server.getEndPoint(), "user", "password").requestListener(listener)
+                .retryPolicy(RetryPolicy.builder().maxAttempts(3).baseDelay(1, TimeUnit.MILLISECONDS).build()).build();
+
+        // WHEN
+        try {
+            testRail.projects().list().execute();
+            fail("expected a TestRailException");
+        } catch (TestRailException e) {
+            // expected
+        }
+
+        // THEN
+        assertEquals(1, listener.events.size());
+        assertEquals(500, listener.events.get(0).getStatus());
+        assertEquals(2, listener.events.get(0).getRetries());
+    }
+
+    @Test
+    public void G_streamedList_W_iterateAll_T_reportedOnceExhausted() throws IOException {
+        // GIVEN
+        server = StandInServer.builder().build();
+        RecordingListener listener = new RecordingListener();
+        TestRail testRail = TestRail.builder(server.getEndPoint(), "user", "password").requestListener(listener).build();
+        Project project = testRail.projects().add(new Project().setName("Plans")).execute();
+        testRail.plans().add(project.getId(), new Plan().setName("First")).execute();
+        testRail.plans().add(project.getId(), new Plan().setName("Second")).execute();
+        listener.events.clear();
+
+        // WHEN
+        int count = 0;
+        try (ResponseIterator<Plan> plans = testRail.plans().list(project.getId()).executeAsIterator()) {
+            while (plans.hasNext()) {
+                plans.next();
+                count++;
+                assertEquals(0, listener.events.size());
+            }
+        }
+
+        // THEN
+        assertEquals(2, count);
+        assertEquals(1, listener.events.size());
+        assertEquals("get_plans/", listener.events.get(0).getEndpoint());
+        assertTrue(listener.events.get(0).getDeserializationNanos() > 0);
+    }
+
+    @Test
+    public void G_caseWithKnownCustomField_W_update_T_deserializationReported() throws IOException {
+        // GIVEN
+        server = StandInServer.builder().build();
+        server.getState().insertAll(StandInState.Table.CASE_FIELDS, json(COMPONENT_FIELD));
+        server.getState().insertAll(StandInState.Table.CASES, json(COMPONENT_CASE));
+        RecordingListener listener = new RecordingListener();
+        TestRail testRail = TestRail.builder(server.getEndPoint(), "user", "password").requestListener(listener).build();
+        testRail.fieldRegistry().getCaseFieldSchema();
+        listener.events.clear();
+
+        // WHEN
+        Case testCase = testRail.cases().update(new Case().setId(1).setTitle("renamed")).execute();
+
+        // THEN
+        assertEquals("engine", testCase.getCustomField("component"));
+        assertEquals(1, listener.events.size());
+        RequestEvent event = listener.events.get(0);
+        assertEquals("update_case/", event.getEndpoint());
+        assertTrue(event.isSuccessful());
+        assertTrue(event.getDeserializationNanos() > 0);
+    }
+
+    @Test
+    public void G_caseWithUnknownCustomField_W_update_T_failureReported() throws IOException {
+        // GIVEN
+        server = StandInServer.builder().build();
+        server.getState().insertAll(StandInState.Table.CASES, json(COMPONENT_CASE));
+        RecordingListener listener = new RecordingListener();
+        TestRail testRail = TestRail.builder(server.getEndPoint(), "user", "password").requestListener(listener).build();
+        testRail.fieldRegistry().getCaseFieldSchema();
+        listener.events.clear();
+
+        // WHEN
+        try {
+            testRail.cases().update(new Case().setId(1).setTitle("renamed")).execute();
+            fail("expected an UnknownCustomFieldException");
+        } catch (RuntimeException e) {
+            assertTrue(String.valueOf(e), UnknownCustomFieldException.find(e) != null);
+        }
+
+        // THEN
+        assertEquals(2, listener.events.size());
+        assertEquals("get_case_fields", listener.events.get(0).getEndpoint());
+        RequestEvent event = listener.events.get(1);
+        assertEquals("update_case/", event.getEndpoint());
+        assertEquals(200, event.getStatus());
+        assertTrue(event.isDeserializationFailed());
+        assertFalse(event.isSuccessful());
+        assertTrue(event.getDeserializationNanos() > 0);
+    }
+
+    @Test
+    public void G_failingListener_W_execute_T_responseReturned() throws IOException {
+        // GIVEN
+        server = StandInServer.builder().build();
+        TestRail testRail = TestRail.builder(server.getEndPoint(), "user", "password").requestListener(new RequestListener() {
+            @Override
+            public void onRequest(RequestEvent event) {
+                throw new IllegalStateException("listener failure");
+            }
+        }).build();
+
+        // WHEN
+        Project project = testRail.projects().add(new Project().setName("Listener")).execute();
+
+        // THEN
+        assertEquals("Listener", project.getName());
+    }
+
+    private static ByteArrayInputStream json(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class RecordingListener implements RequestListener {
+
+        private final List<RequestEvent> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onRequest(RequestEvent event) {
+            events.add(event);
+        }
+    }
+}
@@ -36,6 +36,7 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import lombok.experimental.Accessors;
 import org.apache.log4j.PropertyConfigurator;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -47,9 +48,13 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -58,8 +63,15 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
@@ -141,6 +153,163 @@ public class RequestTest {
         models.get().execute();
     }
 
+    @Test
+    public void G_modelsExist_W_listModelsAsIterator_T_verifyModelsAndResponseClosedWhenExhausted() throws IOException {
+        // GIVEN
+        final AtomicBoolean responseClosed = new AtomicBoolean();
+        when(mockConnection.getResponseCode()).thenReturn(200);
+        when(mockConnection.getInputStream()).thenReturn(closeTracking(this.getClass().getResourceAsStream("/get_models.json"), responseClosed));
+
+        // WHEN
+        final ResponseIterator<Model> actualModels = models.list().executeAsIterator();
+
+        // THEN
+        assertEquals(1, actualModels.next().getId());
+        assertEquals(3, actualModels.next().getId());
+        assertFalse(responseClosed.get());
+        assertEquals(4, actualModels.next().getId());
+        assertFalse(actualModels.hasNext());
+        assertTrue(responseClosed.get());
+    }
+
+    @Test
+    public void G_modelsExist_W_listModelsAsIteratorAndCloseEarly_T_verifyResponseClosed() throws IOException {
+        // GIVEN
+        final AtomicBoolean responseClosed = new AtomicBoolean();
+        when(mockConnection.getResponseCode()).thenReturn(200);
+        when(mockConnection.getInputStream()).thenReturn(closeTracking(this.getClass().getResourceAsStream("/get_models.json"), responseClosed));
+
+        // WHEN
+        try (ResponseIterator<Model> actualModels = models.list().executeAsIterator()) {
+            actualModels.next();
+        }
+
+        // THEN
+        assertTrue(responseClosed.get());
+    }
+
+    @Test
+    public void G_modelsExist_W_listModelsAsStream_T_verifyModels() throws IOException {
+        // GIVEN
+        when(mockConnection.getResponseCode()).thenReturn(200);
+        when(mockConnection.getInputStream()).thenReturn(this.getClass().getResourceAsStream("/get_models.json"));
+
+        // WHEN
+        final List<Integer> actualModelIds;
+        try (Stream<Model> actualModels = models.list().executeAsStream()) {
+            actualModelIds = actualModels.map(new Function<Model, Integer>() {
+                @Override
+                public Integer apply(Model model) {
+                    return model.getId();
+                }
+            }).collect(Collectors.<Integer>toList());
+        }
+
+        // THEN
+        assertEquals(Arrays.asList(1, 3, 4), actualModelIds);
+    }
+
+    @Test
+    public void G_modelDoesNotExist_W_listModelsAsIterator_T_verifyError() throws IOException {
+        // THEN set up
+        expectedException.expect(TestRailException.class);
+        expectedException.expectMessage("400 - Field :model_id is not a valid or accessible model.");
+
+        // GIVEN
+        when(mockConnection.getResponseCode()).thenReturn(400);
+        when(mockConnection.getErrorStream()).thenReturn(this.getClass().getResourceAsStream("/get_model_error.json"));
+
+        // WHEN
+        models.list().executeAsIterator();
+    }
+
+    @Test
+    public void G_threeModels_W_paginateModelsWithPageSizeTwo_T_verifyPageQueriesAndModels() throws IOException {
+        // GIVEN
+        when(mockConnection.getResponseCode()).thenReturn(200);
+        when(mockConnection.getInputStream()).thenReturn(json("[{\"id\": 1}, {\"id\": 3}]"), json("[{\"id\": 4}]"));
+
+        // WHEN
+        final List<Integer> actualModelIds = new ArrayList<>();
+        try (ResponseIterator<Model> actualModels = models.pagedList().paginate(2)) {
+            while (actualModels.hasNext()) {
+                actualModelIds.add(actualModels.next().getId());
+            }
+        }
+
+        // THEN
+        assertEquals(Arrays.asList(1, 3, 4), actualModelIds);
+        verify(mockUrlConnectionFactory).getUrlConnection(String.format("%s/index.php?/api/v2/get_models/1&limit=2&offset=0", TEST_END_POINT));
+        verify(mockUrlConnectionFactory).getUrlConnection(String.format("%s/index.php?/api/v2/get_models/1&limit=2&offset=2", TEST_END_POINT));
+    }
+
+    @Test
+    public void G_fourModels_W_paginateModelsWithPrefetch_T_verifyPageQueriesAndModels() throws IOException {
+        // GIVEN
+        when(mockConnection.getResponseCode()).thenReturn(200);
+        when(mockConnection.getInputStream()).thenReturn(json("[{\"id\": 1}, {\"id\": 3}]"), json("[{\"id\": 4}, {\"id\": 5}]"), json("[]"));
+
+        // WHEN
+        final List<Integer> actualModelIds = new ArrayList<>();
+        try (ResponseIterator<Model> actualModels = models.pagedList().offset(10).paginate(2, true)) {
+            while (actualModels.hasNext()) {
+                actualModelIds.add(actualModels.next().getId());
+            }
+        }
+
+        // THEN
+        assertEquals(Arrays.asList(1, 3, 4, 5), actualModelIds);
+        verify(mockUrlConnectionFactory).getUrlConnection(String.format("%s/index.php?/api/v2/get_models/1&limit=2&offset=10", TEST_END_POINT));
+        verify(mockUrlConnectionFactory).getUrlConnection(String.format("%s/index.php?/api/v2/get_models/1&limit=2&offset=12", TEST_END_POINT));
+        verify(mockUrlConnectionFactory).getUrlConnection(String.format("%s/index.php?/api/v2/get_models/1&limit=2&offset=14", TEST_END_POINT));
+    }
+
+    @Test
+    public void G_pagesCappedByServer_W_paginateModelsWithLargePageSize_T_allModelsWithoutGaps() throws IOException {
+        // GIVEN
+        StringBuilder cappedPage = new StringBuilder("[");
+        for (int id = 1; id <= 250; id++) {
+            cappedPage.append(id > 1 ? ", " : "").append("{\"id\": ").append(id).append('}');
+        }
+        when(mockConnection.getResponseCode()).thenReturn(200);
+        when(mockConnection.getInputStream()).thenReturn(json(cappedPage.append(']').toString()), json("[{\"id\": 251}]"));
+
+        // WHEN
+        int count = 0;
+        int lastId = 0;
+        try (ResponseIterator<Model> actualModels = models.pagedList().paginate(1000)) {
+            while (actualModels.hasNext()) {
+                lastId = actualModels.next().getId();
+                count++;
+            }
+        }
+
+        // THEN
+        assertEquals(251, count);
+        assertEquals(251, lastId);
+        verify(mockUrlConnectionFactory).getUrlConnection(String.format("%s/index.php?/api/v2/get_models/1&limit=1000&offset=0", TEST_END_POINT));
+        verify(mockUrlConnectionFactory).getUrlConnection(String.format("%s/index.php?/api/v2/get_models/1&limit=1000&offset=250", TEST_END_POINT));
+    }
+
+    @Test
+    public void G_secondPageFails_W_paginateModelsWithPrefetch_T_verifyError() throws IOException {
+        // THEN set up
+        expectedException.expect(TestRailException.class);
+        expectedException.expectMessage("400 - Field :model_id is not a valid or accessible model.");
+
+        // GIVEN
+        when(mockConnection.getResponseCode()).thenReturn(200, 400);
+        when(mockConnection.getInputStream()).thenReturn(json("[{\"id\": 1}, {\"id\": 3}]"));
+        when(mockConnection.getErrorStream()).thenReturn(this.getClass().getResourceAsStream("/get_model_error.json"));
+
+        // WHEN
+        try (ResponseIterator<Model> actualModels = models.pagedList().paginate(2, true)) {
+            while (actualModels.hasNext()) {
+                actualModels.next();
+            }
+        }
+    }
+
     @Test
     public void G_modelsExists_W_getModelsWithFilter_T_verifyFilterQueryAndModels() throws IOException {
         // GIVEN
@@ -243,6 +412,67 @@ public class RequestTest {
         assertEquals(expectedModels, actualModels);
     }
 
+    @Test
+    public void W_listWithDifferentSupplementsForDeserialization_T_verifySupplementBoundPerExecution() throws IOException {
+        // set up
+        when(mockConnection.getResponseCode()).thenReturn(200);
+        when(mockConnection.getInputStream()).thenReturn(this.getClass().getResourceAsStream("/get_models.json"), this.getClass().getResourceAsStream("/get_models.json"));
+
+        // WHEN
+        final List<ModelWithAltName> firstModels = models.listWithAltName().setSupplementModelName("First Supplement").execute();
+        final List<ModelWithAltName> secondModels = models.listWithAltName().setSupplementModelName("Second Supplement").execute();
+
+        // THEN
+        assertEquals("First Supplement", firstModels.get(0).getAltName());
+        assertEquals("Second Supplement", secondModels.get(0).getAltName());
+    }
+
+    @Test
+    public void G_modelExists_W_getModelAsync_T_verifyModel() throws Exception {
+        // GIVEN
+        when(mockConnection.getResponseCode()).thenReturn(200);
+        when(mockConnection.getInputStream()).thenReturn(this.getClass().getResourceAsStream("/get_model.json"));
+
+        // WHEN
+        final Model actualModel = models.get().executeAsync().get(5, TimeUnit.SECONDS);
+
+        // THEN
+        final Model expectedModel = new Model().setId(1).setName("Test Model 1").setShowAnnouncement(false).setIsCompleted(true).setCompletedOn(new Date(1424641170000L)).setSuiteMode(2);
+        assertEquals(expectedModel, actualModel);
+    }
+
+    @Test
+    public void G_modelDoesNotExist_W_getModelAsync_T_futureCompletedWithError() throws Exception {
+        // GIVEN
+        when(mockConnection.getResponseCode()).thenReturn(400);
+        when(mockConnection.getErrorStream()).thenReturn(this.getClass().getResourceAsStream("/get_model_error.json"));
+
+        // WHEN
+        final Throwable actualError = models.get().executeAsync().handle(new BiFunction<Model, Throwable, Throwable>() {
+            @Override
+            public Throwable apply(Model model, Throwable throwable) {
+                return throwable;
+            }
+        }).get(5, TimeUnit.SECONDS);
+
+        // THEN
+        assertTrue("Expected TestRailException but found: " + actualError, actualError instanceof TestRailException);
+        assertEquals(400, ((TestRailException) actualError).getResponseCode());
+    }
+
+    private static InputStream json(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream closeTracking(InputStream inputStream, final AtomicBoolean closed) {
+        return new FilterInputStream(inputStream) {
+            @Override
+            public void close() throws IOException {
+                closed.set(true);
+                super.close();
+            }
+        };
+    }
 
     @Data
     public static class Model {
@@ -283,6 +513,12 @@ public class RequestTest {
             return list;
         }
 
+        public PagedList pagedList() {
+            PagedList list = new PagedList();
+            list.setUrlConnectionFactory(urlConnectionFactory);
+            return list;
+        }
+
         public ListWithAltName listWithAltName() {
             ListWithAltName list = new ListWithAltName();
             list.setUrlConnectionFactory(urlConnectionFactory);
@@ -317,7 +553,7 @@ public class RequestTest {
 
         @Getter
         @Setter
-        public static class List extends Request<java.util.List<Model>> {
+        public static class List extends ListRequest<Model> {
 
             @JsonView(List.class)
             private Integer sectionId;
@@ -335,6 +571,23 @@ public class RequestTest {
             }
         }
 
+        @Getter
+        @Setter
+        @Accessors(fluent = true)
+        public static class PagedList extends PageableListRequest<Model> {
+
+            @JsonView(PagedList.class)
+            private Integer limit;
+
+            @JsonView(PagedList.class)
+            private Integer offset;
+
+            PagedList() {
+                super(config, Method.GET, "get_models/1", new TypeReference<java.util.List<Model>>() {
+                });
+            }
+        }
+
         @Setter
         public static class ListWithAltName extends Request<java.util.List<ModelWithAltName>> {
 
@@ -0,0 +1,202 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.model.Result;
+import com.codepine.api.testrail.model.ResultField;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link ResultBatcher}.
+ */
+public class ResultBatcherTest {
+
+    private static final FieldSchema<ResultField> resultFieldSchema = FieldSchema.of(Collections.<ResultField>emptyList());
+
+    private RecordingTransport transport;
+    private TestRail testRail;
+
+    @Before
+    public void setUp() {
+        transport = new RecordingTransport();
+        testRail = TestRail.builder("https://test.end.point.com", "testUser", "testPassword")
+                .transport(transport)
+                .asyncExecutor(MoreExecutors.directExecutor())
+                .build();
+    }
+
+    @Test
+    public void G_maxBatchSizeTwo_W_addThreeResults_T_firstTwoSentInOneRequest() throws Exception {
+        // GIVEN
+        ResultBatcher batcher = ResultBatcher.builder(testRail, resultFieldSchema).maxBatchSize(2).maxDelay(1, TimeUnit.HOURS).build();
+
+        // WHEN
+        CompletableFuture<Result> first = batcher.add(1, new Result().setCaseId(11).setStatusId(1));
+        CompletableFuture<Result> second = batcher.add(1, new Result().setCaseId(12).setStatusId(5));
+        CompletableFuture<Result> third = batcher.add(1, new Result().setCaseId(13).setStatusId(1));
+
+        // THEN
+        assertEquals(1, transport.getRequests().size());
+        assertEquals("https://test.end.point.com/index.php?/api/v2/add_results_for_cases/1", transport.getRequests().get(0).getUrl());
+        assertEquals(2, transport.getBodies().get(0).get("results").size());
+        assertEquals(11, first.get(5, TimeUnit.SECONDS).getCaseId().intValue());
+        assertEquals(12, second.get(5, TimeUnit.SECONDS).getCaseId().intValue());
+        assertFalse(third.isDone());
+
+        // WHEN
+        batcher.close();
+
+        // THEN
+        assertEquals(2, transport.getRequests().size());
+        assertEquals(13, third.get(5, TimeUnit.SECONDS).getCaseId().intValue());
+    }
+
+    @Test
+    public void G_maxDelay_W_addResult_T_resultSentAfterDelay() throws Exception {
+        // GIVEN
+        ResultBatcher batcher = ResultBatcher.builder(testRail, resultFieldSchema).maxDelay(10, TimeUnit.MILLISECONDS).build();
+
+        // WHEN
+        CompletableFuture<Result> result = batcher.add(1, new Result().setCaseId(11).setStatusId(1));
+
+        // THEN
+        assertEquals(11, result.get(5, TimeUnit.SECONDS).getCaseId().intValue());
+        assertEquals(1, transport.getRequests().size());
+        batcher.close();
+    }
+
+    @Test
+    public void G_maxBatchBytesExceededByEachResult_W_addResults_T_eachResultSentAlone() throws Exception {
+        // GIVEN
+        ResultBatcher batcher = ResultBatcher.builder(testRail, resultFieldSchema).maxBatchBytes(1).maxDelay(1, TimeUnit.HOURS).build();
+
+        // WHEN
+        batcher.add(1, new Result().setCaseId(11).setStatusId(1));
+        batcher.add(1, new Result().setCaseId(12).setStatusId(1));
+
+        // THEN
+        assertEquals(2, transport.getRequests().size());
+        batcher.close();
+    }
+
+    @Test
+    public void G_resultsForTwoRuns_W_flush_T_oneRequestPerRun() throws Exception {
+        // GIVEN
+        ResultBatcher batcher = ResultBatcher.builder(testRail, resultFieldSchema).maxDelay(1, TimeUnit.HOURS).build();
+        batcher.add(1, new Result().setCaseId(11).setStatusId(1));
+        batcher.add(2, new Result().setCaseId(21).setStatusId(1));
+        batcher.add(1, new Result().setCaseId(12).setStatusId(1));
+
+        // WHEN
+        batcher.flush().get(5, TimeUnit.SECONDS);
+
+        // THEN
+        assertEquals(2, transport.getRequests().size());
+        assertEquals(3, transport.getBodies().get(0).get("results").size() + transport.getBodies().get(1).get("results").size());
+        batcher.close();
+    }
+
+    @Test
+    public void G_testRailError_W_flush_T_futuresCompletedWithError() throws Exception {
+        // GIVEN
+        transport.setStatusCode(400);
+        ResultBatcher batcher = ResultBatcher.builder(testRail, resultFieldSchema).maxDelay(1, TimeUnit.HOURS).build();
+        CompletableFuture<Result> result = batcher.add(1, new Result().setCaseId(11).setStatusId(1));
+
+        // WHEN
+        batcher.close();
+
+        // THEN
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("Expected result to fail");
+        } catch (ExecutionException e) {
+            assertTrue("Expected TestRailException but found: " + e.getCause(), e.getCause() instanceof TestRailException);
+        }
+    }
+
+    @Test
+    public void G_fullBatchSentBeforeClose_W_close_T_closeWaitsForItsAcknowledgement() throws Exception {
+        // GIVEN
+        ExecutorService asyncExecutor = Executors.newSingleThreadExecutor();
+        TestRail asyncTestRail = TestRail.builder("https://test.end.point.com", "testUser", "testPassword").transport(transport).asyncExecutor(asyncExecutor).build();
+        final ResultBatcher batcher = ResultBatcher.builder(asyncTestRail, resultFieldSchema).maxBatchSize(1).maxDelay(1, TimeUnit.HOURS).build();
+        transport.hold();
+        CompletableFuture<Result> result = batcher.add(1, new Result().setCaseId(11).setStatusId(1));
+        transport.awaitFirstRequest();
+
+        // WHEN
+        final CountDownLatch closed = new CountDownLatch(1);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                batcher.close();
+                closed.countDown();
+            }
+        }).start();
+
+        // THEN
+        assertFalse(closed.await(100, TimeUnit.MILLISECONDS));
+        transport.release();
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        assertTrue(result.isDone());
+        assertEquals(1, transport.getResultCount());
+        asyncExecutor.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void G_resultWithoutCaseId_W_add_T_exception() {
+        // GIVEN
+        ResultBatcher batcher = ResultBatcher.builder(testRail, resultFieldSchema).build();
+
+        // WHEN
+        batcher.add(1, new Result().setStatusId(1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void G_closedBatcher_W_add_T_exception() {
+        // GIVEN
+        ResultBatcher batcher = ResultBatcher.builder(testRail, resultFieldSchema).build();
+        batcher.close();
+
+        // WHEN
+        batcher.add(1, new Result().setCaseId(11).setStatusId(1));
+    }
+}
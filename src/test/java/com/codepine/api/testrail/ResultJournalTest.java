@@ -0,0 +1,167 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.internal.PendingResultCodec.PendingResult;
+import com.codepine.api.testrail.model.Result;
+import com.google.common.base.Strings;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ResultJournal}.
+ */
+public class ResultJournalTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = temporaryFolder.newFolder();
+    }
+
+    @Test
+    public void G_appendedResults_W_reopen_T_resultsReplayed() throws IOException {
+        // GIVEN
+        ResultJournal journal = ResultJournal.builder(directory).build();
+        long first = journal.append(1, new Result().setCaseId(1).setStatusId(1).setComment("first"));
+        long second = journal.append(2, new Result().setCaseId(2).setStatusId(5));
+        journal.close();
+
+        // WHEN
+        List<PendingResult> replayed = ResultJournal.builder(directory).build().replay();
+
+        // THEN
+        assertEquals(2, replayed.size());
+        assertEquals(first, replayed.get(0).getSequence());
+        assertEquals(1, replayed.get(0).getRunId());
+        assertEquals(new Result().setCaseId(1).setStatusId(1).setComment("first"), replayed.get(0).getResult());
+        assertEquals(second, replayed.get(1).getSequence());
+        assertEquals(2, replayed.get(1).getRunId());
+        assertEquals(new Result().setCaseId(2).setStatusId(5), replayed.get(1).getResult());
+    }
+
+    @Test
+    public void G_acknowledgedResultsWithGap_W_reopen_T_resultsAfterGapReplayed() throws IOException {
+        // GIVEN
+        ResultJournal journal = ResultJournal.builder(directory).syncPolicy(ResultJournal.SyncPolicy.ALWAYS).build();
+        long first = journal.append(1, new Result().setCaseId(1).setStatusId(1));
+        long second = journal.append(1, new Result().setCaseId(2).setStatusId(1));
+        long third = journal.append(1, new Result().setCaseId(3).setStatusId(1));
+        journal.acknowledge(first);
+        journal.acknowledge(third);
+        journal.close();
+
+        // WHEN
+        List<PendingResult> replayed = ResultJournal.builder(directory).build().replay();
+
+        // THEN
+        assertEquals(2, replayed.size());
+        assertEquals(second, replayed.get(0).getSequence());
+        assertEquals(third, replayed.get(1).getSequence());
+    }
+
+    @Test
+    public void G_partiallyWrittenRecord_W_reopen_T_recordDiscardedAndSequenceReused() throws IOException {
+        // GIVEN
+        ResultJournal journal = ResultJournal.builder(directory).build();
+        journal.append(1, new Result().setCaseId(1).setStatusId(1));
+        long torn = journal.append(1, new Result().setCaseId(2).setStatusId(1));
+        journal.close();
+        File[] segments = segments();
+        assertEquals(1, segments.length);
+        try (RandomAccessFile segment = new RandomAccessFile(segments[0], "rw")) {
+            int secondRecord = 16 + segment.readInt();
+            segment.seek(secondRecord + 16 + 2);
+            segment.write('X');
+        }
+
+        // WHEN
+        journal = ResultJournal.builder(directory).build();
+
+        // THEN
+        assertEquals(1, journal.replay().size());
+        assertEquals(torn, journal.append(1, new Result().setCaseId(3).setStatusId(1)));
+        journal.close();
+        List<PendingResult> replayed = ResultJournal.builder(directory).build().replay();
+        assertEquals(2, replayed.size());
+        assertEquals(Integer.valueOf(3), replayed.get(1).getResult().getCaseId());
+    }
+
+    @Test
+    public void G_fullSegments_W_acknowledgeAll_T_segmentsDeletedAndNothingReplayed() throws IOException {
+        // GIVEN
+        ResultJournal journal = ResultJournal.builder(directory).segmentSize(4096).build();
+        long last = 0;
+        for (int i = 1; i <= 20; i++) {
+            last = journal.append(1, new Result().setCaseId(i).setStatusId(1).setComment(Strings.repeat("x", 1000)));
+        }
+        assertTrue(segments().length > 1);
+
+        // WHEN
+        for (long sequence = 1; sequence <= last; sequence++) {
+            journal.acknowledge(sequence);
+        }
+
+        // THEN
+        assertEquals(1, segments().length);
+        journal.close();
+        journal = ResultJournal.builder(directory).segmentSize(4096).build();
+        assertEquals(0, journal.replay().size());
+        assertEquals(last + 1, journal.append(1, new Result().setCaseId(21).setStatusId(1)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void G_resultLargerThanSegment_W_append_T_exception() throws IOException {
+        // GIVEN
+        ResultJournal journal = ResultJournal.builder(directory).segmentSize(4096).build();
+
+        // WHEN
+        journal.append(1, new Result().setCaseId(1).setStatusId(1).setComment(Strings.repeat("x", 5000)));
+    }
+
+    private File[] segments() {
+        return directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".log");
+            }
+        });
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.internal.PendingResultCodec;
+import com.codepine.api.testrail.internal.PendingResultCodec.PendingResult;
+import com.codepine.api.testrail.model.Result;
+import com.codepine.api.testrail.model.ResultField;
+import com.codepine.api.testrail.transport.HttpRequest;
+import com.codepine.api.testrail.transport.HttpResponse;
+import com.codepine.api.testrail.transport.HttpTransport;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link ResultReporter}.
+ */
+public class ResultReporterTest {
+
+    private static final FieldSchema<ResultField> resultFieldSchema = FieldSchema.of(Collections.<ResultField>emptyList());
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private RecordingTransport transport;
+    private TestRail testRail;
+
+    @Before
+    public void setUp() {
+        transport = new RecordingTransport();
+        testRail = TestRail.builder("https://test.end.point.com", "testUser", "testPassword").transport(transport).build();
+    }
+
+    @Test
+    public void G_reportedResults_W_close_T_allResultsUploaded() {
+        // GIVEN
+        ResultReporter reporter = ResultReporter.builder(testRail, resultFieldSchema).maxBatchSize(10).build();
+        for (int i = 1; i <= 25; i++) {
+            reporter.report(i % 2 + 1, new Result().setCaseId(i).setStatusId(1));
+        }
+
+        // WHEN
+        reporter.close();
+
+        // THEN
+        assertEquals(25, transport.getResultCount());
+        ResultReporter.Stats stats = reporter.getStats();
+        assertEquals(25, stats.getReported());
+        assertEquals(25, stats.getUploaded());
+        assertEquals(0, stats.getQueueDepth());
+    }
+
+    @Test
+    public void G_fullQueueWithDropOldest_W_report_T_oldestQueuedResultDropped() throws InterruptedException {
+        // GIVEN
+        ResultReporter reporter = ResultReporter.builder(testRail, resultFieldSchema).capacity(2).overflowPolicy(ResultReporter.OverflowPolicy.DROP_OLDEST).build();
+        transport.hold();
+        reporter.report(1, new Result().setCaseId(1).setStatusId(1));
+        transport.awaitFirstRequest();
+        reporter.report(1, new Result().setCaseId(2).setStatusId(1));
+        reporter.report(1, new Result().setCaseId(3).setStatusId(1));
+
+        // WHEN
+        reporter.report(1, new Result().setCaseId(4).setStatusId(1));
+
+        // THEN
+        assertEquals(1, reporter.getStats().getDropped());
+        transport.release();
+        reporter.close();
+        assertEquals(3, reporter.getStats().getUploaded());
+        assertEquals(3, transport.getResultCount());
+    }
+
+    @Test
+    public void G_fullQueueWithSpill_W_report_T_resultsSpilledAndUploadedLater() throws Exception {
+        // GIVEN
+        File spillDirectory = temporaryFolder.newFolder();
+        ResultReporter reporter = ResultReporter.builder(testRail, resultFieldSchema).capacity(1).overflowPolicy(ResultReporter.OverflowPolicy.SPILL).spillDirectory(spillDirectory).build();
+        transport.hold();
+        reporter.report(1, new Result().setCaseId(1).setStatusId(1));
+        transport.awaitFirstRequest();
+        reporter.report(1, new Result().setCaseId(2).setStatusId(1));
+
+        // WHEN
+        reporter.report(1, new Result().setCaseId(3).setStatusId(1).setComment("spilled"));
+        reporter.report(2, new Result().setCaseId(4).setStatusId(1));
+
+        // THEN
+        assertEquals(2, reporter.getStats().getSpilled());
+        assertEquals(2, reporter.getStats().getSpillDepth());
+        transport.release();
+        reporter.close();
+        assertEquals(4, reporter.getStats().getUploaded());
+        assertEquals(0, reporter.getStats().getDropped());
+        assertEquals(0, spillDirectory.list().length);
+    }
+
+    @Test
+    public void G_spillFilesLeftByCrashedReporter_W_close_T_leftAndNewResultsUploaded() throws Exception {
+        // GIVEN
+        File spillDirectory = temporaryFolder.newFolder();
+        writeSpilled(new File(spillDirectory, "testrail-results.spill.draining"), 1, 2);
+        writeSpilled(new File(spillDirectory, "testrail-results.spill"), 3);
+        transport.hold();
+        ResultReporter reporter = ResultReporter.builder(testRail, resultFieldSchema).capacity(1).overflowPolicy(ResultReporter.OverflowPolicy.SPILL).spillDirectory(spillDirectory).build();
+        transport.awaitFirstRequest();
+        reporter.report(1, new Result().setCaseId(4).setStatusId(1));
+
+        // WHEN
+        reporter.report(1, new Result().setCaseId(5).setStatusId(1));
+
+        // THEN
+        assertEquals(1, reporter.getStats().getSpilled());
+        assertEquals(4, reporter.getStats().getSpillDepth());
+        transport.release();
+        reporter.close();
+        assertEquals(5, reporter.getStats().getReported());
+        assertEquals(5, reporter.getStats().getUploaded());
+        assertEquals(5, transport.getResultCount());
+        assertEquals(0, spillDirectory.list().length);
+    }
+
+    @Test
+    public void G_concurrentReporters_W_close_T_everyAcceptedResultUploaded() throws Exception {
+        // GIVEN
+        final ResultReporter reporter = ResultReporter.builder(testRail, resultFieldSchema).capacity(16).build();
+        final AtomicLong accepted = new AtomicLong();
+        final CountDownLatch started = new CountDownLatch(4);
+        List<Thread> reporterThreads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread reporterThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        for (int caseId = 1; ; caseId++) {
+                            reporter.report(1, new Result().setCaseId(caseId).setStatusId(1));
+                            accepted.incrementAndGet();
+                        }
+                    } catch (IllegalStateException e) {
+                        // closed
+                    }
+                }
+            });
+            reporterThread.start();
+            reporterThreads.add(reporterThread);
+        }
+        started.await();
+
+        // WHEN
+        reporter.close();
+
+        // THEN
+        for (Thread reporterThread : reporterThreads) {
+            reporterThread.join();
+        }
+        assertEquals(accepted.get(), reporter.getStats().getUploaded());
+        assertEquals(accepted.get(), transport.getResultCount());
+    }
+
+    @Test
+    public void G_fullQueueWithBlock_W_report_T_reportBlockedUntilSpaceAvailable() throws Exception {
+        // GIVEN
+        final ResultReporter reporter = ResultReporter.builder(testRail, resultFieldSchema).capacity(1).build();
+        transport.hold();
+        reporter.report(1, new Result().setCaseId(1).setStatusId(1));
+        transport.awaitFirstRequest();
+        reporter.report(1, new Result().setCaseId(2).setStatusId(1));
+
+        // WHEN
+        final CountDownLatch reported = new CountDownLatch(1);
+        Thread reporterThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                reporter.report(1, new Result().setCaseId(3).setStatusId(1));
+                reported.countDown();
+            }
+        });
+        reporterThread.start();
+
+        // THEN
+        assertFalse(reported.await(100, TimeUnit.MILLISECONDS));
+        transport.release();
+        assertTrue(reported.await(5, TimeUnit.SECONDS));
+        reporter.close();
+        assertEquals(3, reporter.getStats().getUploaded());
+    }
+
+    @Test
+    public void G_testRailError_W_close_T_resultsCountedAsFailed() {
+        // GIVEN
+        transport.setStatusCode(400);
+        ResultReporter reporter = ResultReporter.builder(testRail, resultFieldSchema).build();
+        reporter.report(1, new Result().setCaseId(1).setStatusId(1));
+
+        // WHEN
+        reporter.close();
+
+        // THEN
+        assertEquals(1, reporter.getStats().getFailed());
+        assertEquals(0, reporter.getStats().getUploaded());
+    }
+
+    @Test
+    public void G_journalWithUnacknowledgedResults_W_close_T_replayedResultsUploadedAndAcknowledged() throws Exception {
+        // GIVEN
+        File journalDirectory = temporaryFolder.newFolder();
+        ResultJournal journal = ResultJournal.builder(journalDirectory).build();
+        journal.append(1, new Result().setCaseId(1).setStatusId(1));
+        journal.append(2, new Result().setCaseId(2).setStatusId(1));
+        journal.close();
+        ResultReporter reporter = ResultReporter.builder(testRail, resultFieldSchema).journal(ResultJournal.builder(journalDirectory).build()).build();
+        reporter.report(1, new Result().setCaseId(3).setStatusId(1));
+
+        // WHEN
+        reporter.close();
+
+        // THEN
+        assertEquals(3, transport.getResultCount());
+        assertEquals(3, reporter.getStats().getUploaded());
+        assertEquals(0, ResultJournal.builder(journalDirectory).build().replay().size());
+    }
+
+    @Test
+    public void G_journalAndUnreachableTestRail_W_close_T_resultsLeftInJournal() throws Exception {
+        // GIVEN
+        File journalDirectory = temporaryFolder.newFolder();
+        TestRail unreachableTestRail = TestRail.builder("https://test.end.point.com", "testUser", "testPassword").transport(new HttpTransport() {
+            @Override
+            public HttpResponse execute(HttpRequest request) throws IOException {
+                throw new IOException("connection refused");
+            }
+
+            @Override
+            public void close() {
+            }
+        }).build();
+        ResultReporter reporter = ResultReporter.builder(unreachableTestRail, resultFieldSchema).journal(ResultJournal.builder(journalDirectory).build()).build();
+        reporter.report(1, new Result().setCaseId(1).setStatusId(1));
+
+        // WHEN
+        reporter.close();
+
+        // THEN
+        assertEquals(1, reporter.getStats().getFailed());
+        assertEquals(1, ResultJournal.builder(journalDirectory).build().replay().size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void G_spillWithoutDirectory_W_build_T_exception() {
+        // WHEN
+        ResultReporter.builder(testRail, resultFieldSchema).overflowPolicy(ResultReporter.OverflowPolicy.SPILL).build();
+    }
+
+    private static void writeSpilled(File spillFile, int... caseIds) throws IOException {
+        ByteArrayOutputStream spilled = new ByteArrayOutputStream();
+        for (int caseId : caseIds) {
+            spilled.write(PendingResultCodec.encode(new PendingResult(0, 1, new Result().setCaseId(caseId).setStatusId(1))));
+            spilled.write('\n');
+        }
+        Files.write(spillFile.toPath(), spilled.toByteArray());
+    }
+}
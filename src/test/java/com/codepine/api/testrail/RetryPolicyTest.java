@@ -0,0 +1,123 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.model.Project;
+import com.codepine.api.testrail.model.Result;
+import com.codepine.api.testrail.model.ResultField;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link RetryPolicy}.
+ */
+public class RetryPolicyTest {
+
+    private static final String PROJECT = "{\"id\": 1, \"name\": \"Project\"}";
+    private static final String SERVER_ERROR = "{\"error\": \"Internal error\"}";
+    private static final RetryPolicy policy = RetryPolicy.builder().maxAttempts(3).baseDelay(100, TimeUnit.MILLISECONDS).maxDelay(1, TimeUnit.SECONDS).totalBudget(10, TimeUnit.SECONDS).build();
+
+    @Test
+    public void G_tooManyRequests_W_getDelay_T_retriedForGetAndPost() {
+        // WHEN, THEN
+        assertTrue(policy.getDelayNanos(Request.Method.GET, 429, null, 1, 0) >= 0);
+        assertTrue(policy.getDelayNanos(Request.Method.POST, 429, null, 1, 0) >= 0);
+    }
+
+    @Test
+    public void G_serverOrIoError_W_getDelay_T_retriedForGetOnly() {
+        // WHEN, THEN
+        assertTrue(policy.getDelayNanos(Request.Method.GET, 503, null, 1, 0) >= 0);
+        assertTrue(policy.getDelayNanos(Request.Method.GET, -1, null, 1, 0) >= 0);
+        assertEquals(-1, policy.getDelayNanos(Request.Method.POST, 503, null, 1, 0));
+        assertEquals(-1, policy.getDelayNanos(Request.Method.POST, -1, null, 1, 0));
+        RetryPolicy postPolicy = RetryPolicy.builder().retryPostOnServerErrors(true).build();
+        assertTrue(postPolicy.getDelayNanos(Request.Method.POST, 503, null, 1, 0) >= 0);
+    }
+
+    @Test
+    public void G_clientError_W_getDelay_T_notRetried() {
+        // WHEN, THEN
+        assertEquals(-1, policy.getDelayNanos(Request.Method.GET, 400, null, 1, 0));
+        assertEquals(-1, policy.getDelayNanos(Request.Method.GET, 401, null, 1, 0));
+    }
+
+    @Test
+    public void G_attempts_W_getDelay_T_delayWithinExponentialCeilingUntilMaxAttempts() {
+        // WHEN, THEN
+        for (int i = 0; i < 100; i++) {
+            assertTrue(policy.getDelayNanos(Request.Method.GET, 503, null, 1, 0) <= TimeUnit.MILLISECONDS.toNanos(100));
+            assertTrue(policy.getDelayNanos(Request.Method.GET, 503, null, 2, 0) <= TimeUnit.MILLISECONDS.toNanos(200));
+        }
+        assertEquals(-1, policy.getDelayNanos(Request.Method.GET, 503, null, 3, 0));
+    }
+
+    @Test
+    public void G_retryAfter_W_getDelay_T_retryAfterHonouredWithinBudget() {
+        // WHEN, THEN
+        assertEquals(TimeUnit.SECONDS.toNanos(5), policy.getDelayNanos(Request.Method.GET, 429, "5", 1, 0));
+        assertEquals(-1, policy.getDelayNanos(Request.Method.GET, 429, "5", 1, TimeUnit.SECONDS.toNanos(6)));
+        assertEquals(0, policy.getDelayNanos(Request.Method.GET, 429, "Thu, 01 Jan 2015 00:00:00 GMT", 1, 0));
+    }
+
+    @Test
+    public void G_transientErrors_W_execute_T_requestRetriedUntilSuccess() {
+        // GIVEN
+        ScriptedTransport transport = new ScriptedTransport().enqueue(-1, null).enqueue(503, SERVER_ERROR).enqueue(200, PROJECT);
+        TestRail testRail = TestRail.builder("https://test.end.point.com", "testUser", "testPassword").transport(transport)
+                .retryPolicy(RetryPolicy.builder().baseDelay(1, TimeUnit.MILLISECONDS).build()).build();
+
+        // WHEN
+        Project project = testRail.projects().get(1).execute();
+
+        // THEN
+        assertEquals(1, project.getId());
+        assertEquals(3, transport.getRequestCount());
+    }
+
+    @Test
+    public void G_serverErrorOnPost_W_execute_T_requestNotRetried() {
+        // GIVEN
+        ScriptedTransport transport = new ScriptedTransport().enqueue(500, SERVER_ERROR).enqueue(200, "{\"id\": 1, \"status_id\": 1}");
+        TestRail testRail = TestRail.builder("https://test.end.point.com", "testUser", "testPassword").transport(transport)
+                .retryPolicy(RetryPolicy.builder().baseDelay(1, TimeUnit.MILLISECONDS).build()).build();
+
+        // WHEN
+        try {
+            testRail.results().addForCase(1, 1, new Result().setStatusId(1), Collections.<ResultField>emptyList()).execute();
+            fail("TestRailException expected");
+        } catch (TestRailException e) {
+            // THEN
+            assertEquals(500, e.getResponseCode());
+            assertEquals(1, transport.getRequestCount());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.transport.HttpRequest;
+import com.codepine.api.testrail.transport.HttpResponse;
+import com.codepine.api.testrail.transport.HttpTransport;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Transport for tests answering requests with scripted responses and recording the URLs requested.
+ * <p>Responses queued with {@link #enqueue(int, String)} are returned first, one per request. Once the queue is empty,
+ * requests are answered with the body given to {@link #answer(String, String)} for the first URL fragment they contain.</p>
+ */
+class ScriptedTransport implements HttpTransport {
+
+    private final List<String> urls = new CopyOnWriteArrayList<>();
+    private final Deque<Response> queue = new ArrayDeque<>();
+    private final Map<String, String> answers = new LinkedHashMap<>();
+
+    /**
+     * Queue a response for the next request not answered by an earlier queued response.
+     *
+     * @param statusCode the status code of the response, or -1 to fail the request with an {@link IOException}
+     * @param body       the body of the response
+     * @return this transport
+     */
+    synchronized ScriptedTransport enqueue(int statusCode, String body) {
+        queue.add(new Response(statusCode, body));
+        return this;
+    }
+
+    /**
+     * Answer {@code 200 OK} with the given body to requests whose URL contains the fragment, replacing any answer given before
+     * for the same fragment.
+     *
+     * @param urlFragment the part of the URL to match, the empty string matching every request
+     * @param body        the body of the response
+     * @return this transport
+     */
+    synchronized ScriptedTransport answer(String urlFragment, String body) {
+        answers.put(urlFragment, body);
+        return this;
+    }
+
+    /**
+     * Get the URLs requested, in order.
+     *
+     * @return the URLs
+     */
+    List<String> getUrls() {
+        return urls;
+    }
+
+    /**
+     * Get the number of requests sent.
+     *
+     * @return the number of requests
+     */
+    int getRequestCount() {
+        return urls.size();
+    }
+
+    /**
+     * Get the number of requests sent whose URL contains the fragment.
+     *
+     * @param urlFragment the part of the URL to match
+     * @return the number of requests
+     */
+    int getRequestCount(String urlFragment) {
+        int count = 0;
+        for (String url : urls) {
+            if (url.contains(urlFragment)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public HttpResponse execute(HttpRequest request) throws IOException {
+        urls.add(request.getUrl());
+        Response response = next(request.getUrl());
+        if (response.statusCode == -1) {
+            throw new IOException("connection reset");
+        }
+        return response;
+    }
+
+    private synchronized Response next(String url) {
+        Response queued = queue.poll();
+        if (queued != null) {
+            return queued;
+        }
+        for (Map.Entry<String, String> answer : answers.entrySet()) {
+            if (url.contains(answer.getKey())) {
+                return new Response(200, answer.getValue());
+            }
+        }
+        throw new IllegalStateException("No response scripted for " + url);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static class Response implements HttpResponse {
+
+        private final int statusCode;
+        private final String body;
+
+        Response(int statusCode, String body) {
+            this.statusCode = statusCode;
+            this.body = body;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return null;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.internal.FieldSchemaSource;
+import com.codepine.api.testrail.model.Case;
+import com.codepine.api.testrail.model.CaseField;
+import com.codepine.api.testrail.model.Project;
+import com.codepine.api.testrail.transport.HttpRequest;
+import com.codepine.api.testrail.transport.HttpResponse;
+import com.codepine.api.testrail.transport.HttpTransport;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link SingleFlight}.
+ */
+public class SingleFlightTest {
+
+    private static final SingleFlight.Key KEY = new SingleFlight.Key("https://test.end.point.com/index.php?/api/v2/get_project/1", Project.class, null);
+
+    @Test
+    public void G_callInFlight_W_executeSameKey_T_callSharedAndSameResultReturned() throws Exception {
+        // GIVEN
+        final SingleFlight singleFlight = new SingleFlight();
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch callStarted = new CountDownLatch(1);
+        final CountDownLatch callReleased = new CountDownLatch(1);
+        CompletableFuture<Project> leader = CompletableFuture.supplyAsync(new Supplier<Project>() {
+            @Override
+            public Project get() {
+                return singleFlight.execute(KEY, new Supplier<Project>() {
+                    @Override
+                    public Project get() {
+                        calls.incrementAndGet();
+                        callStarted.countDown();
+                        await(callReleased);
+                        return new Project().setId(1);
+                    }
+                });
+            }
+        });
+        callStarted.await();
+
+        // WHEN
+        CompletableFuture<Project> follower = CompletableFuture.supplyAsync(new Supplier<Project>() {
+            @Override
+            public Project get() {
+                return singleFlight.execute(KEY, new Supplier<Project>() {
+                    @Override
+                    public Project get() {
+                        calls.incrementAndGet();
+                        return new Project().setId(2);
+                    }
+                });
+            }
+        });
+        TimeUnit.MILLISECONDS.sleep(50);
+        callReleased.countDown();
+
+        // THEN
+        assertSame(leader.get(), follower.get());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void G_schemasCompiledFromSameFields_W_keyEquals_T_keysEqual() {
+        // GIVEN
+        CaseField caseField = new CaseField();
+        caseField.setName("preconds");
+        caseField.setTypeId(1);
+        String url = "https://test.end.point.com/index.php?/api/v2/get_case/1";
+
+        // WHEN
+        SingleFlight.Key key = new SingleFlight.Key(url, Case.class, new FieldSchemaSource.Fixed<>(FieldSchema.of(Collections.singletonList(caseField))));
+        SingleFlight.Key otherKey = new SingleFlight.Key(url, Case.class, new FieldSchemaSource.Fixed<>(FieldSchema.of(Collections.singletonList(caseField))));
+
+        // THEN
+        assertEquals(key, otherKey);
+        assertEquals(key.hashCode(), otherKey.hashCode());
+    }
+
+    @Test
+    public void G_callInFlightFails_W_executeSameKey_T_sameExceptionThrown() throws Exception {
+        // GIVEN
+        final SingleFlight singleFlight = new SingleFlight();
+        final CountDownLatch callStarted = new CountDownLatch(1);
+        final CountDownLatch callReleased = new CountDownLatch(1);
+        final IllegalStateException error = new IllegalStateException("failed");
+        CompletableFuture<Project> leader = CompletableFuture.supplyAsync(new Supplier<Project>() {
+            @Override
+            public Project get() {
+                return singleFlight.execute(KEY, new Supplier<Project>() {
+                    @Override
+                    public Project get() {
+                        callStarted.countDown();
+                        await(callReleased);
+                        throw error;
+                    }
+                });
+            }
+        });
+        callStarted.await();
+
+        // WHEN
+        CompletableFuture<Project> follower = CompletableFuture.supplyAsync(new Supplier<Project>() {
+            @Override
+            public Project get() {
+                return singleFlight.execute(KEY, new Supplier<Project>() {
+                    @Override
+                    public Project get() {
+                        return new Project();
+                    }
+                });
+            }
+        });
+        TimeUnit.MILLISECONDS.sleep(50);
+        callReleased.countDown();
+
+        // THEN
+        for (CompletableFuture<Project> future : Arrays.asList(leader, follower)) {
+            try {
+                future.get();
+                fail("ExecutionException expected");
+            } catch (ExecutionException e) {
+                assertSame(error, e.getCause());
+            }
+        }
+    }
+
+    @Test
+    public void G_coalescingEnabled_W_executeSameGetConcurrently_T_singleRequestSent() throws Exception {
+        // GIVEN
+        final AtomicInteger requests = new AtomicInteger();
+        final CountDownLatch requestReleased = new CountDownLatch(1);
+        final TestRail testRail = TestRail.builder("https://test.end.point.com", "testUser", "testPassword").coalesceGetRequests(true).transport(new HttpTransport() {
+            @Override
+            public HttpResponse execute(HttpRequest request) throws IOException {
+                requests.incrementAndGet();
+                await(requestReleased);
+                return new ProjectResponse();
+            }
+
+            @Override
+            public void close() {
+            }
+        }).build();
+
+        // WHEN
+        CompletableFuture<Project> first = testRail.projects().get(1).executeAsync();
+        while (requests.get() == 0) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        CompletableFuture<Project> second = testRail.projects().get(1).executeAsync();
+        TimeUnit.MILLISECONDS.sleep(50);
+        requestReleased.countDown();
+
+        // THEN
+        assertSame(first.get(), second.get());
+        assertEquals(1, requests.get());
+        testRail.projects().get(1).execute();
+        assertEquals(2, requests.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class ProjectResponse implements HttpResponse {
+
+        @Override
+        public int getStatusCode() {
+            return 200;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return null;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream("{\"id\": 1, \"name\": \"Project\"}".getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail;
+
+import com.codepine.api.testrail.standin.StandInServer;
+import com.codepine.api.testrail.transport.HttpTransport;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link TestRail}.
+ */
+public class TestRailTest {
+
+    private StandInServer server;
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void G_defaultTransport_W_close_T_connectionPoolShutDown() throws IOException {
+        // GIVEN
+        server = StandInServer.builder().build();
+        TestRail testRail = TestRail.builder(server.getEndPoint(), "user", "password").build();
+        assertFalse(testRail.statuses().list().execute().isEmpty());
+
+        // WHEN
+        testRail.close();
+
+        // THEN
+        testRail.statuses().list().execute();
+    }
+
+    @Test
+    public void G_givenTransport_W_close_T_transportLeftOpen() throws IOException {
+        // GIVEN
+        HttpTransport transport = mock(HttpTransport.class);
+        TestRail testRail = TestRail.builder("https://test.end.point.com", "user", "password").transport(transport).build();
+
+        // WHEN
+        testRail.close();
+
+        // THEN
+        verify(transport, never()).close();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.internal;
+
+import com.codepine.api.testrail.RequestEvent;
+import com.codepine.api.testrail.RequestListener;
+import com.codepine.api.testrail.TestRail;
+import com.codepine.api.testrail.model.Project;
+import com.codepine.api.testrail.standin.StandInServer;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link AsyncExecutors}.
+ * <p>These run against the Java 8 implementation, the Java 21 one being packaged only into the multi-release jar.</p>
+ */
+public class AsyncExecutorsTest {
+
+    @Test
+    public void G_defaultExecutor_W_execute_T_runOnDaemonThreadNamedTestrailAsync() throws InterruptedException {
+        // GIVEN
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        final CountDownLatch ran = new CountDownLatch(1);
+
+        // WHEN
+        AsyncExecutors.defaultExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                thread.set(Thread.currentThread());
+                ran.countDown();
+            }
+        });
+
+        // THEN
+        assertTrue(ran.await(10, TimeUnit.SECONDS));
+        assertTrue(thread.get().isDaemon());
+        assertTrue(thread.get().getName(), thread.get().getName().startsWith("testrail-async-"));
+    }
+
+    @Test
+    public void G_noExecutorConfigured_W_executeAsync_T_runOnDefaultExecutor() throws IOException {
+        // GIVEN
+        try (StandInServer server = StandInServer.builder().build()) {
+            final AtomicReference<String> threadName = new AtomicReference<>();
+            TestRail testRail = TestRail.builder(server.getEndPoint(), "user", "password").requestListener(new RequestListener() {
+                @Override
+                public void onRequest(RequestEvent event) {
+                    threadName.set(Thread.currentThread().getName());
+                }
+            }).build();
+
+            // WHEN
+            List<Project> projects = testRail.projects().list().executeAsync().join();
+
+            // THEN
+            assertEquals(0, projects.size());
+            assertTrue(threadName.get(), threadName.get().startsWith("testrail-async-"));
+        }
+    }
+}
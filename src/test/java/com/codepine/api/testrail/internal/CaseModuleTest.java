@@ -24,22 +24,34 @@
 
 package com.codepine.api.testrail.internal;
 
+import com.codepine.api.testrail.FieldSchema;
 import com.codepine.api.testrail.model.Case;
 import com.codepine.api.testrail.model.CaseField;
 import com.codepine.api.testrail.model.Field;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
 import com.fasterxml.jackson.databind.InjectableValues;
+import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerModifier;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.google.common.io.CharStreams;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 /**
  * Tests for {@link com.codepine.api.testrail.internal.CaseModule}.
@@ -88,4 +100,152 @@ public class CaseModuleTest {
         Case expectedCase = new Case().setId(13).setTitle("Test Case 2").setSectionId(6).setTypeId(6).setPriorityId(4).setCreatedBy(1).setCreatedOn(new Date(1425683583000L)).setUpdatedBy(1).setUpdatedOn(new Date(1425845918000L)).setSuiteId(4).addCustomField("separated_steps", steps);
         assertEquals(expectedCase, actualCase);
     }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void G_emptyCaseFieldSchema_W_caseStringWithCustomStepsField_T_exception() throws IOException {
+        // GIVEN
+        FieldSchema<CaseField> caseFieldSchema = FieldSchema.of(Collections.<CaseField>emptyList());
+
+        // WHEN
+        objectMapper.reader(Case.class).with(new InjectableValues.Std().addValue(Case.class.toString(), caseFieldSchema)).readValue(this.getClass().getResourceAsStream("/case_with_step_field_set.json"));
+    }
+
+    @Test
+    public void G_caseFieldSchemaWithSteps_W_caseStringWithCustomStepsField_T_correctDeserializationAndStepsField() throws IOException {
+        // GIVEN
+        CaseField stepField = objectMapper.readValue(this.getClass().getResourceAsStream("/step_field.json"), CaseField.class);
+        FieldSchema<CaseField> caseFieldSchema = FieldSchema.of(Collections.singletonList(stepField));
+
+        // WHEN
+        Case actualCase = objectMapper.reader(Case.class).with(new InjectableValues.Std().addValue(Case.class.toString(), caseFieldSchema)).readValue(this.getClass().getResourceAsStream("/case_with_step_field_set.json"));
+
+        // THEN
+        List<Field.Step> steps = Arrays.asList(new Field.Step().setContent("Step 1").setExpected("Expected 1"), new Field.Step().setContent("Step 2").setExpected("Expected 2"));
+        Case expectedCase = new Case().setId(13).setTitle("Test Case 2").setSectionId(6).setTypeId(6).setPriorityId(4).setCreatedBy(1).setCreatedOn(new Date(1425683583000L)).setUpdatedBy(1).setUpdatedOn(new Date(1425845918000L)).setSuiteId(4).addCustomField("separated_steps", steps);
+        assertEquals(expectedCase, actualCase);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void G_caseFieldsWithDuplicateName_W_compileSchema_T_exception() throws IOException {
+        // GIVEN
+        CaseField stepField = objectMapper.readValue(this.getClass().getResourceAsStream("/step_field.json"), CaseField.class);
+
+        // WHEN
+        FieldSchema.of(Arrays.asList(stepField, stepField));
+    }
+
+    @Test
+    public void G_lazyCaseFieldSchemaWithSteps_W_caseStringWithCustomStepsField_T_stepsFieldDecodedOnceOnRead() throws IOException {
+        // GIVEN
+        CaseField stepField = objectMapper.readValue(this.getClass().getResourceAsStream("/step_field.json"), CaseField.class);
+        FieldSchema<CaseField> caseFieldSchema = FieldSchema.of(Collections.singletonList(stepField)).lazy();
+
+        // WHEN
+        Case actualCase = objectMapper.reader(Case.class).with(new InjectableValues.Std().addValue(Case.class.toString(), caseFieldSchema)).readValue(this.getClass().getResourceAsStream("/case_with_step_field_set.json"));
+
+        // THEN
+        List<Field.Step> steps = Arrays.asList(new Field.Step().setContent("Step 1").setExpected("Expected 1"), new Field.Step().setContent("Step 2").setExpected("Expected 2"));
+        List<Field.Step> actualSteps = actualCase.getCustomField("separated_steps");
+        assertEquals(steps, actualSteps);
+        assertSame(actualSteps, actualCase.getCustomField("separated_steps"));
+        assertSame(actualSteps, actualCase.getCustomFields().get("separated_steps"));
+    }
+
+    @Test
+    public void G_caseFieldSchemaWithSteps_W_putIntoCustomFieldsOfDecodedCase_T_caseChanged() throws IOException {
+        // GIVEN
+        CaseField stepField = objectMapper.readValue(this.getClass().getResourceAsStream("/step_field.json"), CaseField.class);
+        FieldSchema<CaseField> caseFieldSchema = FieldSchema.of(Collections.singletonList(stepField));
+        Case actualCase = objectMapper.reader(Case.class).with(new InjectableValues.Std().addValue(Case.class.toString(), caseFieldSchema)).readValue(this.getClass().getResourceAsStream("/case_with_step_field_set.json"));
+
+        // WHEN
+        actualCase.getCustomFields().put("preconds", "A user exists");
+
+        // THEN
+        assertEquals("A user exists", actualCase.getCustomField("preconds"));
+        assertEquals(2, actualCase.getCustomFields().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void G_emptyLazyCaseFieldSchema_W_caseStringWithCustomStepsField_T_exception() throws IOException {
+        // GIVEN
+        FieldSchema<CaseField> caseFieldSchema = FieldSchema.of(Collections.<CaseField>emptyList()).lazy();
+
+        // WHEN
+        objectMapper.reader(Case.class).with(new InjectableValues.Std().addValue(Case.class.toString(), caseFieldSchema)).readValue(this.getClass().getResourceAsStream("/case_with_step_field_set.json"));
+    }
+
+    @Test
+    public void G_caseFieldSchemaWithSteps_W_severalCasesWithCustomStepsField_T_stepsDeserializerBuiltOnce() throws IOException {
+        // GIVEN
+        final AtomicInteger stepDeserializersBuilt = new AtomicInteger();
+        ObjectMapper countingObjectMapper = new ObjectMapper()
+                .setPropertyNamingStrategy(PropertyNamingStrategy.CAMEL_CASE_TO_LOWER_CASE_WITH_UNDERSCORES)
+                .registerModules(new CaseModule(), new UnixTimestampModule(), new SimpleModule().setDeserializerModifier(new BeanDeserializerModifier() {
+                    @Override
+                    public JsonDeserializer<?> modifyCollectionDeserializer(DeserializationConfig config, CollectionType type, BeanDescription beanDesc, JsonDeserializer<?> deserializer) {
+                        if (type.getContentType().getRawClass() == Field.Step.class) {
+                            stepDeserializersBuilt.incrementAndGet();
+                        }
+                        return deserializer;
+                    }
+                }));
+        CaseField stepField = objectMapper.readValue(this.getClass().getResourceAsStream("/step_field.json"), CaseField.class);
+        FieldSchema<CaseField> caseFieldSchema = FieldSchema.of(Collections.singletonList(stepField));
+        String caseJson = CharStreams.toString(new InputStreamReader(this.getClass().getResourceAsStream("/case_with_step_field_set.json"), StandardCharsets.UTF_8));
+
+        // WHEN
+        List<Case> actualCases = countingObjectMapper.reader(countingObjectMapper.getTypeFactory().constructCollectionType(List.class, Case.class))
+                .with(new InjectableValues.Std().addValue(Case.class.toString(), caseFieldSchema)).readValue("[" + caseJson + "," + caseJson + "," + caseJson + "]");
+
+        // THEN
+        assertEquals(3, actualCases.size());
+        assertEquals(2, actualCases.get(2).<List<Field.Step>>getCustomField("separated_steps").size());
+        assertEquals(1, stepDeserializersBuilt.get());
+    }
+
+    @Test
+    public void G_caseFieldSchemaWithSeveralTypes_W_caseStringWithCustomFields_T_customFieldsDecodedToTheirTypes() throws IOException {
+        // GIVEN
+        FieldSchema<CaseField> caseFieldSchema = FieldSchema.of(Arrays.asList(field(1, 10, "separated_steps"), field(2, 2, "points"), field(3, 12, "platforms")));
+        String caseJson = "{\"id\": 13, \"title\": \"Test Case 2\", \"custom_separated_steps\": [{\"content\": \"Step 1\", \"expected\": \"Expected 1\"}], "
+                + "\"custom_points\": 5, \"custom_platforms\": [\"linux\", \"windows\"]}";
+
+        // WHEN
+        Case actualCase = objectMapper.reader(Case.class).with(new InjectableValues.Std().addValue(Case.class.toString(), caseFieldSchema)).readValue(caseJson);
+
+        // THEN
+        assertEquals(Collections.singletonList(new Field.Step().setContent("Step 1").setExpected("Expected 1")), actualCase.getCustomField("separated_steps"));
+        assertEquals(Integer.valueOf(5), actualCase.getCustomField("points"));
+        assertEquals(Arrays.asList("linux", "windows"), actualCase.getCustomField("platforms"));
+        assertEquals(3, actualCase.getCustomFields().size());
+    }
+
+    @Test
+    public void G_caseFieldSchema_W_caseStringWithUnknownNonCustomField_T_unknownFieldSkipped() throws IOException {
+        // GIVEN
+        FieldSchema<CaseField> caseFieldSchema = FieldSchema.of(Collections.singletonList(field(2, 2, "points")));
+        String caseJson = "{\"id\": 11, \"added_in_a_later_version\": {\"nested\": [1, 2]}, \"custom_points\": 5}";
+
+        // WHEN
+        Case actualCase = objectMapper.reader(Case.class).with(new InjectableValues.Std().addValue(Case.class.toString(), caseFieldSchema)).readValue(caseJson);
+
+        // THEN
+        assertEquals(Collections.<String, Object>singletonMap("points", 5), actualCase.getCustomFields());
+    }
+
+    @Test(expected = UnknownCustomFieldException.class)
+    public void G_caseFieldSchemaWithoutField_W_caseStringWithThatCustomField_T_unknownCustomFieldException() throws IOException {
+        // GIVEN
+        FieldSchema<CaseField> caseFieldSchema = FieldSchema.of(Collections.singletonList(field(2, 2, "points")));
+        String caseJson = "{\"id\": 11, \"custom_points\": 5, \"custom_platforms\": [\"linux\"]}";
+
+        // WHEN
+        objectMapper.reader(Case.class).with(new InjectableValues.Std().addValue(Case.class.toString(), caseFieldSchema)).readValue(caseJson);
+    }
+
+    private static CaseField field(int id, int typeId, String name) throws IOException {
+        return objectMapper.readValue("{\"id\": " + id + ", \"type_id\": " + typeId + ", \"name\": \"" + name + "\", \"system_name\": \"custom_" + name + "\", "
+                + "\"configs\": [{\"context\": {\"is_global\": true, \"project_ids\": []}, \"options\": {}}]}", CaseField.class);
+    }
 }
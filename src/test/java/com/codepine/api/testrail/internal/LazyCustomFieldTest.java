@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.internal;
+
+import com.codepine.api.testrail.model.Field;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link LazyCustomField}.
+ */
+public class LazyCustomFieldTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void G_lazyField_W_materialize_T_mapUnchanged() {
+        // GIVEN
+        Map<String, Object> customFields = customFields();
+        Object lazyField = customFields.get("separated_steps");
+
+        // WHEN
+        List<Field.Step> steps = (List<Field.Step>) LazyCustomField.materialize(customFields, "separated_steps");
+        Map<String, Object> decodedFields = LazyCustomField.materializeAll(customFields);
+
+        // THEN
+        assertEquals("Open the login page", steps.get(0).getContent());
+        assertSame(steps, decodedFields.get("separated_steps"));
+        assertEquals("A user exists", decodedFields.get("preconds"));
+        assertSame(lazyField, customFields.get("separated_steps"));
+    }
+
+    @Test
+    public void G_lazyFieldReadConcurrently_W_materialize_T_sameDecodedInstance() throws Exception {
+        // GIVEN
+        final Map<String, Object> customFields = customFields();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            // WHEN
+            List<Future<Object>> values = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                values.add(executor.submit(new Callable<Object>() {
+                    @Override
+                    public Object call() {
+                        return LazyCustomField.materialize(customFields, "separated_steps");
+                    }
+                }));
+            }
+
+            // THEN
+            Object first = values.get(0).get();
+            assertTrue(first instanceof List);
+            for (Future<Object> value : values) {
+                assertSame(first, value.get());
+            }
+            assertTrue(customFields.get("separated_steps") instanceof LazyCustomField);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Map<String, Object> customFields() {
+        byte[] json = "[{\"content\": \"Open the login page\", \"expected\": \"The login page is shown\"}]".getBytes(StandardCharsets.UTF_8);
+        Map<String, Object> customFields = new HashMap<>();
+        customFields.put("preconds", "A user exists");
+        customFields.put("separated_steps", new LazyCustomField(json, MAPPER.getTypeFactory().constructType(new TypeReference<List<Field.Step>>() {
+        }), MAPPER));
+        return customFields;
+    }
+}
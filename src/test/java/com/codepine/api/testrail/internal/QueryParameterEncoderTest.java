@@ -0,0 +1,127 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.internal;
+
+import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.Data;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for {@link com.codepine.api.testrail.internal.QueryParameterEncoder}.
+ */
+public class QueryParameterEncoderTest {
+
+    @Test
+    public void G_noParametersSet_W_encode_T_nothingAppended() {
+        // WHEN
+        String actual = encode(new Filter());
+
+        // THEN
+        assertEquals("", actual);
+    }
+
+    @Test
+    public void G_allParametersSet_W_encode_T_parametersEncodedInDeclarationOrder() {
+        // GIVEN
+        Filter filter = new Filter().setSectionId(1).setCreatedAfter(new Date(1424641170000L)).setCreatedBy(Arrays.asList(1, 2, 3))
+                .setIsCompleted(false).setKeyword("a b&c").setNotInView(7);
+
+        // WHEN
+        String actual = encode(filter);
+
+        // THEN
+        assertEquals("&section_id=1&created_after=1424641170&created_by=1%2C2%2C3&is_completed=0&keyword=a+b%26c", actual);
+    }
+
+    @Test
+    public void G_emptyCsvParameter_W_encode_T_emptyValue() {
+        // GIVEN
+        Filter filter = new Filter().setCreatedBy(Collections.<Integer>emptyList()).setIsCompleted(true);
+
+        // WHEN
+        String actual = encode(filter);
+
+        // THEN
+        assertEquals("&created_by=&is_completed=1", actual);
+    }
+
+    @Test
+    public void G_subclassedRequest_W_encode_T_superClassParametersIncluded() {
+        // GIVEN
+        PagedFilter filter = new PagedFilter();
+        filter.setLimit(10).setSectionId(2);
+
+        // WHEN
+        String actual = encode(filter);
+
+        // THEN
+        assertEquals("&section_id=2&limit=10", actual);
+    }
+
+    @Test
+    public void W_forClassCalledTwice_T_sameEncoder() {
+        assertSame(QueryParameterEncoder.forClass(Filter.class), QueryParameterEncoder.forClass(Filter.class));
+    }
+
+    private static String encode(Object request) {
+        StringBuilder out = new StringBuilder();
+        QueryParameterEncoder.forClass(request.getClass()).encode(request, out);
+        return out.toString();
+    }
+
+    @Data
+    static class Filter {
+        @JsonView(Filter.class)
+        private Integer sectionId;
+        @JsonView(Filter.class)
+        private Date createdAfter;
+        @JsonView(Filter.class)
+        @JsonSerialize(using = ListToCsvSerializer.class)
+        private List<Integer> createdBy;
+        @JsonView(Filter.class)
+        @JsonSerialize(using = BooleanToIntSerializer.class)
+        private Boolean isCompleted;
+        @JsonView(Filter.class)
+        private String keyword;
+        private Integer notInView;
+    }
+
+    @Data
+    static class PagedFilter extends Filter {
+        @JsonView(PagedFilter.class)
+        private Integer limit;
+        @JsonView(String.class)
+        private Integer otherView;
+    }
+}
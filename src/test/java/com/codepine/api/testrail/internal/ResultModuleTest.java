@@ -24,6 +24,7 @@
 
 package com.codepine.api.testrail.internal;
 
+import com.codepine.api.testrail.FieldSchema;
 import com.codepine.api.testrail.model.CaseField;
 import com.codepine.api.testrail.model.Field;
 import com.codepine.api.testrail.model.Result;
@@ -89,4 +90,64 @@ public class ResultModuleTest {
         Result expectedResult = new Result().setId(11).setTestId(48).setStatusId(1).setCreatedBy(1).setCreatedOn(new Date(1425687075000L)).addCustomField("step_results", stepResults);
         assertEquals(expectedResult, actualResult);
     }
+
+    @Test
+    public void G_resultFieldSchemaWithStepResults_W_resultStringWithCustomStepResultsField_T_correctDeserializationAndStepResultsField() throws IOException {
+        // GIVEN
+        ResultField stepResultField = objectMapper.readValue(this.getClass().getResourceAsStream("/step_result_field.json"), ResultField.class);
+        FieldSchema<ResultField> resultFieldSchema = FieldSchema.of(Collections.singletonList(stepResultField));
+
+        // WHEN
+        Result actualResult = objectMapper.reader(Result.class).with(new InjectableValues.Std().addValue(Result.class.toString(), resultFieldSchema)).readValue(this.getClass().getResourceAsStream("/result_with_step_result_field_set.json"));
+
+        // THEN
+        List<Field.StepResult> stepResults = Arrays.asList(new Field.StepResult().setContent("Step 1").setExpected("Expected 1").setActual("Expected 2").setStatusId(4), new Field.StepResult().setContent("Step 2").setExpected("Expected 2").setActual("Unexpected").setStatusId(3));
+        Result expectedResult = new Result().setId(11).setTestId(48).setStatusId(1).setCreatedBy(1).setCreatedOn(new Date(1425687075000L)).addCustomField("step_results", stepResults);
+        assertEquals(expectedResult, actualResult);
+    }
+
+    @Test
+    public void G_resultFieldSchemaWithSeveralTypes_W_resultStringWithCustomFields_T_customFieldsDecodedToTheirTypes() throws IOException {
+        // GIVEN
+        FieldSchema<ResultField> resultFieldSchema = FieldSchema.of(Arrays.asList(field(1, 11, "step_results"), field(2, 2, "points"), field(3, 12, "platforms")));
+        String resultJson = "{\"id\": 11, \"test_id\": 48, \"custom_step_results\": [{\"content\": \"Step 1\", \"expected\": \"Expected 1\", \"actual\": \"Actual 1\", \"status_id\": 1}], "
+                + "\"custom_points\": 5, \"custom_platforms\": [\"linux\", \"windows\"]}";
+
+        // WHEN
+        Result actualResult = objectMapper.reader(Result.class).with(new InjectableValues.Std().addValue(Result.class.toString(), resultFieldSchema)).readValue(resultJson);
+
+        // THEN
+        assertEquals(Collections.singletonList(new Field.StepResult().setContent("Step 1").setExpected("Expected 1").setActual("Actual 1").setStatusId(1)), actualResult.getCustomField("step_results"));
+        assertEquals(Integer.valueOf(5), actualResult.getCustomField("points"));
+        assertEquals(Arrays.asList("linux", "windows"), actualResult.getCustomField("platforms"));
+        assertEquals(3, actualResult.getCustomFields().size());
+    }
+
+    @Test
+    public void G_resultFieldSchema_W_resultStringWithUnknownNonCustomField_T_unknownFieldSkipped() throws IOException {
+        // GIVEN
+        FieldSchema<ResultField> resultFieldSchema = FieldSchema.of(Collections.singletonList(field(2, 2, "points")));
+        String resultJson = "{\"id\": 11, \"added_in_a_later_version\": {\"nested\": [1, 2]}, \"custom_points\": 5}";
+
+        // WHEN
+        Result actualResult = objectMapper.reader(Result.class).with(new InjectableValues.Std().addValue(Result.class.toString(), resultFieldSchema)).readValue(resultJson);
+
+        // THEN
+        assertEquals(Collections.<String, Object>singletonMap("points", 5), actualResult.getCustomFields());
+    }
+
+    @Test(expected = UnknownCustomFieldException.class)
+    public void G_resultFieldSchemaWithoutField_W_resultStringWithThatCustomField_T_unknownCustomFieldException() throws IOException {
+        // GIVEN
+        FieldSchema<ResultField> resultFieldSchema = FieldSchema.of(Collections.singletonList(field(2, 2, "points")));
+        String resultJson = "{\"id\": 11, \"custom_points\": 5, \"custom_platforms\": [\"linux\"]}";
+
+        // WHEN
+        objectMapper.reader(Result.class).with(new InjectableValues.Std().addValue(Result.class.toString(), resultFieldSchema)).readValue(resultJson);
+    }
+
+    private static ResultField field(int id, int typeId, String name) throws IOException {
+        return objectMapper.readValue("{\"id\": " + id + ", \"type_id\": " + typeId + ", \"name\": \"" + name + "\", \"system_name\": \"custom_" + name + "\", "
+                + "\"configs\": [{\"context\": {\"is_global\": true, \"project_ids\": []}, \"options\": {}}]}", ResultField.class);
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.internal;
+
+import com.codepine.api.testrail.FieldSchema;
+import com.codepine.api.testrail.model.CaseField;
+import com.codepine.api.testrail.model.Field;
+import com.fasterxml.jackson.databind.InjectableValues;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link com.codepine.api.testrail.internal.TestModule}.
+ * <p>This test does not use mocks. It has some dependencies which it assumes are tested separately.</p>
+ */
+public class TestModuleTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategy.CAMEL_CASE_TO_LOWER_CASE_WITH_UNDERSCORES)
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .registerModules(new TestModule(), new UnixTimestampModule());
+
+    @Test
+    public void G_noCaseFieldSchema_W_testStringWithCustomStepsField_T_untypedStepsField() throws IOException {
+        // WHEN
+        com.codepine.api.testrail.model.Test actualTest = objectMapper.readValue(this.getClass().getResourceAsStream("/test_with_step_field_set.json"), com.codepine.api.testrail.model.Test.class);
+
+        // THEN
+        List<?> steps = actualTest.getCustomField("separated_steps");
+        assertEquals(2, steps.size());
+        assertTrue(steps.get(0) instanceof Map);
+    }
+
+    @Test
+    public void G_caseFieldSchemaWithSteps_W_testStringWithCustomStepsField_T_typedStepsField() throws IOException {
+        // GIVEN
+        CaseField stepField = objectMapper.readValue(this.getClass().getResourceAsStream("/step_field.json"), CaseField.class);
+        FieldSchema<CaseField> caseFieldSchema = FieldSchema.of(Collections.singletonList(stepField));
+
+        // WHEN
+        com.codepine.api.testrail.model.Test actualTest = objectMapper.reader(com.codepine.api.testrail.model.Test.class).with(new InjectableValues.Std().addValue(com.codepine.api.testrail.model.Test.class.toString(), caseFieldSchema)).readValue(this.getClass().getResourceAsStream("/test_with_step_field_set.json"));
+
+        // THEN
+        List<Field.Step> steps = Arrays.asList(new Field.Step().setContent("Step 1").setExpected("Expected 1"), new Field.Step().setContent("Step 2").setExpected("Expected 2"));
+        assertEquals(steps, actualTest.getCustomField("separated_steps"));
+    }
+
+    @Test
+    public void G_lazyCaseFieldSchemaWithSteps_W_testStringWithCustomStepsField_T_stepsFieldDecodedOnceOnRead() throws IOException {
+        // GIVEN
+        CaseField stepField = objectMapper.readValue(this.getClass().getResourceAsStream("/step_field.json"), CaseField.class);
+        FieldSchema<CaseField> caseFieldSchema = FieldSchema.of(Collections.singletonList(stepField)).lazy();
+
+        // WHEN
+        com.codepine.api.testrail.model.Test actualTest = objectMapper.reader(com.codepine.api.testrail.model.Test.class).with(new InjectableValues.Std().addValue(com.codepine.api.testrail.model.Test.class.toString(), caseFieldSchema)).readValue(this.getClass().getResourceAsStream("/test_with_step_field_set.json"));
+
+        // THEN
+        List<Field.Step> steps = Arrays.asList(new Field.Step().setContent("Step 1").setExpected("Expected 1"), new Field.Step().setContent("Step 2").setExpected("Expected 2"));
+        List<Field.Step> actualSteps = actualTest.getCustomField("separated_steps");
+        assertEquals(steps, actualSteps);
+        assertSame(actualSteps, actualTest.getCustomFields().get("separated_steps"));
+    }
+}
@@ -0,0 +1,503 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.standin;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import lombok.NonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.UUID;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Generator of TestRail payloads at any scale, for benchmarks and for the {@link StandInServer}.
+ * <p>Output is deterministic: the same seed and arguments always produce the same entities, independently of the order
+ * they are generated in, so results can be compared across releases. Entities are generated lazily one at a time, so
+ * writing a million cases does not hold them in memory; {@link #populate(StandInState, int, int) loading} them into a
+ * stand-in does.</p>
+ * <p>Generated cases and tests carry the custom fields described by {@link #caseFields()}: a text field
+ * {@code custom_preconds}, a steps field {@code custom_separated_steps} and a dropdown field {@code custom_automation}.
+ * Generated results carry the step results field described by {@link #resultFields()}.</p>
+ * <p>IDs follow a fixed layout: project 1 with suite 1, sections of {@value #CASES_PER_SECTION} cases numbered from 1,
+ * and tests and results numbered from the first ID passed.</p>
+ */
+public final class FixtureGenerator {
+
+    /**
+     * The number of cases generated in each section.
+     */
+    public static final int CASES_PER_SECTION = 100;
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final long FIRST_CREATED_ON = 1420070400L;
+    private static final String[] WORDS = {"login", "user", "checkout", "cart", "search", "report", "admin", "profile", "password",
+            "invoice", "export", "import", "dashboard", "filter", "session", "timeout", "upload", "payment", "refund", "audit"};
+    private static final String[] VERBS = {"Verify", "Ensure", "Check", "Validate", "Confirm"};
+    private static final int[] RESULT_STATUSES = {1, 1, 1, 1, 1, 1, 5, 5, 2, 4};
+
+    private static final int SECTION = 1;
+    private static final int CASE = 2;
+    private static final int TEST = 3;
+    private static final int RESULT = 4;
+    private static final int RUN = 5;
+    private static final int PLAN = 6;
+
+    private final long seed;
+    private final int stepsPerCase;
+
+    private FixtureGenerator(final Builder builder) {
+        seed = builder.seed;
+        stepsPerCase = builder.stepsPerCase;
+    }
+
+    /**
+     * Get a builder for a fixture generator.
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Write a fixture file, for e.g. {@code FixtureGenerator cases 1000000 cases.json}.
+     *
+     * @param args the kind of entities, i.e. {@code cases}, {@code tests}, {@code results} or {@code plans}, their number and the file to write
+     * @throws IOException if the file could not be written
+     */
+    public static void main(String[] args) throws IOException {
+        checkArgument(args.length == 3, "Usage: FixtureGenerator cases|tests|results|plans <count> <file>");
+        FixtureGenerator generator = builder().build();
+        int count = Integer.parseInt(args[1]);
+        Iterable<ObjectNode> entities;
+        switch (args[0]) {
+            case "cases":
+                entities = generator.cases(count);
+                break;
+            case "tests":
+                entities = generator.tests(1, 1, count, count);
+                break;
+            case "results":
+                entities = generator.results(1, count, 1, count);
+                break;
+            case "plans":
+                entities = generator.plans(count, 500);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown kind of entities " + args[0]);
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(args[2]), 1 << 16)) {
+            write(entities, out);
+        }
+    }
+
+    /**
+     * Write entities as a JSON array, the way TestRail returns lists.
+     *
+     * @param entities the entities
+     * @param out      the stream to write to, which is not closed
+     * @throws IOException if the entities could not be written
+     */
+    public static void write(@NonNull final Iterable<ObjectNode> entities, @NonNull final OutputStream out) throws IOException {
+        JsonGenerator generator = JSON.getFactory().createGenerator(out);
+        generator.writeStartArray();
+        for (ObjectNode entity : entities) {
+            JSON.writeTree(generator, entity);
+        }
+        generator.writeEndArray();
+        generator.flush();
+    }
+
+    /**
+     * Write entities as a JSON array into memory.
+     *
+     * @param entities the entities
+     * @return the UTF-8 encoded JSON array
+     */
+    public static byte[] toByteArray(@NonNull final Iterable<ObjectNode> entities) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(entities, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Load a project with cases and one run with tests for them into a stand-in, along with the custom field definitions.
+     * The project, its suite and the run all have ID 1.
+     *
+     * @param state     the state of the stand-in
+     * @param caseCount the number of cases
+     * @param testCount the number of tests in the run, cycling through the cases if there are more tests than cases
+     */
+    public void populate(@NonNull final StandInState state, final int caseCount, final int testCount) {
+        checkArgument(caseCount > 0, "caseCount should be positive");
+        checkArgument(testCount >= 0, "testCount should not be negative");
+        for (ObjectNode field : caseFields()) {
+            state.insert(StandInState.Table.CASE_FIELDS, field);
+        }
+        for (ObjectNode field : resultFields()) {
+            state.insert(StandInState.Table.RESULT_FIELDS, field);
+        }
+        state.insert(StandInState.Table.PROJECTS, NODES.objectNode().put("id", 1).put("name", "Fixture").put("suite_mode", 1).put("is_completed", false));
+        state.insert(StandInState.Table.SUITES, NODES.objectNode().put("id", 1).put("name", "Master").put("project_id", 1));
+        for (ObjectNode section : sections(caseCount)) {
+            state.insert(StandInState.Table.SECTIONS, section);
+        }
+        for (ObjectNode testCase : cases(caseCount)) {
+            state.insert(StandInState.Table.CASES, testCase);
+        }
+        state.insert(StandInState.Table.RUNS, run(1, null, null).put("project_id", 1));
+        for (ObjectNode test : tests(1, 1, testCount, caseCount)) {
+            state.insert(StandInState.Table.TESTS, test);
+        }
+    }
+
+    /**
+     * Get the definitions of the custom case fields generated cases and tests carry.
+     *
+     * @return the case fields
+     */
+    public List<ObjectNode> caseFields() {
+        ObjectNode automation = field(3, 6, "automation", "Automation");
+        ((ObjectNode) automation.get("configs").get(0).get("options")).put("items", "1, None\n2, To Be Automated\n3, Automated");
+        return ImmutableList.of(field(1, 3, "preconds", "Preconditions"), field(2, 10, "separated_steps", "Steps"), automation);
+    }
+
+    /**
+     * Get the definitions of the custom result fields generated results carry.
+     *
+     * @return the result fields
+     */
+    public List<ObjectNode> resultFields() {
+        return ImmutableList.of(field(4, 11, "step_results", "Step Results"));
+    }
+
+    /**
+     * Generate the sections holding a number of cases.
+     *
+     * @param caseCount the number of cases
+     * @return the sections
+     */
+    public Iterable<ObjectNode> sections(final int caseCount) {
+        return new Generated(SECTION, 1, (caseCount + CASES_PER_SECTION - 1) / CASES_PER_SECTION) {
+            @Override
+            ObjectNode generate(int index, Random random) {
+                int id = index + 1;
+                return NODES.objectNode().put("id", id).put("suite_id", 1).put("name", title(random, 3)).putNull("parent_id")
+                        .put("depth", 0).put("display_order", id).put("description", sentence(random, 8));
+            }
+        };
+    }
+
+    /**
+     * Generate cases with IDs from 1, each with {@code stepsPerCase} steps.
+     *
+     * @param count the number of cases
+     * @return the cases
+     */
+    public Iterable<ObjectNode> cases(final int count) {
+        return new Generated(CASE, 1, count) {
+            @Override
+            ObjectNode generate(int index, Random random) {
+                int id = index + 1;
+                long createdOn = FIRST_CREATED_ON + index * 60L;
+                ObjectNode testCase = NODES.objectNode().put("id", id).put("title", title(random, 5)).put("section_id", index / CASES_PER_SECTION + 1)
+                        .put("template_id", 2).put("type_id", 1 + random.nextInt(12)).put("priority_id", 1 + random.nextInt(4));
+                putMilestone(testCase, random);
+                testCase.put("refs", "REQ-" + (1 + random.nextInt(5000))).put("created_by", 1 + random.nextInt(20)).put("created_on", createdOn)
+                        .put("updated_by", 1 + random.nextInt(20)).put("updated_on", createdOn + random.nextInt(86400 * 365))
+                        .put("estimate", estimate(random)).putNull("estimate_forecast").put("suite_id", 1);
+                putCustomCaseFields(testCase, random);
+                return testCase;
+            }
+        };
+    }
+
+    /**
+     * Generate tests of a run, for the cases with IDs from 1.
+     *
+     * @param runId     the ID of the run
+     * @param firstId   the ID of the first test
+     * @param count     the number of tests
+     * @param caseCount the number of cases the tests cycle through
+     * @return the tests
+     */
+    public Iterable<ObjectNode> tests(final int runId, final int firstId, final int count, final int caseCount) {
+        checkArgument(caseCount > 0, "caseCount should be positive");
+        return new Generated(TEST, firstId, count) {
+            @Override
+            ObjectNode generate(int index, Random random) {
+                ObjectNode test = NODES.objectNode().put("id", firstId + index).put("case_id", index % caseCount + 1)
+                        .put("status_id", RESULT_STATUSES[random.nextInt(RESULT_STATUSES.length)]);
+                if (random.nextBoolean()) {
+                    test.put("assignedto_id", 1 + random.nextInt(20));
+                } else {
+                    test.putNull("assignedto_id");
+                }
+                test.put("run_id", runId).put("title", title(random, 5)).put("template_id", 2).put("type_id", 1 + random.nextInt(12))
+                        .put("priority_id", 1 + random.nextInt(4)).put("estimate", estimate(random)).putNull("estimate_forecast")
+                        .put("refs", "REQ-" + (1 + random.nextInt(5000)));
+                putMilestone(test, random);
+                putCustomCaseFields(test, random);
+                return test;
+            }
+        };
+    }
+
+    /**
+     * Generate results, each with a step result for every step.
+     *
+     * @param firstId     the ID of the first result
+     * @param count       the number of results
+     * @param firstTestId the ID of the first test the results are for
+     * @param testCount   the number of tests the results cycle through
+     * @return the results
+     */
+    public Iterable<ObjectNode> results(final int firstId, final int count, final int firstTestId, final int testCount) {
+        checkArgument(testCount > 0, "testCount should be positive");
+        return new Generated(RESULT, firstId, count) {
+            @Override
+            ObjectNode generate(int index, Random random) {
+                int statusId = RESULT_STATUSES[random.nextInt(RESULT_STATUSES.length)];
+                ObjectNode result = NODES.objectNode().put("id", firstId + index).put("test_id", firstTestId + index % testCount).put("status_id", statusId)
+                        .put("created_by", 1 + random.nextInt(20)).put("created_on", FIRST_CREATED_ON + index * 30L).putNull("assignedto_id")
+                        .put("comment", sentence(random, 12)).put("version", "build-" + (1000 + random.nextInt(9000))).put("elapsed", estimate(random))
+                        .put("defects", statusId == 5 ? "BUG-" + (1 + random.nextInt(10000)) : null);
+                ArrayNode stepResults = result.putArray("custom_step_results");
+                for (int step = 1; step <= stepsPerCase; step++) {
+                    stepResults.addObject().put("content", "Step " + step + ": " + sentence(random, 6)).put("expected", sentence(random, 6))
+                            .put("actual", sentence(random, 6)).put("status_id", step < stepsPerCase ? 1 : statusId);
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Generate plans of project 1, each with entries of one run.
+     *
+     * @param count          the number of plans
+     * @param entriesPerPlan the number of entries of each plan
+     * @return the plans
+     */
+    public Iterable<ObjectNode> plans(final int count, final int entriesPerPlan) {
+        return new Generated(PLAN, 1, count) {
+            @Override
+            ObjectNode generate(int index, Random random) {
+                int id = index + 1;
+                ObjectNode plan = NODES.objectNode().put("id", id).put("name", "Release " + id + " " + title(random, 2)).put("description", sentence(random, 10));
+                putMilestone(plan, random);
+                plan.putNull("assignedto_id").put("is_completed", false).putNull("completed_on").put("passed_count", random.nextInt(1000))
+                        .put("blocked_count", random.nextInt(10)).put("untested_count", random.nextInt(500)).put("retest_count", random.nextInt(10))
+                        .put("failed_count", random.nextInt(100)).put("project_id", 1).put("created_on", FIRST_CREATED_ON + index * 3600L)
+                        .put("created_by", 1 + random.nextInt(20)).put("url", "http://stand-in/index.php?/plans/view/" + id);
+                ArrayNode entries = plan.putArray("entries");
+                for (int entry = 0; entry < entriesPerPlan; entry++) {
+                    String entryId = new UUID(random.nextLong(), random.nextLong()).toString();
+                    ObjectNode planEntry = entries.addObject().put("id", entryId).put("suite_id", 1).put("name", title(random, 3));
+                    planEntry.putArray("runs").add(run(index * entriesPerPlan + entry + 1, id, entryId).put("entry_index", entry + 1));
+                }
+                return plan;
+            }
+        };
+    }
+
+    private ObjectNode run(final int id, final Integer planId, final String entryId) {
+        Random random = random(RUN, id);
+        ObjectNode run = NODES.objectNode().put("id", id).put("suite_id", 1).put("name", title(random, 3)).putNull("description").putNull("milestone_id")
+                .putNull("assignedto_id").put("include_all", true).put("is_completed", false).putNull("completed_on")
+                .put("passed_count", random.nextInt(200)).put("blocked_count", random.nextInt(5)).put("untested_count", random.nextInt(100))
+                .put("retest_count", random.nextInt(5)).put("failed_count", random.nextInt(20)).put("project_id", 1)
+                .put("created_on", FIRST_CREATED_ON + id * 600L).put("created_by", 1 + random.nextInt(20))
+                .put("url", "http://stand-in/index.php?/runs/view/" + id);
+        if (planId != null) {
+            run.put("plan_id", planId).put("entry_id", entryId).put("config", "Chrome, Linux");
+            run.putArray("config_ids").add(1).add(4);
+        } else {
+            run.putNull("plan_id");
+        }
+        return run;
+    }
+
+    private void putCustomCaseFields(final ObjectNode entity, final Random random) {
+        entity.put("custom_preconds", sentence(random, 15)).put("custom_automation", 1 + random.nextInt(3));
+        ArrayNode steps = entity.putArray("custom_separated_steps");
+        for (int step = 1; step <= stepsPerCase; step++) {
+            steps.addObject().put("content", "Step " + step + ": " + sentence(random, 8)).put("expected", sentence(random, 8));
+        }
+    }
+
+    private static void putMilestone(final ObjectNode entity, final Random random) {
+        if (random.nextInt(4) == 0) {
+            entity.putNull("milestone_id");
+        } else {
+            entity.put("milestone_id", 1 + random.nextInt(50));
+        }
+    }
+
+    private static ObjectNode field(final int id, final int typeId, final String name, final String label) {
+        ObjectNode field = NODES.objectNode().put("id", id).put("type_id", typeId).put("name", name).put("system_name", "custom_" + name)
+                .put("label", label).putNull("description").put("display_order", id);
+        ObjectNode config = field.putArray("configs").addObject();
+        config.putObject("context").put("is_global", true).putArray("project_ids");
+        config.putObject("options").put("is_required", false);
+        config.put("id", new UUID(id, typeId).toString());
+        return field;
+    }
+
+    private static String title(final Random random, final int words) {
+        StringBuilder title = new StringBuilder(VERBS[random.nextInt(VERBS.length)]);
+        for (int i = 0; i < words; i++) {
+            title.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return title.toString();
+    }
+
+    private static String sentence(final Random random, final int words) {
+        StringBuilder sentence = new StringBuilder(words * 8);
+        for (int i = 0; i < words; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            sentence.append(i == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : " " + word);
+        }
+        return sentence.append('.').toString();
+    }
+
+    private static String estimate(final Random random) {
+        return (1 + random.nextInt(30)) + "m " + random.nextInt(60) + "s";
+    }
+
+    private Random random(final int kind, final int id) {
+        return new Random(seed * 0x9E3779B97F4A7C15L + ((long) kind << 32) + id);
+    }
+
+    /**
+     * Entities generated one at a time as they are iterated, each from a random sequence of its own kind and ID.
+     */
+    private abstract class Generated implements Iterable<ObjectNode> {
+
+        private final int kind;
+        private final int firstId;
+        private final int count;
+
+        Generated(final int kind, final int firstId, final int count) {
+            checkArgument(count >= 0, "count should not be negative");
+            this.kind = kind;
+            this.firstId = firstId;
+            this.count = count;
+        }
+
+        abstract ObjectNode generate(int index, Random random);
+
+        @Override
+        public Iterator<ObjectNode> iterator() {
+            return new Iterator<ObjectNode>() {
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < count;
+                }
+
+                @Override
+                public ObjectNode next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    ObjectNode entity = generate(index, random(kind, firstId + index));
+                    index++;
+                    return entity;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+
+    /**
+     * Builder for {@link FixtureGenerator}.
+     */
+    public static final class Builder {
+
+        private long seed = 42;
+        private int stepsPerCase = 5;
+
+        private Builder() {
+        }
+
+        /**
+         * Set the seed of the generated values. Defaults to 42.
+         *
+         * @param seed the seed
+         * @return this builder
+         */
+        public Builder seed(final long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Set the number of steps of each case and step results of each result. Defaults to 5.
+         *
+         * @param stepsPerCase the number of steps
+         * @return this builder
+         * @throws IllegalArgumentException if stepsPerCase is negative
+         */
+        public Builder stepsPerCase(final int stepsPerCase) {
+            checkArgument(stepsPerCase >= 0, "stepsPerCase should not be negative");
+            this.stepsPerCase = stepsPerCase;
+            return this;
+        }
+
+        /**
+         * Build a fixture generator.
+         *
+         * @return the generator
+         */
+        public FixtureGenerator build() {
+            return new FixtureGenerator(this);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.standin;
+
+import com.codepine.api.testrail.TestRail;
+import com.codepine.api.testrail.model.Case;
+import com.codepine.api.testrail.model.Field;
+import com.codepine.api.testrail.model.Plan;
+import com.codepine.api.testrail.model.Result;
+import com.codepine.api.testrail.model.Test;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.Iterables;
+import org.junit.After;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests for {@link FixtureGenerator}.
+ */
+public class FixtureGeneratorTest {
+
+    private StandInServer server;
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @org.junit.Test
+    public void G_sameSeed_W_generate_T_sameEntities() {
+        // GIVEN
+        FixtureGenerator first = FixtureGenerator.builder().seed(7).build();
+        FixtureGenerator second = FixtureGenerator.builder().seed(7).build();
+
+        // WHEN
+        byte[] firstCases = FixtureGenerator.toByteArray(first.cases(50));
+        byte[] secondCases = FixtureGenerator.toByteArray(second.cases(50));
+
+        // THEN
+        assertArrayEquals(firstCases, secondCases);
+    }
+
+    @org.junit.Test
+    public void G_largerScale_W_generate_T_sharedEntitiesUnchanged() {
+        // GIVEN
+        FixtureGenerator generator = FixtureGenerator.builder().build();
+
+        // WHEN
+        ObjectNode fromSmall = Iterables.getLast(generator.tests(1, 1, 10, 10));
+        ObjectNode fromLarge = Iterables.get(generator.tests(1, 1, 1000, 10), 9);
+
+        // THEN
+        assertEquals(fromSmall, fromLarge);
+    }
+
+    @org.junit.Test
+    public void G_differentSeeds_W_generate_T_differentEntities() {
+        // GIVEN
+        FixtureGenerator first = FixtureGenerator.builder().seed(1).build();
+        FixtureGenerator second = FixtureGenerator.builder().seed(2).build();
+
+        // WHEN
+        ObjectNode firstCase = first.cases(1).iterator().next();
+        ObjectNode secondCase = second.cases(1).iterator().next();
+
+        // THEN
+        assertFalse(firstCase.equals(secondCase));
+    }
+
+    @org.junit.Test
+    public void G_populatedStandIn_W_readWithClient_T_customFieldsDecoded() throws IOException {
+        // GIVEN
+        FixtureGenerator generator = FixtureGenerator.builder().stepsPerCase(3).build();
+        server = StandInServer.builder().build();
+        generator.populate(server.getState(), 250, 400);
+        TestRail testRail = TestRail.builder(server.getEndPoint(), "user", "password").build();
+
+        // WHEN
+        List<Case> cases = testRail.cases().list(1, 1).execute();
+        List<Test> tests = testRail.tests().list(1).execute();
+
+        // THEN
+        assertEquals(250, cases.size());
+        assertEquals(400, tests.size());
+        List<Field.Step> steps = cases.get(0).getCustomField("separated_steps");
+        assertEquals(3, steps.size());
+        assertEquals(cases.get(0).getCustomField("preconds"), server.getState().get(StandInState.Table.CASES, 1).get("custom_preconds").asText());
+        assertEquals(Integer.valueOf(3), Integer.valueOf(tests.get(0).<List<Field.Step>>getCustomField("separated_steps").size()));
+    }
+
+    @org.junit.Test
+    public void G_writtenResultsAndPlans_W_insertAll_T_readWithClient() throws IOException {
+        // GIVEN
+        FixtureGenerator generator = FixtureGenerator.builder().build();
+        server = StandInServer.builder().build();
+        generator.populate(server.getState(), 10, 10);
+
+        // WHEN
+        server.getState().insertAll(StandInState.Table.RESULTS, new ByteArrayInputStream(FixtureGenerator.toByteArray(generator.results(1, 30, 1, 10))));
+        server.getState().insertAll(StandInState.Table.PLANS, new ByteArrayInputStream(FixtureGenerator.toByteArray(generator.plans(2, 20))));
+        TestRail testRail = TestRail.builder(server.getEndPoint(), "user", "password").build();
+
+        // THEN
+        List<Result> results = testRail.results().list(1).execute();
+        assertEquals(3, results.size());
+        assertEquals(5, results.get(0).<List<Field.StepResult>>getCustomField("step_results").size());
+        Plan plan = testRail.plans().get(2).execute();
+        assertEquals(20, plan.getEntries().size());
+        assertEquals(Integer.valueOf(2), plan.getEntries().get(0).getRuns().get(0).getPlanId());
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.standin;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Value;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Local stand-in for a TestRail instance, serving the API v2 calls covered by the client over real sockets from
+ * {@link StandInState in-memory state}.
+ * <p>Latency, server errors and rate limiting can be injected to see how the client behaves against a slow or overloaded
+ * TestRail. Point a client at {@link #getEndPoint()} with any username and password:</p>
+ * <pre>
+ * try (StandInServer server = StandInServer.builder().latency(5, 20, TimeUnit.MILLISECONDS).build()) {
+ *     TestRail testRail = TestRail.builder(server.getEndPoint(), "user", "password").build();
+ *     ......
+ * }
+ * </pre>
+ * <p>Requests which cannot be handled are answered like TestRail does, with an {@code {"error": ...}} body: {@code 400} for
+ * invalid JSON or arguments, and {@code 500} for failures of the stand-in itself.</p>
+ */
+public final class StandInServer implements Closeable {
+
+    private static final String API_PREFIX = "/api/v2/";
+
+    static {
+        // the JDK server writes headers and body separately, so without TCP_NODELAY responses wait for delayed ACKs
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final StandInState state = new StandInState(objectMapper);
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long minLatencyNanos;
+    private final long maxLatencyNanos;
+    private final double errorRate;
+    private final double permitsPerSecond;
+    private final Random random;
+
+    private final Set<InetSocketAddress> connections = Collections.newSetFromMap(new ConcurrentHashMap<InetSocketAddress, Boolean>());
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private double permits;
+    private long lastRefillNanos = System.nanoTime();
+
+    private StandInServer(final Builder builder) throws IOException {
+        minLatencyNanos = builder.minLatencyNanos;
+        maxLatencyNanos = builder.maxLatencyNanos;
+        errorRate = builder.errorRate;
+        permitsPerSecond = builder.permitsPerSecond;
+        permits = Math.max(1, permitsPerSecond);
+        random = new Random(builder.seed);
+        executor = Executors.newFixedThreadPool(builder.threads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "testrail-stand-in-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), builder.port), builder.threads);
+        server.createContext("/", new Handler());
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Get a builder for a stand-in server.
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get the URL to pass to {@code TestRail.builder} to send requests to this server.
+     *
+     * @return the end point
+     */
+    public String getEndPoint() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * Get the state answering the requests, to load fixtures into or to inspect what the client did.
+     *
+     * @return the state
+     */
+    public StandInState getState() {
+        return state;
+    }
+
+    /**
+     * Get a snapshot of the statistics of this server.
+     *
+     * @return the statistics
+     */
+    public Stats getStats() {
+        return new Stats(requests.get(), injectedErrors.get(), rateLimited.get(), connections.size());
+    }
+
+    /**
+     * Stop the server, closing all connections.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private synchronized boolean tryAcquirePermit() {
+        if (permitsPerSecond <= 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        permits = Math.min(Math.max(1, permitsPerSecond), permits + (now - lastRefillNanos) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+        if (permits < 1) {
+            return false;
+        }
+        permits--;
+        return true;
+    }
+
+    private synchronized long nextLatencyNanos() {
+        return minLatencyNanos + (long) (random.nextDouble() * (maxLatencyNanos - minLatencyNanos));
+    }
+
+    private synchronized boolean nextIsError() {
+        return errorRate > 0 && random.nextDouble() < errorRate;
+    }
+
+    /**
+     * Statistics of a stand-in server.
+     */
+    @Value
+    public static class Stats {
+        /**
+         * The number of requests received.
+         */
+        long requests;
+        /**
+         * The number of requests answered with an injected server error.
+         */
+        long injectedErrors;
+        /**
+         * The number of requests answered with 429 Too Many Requests.
+         */
+        long rateLimited;
+        /**
+         * The number of distinct client connections requests were received on.
+         */
+        int connections;
+    }
+
+    private class Handler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                requests.incrementAndGet();
+                connections.add(exchange.getRemoteAddress());
+                byte[] requestBody;
+                try (InputStream in = exchange.getRequestBody()) {
+                    requestBody = ByteStreams.toByteArray(in);
+                }
+                long latencyNanos = nextLatencyNanos();
+                if (latencyNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(latencyNanos);
+                }
+                StandInState.Response response;
+                try {
+                    response = answer(exchange, requestBody);
+                } catch (JsonProcessingException e) {
+                    response = StandInState.Response.error(400, "Invalid JSON in request body: " + e.getOriginalMessage());
+                } catch (RuntimeException e) {
+                    response = StandInState.Response.error(500, "Stand-in failed to handle the request: " + e);
+                }
+                byte[] body = response.getBody() != null ? objectMapper.writeValueAsBytes(response.getBody()) : new byte[0];
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(response.getStatus(), body.length == 0 ? -1 : body.length);
+                if (body.length > 0) {
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private StandInState.Response answer(HttpExchange exchange, byte[] requestBody) throws IOException {
+            String query = exchange.getRequestURI().getRawQuery();
+            if (query == null || !query.startsWith(API_PREFIX)) {
+                return StandInState.Response.error(404, "Not found");
+            }
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || !authorization.startsWith("Basic ")) {
+                return StandInState.Response.error(401, "Authentication failed: invalid or missing user/password or session cookie.");
+            }
+            if (!tryAcquirePermit()) {
+                rateLimited.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                return StandInState.Response.error(429, "API Rate Limit Exceeded");
+            }
+            if (nextIsError()) {
+                injectedErrors.incrementAndGet();
+                return StandInState.Response.error(500, "Injected server error");
+            }
+            JsonNode body = requestBody.length > 0 ? objectMapper.readTree(requestBody) : null;
+            return state.handle(exchange.getRequestMethod(), query.substring(API_PREFIX.length()), body);
+        }
+    }
+
+    /**
+     * Builder for {@link StandInServer}.
+     */
+    public static final class Builder {
+
+        private int port;
+        private int threads = 32;
+        private long minLatencyNanos;
+        private long maxLatencyNanos;
+        private double errorRate;
+        private double permitsPerSecond;
+        private long seed;
+
+        private Builder() {
+        }
+
+        /**
+         * Set the port to listen on. Defaults to 0, i.e. any free port.
+         *
+         * @param port the port
+         * @return this builder
+         * @throws IllegalArgumentException if port is negative
+         */
+        public Builder port(final int port) {
+            checkArgument(port >= 0, "port should not be negative");
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Set the number of threads answering requests, which bounds the number of requests served concurrently. Defaults to 32.
+         *
+         * @param threads the number of threads
+         * @return this builder
+         * @throws IllegalArgumentException if threads is not positive
+         */
+        public Builder threads(final int threads) {
+            checkArgument(threads > 0, "threads should be positive");
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Delay every response by a uniformly distributed time between a minimum and a maximum. Defaults to no delay.
+         *
+         * @param min  the minimum delay
+         * @param max  the maximum delay
+         * @param unit the unit of min and max
+         * @return this builder
+         * @throws IllegalArgumentException if min is negative or greater than max
+         */
+        public Builder latency(final long min, final long max, final TimeUnit unit) {
+            checkArgument(min >= 0 && min <= max, "min should not be negative nor greater than max");
+            this.minLatencyNanos = unit.toNanos(min);
+            this.maxLatencyNanos = unit.toNanos(max);
+            return this;
+        }
+
+        /**
+         * Answer a random fraction of the requests with 500 Internal Server Error. Defaults to 0.
+         *
+         * @param errorRate the fraction of requests failing, between 0 and 1
+         * @return this builder
+         * @throws IllegalArgumentException if errorRate is not between 0 and 1
+         */
+        public Builder errorRate(final double errorRate) {
+            checkArgument(errorRate >= 0 && errorRate <= 1, "errorRate should be between 0 and 1");
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        /**
+         * Answer requests beyond a rate with 429 Too Many Requests and a {@code Retry-After} header, the way TestRail Cloud
+         * does. Defaults to 0, i.e. no limit.
+         *
+         * @param permitsPerSecond the number of requests allowed per second, with a burst of as many requests
+         * @return this builder
+         * @throws IllegalArgumentException if permitsPerSecond is negative
+         */
+        public Builder rateLimit(final double permitsPerSecond) {
+            checkArgument(permitsPerSecond >= 0, "permitsPerSecond should not be negative");
+            this.permitsPerSecond = permitsPerSecond;
+            return this;
+        }
+
+        /**
+         * Set the seed of the random latencies and errors, to make runs repeatable. Defaults to 0.
+         *
+         * @param seed the seed
+         * @return this builder
+         */
+        public Builder seed(final long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Start a stand-in server.
+         *
+         * @return the running server
+         * @throws IOException if the server could not be started
+         */
+        public StandInServer build() throws IOException {
+            return new StandInServer(this);
+        }
+    }
+}
@@ -0,0 +1,765 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.standin;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * In-memory state of a {@link StandInServer}, answering the TestRail API v2 calls covered by the client.
+ * <p>Entities are kept as JSON trees the way TestRail returns them, so that fixtures can be loaded as they are. Stored
+ * trees are never modified; updates replace them with a modified copy, which lets responses be written outside the
+ * lock.</p>
+ * <p>Instances are thread safe.</p>
+ */
+public final class StandInState {
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+    private static final Set<String> PAGING_PARAMETERS = new HashSet<>(Arrays.asList("limit", "offset"));
+
+    private final ObjectMapper objectMapper;
+    private final Map<Table, Store> stores = new EnumMap<>(Table.class);
+
+    StandInState(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        for (Table table : Table.values()) {
+            stores.put(table, new Store(table.parentField));
+        }
+        insert(Table.USERS, object().put("name", "Stand-in User").put("email", "user@example.com").put("is_active", true));
+        String[] statuses = {"passed", "blocked", "untested", "retest", "failed"};
+        for (int i = 0; i < statuses.length; i++) {
+            insert(Table.STATUSES, object().put("name", statuses[i]).put("label", Character.toUpperCase(statuses[i].charAt(0)) + statuses[i].substring(1))
+                    .put("is_system", true).put("is_untested", i == 2).put("is_final", i != 2 && i != 3));
+        }
+        String[] priorities = {"Low", "Medium", "High", "Critical"};
+        for (int i = 0; i < priorities.length; i++) {
+            insert(Table.PRIORITIES, object().put("name", priorities[i]).put("short_name", priorities[i]).put("priority", i + 1).put("is_default", i == 1));
+        }
+        insert(Table.CASE_TYPES, object().put("name", "Functional").put("is_default", true));
+        insert(Table.CASE_TYPES, object().put("name", "Regression").put("is_default", false));
+    }
+
+    /**
+     * Tables of entities, along with the field referring to the entity each one belongs to.
+     */
+    public enum Table {
+        PROJECTS(null), SUITES("project_id"), SECTIONS("suite_id"), CASES("section_id"), MILESTONES("project_id"),
+        PLANS("project_id"), RUNS("project_id"), TESTS("run_id"), RESULTS("test_id"), USERS(null), CONFIGS("project_id"),
+        CASE_FIELDS(null), RESULT_FIELDS(null), CASE_TYPES(null), PRIORITIES(null), STATUSES(null);
+
+        private final String parentField;
+
+        Table(final String parentField) {
+            this.parentField = parentField;
+        }
+    }
+
+    /**
+     * Store an entity as it is, assigning an ID unless it already has one.
+     *
+     * @param table  the table of the entity
+     * @param entity the entity as TestRail returns it
+     * @return the ID of the entity
+     */
+    public synchronized int insert(@NonNull final Table table, @NonNull final ObjectNode entity) {
+        return stores.get(table).insert(entity);
+    }
+
+    /**
+     * Store all entities of a JSON array as they are, assigning IDs to those without one. The array is read one entity
+     * at a time, so fixtures can be larger than the memory their text would take.
+     *
+     * @param table the table of the entities
+     * @param json  the JSON array of entities, which is closed when read
+     * @return the number of entities stored
+     * @throws IOException if the JSON could not be read
+     */
+    public int insertAll(@NonNull final Table table, @NonNull final InputStream json) throws IOException {
+        int count = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array but found " + parser.getCurrentToken());
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                ObjectNode entity = objectMapper.readTree(parser);
+                insert(table, entity);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of entities in a table.
+     *
+     * @param table the table
+     * @return the number of entities
+     */
+    public synchronized int size(@NonNull final Table table) {
+        return stores.get(table).entities.size();
+    }
+
+    /**
+     * Get an entity.
+     *
+     * @param table the table of the entity
+     * @param id    the ID of the entity
+     * @return the entity, which must not be modified, or null if there is no such entity
+     */
+    public synchronized ObjectNode get(@NonNull final Table table, final int id) {
+        return stores.get(table).entities.get(id);
+    }
+
+    /**
+     * Answer an API call.
+     *
+     * @param method the HTTP method
+     * @param path   the part of the URL after {@code index.php?/api/v2/}, including query parameters
+     * @param body   the JSON body of POST requests or null
+     * @return the response
+     */
+    Response handle(final String method, final String path, final JsonNode body) {
+        String[] pathAndParameters = path.split("&");
+        String[] segments = pathAndParameters[0].split("/");
+        Map<String, String> parameters = new LinkedHashMap<>();
+        for (int i = 1; i < pathAndParameters.length; i++) {
+            int separator = pathAndParameters[i].indexOf('=');
+            if (separator > 0) {
+                parameters.put(pathAndParameters[i].substring(0, separator), decode(pathAndParameters[i].substring(separator + 1)));
+            }
+        }
+        String command = segments[0];
+        boolean read = command.startsWith("get_");
+        if (read != method.equals("GET")) {
+            return Response.error(400, "Method " + command + " requires " + (read ? "GET" : "POST"));
+        }
+        try {
+            synchronized (this) {
+                return dispatch(command, segments, parameters, body != null && body.isObject() ? (ObjectNode) body : object());
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException | ClassCastException e) {
+            return Response.error(400, "Invalid arguments for " + command);
+        }
+    }
+
+    private Response dispatch(final String command, final String[] segments, final Map<String, String> parameters, final ObjectNode body) {
+        switch (command) {
+            case "get_project":
+                return get(Table.PROJECTS, id(segments, 1), "project_id");
+            case "get_projects":
+                return list(Table.PROJECTS, null, parameters);
+            case "add_project":
+                return Response.ok(stores.get(Table.PROJECTS).add(body, null));
+            case "update_project":
+                return update(Table.PROJECTS, id(segments, 1), "project_id", body);
+            case "delete_project":
+                return delete(Table.PROJECTS, id(segments, 1), "project_id");
+            case "get_suite":
+                return get(Table.SUITES, id(segments, 1), "suite_id");
+            case "get_suites":
+                return list(Table.SUITES, id(segments, 1), parameters);
+            case "add_suite":
+                return add(Table.SUITES, Table.PROJECTS, id(segments, 1), "project_id", body);
+            case "update_suite":
+                return update(Table.SUITES, id(segments, 1), "suite_id", body);
+            case "delete_suite":
+                return delete(Table.SUITES, id(segments, 1), "suite_id");
+            case "get_section":
+                return get(Table.SECTIONS, id(segments, 1), "section_id");
+            case "get_sections":
+                return listOfProject(Table.SECTIONS, id(segments, 1), parameters);
+            case "add_section":
+                return addSection(id(segments, 1), body);
+            case "update_section":
+                return update(Table.SECTIONS, id(segments, 1), "section_id", body);
+            case "delete_section":
+                return delete(Table.SECTIONS, id(segments, 1), "section_id");
+            case "get_case":
+                return get(Table.CASES, id(segments, 1), "case_id");
+            case "get_cases":
+                return listOfProject(Table.CASES, id(segments, 1), parameters);
+            case "add_case":
+                return addCase(id(segments, 1), body);
+            case "update_case":
+                return update(Table.CASES, id(segments, 1), "case_id", body.put("updated_on", now()));
+            case "delete_case":
+                return delete(Table.CASES, id(segments, 1), "case_id");
+            case "get_milestone":
+                return get(Table.MILESTONES, id(segments, 1), "milestone_id");
+            case "get_milestones":
+                return list(Table.MILESTONES, id(segments, 1), parameters);
+            case "add_milestone":
+                return add(Table.MILESTONES, Table.PROJECTS, id(segments, 1), "project_id", body.put("is_completed", false));
+            case "update_milestone":
+                return update(Table.MILESTONES, id(segments, 1), "milestone_id", body);
+            case "delete_milestone":
+                return delete(Table.MILESTONES, id(segments, 1), "milestone_id");
+            case "get_run":
+                return get(Table.RUNS, id(segments, 1), "run_id");
+            case "get_runs":
+                return list(Table.RUNS, id(segments, 1), parameters);
+            case "add_run":
+                return addRun(id(segments, 1), body);
+            case "update_run":
+                return update(Table.RUNS, id(segments, 1), "run_id", body);
+            case "close_run":
+                return update(Table.RUNS, id(segments, 1), "run_id", object().put("is_completed", true).put("completed_on", now()));
+            case "delete_run":
+                return delete(Table.RUNS, id(segments, 1), "run_id");
+            case "get_plan":
+                return get(Table.PLANS, id(segments, 1), "plan_id");
+            case "get_plans":
+                return list(Table.PLANS, id(segments, 1), parameters);
+            case "add_plan":
+                return addPlan(id(segments, 1), body);
+            case "add_plan_entry":
+                return addPlanEntry(id(segments, 1), body);
+            case "update_plan":
+                return update(Table.PLANS, id(segments, 1), "plan_id", body);
+            case "update_plan_entry":
+                return updatePlanEntry(id(segments, 1), segments[2], body);
+            case "close_plan":
+                return update(Table.PLANS, id(segments, 1), "plan_id", object().put("is_completed", true).put("completed_on", now()));
+            case "delete_plan":
+                return delete(Table.PLANS, id(segments, 1), "plan_id");
+            case "delete_plan_entry":
+                return deletePlanEntry(id(segments, 1), segments[2]);
+            case "get_test":
+                return get(Table.TESTS, id(segments, 1), "test_id");
+            case "get_tests":
+                return list(Table.TESTS, id(segments, 1), parameters);
+            case "get_results":
+                return list(Table.RESULTS, id(segments, 1), parameters);
+            case "get_results_for_run":
+                return listResultsForRun(id(segments, 1), parameters);
+            case "get_results_for_case":
+                return listResultsForCase(id(segments, 1), id(segments, 2), parameters);
+            case "add_result":
+                return addResult(id(segments, 1), body);
+            case "add_result_for_case":
+                return addResultForCase(id(segments, 1), id(segments, 2), body);
+            case "add_results":
+                return addResults(id(segments, 1), body, false);
+            case "add_results_for_cases":
+                return addResults(id(segments, 1), body, true);
+            case "get_configs":
+                return list(Table.CONFIGS, id(segments, 1), parameters);
+            case "get_user":
+                return get(Table.USERS, id(segments, 1), "user_id");
+            case "get_users":
+                return list(Table.USERS, null, parameters);
+            case "get_user_by_email":
+                return getUserByEmail(parameters.get("email"));
+            case "get_case_fields":
+                return list(Table.CASE_FIELDS, null, parameters);
+            case "get_result_fields":
+                return list(Table.RESULT_FIELDS, null, parameters);
+            case "get_case_types":
+                return list(Table.CASE_TYPES, null, parameters);
+            case "get_priorities":
+                return list(Table.PRIORITIES, null, parameters);
+            case "get_statuses":
+                return list(Table.STATUSES, null, parameters);
+            default:
+                return Response.error(400, "Unknown method '" + command + "'");
+        }
+    }
+
+    private Response get(final Table table, final int id, final String idField) {
+        ObjectNode entity = stores.get(table).entities.get(id);
+        return entity != null ? Response.ok(entity) : notFound(idField);
+    }
+
+    private Response list(final Table table, final Integer parentId, final Map<String, String> parameters) {
+        Store store = stores.get(table);
+        return Response.ok(filter(store.children(parentId), parameters));
+    }
+
+    private Response listOfProject(final Table table, final int projectId, final Map<String, String> parameters) {
+        if (!stores.get(Table.PROJECTS).entities.containsKey(projectId)) {
+            return notFound("project_id");
+        }
+        Collection<ObjectNode> entities = new ArrayList<>();
+        for (ObjectNode suite : stores.get(Table.SUITES).children(projectId)) {
+            if (table == Table.SECTIONS) {
+                entities.addAll(stores.get(Table.SECTIONS).children(suite.get("id").asInt()));
+            } else {
+                for (ObjectNode section : stores.get(Table.SECTIONS).children(suite.get("id").asInt())) {
+                    entities.addAll(stores.get(Table.CASES).children(section.get("id").asInt()));
+                }
+            }
+        }
+        return Response.ok(filter(entities, parameters));
+    }
+
+    private Response add(final Table table, final Table parentTable, final int parentId, final String parentIdField, final ObjectNode body) {
+        if (!stores.get(parentTable).entities.containsKey(parentId)) {
+            return notFound(parentIdField);
+        }
+        return Response.ok(stores.get(table).add(body.put("created_on", now()).put("created_by", 1), parentId));
+    }
+
+    private Response update(final Table table, final int id, final String idField, final ObjectNode changes) {
+        Store store = stores.get(table);
+        ObjectNode entity = store.entities.get(id);
+        if (entity == null) {
+            return notFound(idField);
+        }
+        ObjectNode updated = entity.deepCopy();
+        updated.setAll(changes);
+        updated.put("id", id);
+        store.entities.put(id, updated);
+        return Response.ok(updated);
+    }
+
+    private Response delete(final Table table, final int id, final String idField) {
+        if (stores.get(table).remove(id) == null) {
+            return notFound(idField);
+        }
+        return Response.ok(null);
+    }
+
+    private Response addSection(final int projectId, final ObjectNode body) {
+        int suiteId = body.path("suite_id").asInt();
+        ObjectNode suite = stores.get(Table.SUITES).entities.get(suiteId);
+        if (suite == null || suite.path("project_id").asInt() != projectId) {
+            return notFound("suite_id");
+        }
+        int depth = 0;
+        if (body.hasNonNull("parent_id")) {
+            ObjectNode parent = stores.get(Table.SECTIONS).entities.get(body.get("parent_id").asInt());
+            if (parent == null) {
+                return notFound("parent_id");
+            }
+            depth = parent.path("depth").asInt() + 1;
+        }
+        return Response.ok(stores.get(Table.SECTIONS).add(body.put("depth", depth), suiteId));
+    }
+
+    private Response addCase(final int sectionId, final ObjectNode body) {
+        ObjectNode section = stores.get(Table.SECTIONS).entities.get(sectionId);
+        if (section == null) {
+            return notFound("section_id");
+        }
+        long now = now();
+        body.put("suite_id", section.get("suite_id").asInt()).put("created_by", 1).put("created_on", now).put("updated_by", 1).put("updated_on", now);
+        if (!body.has("type_id")) {
+            body.put("type_id", 1);
+        }
+        if (!body.has("priority_id")) {
+            body.put("priority_id", 2);
+        }
+        return Response.ok(stores.get(Table.CASES).add(body, sectionId));
+    }
+
+    private Response addRun(final int projectId, final ObjectNode body) {
+        if (!stores.get(Table.PROJECTS).entities.containsKey(projectId)) {
+            return notFound("project_id");
+        }
+        return Response.ok(createRun(projectId, body, null, null));
+    }
+
+    private ObjectNode createRun(final int projectId, final ObjectNode body, final Integer planId, final String entryId) {
+        boolean includeAll = !body.has("include_all") || body.get("include_all").asBoolean();
+        body.put("include_all", includeAll).put("is_completed", false).put("created_on", now()).put("created_by", 1);
+        if (planId != null) {
+            body.put("plan_id", planId).put("entry_id", entryId);
+        }
+        ObjectNode run = stores.get(Table.RUNS).add(body, projectId);
+        int runId = run.get("id").asInt();
+        run.put("url", "http://stand-in/index.php?/runs/view/" + runId);
+        Set<Integer> caseIds = new LinkedHashSet<>();
+        if (includeAll) {
+            for (ObjectNode section : stores.get(Table.SECTIONS).children(body.path("suite_id").asInt())) {
+                for (ObjectNode testCase : stores.get(Table.CASES).children(section.get("id").asInt())) {
+                    caseIds.add(testCase.get("id").asInt());
+                }
+            }
+        } else {
+            for (JsonNode caseId : body.path("case_ids")) {
+                caseIds.add(caseId.asInt());
+            }
+        }
+        for (int caseId : caseIds) {
+            ObjectNode testCase = stores.get(Table.CASES).entities.get(caseId);
+            if (testCase != null) {
+                ObjectNode test = testCase.deepCopy();
+                test.remove(Arrays.asList("id", "section_id", "suite_id", "created_by", "created_on", "updated_by", "updated_on"));
+                stores.get(Table.TESTS).add(test.put("case_id", caseId).put("status_id", 3), runId);
+            }
+        }
+        return run;
+    }
+
+    private Response addPlan(final int projectId, final ObjectNode body) {
+        if (!stores.get(Table.PROJECTS).entities.containsKey(projectId)) {
+            return notFound("project_id");
+        }
+        JsonNode entries = body.remove("entries");
+        ObjectNode plan = stores.get(Table.PLANS).add(body.put("is_completed", false).put("created_on", now()).put("created_by", 1), projectId);
+        ArrayNode planEntries = plan.putArray("entries");
+        if (entries != null) {
+            for (JsonNode entry : entries) {
+                planEntries.add(createPlanEntry(plan, (ObjectNode) entry.deepCopy()));
+            }
+        }
+        return Response.ok(plan);
+    }
+
+    private ObjectNode createPlanEntry(final ObjectNode plan, final ObjectNode entry) {
+        String entryId = UUID.randomUUID().toString();
+        int planId = plan.get("id").asInt();
+        int projectId = plan.get("project_id").asInt();
+        JsonNode runs = entry.remove("runs");
+        ObjectNode planEntry = object().put("id", entryId).put("suite_id", entry.path("suite_id").asInt()).put("name", entry.has("name") ? entry.get("name").asText() : null);
+        ArrayNode entryRuns = planEntry.putArray("runs");
+        if (runs == null || runs.size() == 0) {
+            entryRuns.add(createRun(projectId, entry, planId, entryId));
+        } else {
+            for (JsonNode run : runs) {
+                ObjectNode runBody = entry.deepCopy();
+                runBody.setAll((ObjectNode) run);
+                entryRuns.add(createRun(projectId, runBody, planId, entryId));
+            }
+        }
+        return planEntry;
+    }
+
+    private Response addPlanEntry(final int planId, final ObjectNode body) {
+        ObjectNode plan = stores.get(Table.PLANS).entities.get(planId);
+        if (plan == null) {
+            return notFound("plan_id");
+        }
+        ObjectNode updated = plan.deepCopy();
+        ObjectNode entry = createPlanEntry(updated, body);
+        ((ArrayNode) updated.get("entries")).add(entry);
+        stores.get(Table.PLANS).entities.put(planId, updated);
+        return Response.ok(entry);
+    }
+
+    private Response updatePlanEntry(final int planId, final String entryId, final ObjectNode body) {
+        ObjectNode plan = stores.get(Table.PLANS).entities.get(planId);
+        if (plan == null) {
+            return notFound("plan_id");
+        }
+        ObjectNode updated = plan.deepCopy();
+        for (JsonNode entry : updated.path("entries")) {
+            if (entry.path("id").asText().equals(entryId)) {
+                if (body.has("name")) {
+                    ((ObjectNode) entry).put("name", body.get("name").asText());
+                }
+                stores.get(Table.PLANS).entities.put(planId, updated);
+                return Response.ok(entry);
+            }
+        }
+        return notFound("entry_id");
+    }
+
+    private Response deletePlanEntry(final int planId, final String entryId) {
+        ObjectNode plan = stores.get(Table.PLANS).entities.get(planId);
+        if (plan == null) {
+            return notFound("plan_id");
+        }
+        ObjectNode updated = plan.deepCopy();
+        for (Iterator<JsonNode> entries = updated.path("entries").elements(); entries.hasNext(); ) {
+            JsonNode entry = entries.next();
+            if (entry.path("id").asText().equals(entryId)) {
+                entries.remove();
+                for (JsonNode run : entry.path("runs")) {
+                    stores.get(Table.RUNS).remove(run.path("id").asInt());
+                }
+                stores.get(Table.PLANS).entities.put(planId, updated);
+                return Response.ok(null);
+            }
+        }
+        return notFound("entry_id");
+    }
+
+    private Response listResultsForRun(final int runId, final Map<String, String> parameters) {
+        if (!stores.get(Table.RUNS).entities.containsKey(runId)) {
+            return notFound("run_id");
+        }
+        List<ObjectNode> results = new ArrayList<>();
+        for (ObjectNode test : stores.get(Table.TESTS).children(runId)) {
+            results.addAll(stores.get(Table.RESULTS).children(test.get("id").asInt()));
+        }
+        return Response.ok(filter(results, parameters));
+    }
+
+    private Response listResultsForCase(final int runId, final int caseId, final Map<String, String> parameters) {
+        ObjectNode test = findTest(runId, caseId);
+        if (test == null) {
+            return notFound("case_id");
+        }
+        return Response.ok(filter(stores.get(Table.RESULTS).children(test.get("id").asInt()), parameters));
+    }
+
+    private Response addResult(final int testId, final ObjectNode body) {
+        ObjectNode test = stores.get(Table.TESTS).entities.get(testId);
+        if (test == null) {
+            return notFound("test_id");
+        }
+        return Response.ok(createResult(test, body));
+    }
+
+    private Response addResultForCase(final int runId, final int caseId, final ObjectNode body) {
+        ObjectNode test = findTest(runId, caseId);
+        if (test == null) {
+            return notFound("case_id");
+        }
+        return Response.ok(createResult(test, body));
+    }
+
+    private Response addResults(final int runId, final ObjectNode body, final boolean forCases) {
+        if (!stores.get(Table.RUNS).entities.containsKey(runId)) {
+            return notFound("run_id");
+        }
+        List<ObjectNode> tests = new ArrayList<>();
+        for (JsonNode result : body.path("results")) {
+            ObjectNode test = forCases ? findTest(runId, result.path("case_id").asInt()) : stores.get(Table.TESTS).entities.get(result.path("test_id").asInt());
+            if (test == null || test.path("run_id").asInt() != runId) {
+                return notFound(forCases ? "case_id" : "test_id");
+            }
+            tests.add(test);
+        }
+        ArrayNode results = NODES.arrayNode();
+        int i = 0;
+        for (JsonNode result : body.path("results")) {
+            ObjectNode resultBody = (ObjectNode) result.deepCopy();
+            resultBody.remove("case_id");
+            results.add(createResult(tests.get(i++), resultBody));
+        }
+        return Response.ok(results);
+    }
+
+    private ObjectNode createResult(final ObjectNode test, final ObjectNode body) {
+        int testId = test.get("id").asInt();
+        ObjectNode result = stores.get(Table.RESULTS).add(body.put("created_on", now()).put("created_by", 1), testId);
+        if (body.hasNonNull("status_id")) {
+            ObjectNode updatedTest = test.deepCopy();
+            updatedTest.put("status_id", body.get("status_id").asInt());
+            stores.get(Table.TESTS).entities.put(testId, updatedTest);
+        }
+        return result;
+    }
+
+    private ObjectNode findTest(final int runId, final int caseId) {
+        for (ObjectNode test : stores.get(Table.TESTS).children(runId)) {
+            if (test.path("case_id").asInt() == caseId) {
+                return test;
+            }
+        }
+        return null;
+    }
+
+    private Response getUserByEmail(final String email) {
+        for (ObjectNode user : stores.get(Table.USERS).entities.values()) {
+            if (user.path("email").asText().equalsIgnoreCase(email)) {
+                return Response.ok(user);
+            }
+        }
+        return notFound("email");
+    }
+
+    /**
+     * Filter entities by the query parameters naming one of their fields, with comma separated values for ID fields.
+     * Parameters for fields the entities do not have, such as date ranges, are ignored.
+     */
+    private static ArrayNode filter(final Collection<ObjectNode> entities, final Map<String, String> parameters) {
+        Map<String, Set<String>> filters = new HashMap<>();
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            if (!PAGING_PARAMETERS.contains(parameter.getKey())) {
+                filters.put(parameter.getKey(), new HashSet<>(Arrays.asList(parameter.getValue().split(","))));
+            }
+        }
+        int offset = parameters.containsKey("offset") ? Integer.parseInt(parameters.get("offset")) : 0;
+        int limit = parameters.containsKey("limit") ? Integer.parseInt(parameters.get("limit")) : Integer.MAX_VALUE;
+        ArrayNode matches = NODES.arrayNode();
+        int skipped = 0;
+        for (ObjectNode entity : entities) {
+            if (matches.size() >= limit) {
+                break;
+            }
+            if (matches(entity, filters)) {
+                if (skipped++ >= offset) {
+                    matches.add(entity);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static boolean matches(final ObjectNode entity, final Map<String, Set<String>> filters) {
+        for (Map.Entry<String, Set<String>> filter : filters.entrySet()) {
+            JsonNode value = entity.get(filter.getKey());
+            if (value == null) {
+                continue;
+            }
+            String text = value.isBoolean() ? (value.asBoolean() ? "1" : "0") : value.asText();
+            if (!filter.getValue().contains(text)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String decode(final String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int id(final String[] segments, final int index) {
+        return Integer.parseInt(segments[index]);
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static ObjectNode object() {
+        return NODES.objectNode();
+    }
+
+    private static Response notFound(final String field) {
+        return Response.error(400, "Field :" + field + " is not a valid ID.");
+    }
+
+    /**
+     * Entities of a table, indexed by ID and by the entity they belong to.
+     */
+    private static final class Store {
+
+        private final String parentField;
+        private final Map<Integer, ObjectNode> entities = new LinkedHashMap<>();
+        private final Map<Integer, Set<Integer>> children = new HashMap<>();
+        private int lastId;
+
+        Store(final String parentField) {
+            this.parentField = parentField;
+        }
+
+        int insert(final ObjectNode entity) {
+            int id = entity.path("id").asInt();
+            if (id <= 0) {
+                id = ++lastId;
+                entity.put("id", id);
+            } else {
+                lastId = Math.max(lastId, id);
+            }
+            entities.put(id, entity);
+            if (parentField != null && entity.hasNonNull(parentField)) {
+                Set<Integer> siblings = children.get(entity.get(parentField).asInt());
+                if (siblings == null) {
+                    siblings = new LinkedHashSet<>();
+                    children.put(entity.get(parentField).asInt(), siblings);
+                }
+                siblings.add(id);
+            }
+            return id;
+        }
+
+        ObjectNode add(final ObjectNode body, final Integer parentId) {
+            ObjectNode entity = body.deepCopy();
+            entity.remove("id");
+            if (parentId != null) {
+                entity.put(parentField, parentId);
+            }
+            insert(entity);
+            return entity;
+        }
+
+        ObjectNode remove(final int id) {
+            ObjectNode entity = entities.remove(id);
+            if (entity != null && parentField != null && entity.hasNonNull(parentField)) {
+                Set<Integer> siblings = children.get(entity.get(parentField).asInt());
+                if (siblings != null) {
+                    siblings.remove(id);
+                }
+            }
+            return entity;
+        }
+
+        Collection<ObjectNode> children(final Integer parentId) {
+            if (parentId == null) {
+                return new ArrayList<>(entities.values());
+            }
+            Set<Integer> ids = children.get(parentId);
+            if (ids == null) {
+                return Collections.emptyList();
+            }
+            List<ObjectNode> entities = new ArrayList<>(ids.size());
+            for (int id : ids) {
+                entities.add(this.entities.get(id));
+            }
+            return entities;
+        }
+    }
+
+    /**
+     * Status and JSON body of a response.
+     */
+    @Value
+    static class Response {
+        int status;
+        JsonNode body;
+
+        static Response ok(final JsonNode body) {
+            return new Response(200, body);
+        }
+
+        static Response error(final int status, final String message) {
+            return new Response(status, NODES.objectNode().put("error", message));
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Kunal Shah
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.codepine.api.testrail.transport;
+
+import com.codepine.api.testrail.TestRail;
+import com.codepine.api.testrail.model.Run;
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link com.codepine.api.testrail.transport.PooledHttpTransport}.
+ * <p>This test runs against an in-process HTTP server to exercise real sockets.</p>
+ */
+public class PooledHttpTransportTest {
+
+    private static final int LARGE_RESPONSE_RUNS = 1000000;
+
+    private final Set<Integer> clientPorts = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+    private final AtomicLong largeResponseBytesWritten = new AtomicLong();
+    private final CountDownLatch largeResponseDone = new CountDownLatch(1);
+    private HttpServer server;
+    private String baseUrl;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                clientPorts.add(exchange.getRemoteAddress().getPort());
+                byte[] requestBody = ByteStreams.toByteArray(exchange.getRequestBody());
+                byte[] responseBody = ("{\"method\":\"" + exchange.getRequestMethod() + "\",\"length\":" + requestBody.length + "}").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("X-Test", "yes");
+                exchange.sendResponseHeaders(200, responseBody.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(responseBody);
+                }
+            }
+        });
+        server.createContext("/index.php", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                // a list of runs far larger than the socket buffers, written until the client goes away
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write('[');
+                    for (int id = 1; id <= LARGE_RESPONSE_RUNS; id++) {
+                        byte[] run = ((id > 1 ? "," : "") + "{\"id\":" + id + ",\"name\":\"Nightly run " + id + "\",\"suite_id\":1}").getBytes(StandardCharsets.UTF_8);
+                        body.write(run);
+                        largeResponseBytesWritten.addAndGet(run.length);
+                    }
+                    body.write(']');
+                } catch (IOException e) {
+                    // the client closed the connection
+                } finally {
+                    largeResponseDone.countDown();
+                }
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void W_sequentialRequests_T_connectionIsReused() throws IOException {
+        // GIVEN
+        try (PooledHttpTransport transport = PooledHttpTransport.builder().maxConnections(2).maxConnectionsPerRoute(1).build()) {
+
+            // WHEN
+            for (int i = 0; i < 5; i++) {
+                try (HttpResponse response = transport.execute(new HttpRequest("GET", baseUrl + "get_model/1", Collections.<String, String>emptyMap(), null))) {
+                    assertEquals(200, response.getStatusCode());
+                    assertEquals("{\"method\":\"GET\",\"length\":0}", read(response.getBody()));
+                }
+            }
+
+            // THEN
+            assertEquals(1, clientPorts.size());
+            assertEquals(0, transport.getLeasedConnections());
+            assertEquals(1, transport.getAvailableConnections());
+        }
+    }
+
+    @Test
+    public void W_postWithBody_T_bodyAndHeadersTransferred() throws IOException {
+        // GIVEN
+        final byte[] content = "{\"name\":\"Test Model 1\"}".getBytes(StandardCharsets.UTF_8);
+        HttpRequest.Body body = new HttpRequest.Body() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                ByteStreams.copy(new ByteArrayInputStream(content), outputStream);
+            }
+        };
+
+        // WHEN
+        try (PooledHttpTransport transport = PooledHttpTransport.builder().build();
+             HttpResponse response = transport.execute(new HttpRequest("POST", baseUrl + "add_model/1", Collections.singletonMap("Content-Type", "application/json"), body))) {
+
+            // THEN
+            assertEquals(200, response.getStatusCode());
+            assertEquals("yes", response.getHeader("X-Test"));
+            assertNull(response.getHeader("X-Missing"));
+            assertEquals("{\"method\":\"POST\",\"length\":" + content.length + "}", read(response.getBody()));
+        }
+    }
+
+    @Test
+    public void G_largeList_W_closeStreamAfterFirstEntity_T_restOfResponseNotRead() throws Exception {
+        // GIVEN
+        try (PooledHttpTransport transport = PooledHttpTransport.builder().build()) {
+            TestRail testRail = TestRail.builder(baseUrl, "user", "password").transport(transport).build();
+
+            // WHEN
+            Run firstRun;
+            try (Stream<Run> runs = testRail.runs().list(1).executeAsStream()) {
+                firstRun = runs.findFirst().get();
+            }
+
+            // THEN
+            assertEquals(1, firstRun.getId());
+            assertTrue(largeResponseDone.await(10, TimeUnit.SECONDS));
+            long bytesWritten = largeResponseBytesWritten.get();
+            assertTrue("bytes written: " + bytesWritten, bytesWritten < 16 * 1024 * 1024);
+            assertEquals(0, transport.getLeasedConnections());
+        }
+    }
+
+    private static String read(InputStream inputStream) throws IOException {
+        return new String(ByteStreams.toByteArray(inputStream), StandardCharsets.UTF_8);
+    }
+}